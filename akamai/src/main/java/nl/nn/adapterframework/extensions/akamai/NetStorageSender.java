@@ -26,6 +26,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -159,7 +160,20 @@ public class NetStorageSender extends HttpSenderBase {
 
 	@Override
 	public Message sendMessage(Message message, PipeLineSession session) throws SenderException, TimeOutException {
+		storePath(message, session);
 
+		//We don't need to send any message to the HttpSenderBase
+		return super.sendMessage(new Message(""), session);
+	}
+
+	@Override
+	public CompletableFuture<Message> sendMessageAsync(Message message, PipeLineSession session) throws SenderException {
+		storePath(message, session);
+
+		return super.sendMessageAsync(new Message(""), session);
+	}
+
+	private void storePath(Message message, PipeLineSession session) throws SenderException {
 		//The input of this sender is the path where to send or retrieve info from.
 		String path;
 		try {
@@ -170,9 +184,6 @@ public class NetStorageSender extends HttpSenderBase {
 		//Store the input in the PipeLineSession, so it can be resolved as ParameterValue.
 		//See {@link HttpSenderBase#getURI getURI(..)} how this is resolved
 		session.put(URL_PARAM_KEY, path);
-
-		//We don't need to send any message to the HttpSenderBase
-		return super.sendMessage(new Message(""), session);
 	}
 
 	@Override
@@ -108,7 +108,7 @@ public abstract class AbstractRecordHandler implements IRecordHandler, IWithPara
 	}
 	
 	private List<String> parseUsingInputFields(String record) {
-		List<String> result = new ArrayList<>();
+		List<String> result = new ArrayList<>(inputFields.size());
 
 		int recordLength = record.length(); 
 		int curPos = 0;
@@ -116,21 +116,7 @@ public abstract class AbstractRecordHandler implements IRecordHandler, IWithPara
 			InputField field = fieldIt.next();
 			int endPos = curPos + field.length; 
 			
-			String item;
-			if (curPos >= recordLength) {
-				item="";
-			}
-			else if (endPos >= recordLength) {
-				item=record.substring(curPos);
-			}
-			else {
-				item=record.substring(curPos, endPos);
-			}
-			if (isTrim()) {
-				result.add(item.trim());
-			} else {
-				result.add(item);
-			}
+			result.add(getField(record, Math.min(curPos, recordLength), Math.min(endPos, recordLength)));
 			
 			curPos = endPos;
 		}
@@ -145,27 +131,35 @@ public abstract class AbstractRecordHandler implements IRecordHandler, IWithPara
 		do {
 			int startNdx = endNdx + 1;
 			endNdx = record.indexOf(inputSeparator, startNdx);
-			String item;
-			if (endNdx == -1) {
-				item=record.substring(startNdx);
-			}
-			else {
-				item=record.substring(startNdx, endNdx);
-			}
-			if (isTrim()) {
-				result.add(item.trim());
-			} else {
-				result.add(item);
-			}
+			result.add(getField(record, startNdx, endNdx == -1 ? record.length() : endNdx));
 		}
 		while(endNdx != -1);
 		
 		return result;
 	}
+
+	/*
+	 * Determines the bounds of the (trimmed) field before copying it, so only a single String is created per field
+	 */
+	private String getField(String record, int startNdx, int endNdx) {
+		if (isTrim()) {
+			while (startNdx < endNdx && record.charAt(startNdx) <= ' ') {
+				startNdx++;
+			}
+			while (endNdx > startNdx && record.charAt(endNdx - 1) <= ' ') {
+				endNdx--;
+			}
+		}
+		if (startNdx >= endNdx) {
+			return "";
+		}
+		return record.substring(startNdx, endNdx);
+	}
 	
 	@Override
 	public String getRecordType(List<String> record) {
 		String result=null;
+		StringBuilder builder=null;
 		
 		for (Iterator<Integer> it = recordIdentifyingFields.iterator(); it.hasNext();) {
 			int i = (it.next()).intValue();
@@ -174,10 +168,13 @@ public abstract class AbstractRecordHandler implements IRecordHandler, IWithPara
 			if (result==null) {
 				result=fieldValue;
 			} else {
-				result+="_"+fieldValue;
+				if (builder==null) {
+					builder=new StringBuilder(result);
+				}
+				builder.append('_').append(fieldValue);
 			}
 		}
-		return result;
+		return builder!=null ? builder.toString() : result;
 	}
 	
 	@Override
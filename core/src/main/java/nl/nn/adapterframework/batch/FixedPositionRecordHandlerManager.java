@@ -45,17 +45,15 @@ public class FixedPositionRecordHandlerManager extends RecordHandlerManager {
 			RecordHandlingFlow rhf = null;
 			for(String name: valueHandlersMap.keySet()) {
 				if (log.isTraceEnabled()) log.trace("determining value for record ["+record+"] with key ["+name+"] and startPosition ["+startPosition+"]");
-				if (name.length()<=record.length()) {
-					value = record.substring(startPosition, name.length());
-					if (value.equals(name) && (rhf = valueHandlersMap.get(name))!=null) {
-						break;
-					}
+				// compare in place, to avoid creating a substring of the record for every key
+				if (record.startsWith(name, startPosition) && (rhf = valueHandlersMap.get(name))!=null) {
+					break;
 				}
 			}
 			if (rhf == null) {
 				rhf =getFlowMap().get("*");
 				if (rhf == null) {
-					throw new Exception("No handlers (flow) found for recordKey [" + value + "]");
+					throw new Exception("No handlers (flow) found for record [" + record + "] at position [" + startPosition + "]");
 				}
 			}
 			return rhf;
@@ -18,15 +18,14 @@ package nl.nn.adapterframework.batch;
 import java.lang.reflect.Constructor;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
 import java.util.StringTokenizer;
-import java.util.Vector;
 
 import nl.nn.adapterframework.configuration.ConfigurationException;
 import nl.nn.adapterframework.core.PipeLineSession;
@@ -62,16 +61,18 @@ public class RecordTransformer extends AbstractRecordHandler {
 
 	private String outputSeparator;
 
-	private List<IOutputField> outputFields=new LinkedList<>();
+	private List<IOutputField> outputFields=new ArrayList<>();
+	private int outputLengthHint=16;
 
 	
 	@Override
 	public String handleRecord(PipeLineSession session, List<String> parsedRecord) throws Exception {
-		StringBuffer output = new StringBuffer();
-		Stack<IOutputField> conditions = new Stack<>();
+		// size the output like the previous records, to avoid growing it while appending
+		StringBuilder output = new StringBuilder(outputLengthHint);
+		Deque<IOutputField> conditions = null;
 		
-		for (Iterator<IOutputField> outputFieldIt = outputFields.iterator(); outputFieldIt.hasNext();) {
-			IOutputField outputField = outputFieldIt.next();
+		for (int i=0; i<outputFields.size(); i++) {
+			IOutputField outputField = outputFields.get(i);
 			
 			// if outputfields are to be seperator with delimiter
 			if (outputSeparator != null && output.length() > 0) {
@@ -79,9 +80,12 @@ public class RecordTransformer extends AbstractRecordHandler {
 			}
 			
 			// if not in a condition
-			if (conditions.isEmpty()) {
+			if (conditions == null || conditions.isEmpty()) {
 				IOutputField condition = outputField.appendValue(outputField, output, parsedRecord);
 				if (condition != null) {
+					if (conditions == null) {
+						conditions = new ArrayDeque<>();
+					}
 					conditions.push(condition);
 				}
 			}
@@ -98,6 +102,9 @@ public class RecordTransformer extends AbstractRecordHandler {
 			}
 		}
 		if (output.length() > 0) {
+			if (output.length() > outputLengthHint) {
+				outputLengthHint = output.length();
+			}
 			return output.toString();
 		}
 		return null;
@@ -296,7 +303,27 @@ public class RecordTransformer extends AbstractRecordHandler {
 	 * @author John Dekker
 	 */
 	public interface IOutputField {
-		IOutputField appendValue(IOutputField curFunction, StringBuffer result, List<String> inputFields) throws Exception;
+		/**
+		 * Appends the value of this function to the result. Implementations must override this method
+		 * or the deprecated variant that appends to a StringBuffer.
+		 */
+		default IOutputField appendValue(IOutputField curFunction, StringBuilder result, List<String> inputFields) throws Exception {
+			StringBuffer buffer = new StringBuffer();
+			IOutputField condition = appendValue(curFunction, buffer, inputFields);
+			result.append(buffer);
+			return condition;
+		}
+
+		/**
+		 * @deprecated implement {@link #appendValue(IOutputField, StringBuilder, List)} instead
+		 */
+		@Deprecated
+		default IOutputField appendValue(IOutputField curFunction, StringBuffer result, List<String> inputFields) throws Exception {
+			StringBuilder builder = new StringBuilder();
+			IOutputField condition = appendValue(curFunction, builder, inputFields);
+			result.append(builder);
+			return condition;
+		}
 	}
 	
 	/**
@@ -322,7 +349,7 @@ public class RecordTransformer extends AbstractRecordHandler {
 		}
 
 		@Override
-		public IOutputField appendValue(IOutputField curFunction, StringBuffer result, List<String> inputFields) throws ConfigurationException {
+		public IOutputField appendValue(IOutputField curFunction, StringBuilder result, List<String> inputFields) throws ConfigurationException {
 			result.append(toValue(inputFields));
 			return null;
 		}
@@ -352,25 +379,25 @@ public class RecordTransformer extends AbstractRecordHandler {
 		}
 		
 		@Override
-		public IOutputField appendValue(IOutputField curFunction, StringBuffer result, List<String> inputFields) throws ConfigurationException {
+		public IOutputField appendValue(IOutputField curFunction, StringBuilder result, List<String> inputFields) throws ConfigurationException {
 			String val = super.toValue(inputFields).trim();
 			
 			if (startIndex >= val.length()) {
 				if (StringUtils.isEmpty(getOutputSeparator())) {
-					result.append(FileUtils.getFilledArray(endIndex - startIndex, ' '));
+					FileUtils.fill(result, endIndex - startIndex, ' ');
 				}
 			}
 			else if (endIndex >= val.length()) {
-				result.append(val.substring(startIndex));
+				result.append(val, startIndex, val.length());
 				if (StringUtils.isEmpty(getOutputSeparator())) {
 					int fillSize = endIndex - startIndex - val.length();
 					if (fillSize > 0) {
-						result.append(FileUtils.getFilledArray(fillSize, ' '));
+						FileUtils.fill(result, fillSize, ' ');
 					}
 				}
 			}
 			else {
-				result.append(val.substring(startIndex, endIndex));
+				result.append(val, startIndex, endIndex);
 			}
 			return null;
 		}
@@ -393,7 +420,7 @@ public class RecordTransformer extends AbstractRecordHandler {
 		}
 		
 		@Override
-		public IOutputField appendValue(IOutputField curFunction, StringBuffer result, List<String> inputFields) throws ConfigurationException {
+		public IOutputField appendValue(IOutputField curFunction, StringBuilder result, List<String> inputFields) throws ConfigurationException {
 			String val = super.toValue(inputFields).trim();
 			FileUtils.align(result, val, length, leftAlign, fillchar);
 			return null;
@@ -412,7 +439,7 @@ public class RecordTransformer extends AbstractRecordHandler {
 		}
 
 		@Override
-		public IOutputField appendValue(IOutputField curFunction, StringBuffer result, List<String> inputFields) {
+		public IOutputField appendValue(IOutputField curFunction, StringBuilder result, List<String> inputFields) {
 			result.append(fixedOutput);
 			return null;
 		}
@@ -451,7 +478,7 @@ public class RecordTransformer extends AbstractRecordHandler {
 		}
 		
 		@Override
-		public IOutputField appendValue(IOutputField curFunction, StringBuffer result, List<String> inputFields) throws ConfigurationException {
+		public IOutputField appendValue(IOutputField curFunction, StringBuilder result, List<String> inputFields) throws ConfigurationException {
 			String inVal = super.toValue(inputFields);
 			String outVal = null;
 			if (inVal != null) {
@@ -474,27 +501,28 @@ public class RecordTransformer extends AbstractRecordHandler {
 	 */
 	class FixedDateOutput implements IOutputField {
 		private int inputFieldIndex = -1;
-		private SimpleDateFormat outFormatter;
-		private SimpleDateFormat inFormatter;
+		// SimpleDateFormat is not thread safe, and records can be transformed in parallel
+		private ThreadLocal<SimpleDateFormat> outFormatter;
+		private ThreadLocal<SimpleDateFormat> inFormatter;
 		
 		FixedDateOutput(String outFormatPattern, String inFormatPattern, int inputFieldIndex) {
 			this.inputFieldIndex = inputFieldIndex;
 			if (StringUtils.isEmpty(outFormatPattern)) {
-				this.outFormatter = new SimpleDateFormat();
+				this.outFormatter = ThreadLocal.withInitial(SimpleDateFormat::new);
 			}
 			else {
-				this.outFormatter = new SimpleDateFormat(outFormatPattern);
+				this.outFormatter = ThreadLocal.withInitial(() -> new SimpleDateFormat(outFormatPattern));
 			}
 			if (StringUtils.isEmpty(inFormatPattern)) {
-				this.inFormatter = new SimpleDateFormat();
+				this.inFormatter = ThreadLocal.withInitial(SimpleDateFormat::new);
 			}
 			else {
-				this.inFormatter = new SimpleDateFormat(inFormatPattern);
+				this.inFormatter = ThreadLocal.withInitial(() -> new SimpleDateFormat(inFormatPattern));
 			}
 		}
 		
 		@Override
-		public IOutputField appendValue(IOutputField curFunction, StringBuffer result, List<String> inputFields) throws ParseException, ConfigurationException {
+		public IOutputField appendValue(IOutputField curFunction, StringBuilder result, List<String> inputFields) throws ParseException, ConfigurationException {
 			Date date = null;
 			
 			if (inputFieldIndex < 0) {
@@ -504,9 +532,9 @@ public class RecordTransformer extends AbstractRecordHandler {
 				if (inputFieldIndex >= inputFields.size()) {
 					throw new ConfigurationException("Function refers to a non-existing inputfield [" + inputFieldIndex + "]");				
 				}
-				date = inFormatter.parse(inputFields.get(inputFieldIndex));
+				date = inFormatter.get().parse(inputFields.get(inputFieldIndex));
 			}
-			result.append(outFormatter.format(date));
+			result.append(outFormatter.get().format(date));
 			return null;
 		}		
 	}
@@ -519,7 +547,7 @@ public class RecordTransformer extends AbstractRecordHandler {
 		private boolean output;
 		 
 		@Override
-		public IOutputField appendValue(IOutputField curFunction, StringBuffer result, List<String> inputFields) throws Exception {
+		public IOutputField appendValue(IOutputField curFunction, StringBuilder result, List<String> inputFields) throws Exception {
 			// first call, check wether the condition is true or false 
 			if (this == curFunction) {
 				output = conditionIsTrue(inputFields);
@@ -559,6 +587,7 @@ public class RecordTransformer extends AbstractRecordHandler {
 		private int inputFieldIndex;
 		private int comparator;
 		private String compareValue;
+		private List<String> compareValues;
 		 
 		IfCondition(int inputFieldIndex, String comparator, String compareValue) throws ConfigurationException {
 			this.inputFieldIndex = inputFieldIndex;
@@ -576,6 +605,13 @@ public class RecordTransformer extends AbstractRecordHandler {
 				throw new ConfigurationException("If function does not support [" + comparator + "]");				
 
 			this.compareValue = compareValue;			
+			if (compareValue.startsWith("{") && compareValue.endsWith("}")) { 
+				compareValues = new ArrayList<String>();
+				StringTokenizer st = new StringTokenizer(compareValue.substring(1, compareValue.length() - 1),"|");
+				while (st.hasMoreTokens()) {
+					compareValues.add(st.nextToken());
+				}
+			}
 		}
 		 
 		@Override
@@ -585,18 +621,14 @@ public class RecordTransformer extends AbstractRecordHandler {
 			}
 			String val = inputFields.get(inputFieldIndex);
 
-			if (compareValue.startsWith("{") && compareValue.endsWith("}")) { 
-				Vector<String> v = new Vector<String>();
-				StringTokenizer st = new StringTokenizer(compareValue.substring(1, compareValue.length() - 1),"|");
-				while (st.hasMoreTokens()) {
-					v.add(st.nextToken());
-				}
+			if (compareValues != null) { 
+				List<String> v = compareValues;
 				switch(comparator) {
 					case 1: // eq
 						return v.contains(val);
 					case 3: // sw
 						for (int i = 0; i < v.size(); i++) {
-							String  vs = v.elementAt(i);
+							String  vs = v.get(i);
 							if (val.startsWith(vs)) {
 								return true;
 							}
@@ -604,7 +636,7 @@ public class RecordTransformer extends AbstractRecordHandler {
 						return false;
 					case 4: // ns
 						for (int i = 0; i < v.size(); i++) {
-							String  vs = v.elementAt(i);
+							String  vs = v.get(i);
 							if (val.startsWith(vs)) {
 								return false;
 							}
@@ -638,7 +670,7 @@ public class RecordTransformer extends AbstractRecordHandler {
 	 */
 	class EndIfCondition implements IOutputField {
 		@Override
-		public IOutputField appendValue(IOutputField curFunction,StringBuffer result,List<String> inputFields) throws Exception {
+		public IOutputField appendValue(IOutputField curFunction,StringBuilder result,List<String> inputFields) throws Exception {
 			throw new Exception("Endif function has no corresponding if");
 		}
 	}
@@ -672,7 +704,7 @@ public class RecordTransformer extends AbstractRecordHandler {
 		}
 
 		@Override
-		public IOutputField appendValue(IOutputField curFunction, StringBuffer result, List<String> inputFields) {
+		public IOutputField appendValue(IOutputField curFunction, StringBuilder result, List<String> inputFields) {
 			String transform = delegate.transform(getInputFieldIndex(), inputFields, params);
 			result.append(transform);
 			return null;
@@ -19,13 +19,18 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.task.TaskExecutor;
 
 import nl.nn.adapterframework.configuration.ConfigurationException;
 import nl.nn.adapterframework.configuration.ConfigurationWarnings;
@@ -72,6 +77,9 @@ public class StreamTransformerPipe extends FixedForwardPipe {
 	private boolean storeOriginalBlock=false;
 	private boolean closeInputstreamOnExit=true;
 	private String charset=StreamUtil.DEFAULT_INPUT_STREAM_ENCODING;
+	private int maxThreads=1;
+	private int chunkSize=100;
+	private TaskExecutor taskExecutor;
 
 	private IRecordHandlerManager initialManager=null;
 	private IResultHandler defaultHandler=null;
@@ -136,6 +144,17 @@ public class StreamTransformerPipe extends FixedForwardPipe {
 		if (initialManager==null) {
 			throw new ConfigurationException("no initial manager specified");
 		}
+		if (getMaxThreads()>1) {
+			if (isStoreOriginalBlock()) {
+				throw new ConfigurationException("storeOriginalBlock cannot be used in combination with maxThreads > 1");
+			}
+			if (getChunkSize()<1) {
+				throw new ConfigurationException("chunkSize must be at least 1");
+			}
+			if (getTaskExecutor()==null) {
+				throw new ConfigurationException("no taskExecutor available to transform records in parallel");
+			}
+		}
 		for (String managerName: registeredManagers.keySet()) {
 			IRecordHandlerManager manager = getManager(managerName);
 			manager.configure(registeredManagers, registeredRecordHandlers, registeredResultHandlers, defaultHandler);
@@ -409,114 +428,261 @@ public class StreamTransformerPipe extends FixedForwardPipe {
 	 * it using the registered managers, record- and result handlers.
 	 */	
 	private String transform(String streamId, BufferedReader reader, PipeLineSession session) throws PipeRunException {
-		String rawRecord = null;
-		int linenumber = 0;
-		int counter = 0;
-		StringBuffer sb = null;
-		List<String> prevParsedRecord = null; 
-		IRecordHandler prevHandler = null;
-
-		IRecordHandlerManager currentManager = initialManager.getRecordFactoryUsingFilename(session, streamId);
+		RecordSequencer sequencer = new RecordSequencer(session, streamId);
 		try {
 			openDocument(session,streamId);
+			if (getMaxThreads()>1) {
+				transformInParallel(reader, sequencer);
+			} else {
+				Record record;
+				while ((record = sequencer.readRecord(reader)) != null) {
+					if (record.flow == null) {
+						continue;
+					}
+					sequencer.beforeRecord(record);
+					transformRecord(session, record);
+					sequencer.afterRecord(record);
+				}
+			}
+			return finalizeResult(session, streamId, false);
+		} catch(Exception e) {
+			try {
+				finalizeResult(session, streamId, true);
+		 	} catch(Throwable t) {
+				log.error("Unexpected error during finalizeResult of [" + streamId + "]", t);
+			}
+			throw new PipeRunException(this, "Error while transforming [" + streamId + "] at or after line [" + sequencer.getLinenumber()+"]", e);		
+		} finally {
+			closeDocument(session,streamId);
+		}
+	}
+
+	/*
+	 * The current thread reads the records and determines their flow, chunks of records are parsed and transformed
+	 * by the taskExecutor, and the results are handed to the result handlers by the current thread, in the original order.
+	 */
+	private void transformInParallel(BufferedReader reader, RecordSequencer sequencer) throws Exception {
+		Deque<FutureTask<List<Record>>> pendingChunks = new ArrayDeque<>();
+		try {
+			List<Record> chunk = new ArrayList<>(getChunkSize());
+			Record record;
+			while ((record = sequencer.readRecord(reader)) != null) {
+				if (record.flow == null) {
+					continue;
+				}
+				chunk.add(record);
+				if (chunk.size()>=getChunkSize()) {
+					pendingChunks.add(submitChunk(sequencer.session, chunk));
+					chunk = new ArrayList<>(getChunkSize());
+					// limit the number of records in memory, while keeping the threads busy
+					while (pendingChunks.size()>2*getMaxThreads()) {
+						sequencer.handleChunk(getChunk(pendingChunks.removeFirst()));
+					}
+				}
+			}
+			if (!chunk.isEmpty()) {
+				pendingChunks.add(submitChunk(sequencer.session, chunk));
+			}
+			while (!pendingChunks.isEmpty()) {
+				sequencer.handleChunk(getChunk(pendingChunks.removeFirst()));
+			}
+		} finally {
+			for (FutureTask<List<Record>> pendingChunk: pendingChunks) {
+				pendingChunk.cancel(true);
+			}
+		}
+	}
+
+	private FutureTask<List<Record>> submitChunk(PipeLineSession session, List<Record> chunk) {
+		// the session is modified by the result handlers while the chunk is transformed, so the record handlers get a copy
+		PipeLineSession chunkSession = new PipeLineSession(session);
+		FutureTask<List<Record>> task = new FutureTask<>(() -> {
+			for (Record record: chunk) {
+				try {
+					transformRecord(chunkSession, record);
+				} catch (Exception e) {
+					// the exception is thrown when the record is handed to the result handlers, after all preceding records
+					record.exception = e;
+					break;
+				}
+			}
+			return chunk;
+		});
+		getTaskExecutor().execute(task);
+		return task;
+	}
+
+	private List<Record> getChunk(FutureTask<List<Record>> pendingChunk) throws Exception {
+		try {
+			return pendingChunk.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof Exception ? (Exception)cause : e;
+		}
+	}
+
+	private void transformRecord(PipeLineSession session, Record record) throws Exception {
+		IRecordHandler curHandler = record.flow.getRecordHandler();
+		if (curHandler != null) {
+			if (log.isDebugEnabled()) log.debug("manager ["+record.manager.getName()+"] key ["+record.flow.getRecordKey()+"] record handler ["+curHandler.getName()+"] line ["+record.linenumber+"] record ["+record.rawRecord+"]");
+			// there is a record handler, so transform the line
+			record.parsedRecord = curHandler.parse(session, record.rawRecord);
+			record.result = curHandler.handleRecord(session, record.parsedRecord);
+		}
+	}
+
+	private static class Record {
+		int linenumber;
+		String rawRecord;
+		IRecordHandlerManager manager;
+		RecordHandlingFlow flow;
+		List<String> parsedRecord;
+		String result;
+		Exception exception;
+	}
+
+	/*
+	 * Keeps the state of a single transformation, and handles the records in the order in which they were read.
+	 */
+	private class RecordSequencer {
+		private final PipeLineSession session;
+		private final String streamId;
+		private IRecordHandlerManager currentManager;
+		private int linesRead = 0;
+		private int linenumber = 0; // linenumber of the record that is handled, for the exception handler
+		private int counter = 0;
+		private StringBuffer sb = null;
+		private List<String> prevParsedRecord = null; 
+		private IRecordHandler prevHandler = null;
+
+		RecordSequencer(PipeLineSession session, String streamId) {
+			this.session = session;
+			this.streamId = streamId;
+		}
+
+		/*
+		 * Reads the next non-empty line and determines its flow, which is <code>null</code> when no handlers are registered for the line.
+		 * Returns <code>null</code> at the end of the input.
+		 */
+		Record readRecord(BufferedReader reader) throws Exception {
+			if (currentManager == null) {
+				currentManager = initialManager.getRecordFactoryUsingFilename(session, streamId);
+			}
+			String rawRecord;
 			while ((rawRecord = reader.readLine()) != null) {
 				if (Thread.currentThread().isInterrupted()) {
 					throw new InterruptedException();
 				}
-				linenumber++; // remember linenumber for exception handler
+				linesRead++;
 				if (StringUtils.isEmpty(rawRecord)) {
 					continue; // ignore empty line
 				}
-				
+				Record record = new Record();
+				record.linenumber = linesRead;
+				record.rawRecord = rawRecord;
+				record.manager = currentManager;
 				// get handlers for current line
-				RecordHandlingFlow flow = currentManager.getRecordHandler(session, rawRecord);
-				if (flow == null) {
+				record.flow = currentManager.getRecordHandler(session, rawRecord);
+				if (record.flow == null) {
 					log.debug("<no flow>: "+rawRecord);
-					continue; // ignore line for which no handlers are registered
-				} 
-				//log.debug("flow ["+flow.getRecordKey()+"] openBlockBeforeLine ["+flow.getOpenBlockBeforeLine()+"]");
-				IResultHandler resultHandler = flow.getResultHandler();
-				closeBlock(session, resultHandler, streamId, flow, flow.getCloseBlockBeforeLine(),"closeBlockBeforeLine of flow ["+flow.getRecordKey()+"]");
-				String obbl = null;
-				if (flow.getOpenBlockBeforeLineNumber()>0) {
-					if (counter%flow.getOpenBlockBeforeLineNumber()==0) {
-						obbl = flow.getOpenBlockBeforeLine();
-					}
-				} else {
-					obbl = flow.getOpenBlockBeforeLine();				
+					return record; // ignore line for which no handlers are registered
 				}
-				openBlock(session, resultHandler, streamId, flow, obbl);
-
-				if (isStoreOriginalBlock()) {
-					if (resultHandler instanceof ResultBlock2Sender) {
-						// If session does not contain a previous block, it never existed, or has been removed by closing the block.
-						// In both cases a new block has just started
-						if (!session.containsKey(originalBlockKey)) {
-							sb = new StringBuffer();
-						}
-						if (sb.length()>0) {
-							sb.append(System.getProperty("line.separator"));
-						}
-						sb.append(rawRecord);
-						// already put the block in the session, also if the block is not yet complete.
-						session.put(originalBlockKey, sb.toString());
+				// get the manager for the next record
+				currentManager = record.flow.getNextRecordHandlerManager();
+				return record;
+			}
+			return null;
+		}
+
+		int getLinenumber() {
+			return linenumber>0 ? linenumber : linesRead;
+		}
+
+		void handleChunk(List<Record> chunk) throws Exception {
+			for (Record record: chunk) {
+				linenumber = record.linenumber;
+				if (record.exception != null) {
+					throw record.exception;
+				}
+				beforeRecord(record);
+				afterRecord(record);
+			}
+		}
+
+		void beforeRecord(Record record) throws Exception {
+			linenumber = record.linenumber;
+			RecordHandlingFlow flow = record.flow;
+			//log.debug("flow ["+flow.getRecordKey()+"] openBlockBeforeLine ["+flow.getOpenBlockBeforeLine()+"]");
+			IResultHandler resultHandler = flow.getResultHandler();
+			closeBlock(session, resultHandler, streamId, flow, flow.getCloseBlockBeforeLine(),"closeBlockBeforeLine of flow ["+flow.getRecordKey()+"]");
+			String obbl = null;
+			if (flow.getOpenBlockBeforeLineNumber()>0) {
+				if (counter%flow.getOpenBlockBeforeLineNumber()==0) {
+					obbl = flow.getOpenBlockBeforeLine();
+				}
+			} else {
+				obbl = flow.getOpenBlockBeforeLine();				
+			}
+			openBlock(session, resultHandler, streamId, flow, obbl);
+
+			if (isStoreOriginalBlock()) {
+				if (resultHandler instanceof ResultBlock2Sender) {
+					// If session does not contain a previous block, it never existed, or has been removed by closing the block.
+					// In both cases a new block has just started
+					if (!session.containsKey(originalBlockKey)) {
+						sb = new StringBuffer();
+					}
+					if (sb.length()>0) {
+						sb.append(System.getProperty("line.separator"));
 					}
+					sb.append(record.rawRecord);
+					// already put the block in the session, also if the block is not yet complete.
+					session.put(originalBlockKey, sb.toString());
 				}
+			}
+		}
 
-				IRecordHandler curHandler = flow.getRecordHandler(); 
-				if (curHandler != null) {
-					if (log.isDebugEnabled()) log.debug("manager ["+currentManager.getName()+"] key ["+flow.getRecordKey()+"] record handler ["+curHandler.getName()+"] line ["+linenumber+"] record ["+rawRecord+"]");
-					// there is a record handler, so transform the line
-					List<String> parsedRecord = curHandler.parse(session, rawRecord);
-					String result = curHandler.handleRecord(session, parsedRecord);
-					counter++;
-				
-					// if there is a result handler, write the transformed result
-					if (result != null && resultHandler != null) {
-						boolean recordTypeChanged = curHandler.isNewRecordType(session, curHandler.equals(prevHandler), prevParsedRecord, parsedRecord);
-						if (log.isTraceEnabled()) log.trace("manager ["+currentManager.getName()+"] key ["+flow.getRecordKey()+"] record handler ["+curHandler.getName()+"] recordTypeChanged ["+recordTypeChanged+"]");
-						if (recordTypeChanged && prevHandler!=null && resultHandler.isBlockByRecordType()) {
-							String prevRecordType = prevHandler.getRecordType(prevParsedRecord);
-							if (log.isDebugEnabled()) log.debug("record handler ["+prevHandler.getName()+"] result handler ["+resultHandler.getName()+"] closing block for record type ["+prevRecordType+"]");
-							closeBlock(session, resultHandler, streamId, flow, prevRecordType, "record type change");
-						}
-						// the hasPrefix() call allows users use a suffix without a prefix. 
-						// The suffix is then only written at the end of the file.
-						if (recordTypeChanged && resultHandler.hasPrefix()) {   
-							if (prevHandler != null)  {
-								resultHandler.closeRecordType(session, streamId);
-							}
-							resultHandler.openRecordType(session, streamId);
-						}
-						if (recordTypeChanged && resultHandler.isBlockByRecordType()) {
-							String recordType = curHandler.getRecordType(parsedRecord);
-							if (log.isDebugEnabled()) log.debug("record handler ["+curHandler.getName()+"] result handler ["+resultHandler.getName()+"] opening block ["+recordType+"]");
-							openBlock(session, resultHandler, streamId, flow, recordType);
+		void afterRecord(Record record) throws Exception {
+			RecordHandlingFlow flow = record.flow;
+			IResultHandler resultHandler = flow.getResultHandler();
+			IRecordHandler curHandler = flow.getRecordHandler(); 
+			if (curHandler != null) {
+				List<String> parsedRecord = record.parsedRecord;
+				String result = record.result;
+				counter++;
+			
+				// if there is a result handler, write the transformed result
+				if (result != null && resultHandler != null) {
+					boolean recordTypeChanged = curHandler.isNewRecordType(session, curHandler.equals(prevHandler), prevParsedRecord, parsedRecord);
+					if (log.isTraceEnabled()) log.trace("manager ["+record.manager.getName()+"] key ["+flow.getRecordKey()+"] record handler ["+curHandler.getName()+"] recordTypeChanged ["+recordTypeChanged+"]");
+					if (recordTypeChanged && prevHandler!=null && resultHandler.isBlockByRecordType()) {
+						String prevRecordType = prevHandler.getRecordType(prevParsedRecord);
+						if (log.isDebugEnabled()) log.debug("record handler ["+prevHandler.getName()+"] result handler ["+resultHandler.getName()+"] closing block for record type ["+prevRecordType+"]");
+						closeBlock(session, resultHandler, streamId, flow, prevRecordType, "record type change");
+					}
+					// the hasPrefix() call allows users use a suffix without a prefix. 
+					// The suffix is then only written at the end of the file.
+					if (recordTypeChanged && resultHandler.hasPrefix()) {   
+						if (prevHandler != null)  {
+							resultHandler.closeRecordType(session, streamId);
 						}
-						resultHandler.handleResult(session, streamId, flow.getRecordKey(), result);
+						resultHandler.openRecordType(session, streamId);
 					}
-					prevParsedRecord = parsedRecord;
-					prevHandler = curHandler;
-				} else {
-					if (log.isDebugEnabled()) log.debug("manager ["+currentManager.getName()+"] key ["+flow.getRecordKey()+"], no record handler, line ["+linenumber+"] record ["+rawRecord+"]");
+					if (recordTypeChanged && resultHandler.isBlockByRecordType()) {
+						String recordType = curHandler.getRecordType(parsedRecord);
+						if (log.isDebugEnabled()) log.debug("record handler ["+curHandler.getName()+"] result handler ["+resultHandler.getName()+"] opening block ["+recordType+"]");
+						openBlock(session, resultHandler, streamId, flow, recordType);
+					}
+					resultHandler.handleResult(session, streamId, flow.getRecordKey(), result);
 				}
-				
-				closeBlock(session, resultHandler, streamId, flow, flow.getCloseBlockAfterLine(),"closeBlockAfterLine of flow ["+flow.getRecordKey()+"]");
-				openBlock(session, resultHandler, streamId, flow, flow.getOpenBlockAfterLine());
-				
-				// get the manager for the next record
-				currentManager = flow.getNextRecordHandlerManager();
-			}
-			return finalizeResult(session, streamId, false);
-		} catch(Exception e) {
-			try {
-				finalizeResult(session, streamId, true);
-		 	} catch(Throwable t) {
-				log.error("Unexpected error during finalizeResult of [" + streamId + "]", t);
+				prevParsedRecord = parsedRecord;
+				prevHandler = curHandler;
+			} else {
+				if (log.isDebugEnabled()) log.debug("manager ["+record.manager.getName()+"] key ["+flow.getRecordKey()+"], no record handler, line ["+record.linenumber+"] record ["+record.rawRecord+"]");
 			}
-			throw new PipeRunException(this, "Error while transforming [" + streamId + "] at or after line [" + linenumber+"]", e);		
-		} finally {
-			closeDocument(session,streamId);
+			
+			closeBlock(session, resultHandler, streamId, flow, flow.getCloseBlockAfterLine(),"closeBlockAfterLine of flow ["+flow.getRecordKey()+"]");
+			openBlock(session, resultHandler, streamId, flow, flow.getOpenBlockAfterLine());
 		}
 	}
 
@@ -574,6 +740,31 @@ public class StreamTransformerPipe extends FixedForwardPipe {
 		return charset;
 	}
 
+	@IbisDoc({"4", "When set larger than 1, records are parsed and transformed by this number of threads in parallel. "
+			+ "The results are still handled by the resultHandlers in the order of the input, and blocks are opened and closed as in sequential processing. "
+			+ "RecordHandlers that call senders must be able to handle calls in parallel and in arbitrary order. Cannot be used in combination with storeOriginalBlock", "1"})
+	public void setMaxThreads(int maxThreads) {
+		this.maxThreads = maxThreads;
+	}
+	public int getMaxThreads() {
+		return maxThreads;
+	}
+
+	@IbisDoc({"5", "Number of records that are transformed together by one thread, when maxThreads is larger than 1", "100"})
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	public void setTaskExecutor(TaskExecutor executor) {
+		taskExecutor = executor;
+	}
+	public TaskExecutor getTaskExecutor() {
+		return taskExecutor;
+	}
+
 	public void setReaderFactory(IInputStreamReaderFactory factory) {
 		readerFactory = factory;
 	}
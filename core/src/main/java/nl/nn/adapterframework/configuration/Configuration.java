@@ -18,7 +18,14 @@ package nl.nn.adapterframework.configuration;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.Logger;
@@ -45,6 +52,8 @@ import nl.nn.adapterframework.statistics.StatisticsKeeperLogger;
 import nl.nn.adapterframework.util.AppConstants;
 import nl.nn.adapterframework.util.ClassUtils;
 import nl.nn.adapterframework.util.LogUtil;
+import nl.nn.adapterframework.util.TemplatesCache;
+import nl.nn.adapterframework.util.TransformerPool;
 import nl.nn.adapterframework.util.flow.FlowDiagramManager;
 
 /**
@@ -58,12 +67,15 @@ import nl.nn.adapterframework.util.flow.FlowDiagramManager;
 public class Configuration extends ClassPathXmlApplicationContext implements IConfigurable, ApplicationContextAware {
 	protected Logger log = LogUtil.getLogger(this);
 
+	private static final Pattern STYLESHEET_NAME_PATTERN = Pattern.compile("styleSheetName\\s*=\\s*\"([^\"$]+)\"");
+
 	private Boolean autoStart = null;
 
 	private @Getter @Setter AdapterManager adapterManager; //We have to manually inject the AdapterManager bean! See refresh();
 	private @Getter @Setter ScheduleManager scheduleManager; //We have to manually inject the AdapterManager bean! See refresh();
 
 	private boolean unloadInProgressOrDone = false;
+	private List<Future<?>> precompileTasks = Collections.emptyList();
 
 	private String version;
 	private IbisManager ibisManager;
@@ -215,22 +227,61 @@ public class Configuration extends ClassPathXmlApplicationContext implements ICo
 			ConfigurationWarnings.add(this, log, "Error generating flow diagram for configuration ["+getName()+"]", e);
 		}
 
+		// compile the stylesheets in parallel, while the adapters are configured
+		TemplatesCache.getInstance().open(getClassLoader());
+		precompileTasks = TransformerPool.precompileStyleSheets(this, getStyleSheetNames());
+
 		//Trigger a configure on all Lifecycle beans
 		LifecycleProcessor lifecycle = getBean(LIFECYCLE_PROCESSOR_BEAN_NAME, LifecycleProcessor.class);
 		if(lifecycle instanceof ConfigurableLifecycle) {
 			((ConfigurableLifecycle) lifecycle).configure();
 		}
+		log.info("configured configuration ["+getId()+"], "+TemplatesCache.getInstance());
 
 		setConfigured(true);
 	}
 
+	private Set<String> getStyleSheetNames() {
+		Set<String> styleSheetNames = new LinkedHashSet<>();
+		if (loadedConfiguration != null) {
+			Matcher matcher = STYLESHEET_NAME_PATTERN.matcher(loadedConfiguration);
+			while (matcher.find()) {
+				styleSheetNames.add(matcher.group(1));
+			}
+		}
+		return styleSheetNames;
+	}
+
 	@Override
 	public void close() {
 		setUnloadInProgressOrDone(true); //Marks Configuration as inactive
 
+		stopPrecompilation();
+		TemplatesCache.getInstance().close(getClassLoader());
 		super.close();
 	}
 
+	/**
+	 * Cancels the precompilation of stylesheets that has not started yet, and waits for the compilations that are in progress,
+	 * so they cannot add stylesheets to the {@link TemplatesCache} after it has been cleared for this configuration.
+	 */
+	private void stopPrecompilation() {
+		for (Future<?> task : precompileTasks) {
+			task.cancel(false);
+		}
+		for (Future<?> task : precompileTasks) {
+			try {
+				task.get();
+			} catch (CancellationException | ExecutionException e) {
+				// errors are reported when the TransformerPool that uses the stylesheet is configured
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		precompileTasks = Collections.emptyList();
+	}
+
 	public void setAutoStart(boolean autoStart) {
 		this.autoStart = autoStart;
 	}
@@ -181,6 +181,17 @@ public class ConfigurationUtils {
 	}
 
 	public static Map<String, Object> getConfigFromDatabase(IbisContext ibisContext, String name, String dataSourceName, String version) throws ConfigurationException {
+		return getConfigFromDatabase(ibisContext, name, dataSourceName, version, true);
+	}
+
+	/**
+	 * Returns VERSION, FILENAME, CREATED and USER of the active configuration, without fetching the (possibly large) jar itself.
+	 */
+	public static Map<String, Object> getConfigMetadataFromDatabase(IbisContext ibisContext, String name, String dataSourceName) throws ConfigurationException {
+		return getConfigFromDatabase(ibisContext, name, dataSourceName, null, false);
+	}
+
+	private static Map<String, Object> getConfigFromDatabase(IbisContext ibisContext, String name, String dataSourceName, String version, boolean includeJar) throws ConfigurationException {
 		String workdataSourceName = dataSourceName;
 		if (StringUtils.isEmpty(workdataSourceName)) {
 			workdataSourceName = JndiDataSourceFactory.GLOBAL_DEFAULT_DATASOURCE_NAME;
@@ -198,15 +209,16 @@ public class ConfigurationUtils {
 		try {
 			qs.open();
 			conn = qs.getConnection();
+			String columns = (includeJar ? "CONFIG, " : "") + "VERSION, FILENAME, CRE_TYDST, RUSER";
 			String query;
 			if(version == null) {//Return active config
-				query = "SELECT CONFIG, VERSION, FILENAME, CRE_TYDST, RUSER FROM IBISCONFIG WHERE NAME=? AND ACTIVECONFIG='"+(qs.getDbmsSupport().getBooleanValue(true))+"'";
+				query = "SELECT "+columns+" FROM IBISCONFIG WHERE NAME=? AND ACTIVECONFIG='"+(qs.getDbmsSupport().getBooleanValue(true))+"'";
 				PreparedStatement stmt = conn.prepareStatement(query);
 				stmt.setString(1, name);
 				rs = stmt.executeQuery();
 			}
 			else {
-				query = "SELECT CONFIG, VERSION, FILENAME, CRE_TYDST, RUSER FROM IBISCONFIG WHERE NAME=? AND VERSION=?";
+				query = "SELECT "+columns+" FROM IBISCONFIG WHERE NAME=? AND VERSION=?";
 				PreparedStatement stmt = conn.prepareStatement(query);
 				stmt.setString(1, name);
 				stmt.setString(2, version);
@@ -218,14 +230,17 @@ public class ConfigurationUtils {
 			}
 
 			Map<String, Object> configuration = new HashMap<String, Object>(5);
-			byte[] jarBytes = rs.getBytes(1);
-			if(jarBytes == null) return null;
-
-			configuration.put("CONFIG", jarBytes);
-			configuration.put("VERSION", rs.getString(2));
-			configuration.put("FILENAME", rs.getString(3));
-			configuration.put("CREATED", rs.getString(4));
-			configuration.put("USER", rs.getString(5));
+			int column = 1;
+			if (includeJar) {
+				byte[] jarBytes = rs.getBytes(column++);
+				if(jarBytes == null) return null;
+
+				configuration.put("CONFIG", jarBytes);
+			}
+			configuration.put("VERSION", rs.getString(column++));
+			configuration.put("FILENAME", rs.getString(column++));
+			configuration.put("CREATED", rs.getString(column++));
+			configuration.put("USER", rs.getString(column++));
 			return configuration;
 		} catch (SenderException e) {
 			throw new ConfigurationException(e);
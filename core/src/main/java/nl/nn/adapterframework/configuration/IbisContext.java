@@ -37,6 +37,7 @@ import nl.nn.adapterframework.http.RestServiceDispatcher;
 import nl.nn.adapterframework.jdbc.JdbcPropertySourceFactory;
 import nl.nn.adapterframework.jdbc.migration.Migrator;
 import nl.nn.adapterframework.lifecycle.IbisApplicationContext;
+import nl.nn.adapterframework.monitoring.MonitorManager;
 import nl.nn.adapterframework.receivers.JavaListener;
 import nl.nn.adapterframework.util.AppConstants;
 import nl.nn.adapterframework.util.ClassUtils;
@@ -170,6 +171,7 @@ public class IbisContext extends IbisApplicationContext {
 		if(classLoaderManager != null) {
 			classLoaderManager.shutdown();
 		}
+		MonitorManager.getInstance().destroy();
 
 		destroyApplicationContext();
 		log("shutdown in " + (System.currentTimeMillis() - start) + " ms");
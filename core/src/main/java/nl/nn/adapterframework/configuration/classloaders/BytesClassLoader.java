@@ -1,5 +1,5 @@
 /*
-   Copyright 2016-2017, 2019-2020 Nationale-Nederlanden
+   Copyright 2016-2017, 2019-2020 Nationale-Nederlanden, 2021 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -15,10 +15,14 @@
 */
 package nl.nn.adapterframework.configuration.classloaders;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLStreamHandler;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import nl.nn.adapterframework.configuration.ConfigurationException;
@@ -27,6 +31,7 @@ import nl.nn.adapterframework.configuration.IbisContext;
 public abstract class BytesClassLoader extends ClassLoaderBase {
 
 	private Map<String, byte[]> resources = new HashMap<String, byte[]>();
+	private List<Closeable> replacedResources = new ArrayList<>(); // resources that have been replaced by the last reload, but might still be referred to by URLs
 
 	public BytesClassLoader(ClassLoader classLoader) {
 		super(classLoader);
@@ -40,10 +45,16 @@ public abstract class BytesClassLoader extends ClassLoaderBase {
 
 	@Override
 	public URL getLocalResource(String name) {
-		byte[] resource = resources.get(name);
-		if (resource != null) {
+		Map<String, byte[]> currentResources = resources;
+		if (currentResources.containsKey(name)) {
 			try {
-				URLStreamHandler urlStreamHandler = new BytesURLStreamHandler(resource);
+				URLStreamHandler urlStreamHandler;
+				if (currentResources instanceof JarFileResources) { // read the resource when the url is opened
+					JarFileResources jarFileResources = (JarFileResources) currentResources;
+					urlStreamHandler = new BytesURLStreamHandler(() -> jarFileResources.openStream(name));
+				} else {
+					urlStreamHandler = new BytesURLStreamHandler(currentResources.get(name));
+				}
 				return new URL(null, CLASSPATH_RESOURCE_SCHEME + name, urlStreamHandler);
 			} catch (MalformedURLException e) {
 				log.error("Could not create url", e);
@@ -54,13 +65,22 @@ public abstract class BytesClassLoader extends ClassLoaderBase {
 	}
 
 	/**
-	 * Tries to load new resources, upon success, clears all resources, calls it's super.reload() and sets the new resources
+	 * Tries to load new resources, upon success, clears all resources, calls it's super.reload() and sets the new resources.
+	 * Resources that are read from a file remain open until the next reload, as URLs to them that have been handed out before 
+	 * the reload must remain valid while the configuration that uses them is replaced. 
 	 */
 	@Override
 	public final void reload() throws ConfigurationException {
 		Map<String, byte[]> newResources = loadResources();
 		if (newResources != null) {
-			clearResources();
+			closeReplacedResources();
+			if (resources instanceof Closeable) {
+				synchronized (replacedResources) {
+					replacedResources.add((Closeable) resources);
+				}
+			} else {
+				clearResources();
+			}
 			super.reload();
 			resources = newResources;
 		}
@@ -69,9 +89,23 @@ public abstract class BytesClassLoader extends ClassLoaderBase {
 	@Override
 	public final void destroy() {
 		clearResources();
+		closeReplacedResources();
 		super.destroy();
 	}
 
+	private void closeReplacedResources() {
+		synchronized (replacedResources) {
+			for (Closeable replaced : replacedResources) {
+				try {
+					replaced.close();
+				} catch (IOException e) {
+					log.warn("could not close resources of configuration ["+getConfigurationName()+"]", e);
+				}
+			}
+			replacedResources.clear();
+		}
+	}
+
 	/**
 	 * Called during a reload for a green/blue deployment, and after the classloader has been configured to load new resources
 	 */
@@ -15,18 +15,19 @@
 */
 package nl.nn.adapterframework.configuration.classloaders;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLConnection;
 
+import org.apache.commons.io.function.IOSupplier;
+
 class BytesURLConnection extends URLConnection {
-	byte[] bytes;
+	IOSupplier<InputStream> streamSupplier;
 
-	protected BytesURLConnection(URL url, byte[] bytes) {
+	protected BytesURLConnection(URL url, IOSupplier<InputStream> streamSupplier) {
 		super(url);
-		this.bytes = bytes;
+		this.streamSupplier = streamSupplier;
 	}
 
 	@Override
@@ -35,6 +36,6 @@ class BytesURLConnection extends URLConnection {
 
 	@Override
 	public InputStream getInputStream() throws IOException {
-		return new ByteArrayInputStream(bytes);
+		return streamSupplier.get();
 	}
 }
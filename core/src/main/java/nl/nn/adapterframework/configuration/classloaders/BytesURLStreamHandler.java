@@ -15,20 +15,31 @@
 */
 package nl.nn.adapterframework.configuration.classloaders;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
 
+import org.apache.commons.io.function.IOSupplier;
+
 public class BytesURLStreamHandler extends URLStreamHandler {
-	byte[] bytes;
+	private IOSupplier<InputStream> streamSupplier;
 
 	public BytesURLStreamHandler(byte[] bytes) {
-		this.bytes = bytes;
+		this(() -> new ByteArrayInputStream(bytes));
+	}
+
+	/**
+	 * Creates a handler for a resource that is only read when the URL is opened.
+	 */
+	public BytesURLStreamHandler(IOSupplier<InputStream> streamSupplier) {
+		this.streamSupplier = streamSupplier;
 	}
 
 	@Override
 	protected URLConnection openConnection(URL url) throws IOException {
-		return new BytesURLConnection(url, bytes);
+		return new BytesURLConnection(url, streamSupplier);
 	}
 }
@@ -1,5 +1,5 @@
 /*
-   Copyright 2016 - 2019 Nationale-Nederlanden
+   Copyright 2016 - 2019 Nationale-Nederlanden, 2021 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -15,10 +15,24 @@
 */
 package nl.nn.adapterframework.configuration.classloaders;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+
 import nl.nn.adapterframework.configuration.ConfigurationException;
 import nl.nn.adapterframework.configuration.ConfigurationUtils;
+import nl.nn.adapterframework.util.AppConstants;
 
 public class DatabaseClassLoader extends JarBytesClassLoader {
 
@@ -34,9 +48,50 @@ public class DatabaseClassLoader extends JarBytesClassLoader {
 
 	@Override
 	protected Map<String, byte[]> loadResources() throws ConfigurationException {
+		String cacheDir = AppConstants.getInstance().getResolvedProperty("configurations.database.cacheDir");
+		if (StringUtils.isEmpty(cacheDir)) {
+			Map<String, Object> configuration = getConfigFromDatabase(null, true);
+			byte[] jarBytes = (byte[]) configuration.remove("CONFIG");
+			this.configuration = configuration;
+			return readResources(jarBytes);
+		}
+
+		// Only fetch the metadata, the jar itself is only fetched when it has not been cached yet
+		Map<String, Object> configuration = getConfigFromDatabase(null, false);
+		File configurationDir = new File(cacheDir, toFileName(getConfigurationName()));
+		String cacheFilePrefix = getCacheFilePrefix(configuration);
+		Map<String, byte[]> resources = null;
+		for (File jarFile : getCachedFiles(configurationDir, cacheFilePrefix)) {
+			try {
+				resources = readResources(jarFile);
+				log.debug("using cached jar [{}] for configuration [{}]", jarFile, getConfigurationName());
+				break;
+			} catch (ConfigurationException e) {
+				log.warn("could not read cached jar ["+jarFile+"] for configuration ["+getConfigurationName()+"], fetching it from the database again", e);
+			}
+		}
+		if (resources == null) {
+			byte[] jarBytes = (byte[]) getConfigFromDatabase((String) configuration.get("VERSION"), true).get("CONFIG");
+			try {
+				File jarFile = writeCacheFile(configurationDir, cacheFilePrefix, jarBytes);
+				resources = readResources(jarFile);
+			} catch (IOException e) {
+				log.warn("could not cache jar of configuration ["+getConfigurationName()+"] in ["+configurationDir+"], keeping it in memory", e);
+				resources = readResources(jarBytes);
+			}
+		}
+		this.configuration = configuration;
+		return resources;
+	}
+
+	private Map<String, Object> getConfigFromDatabase(String version, boolean includeJar) throws ConfigurationException {
 		Map<String, Object> configuration = null;
 		try { //Make sure there's a database present
-			configuration = ConfigurationUtils.getConfigFromDatabase(getIbisContext(), getConfigurationName(), null);
+			if (includeJar) {
+				configuration = ConfigurationUtils.getConfigFromDatabase(getIbisContext(), getConfigurationName(), null, version);
+			} else {
+				configuration = ConfigurationUtils.getConfigMetadataFromDatabase(getIbisContext(), getConfigurationName(), null);
+			}
 		}
 		catch (Throwable t) {
 			//Make the error a little bit more IBIS-developer intuitive
@@ -45,12 +100,63 @@ public class DatabaseClassLoader extends JarBytesClassLoader {
 
 		if (configuration == null) {
 			throw new ConfigurationException(getErrorMessage());
-		} else {
-			byte[] jarBytes = (byte[]) configuration.get("CONFIG");
-			configuration.remove("CONFIG");
-			this.configuration = configuration;
-			return readResources(jarBytes);
 		}
+		return configuration;
+	}
+
+	/**
+	 * The name of the cached jar starts with a key that is derived from the name, version and creation date of the configuration,
+	 * so a configuration that is uploaded again under the same version is not served from a stale file.
+	 */
+	private String getCacheFilePrefix(Map<String, Object> configuration) {
+		String version = (String) configuration.get("VERSION");
+		String key = DigestUtils.sha256Hex(getConfigurationName() + "\n" + version + "\n" + configuration.get("CREATED"));
+		return toFileName(version) + "_" + key.substring(0, 16);
+	}
+
+	/**
+	 * @return the cached jars of the configuration with the specified prefix, the most recently written first.
+	 */
+	private List<File> getCachedFiles(File configurationDir, String cacheFilePrefix) {
+		File[] files = configurationDir.listFiles((dir, name) -> name.startsWith(cacheFilePrefix) && name.endsWith(".jar"));
+		if (files == null) {
+			return Collections.emptyList();
+		}
+		List<File> result = new ArrayList<>(Arrays.asList(files));
+		result.sort(Comparator.comparing(File::getName).reversed());
+		return result;
+	}
+
+	private String toFileName(String name) {
+		return StringUtils.defaultString(name).replaceAll("[^\\w.-]", "_");
+	}
+
+	/**
+	 * Writes the jar to a temporary file first and moves it in place, so a cached jar is never read while it is incomplete.
+	 * Every jar is written under a new file name, so a jar that is still opened by a classloader is never overwritten.
+	 * Jars of the configuration that are no longer opened by any classloader are removed from the cache.
+	 */
+	private File writeCacheFile(File configurationDir, String cacheFilePrefix, byte[] jarBytes) throws IOException {
+		Path configurationPath = Files.createDirectories(configurationDir.toPath());
+		File jarFile = new File(configurationDir, cacheFilePrefix + "_" + System.currentTimeMillis() + ".jar");
+		Path tempFile = Files.createTempFile(configurationPath, jarFile.getName(), ".tmp");
+		try {
+			Files.write(tempFile, jarBytes);
+			Files.move(tempFile, jarFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+		log.info("cached jar of configuration [{}] in [{}]", getConfigurationName(), jarFile);
+
+		File[] cachedFiles = configurationDir.listFiles((dir, name) -> name.endsWith(".jar") && !name.equals(jarFile.getName()));
+		if (cachedFiles != null) {
+			for (File cachedFile : cachedFiles) {
+				if (!JarFileResources.isOpen(cachedFile) && !cachedFile.delete()) {
+					log.debug("could not remove cached jar [{}]", cachedFile);
+				}
+			}
+		}
+		return jarFile;
 	}
 
 	public String getFileName() {
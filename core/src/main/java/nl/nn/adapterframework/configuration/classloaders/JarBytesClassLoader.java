@@ -16,11 +16,13 @@
 package nl.nn.adapterframework.configuration.classloaders;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
 
 import nl.nn.adapterframework.configuration.ConfigurationException;
@@ -33,6 +35,17 @@ public abstract class JarBytesClassLoader extends BytesClassLoader {
 		super(classLoader);
 	}
 
+	/**
+	 * Indexes the resources of a jar file on disk, the resources themselves are read from the file when they are requested.
+	 */
+	protected final Map<String, byte[]> readResources(File jarFile) throws ConfigurationException {
+		try {
+			return new JarFileResources(jarFile, fileName -> JarFile.MANIFEST_NAME.equals(fileName) ? null : getResourceName(fileName));
+		} catch (IOException e) {
+			throw new ConfigurationException("Could not read resources from jar file ["+jarFile.getName()+"] for configuration '" + getConfigurationName() + "'", e);
+		}
+	}
+
 	protected final Map<String, byte[]> readResources(byte[] jar) throws ConfigurationException {
 		return readResources(new ByteArrayInputStream(jar));
 	}
@@ -42,22 +55,9 @@ public abstract class JarBytesClassLoader extends BytesClassLoader {
 			Map<String, byte[]> resources = new HashMap<String, byte[]>();
 			JarEntry jarEntry;
 			while ((jarEntry = jarInputStream.getNextJarEntry()) != null) {
-				String fileName = jarEntry.getName();
-				if(getBasePath() != null) {
-					boolean isFolder = fileName.endsWith("/"); // if the name ends with a slash, assume it's a folder
-					if(isFolder || fileName.startsWith("META-INF/")) { //Ignore all folders and files in META-INF
-						log.debug("ignoring {} [{}]", (isFolder?"folder":"file"), fileName);
-						continue;
-					}
-
-					if(fileName.startsWith(getBasePath())) { //Remove BasePath from the filename
-						fileName = fileName.substring(getBasePath().length());
-					} else { //Found a file that's not in the BasePath folder
-						if(!fileName.endsWith(".class")) { //Allow classes to be in the root path, but not resources
-							log.warn("invalid file ["+fileName+"] not in folder ["+getBasePath()+"]");
-							continue; //Don't add the file to the resources lists
-						}
-					}
+				String fileName = getResourceName(jarEntry.getName());
+				if (fileName == null) {
+					continue;
 				}
 				resources.put(fileName, Misc.streamToBytes(StreamUtil.dontClose(jarInputStream)));
 			}
@@ -66,4 +66,27 @@ public abstract class JarBytesClassLoader extends BytesClassLoader {
 			throw new ConfigurationException("Could not read resources from jar input stream for configuration '" + getConfigurationName() + "'", e);
 		}
 	}
+
+	/**
+	 * @return the name under which the jar entry is made available as resource, or <code>null</code> when the entry must be ignored
+	 */
+	private String getResourceName(String fileName) {
+		if(getBasePath() != null) {
+			boolean isFolder = fileName.endsWith("/"); // if the name ends with a slash, assume it's a folder
+			if(isFolder || fileName.startsWith("META-INF/")) { //Ignore all folders and files in META-INF
+				log.debug("ignoring {} [{}]", (isFolder?"folder":"file"), fileName);
+				return null;
+			}
+
+			if(fileName.startsWith(getBasePath())) { //Remove BasePath from the filename
+				return fileName.substring(getBasePath().length());
+			}
+			//Found a file that's not in the BasePath folder
+			if(!fileName.endsWith(".class")) { //Allow classes to be in the root path, but not resources
+				log.warn("invalid file ["+fileName+"] not in folder ["+getBasePath()+"]");
+				return null; //Don't add the file to the resources lists
+			}
+		}
+		return fileName;
+	}
 }
@@ -15,8 +15,7 @@
 */
 package nl.nn.adapterframework.configuration.classloaders;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.File;
 import java.util.Map;
 import nl.nn.adapterframework.configuration.ConfigurationException;
 
@@ -32,12 +31,11 @@ public class JarFileClassLoader extends JarBytesClassLoader {
 		if(jarFileName == null)
 			throw new ConfigurationException("jar file not set");
 
-		try {
-			FileInputStream jarFile = new FileInputStream(jarFileName);
-			return readResources(jarFile);
-		} catch (FileNotFoundException fnfe) {
+		File jarFile = new File(jarFileName);
+		if(!jarFile.isFile())
 			throw new ConfigurationException("jar file not found");
-		}
+
+		return readResources(jarFile);
 	}
 
 	public void setJar(String jar) {
@@ -0,0 +1,176 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.configuration.classloaders;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.logging.log4j.Logger;
+
+import nl.nn.adapterframework.util.LogUtil;
+import nl.nn.adapterframework.util.Misc;
+
+/**
+ * Resources of a jar file on disk, that are read when they are requested instead of when the jar is loaded.
+ * 
+ * Only an index of resource names is kept on the heap. The central directory of the jar is memory mapped by {@link JarFile},
+ * entries are inflated when they are opened. {@link #clear()} closes the jar file.
+ * The jar files that are opened are registered, so that a jar file that is still in use is not removed from a cache.
+ */
+class JarFileResources extends AbstractMap<String, byte[]> implements Closeable {
+	private final Logger log = LogUtil.getLogger(this);
+
+	private static final Map<File, Integer> openFiles = new ConcurrentHashMap<>();
+
+	private final File file;
+	private final JarFile jarFile;
+	private final Map<String, JarEntry> index = new HashMap<>();
+	private boolean closed = false;
+
+	/**
+	 * @param resourceNameMapper maps the name of a jar entry to the name of the resource, or to <code>null</code> when the entry must be ignored
+	 */
+	JarFileResources(File file, Function<String, String> resourceNameMapper) throws IOException {
+		this.file = file;
+		this.jarFile = new JarFile(file);
+		try {
+			Enumeration<JarEntry> entries = jarFile.entries();
+			while (entries.hasMoreElements()) {
+				JarEntry jarEntry = entries.nextElement();
+				String resourceName = resourceNameMapper.apply(jarEntry.getName());
+				if (resourceName != null) {
+					index.put(resourceName, jarEntry);
+				}
+			}
+		} catch (RuntimeException e) {
+			jarFile.close();
+			throw e;
+		}
+		openFiles.merge(file.getAbsoluteFile(), 1, Integer::sum);
+	}
+
+	/**
+	 * @return <code>true</code> when the file is opened by one or more JarFileResources.
+	 */
+	static boolean isOpen(File file) {
+		return openFiles.containsKey(file.getAbsoluteFile());
+	}
+
+	/**
+	 * @return the number of JarFileResources that have the file open.
+	 */
+	static int getOpenCount(File file) {
+		return openFiles.getOrDefault(file.getAbsoluteFile(), 0);
+	}
+
+	public InputStream openStream(String name) throws IOException {
+		JarEntry jarEntry = index.get(name);
+		if (jarEntry == null) {
+			throw new FileNotFoundException("resource ["+name+"] not found in jar file ["+file+"]");
+		}
+		return jarFile.getInputStream(jarEntry);
+	}
+
+	@Override
+	public byte[] get(Object name) {
+		JarEntry jarEntry = index.get(name);
+		if (jarEntry == null) {
+			return null;
+		}
+		try (InputStream inputStream = jarFile.getInputStream(jarEntry)) {
+			return Misc.streamToBytes(inputStream);
+		} catch (IOException e) {
+			throw new UncheckedIOException("could not read resource ["+name+"] from jar file ["+file+"]", e);
+		}
+	}
+
+	@Override
+	public boolean containsKey(Object name) {
+		return index.containsKey(name);
+	}
+
+	@Override
+	public int size() {
+		return index.size();
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return Collections.unmodifiableSet(index.keySet());
+	}
+
+	@Override
+	public Set<Entry<String, byte[]>> entrySet() {
+		return new AbstractSet<Entry<String, byte[]>>() {
+			@Override
+			public Iterator<Entry<String, byte[]>> iterator() {
+				Iterator<String> names = index.keySet().iterator();
+				return new Iterator<Entry<String, byte[]>>() {
+					@Override
+					public boolean hasNext() {
+						return names.hasNext();
+					}
+
+					@Override
+					public Entry<String, byte[]> next() {
+						String name = names.next();
+						return new SimpleImmutableEntry<>(name, get(name));
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return index.size();
+			}
+		};
+	}
+
+	@Override
+	public void clear() {
+		index.clear();
+		try {
+			close();
+		} catch (IOException e) {
+			log.warn("could not close jar file [{}]", file, e);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			openFiles.computeIfPresent(file.getAbsoluteFile(), (f, count) -> count > 1 ? count - 1 : null);
+		}
+		jarFile.close();
+	}
+}
@@ -0,0 +1,39 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.core;
+
+import java.util.concurrent.CompletableFuture;
+
+import nl.nn.adapterframework.stream.Message;
+
+/**
+ * Sender that can execute its requests without occupying the calling thread while waiting for the reply.
+ * Callers that fan out to many senders (like ParallelSenders or a parallel IteratingPipe) can then park on the
+ * returned futures instead of starting a thread per call.
+ */
+public interface IAsyncSender extends ISender {
+
+	/**
+	 * @return <code>true</code> when {@link #sendMessageAsync(Message, PipeLineSession)} should be used instead of a separate thread per call.
+	 */
+	public boolean isAsyncEnabled();
+
+	/**
+	 * Starts sending the message. The returned future completes with the reply, or exceptionally with a {@link SenderException} or {@link TimeOutException}.
+	 * Stages that are added to the future without an explicit executor are executed by a small completion pool of the sender.
+	 */
+	public CompletableFuture<Message> sendMessageAsync(Message message, PipeLineSession session) throws SenderException;
+}
@@ -1,5 +1,5 @@
 /*
-   Copyright 2013 Nationale-Nederlanden, 2020 WeAreFrank!
+   Copyright 2013 Nationale-Nederlanden, 2020, 2021 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -52,6 +52,12 @@ public interface IMessageBrowser<M> extends IXAEnabled {
 	 */
 	IMessageBrowsingIterator getIterator() throws ListenerException;
 	IMessageBrowsingIterator getIterator(Date startTime, Date endTime, SortOrder order) throws ListenerException;
+	/**
+	 * Gets an enumeration of messages that starts right after the message with the given insertDate and storageKey, 
+	 * as returned by the items of a previous enumeration. This allows to page through large storages without skipping 
+	 * all messages of the previous pages. When seekDate and seekKey are null, the enumeration starts at the first message.
+	 */
+	IMessageBrowsingIterator getIterator(Date startTime, Date endTime, SortOrder order, Date seekDate, String seekKey) throws ListenerException;
 
 	/**
 	 * Retrieves the message context as an iteratorItem.
@@ -16,10 +16,12 @@
 package nl.nn.adapterframework.core;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -34,6 +36,7 @@ import nl.nn.adapterframework.jms.JmsException;
 import nl.nn.adapterframework.pipes.AbstractPipe;
 import nl.nn.adapterframework.pipes.FixedForwardPipe;
 import nl.nn.adapterframework.pipes.MessageSendingPipe;
+import nl.nn.adapterframework.pipes.XmlValidator;
 import nl.nn.adapterframework.processors.PipeLineProcessor;
 import nl.nn.adapterframework.receivers.Receiver;
 import nl.nn.adapterframework.statistics.HasStatistics;
@@ -41,6 +44,7 @@ import nl.nn.adapterframework.statistics.SizeStatisticsKeeper;
 import nl.nn.adapterframework.statistics.StatisticsKeeper;
 import nl.nn.adapterframework.statistics.StatisticsKeeperIterationHandler;
 import nl.nn.adapterframework.stream.Message;
+import nl.nn.adapterframework.stream.StreamingPipe;
 import nl.nn.adapterframework.util.ClassUtils;
 import nl.nn.adapterframework.util.Locker;
 import nl.nn.adapterframework.util.Misc;
@@ -145,6 +149,7 @@ public class PipeLine extends TransactionAttributes implements ICacheEnabled<Str
 	private ICacheAdapter<String,String> cache;
 
 	private boolean configurationSucceeded = false;
+	private @Getter List<String> streamingSegments = new ArrayList<String>();
 
 
 	/**
@@ -270,6 +275,7 @@ public class PipeLine extends TransactionAttributes implements ICacheEnabled<Str
 		if (getPipe(firstPipe) == null) {
 			throw new ConfigurationException("no pipe found for firstPipe [" + firstPipe + "]");
 		}
+		determineStreamingSegments();
 
 		IValidator inputValidator = getInputValidator();
 		IValidator outputValidator = getOutputValidator();
@@ -332,6 +338,59 @@ public class PipeLine extends TransactionAttributes implements ICacheEnabled<Str
 		configurationSucceeded = true;
 	}
 
+	/**
+	 * Determines the sequences of pipes that will pass their output on as a stream of events to the next pipe, 
+	 * instead of serializing it to a message that is parsed again by the next pipe. Pipes that are fed by 
+	 * their predecessor in this way are executed as part of the predecessor, and not by the PipeProcessors.
+	 */
+	protected void determineStreamingSegments() {
+		Map<IPipe, IPipe> streamingTargets = new LinkedHashMap<IPipe, IPipe>();
+		for (IPipe pipe:pipes) {
+			if (canStreamToNextPipe(pipe)) {
+				try {
+					IForwardTarget target = resolveForward(pipe, ((FixedForwardPipe)pipe).getForward());
+					if (target instanceof IPipe && target!=pipe && canBeFedByPreviousPipe((IPipe)target)) {
+						streamingTargets.put(pipe, (IPipe)target);
+					}
+				} catch (PipeRunException e) {
+					log.debug(getLogPrefix()+"cannot resolve forward of pipe ["+pipe.getName()+"]: "+e.getMessage());
+				}
+			}
+		}
+		streamingSegments.clear();
+		Set<IPipe> visited = new HashSet<IPipe>();
+		for (IPipe pipe:streamingTargets.keySet()) {
+			// an XmlValidator only passes on a stream when it is fed by its predecessor itself
+			if (!visited.contains(pipe) && !streamingTargets.containsValue(pipe) && !(pipe instanceof XmlValidator)) {
+				StringBuilder segment = new StringBuilder(pipe.getName());
+				visited.add(pipe);
+				for (IPipe next=streamingTargets.get(pipe); next!=null && visited.add(next); next=streamingTargets.get(next)) {
+					segment.append(" -> ").append(next.getName());
+				}
+				streamingSegments.add(segment.toString());
+			}
+		}
+		if (streamingSegments.isEmpty()) {
+			log.debug(getLogPrefix()+"no pipes pass their output as a stream to the next pipe");
+		} else {
+			log.info(getLogPrefix()+"pipes passing their output as a stream to the next pipe: "+streamingSegments);
+		}
+	}
+
+	private boolean canStreamToNextPipe(IPipe pipe) {
+		if (pipe instanceof StreamingPipe) {
+			return ((StreamingPipe)pipe).canStreamToNextPipe();
+		}
+		return pipe instanceof XmlValidator && ((XmlValidator)pipe).canProvideOutputStream();
+	}
+
+	private boolean canBeFedByPreviousPipe(IPipe pipe) {
+		if (pipe instanceof StreamingPipe) {
+			return ((StreamingPipe)pipe).isStreamingActive() && ((StreamingPipe)pipe).canProvideOutputStream();
+		}
+		return pipe instanceof XmlValidator && ((XmlValidator)pipe).canProvideOutputStream();
+	}
+
 	public void configure(IPipe pipe) throws ConfigurationException {
 		try {
 			if (pipe instanceof IExtendedPipe) {
@@ -0,0 +1,111 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.core;
+
+import java.util.Date;
+
+import nl.nn.adapterframework.core.IMessageBrowser.SortOrder;
+
+/**
+ * Wraps an {@link IMessageBrowsingIterator} to start right after a seek position, for message browsers that cannot 
+ * seek to that position themselves. The items before the seek position are skipped without being inspected further.
+ * 
+ * When the iteration is ordered by insertDate, an item that lies beyond the seekDate ends the skipping as well, 
+ * so the iteration can continue when the message at the seek position has been removed in the mean time.
+ */
+public class SeekingMessageBrowsingIterator implements IMessageBrowsingIterator {
+
+	private final IMessageBrowsingIterator source;
+	private final SortOrder order;
+	private final Date seekDate;
+	private final String seekKey;
+
+	private boolean seeking = true;
+	private IMessageBrowsingIteratorItem pending;
+
+	public SeekingMessageBrowsingIterator(IMessageBrowsingIterator source, SortOrder order, Date seekDate, String seekKey) {
+		this.source = source;
+		this.order = order;
+		this.seekDate = seekDate;
+		this.seekKey = seekKey;
+	}
+
+	private void seek() throws ListenerException {
+		seeking = false;
+		while (source.hasNext()) {
+			IMessageBrowsingIteratorItem item = source.next();
+			if (seekKey.equals(item.getId())) {
+				item.close();
+				return;
+			}
+			if (isBeyondSeekPosition(item)) {
+				pending = item;
+				return;
+			}
+			item.close();
+		}
+	}
+
+	private boolean isBeyondSeekPosition(IMessageBrowsingIteratorItem item) throws ListenerException {
+		if (seekDate == null) {
+			return false;
+		}
+		Date insertDate = item.getInsertDate();
+		if (insertDate == null) {
+			return false;
+		}
+		switch (order) {
+		case ASC:
+			return insertDate.after(seekDate);
+		case DESC:
+			return insertDate.before(seekDate);
+		default:
+			return false;
+		}
+	}
+
+	@Override
+	public boolean hasNext() throws ListenerException {
+		if (seeking) {
+			seek();
+		}
+		return pending != null || source.hasNext();
+	}
+
+	@Override
+	public IMessageBrowsingIteratorItem next() throws ListenerException {
+		if (seeking) {
+			seek();
+		}
+		if (pending != null) {
+			IMessageBrowsingIteratorItem result = pending;
+			pending = null;
+			return result;
+		}
+		return source.next();
+	}
+
+	@Override
+	public void close() throws ListenerException {
+		try {
+			if (pending != null) {
+				pending.close();
+			}
+		} finally {
+			source.close();
+		}
+	}
+}
@@ -16,6 +16,7 @@
 package nl.nn.adapterframework.extensions.javascript;
 
 import java.io.File;
+import java.util.function.Supplier;
 
 import com.eclipsesource.v8.JavaVoidCallback;
 import nl.nn.adapterframework.extensions.graphviz.ResultHandler;
@@ -95,19 +96,29 @@ public class J2V8 implements JavascriptEngine<V8> {
 		v8.release(true);
 	}
 
+	@Override
+	public void acquireRuntime() {
+		v8.getLocker().acquire();
+	}
+
+	@Override
+	public void releaseRuntime() {
+		v8.getLocker().release();
+	}
+
 	@Override
 	public V8 getEngine() {
 		return v8;
 	}
 
 	@Override
-	public void registerCallback(final ISender sender, final PipeLineSession session) {
+	public void registerCallback(final ISender sender, final Supplier<PipeLineSession> sessionSupplier) {
 		v8.registerJavaMethod(new JavaCallback() {
 			@Override
 			public Object invoke(V8Object receiver, V8Array parameters) {
 				try {
 					Message msg = Message.asMessage(parameters.get(0));
-					return sender.sendMessage(msg, session).asString();
+					return sender.sendMessage(msg, sessionSupplier.get()).asString();
 				} catch (Exception e) {
 					throw new RuntimeException(e);
 				}
@@ -15,6 +15,8 @@
 */
 package nl.nn.adapterframework.extensions.javascript;
 
+import java.util.function.Supplier;
+
 import nl.nn.adapterframework.core.PipeLineSession;
 import nl.nn.adapterframework.core.ISender;
 import nl.nn.adapterframework.extensions.graphviz.ResultHandler;
@@ -61,6 +63,20 @@ public interface JavascriptEngine<E> {
 	 */
 	void closeRuntime();
 
+	/**
+	 * Binds a started runtime to the current thread, to allow a runtime that was started by another thread to be reused.
+	 */
+	default void acquireRuntime() {
+		// runtimes are not bound to a thread by default
+	}
+
+	/**
+	 * Releases the binding of the runtime to the current thread, so it can be acquired by another thread.
+	 */
+	default void releaseRuntime() {
+		// runtimes are not bound to a thread by default
+	}
+
 	/**
 	 * Getter for the runtime of the specified engine
 	 * 
@@ -74,7 +90,18 @@ public interface JavascriptEngine<E> {
 	 * 
 	 * @param sender		The sender given in the adapter configuration
 	 */
-	public void registerCallback(ISender sender, PipeLineSession session);
+	default void registerCallback(ISender sender, PipeLineSession session) {
+		registerCallback(sender, () -> session);
+	}
+
+	/**
+	 * Registers a callback for the sender, that calls the sender with the session that is supplied at the moment the callback is invoked.
+	 * This allows a callback to be registered once on a runtime that is reused for multiple messages.
+	 * 
+	 * @param sender		The sender given in the adapter configuration
+	 * @param sessionSupplier		Supplies the session of the message that is currently being processed
+	 */
+	void registerCallback(ISender sender, Supplier<PipeLineSession> sessionSupplier);
 
 	/**
 	 * Registers the result and error functions to be handled by the given result handler.
@@ -28,6 +28,7 @@ import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class Nashorn implements JavascriptEngine<ScriptEngine> {
 
@@ -87,11 +88,11 @@ public class Nashorn implements JavascriptEngine<ScriptEngine> {
 	}
 
 	@Override
-	public void registerCallback(ISender sender, PipeLineSession session) {
+	public void registerCallback(ISender sender, Supplier<PipeLineSession> sessionSupplier) {
 		CallbackInterface<String, String> method = (param) -> {
 			try {
 				Message msg = Message.asMessage(param);
-				return sender.sendMessage(msg, session).asString();
+				return sender.sendMessage(msg, sessionSupplier.get()).asString();
 			} catch (Exception e) {
 				e.printStackTrace();
 				throw new RuntimeException(e);
@@ -15,6 +15,8 @@
 */
 package nl.nn.adapterframework.extensions.javascript;
 
+import java.util.function.Supplier;
+
 import nl.nn.adapterframework.extensions.graphviz.ResultHandler;
 import org.mozilla.javascript.*;
 
@@ -54,13 +56,23 @@ public class Rhino implements JavascriptEngine<Context> {
 		Context.exit();
 	}
 
+	@Override
+	public void acquireRuntime() {
+		cx = Context.enter();
+	}
+
+	@Override
+	public void releaseRuntime() {
+		Context.exit();
+	}
+
 	@Override
 	public Context getEngine() {
 		return cx;
 	}
 
 	@Override
-	public void registerCallback(ISender sender, PipeLineSession session) {
+	public void registerCallback(ISender sender, Supplier<PipeLineSession> sessionSupplier) {
 		throw new UnsupportedOperationException("Rhino callback functionality not implemented");
 	}
 
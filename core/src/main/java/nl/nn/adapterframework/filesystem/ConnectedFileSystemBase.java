@@ -1,5 +1,5 @@
 /*
-   Copyright 2020 WeAreFrank!
+   Copyright 2020-2021 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -16,15 +16,11 @@
 package nl.nn.adapterframework.filesystem;
 
 import java.io.InputStream;
-
-import org.apache.commons.pool2.BasePooledObjectFactory;
-import org.apache.commons.pool2.ObjectPool;
-import org.apache.commons.pool2.PooledObject;
-import org.apache.commons.pool2.impl.DefaultPooledObject;
-import org.apache.commons.pool2.impl.GenericObjectPool;
+import java.io.OutputStream;
 
 import lombok.Getter;
 import lombok.Setter;
+import nl.nn.adapterframework.doc.IbisDoc;
 import nl.nn.adapterframework.util.ClassUtils;
 import nl.nn.adapterframework.util.StreamUtil;
 
@@ -38,9 +34,11 @@ public abstract class ConnectedFileSystemBase<F,C> extends FileSystemBase<F> {
 
 	// implementations that have a thread-safe connection can set pooledConnection = false to use a shared connection.
 	private @Setter @Getter boolean pooledConnection=true;
+	private @Getter int maxConnections=8;
+	private @Getter int maxIdleTime=300;
 	
 	private C globalConnection;
-	private ObjectPool<C> connectionPool;
+	private FileSystemConnectionPool<C> connectionPool;
 
 	/**
 	 * Create a fresh connection to the FileSystem.
@@ -59,6 +57,14 @@ public abstract class ConnectedFileSystemBase<F,C> extends FileSystemBase<F> {
 			}
 		}
 	}
+
+	/**
+	 * Check that a pooled connection can still be used, before it is handed out.
+	 * Connections that are not valid anymore are closed, and replaced by a fresh connection.
+	 */
+	protected boolean isConnectionValid(C connection) {
+		return true;
+	}
 	
 	
 	@Override
@@ -91,20 +97,12 @@ public abstract class ConnectedFileSystemBase<F,C> extends FileSystemBase<F> {
 	 * Get a Connection from the pool, or the global shared connection.
 	 */
 	protected C getConnection() throws FileSystemException {
-		try {
-			return isPooledConnection() ? connectionPool.borrowObject() : globalConnection;
-		} catch (Exception e) {
-			throw new FileSystemException("Cannot get connection from pool of "+ClassUtils.nameOf(this), e);
-		}
+		return isPooledConnection() ? connectionPool.getConnection() : globalConnection;
 	}
 	
 	protected void releaseConnection(C connection) {
 		if (isPooledConnection()) {
-			try {
-				connectionPool.returnObject(connection);
-			} catch (Exception e) {
-				log.warn("Cannot return connection of "+ClassUtils.nameOf(this), e);
-			}
+			connectionPool.releaseConnection(connection);
 		}
 	}
 	
@@ -113,18 +111,18 @@ public abstract class ConnectedFileSystemBase<F,C> extends FileSystemBase<F> {
 	 * If a shared (non-pooled) connection is invalidated, the shared connection is recreated.
 	 */
 	protected void invalidateConnection(C connection) {
-		try {
-			if (isPooledConnection()) {
-				connectionPool.invalidateObject(connection);
-			} else {
+		if (isPooledConnection()) {
+			connectionPool.invalidateConnection(connection);
+		} else {
+			try {
 				try {
 					closeConnection(globalConnection);
 				} finally {
 					globalConnection = createConnection();
 				}
+			} catch (Exception e) {
+				log.warn("Cannot invalidate connection of "+ClassUtils.nameOf(this), e);
 			}
-		} catch (Exception e) {
-			log.warn("Cannot invalidate connection of "+ClassUtils.nameOf(this), e);
 		}
 	}
 	
@@ -136,39 +134,50 @@ public abstract class ConnectedFileSystemBase<F,C> extends FileSystemBase<F> {
 		return StreamUtil.watch(stream, () -> releaseConnection(connection) , () -> invalidateConnection(connection));
 	}
 
+	/**
+	 * Postpone the release of the connection to after the stream is closed.
+	 */
+	protected OutputStream pendingRelease(OutputStream stream, C connection) {
+		return isPooledConnection() ? connectionPool.pendingRelease(stream, connection) : stream;
+	}
+
 	private void openPool() {
 		if (connectionPool==null) {
-			connectionPool=new GenericObjectPool<>(new BasePooledObjectFactory<C>() {
+			connectionPool=new FileSystemConnectionPool<>(ClassUtils.nameOf(this), new FileSystemConnectionPool.ConnectionFactory<C>() {
 
 				@Override
-				public C create() throws Exception {
-					return createConnection();
+				public C createConnection() throws FileSystemException {
+					return ConnectedFileSystemBase.this.createConnection();
 				}
 
 				@Override
-				public PooledObject<C> wrap(C connection) {
-					return new DefaultPooledObject<C>(connection);
+				public void closeConnection(C connection) throws FileSystemException {
+					ConnectedFileSystemBase.this.closeConnection(connection);
 				}
 
 				@Override
-				public void destroyObject(PooledObject<C> p) throws Exception {
-					closeConnection(p.getObject());
-					super.destroyObject(p);
+				public boolean isConnectionValid(C connection) {
+					return ConnectedFileSystemBase.this.isConnectionValid(connection);
 				}
-
-			}); 
+			});
+			connectionPool.open(getMaxConnections(), getMaxIdleTime());
 		}
 	}
 
 	private void closePool() {
-		try {
-			if (connectionPool!=null) {
-				connectionPool.close();
-				connectionPool=null;
-			}
-		} catch (Exception e) {
-			log.warn("exception clearing Pool of "+ClassUtils.nameOf(this),e);
+		if (connectionPool!=null) {
+			connectionPool.close();
+			connectionPool=null;
 		}
 	}
 
+	@IbisDoc({"Maximum number of connections to the storage that are used at the same time", "8"})
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	@IbisDoc({"Time in seconds after which connections that have not been used are closed. When 0, connections are kept open", "300"})
+	public void setMaxIdleTime(int maxIdleTime) {
+		this.maxIdleTime = maxIdleTime;
+	}
 }
@@ -0,0 +1,181 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.filesystem;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.apache.logging.log4j.Logger;
+
+import nl.nn.adapterframework.util.LogUtil;
+import nl.nn.adapterframework.util.StreamUtil;
+
+/**
+ * Pool of connections to the storage of a {@link IBasicFileSystem FileSystem}.
+ * Connections are validated before they are borrowed, and connections that have been idle for longer than
+ * the maximum idle time are closed by a background evictor.
+ * 
+ * @param <C> the type of the connection
+ */
+class FileSystemConnectionPool<C> {
+	protected Logger log = LogUtil.getLogger(this);
+
+	private final String owner;
+	private final ConnectionFactory<C> connectionFactory;
+	private GenericObjectPool<C> pool;
+
+	interface ConnectionFactory<C> {
+		C createConnection() throws FileSystemException;
+		void closeConnection(C connection) throws FileSystemException;
+		boolean isConnectionValid(C connection);
+	}
+
+	FileSystemConnectionPool(String owner, ConnectionFactory<C> connectionFactory) {
+		this.owner = owner;
+		this.connectionFactory = connectionFactory;
+	}
+
+	/**
+	 * @param maxConnections maximum number of connections that can be in use at the same time.
+	 * @param maxIdleTime time in seconds after which idle connections are closed, or 0 to keep idle connections open.
+	 */
+	public void open(int maxConnections, int maxIdleTime) {
+		if (pool!=null) {
+			return;
+		}
+		GenericObjectPoolConfig<C> config = new GenericObjectPoolConfig<>();
+		config.setMaxTotal(maxConnections);
+		config.setMaxIdle(maxConnections);
+		config.setTestOnBorrow(true);
+		if (maxIdleTime>0) {
+			config.setTestWhileIdle(true);
+			config.setMinEvictableIdleTimeMillis(maxIdleTime*1000L);
+			config.setTimeBetweenEvictionRunsMillis(Math.min(maxIdleTime, 60)*1000L);
+		}
+		pool = new GenericObjectPool<>(new BasePooledObjectFactory<C>() {
+
+			@Override
+			public C create() throws Exception {
+				return connectionFactory.createConnection();
+			}
+
+			@Override
+			public PooledObject<C> wrap(C connection) {
+				return new DefaultPooledObject<C>(connection);
+			}
+
+			@Override
+			public boolean validateObject(PooledObject<C> p) {
+				return connectionFactory.isConnectionValid(p.getObject());
+			}
+
+			@Override
+			public void destroyObject(PooledObject<C> p) throws Exception {
+				connectionFactory.closeConnection(p.getObject());
+				super.destroyObject(p);
+			}
+
+		}, config);
+	}
+
+	public void close() {
+		try {
+			if (pool!=null) {
+				pool.close();
+				pool=null;
+			}
+		} catch (Exception e) {
+			log.warn("exception clearing Pool of "+owner,e);
+		}
+	}
+
+	public C getConnection() throws FileSystemException {
+		try {
+			return pool.borrowObject();
+		} catch (Exception e) {
+			throw new FileSystemException("Cannot get connection from pool of "+owner, e);
+		}
+	}
+
+	public void releaseConnection(C connection) {
+		try {
+			pool.returnObject(connection);
+		} catch (Exception e) {
+			log.warn("Cannot return connection of "+owner, e);
+		}
+	}
+
+	public void invalidateConnection(C connection) {
+		try {
+			pool.invalidateObject(connection);
+		} catch (Exception e) {
+			log.warn("Cannot invalidate connection of "+owner, e);
+		}
+	}
+
+	/**
+	 * Postpone the release of the connection to after the stream is closed.
+	 * If any IOExceptions on the stream occur, the connection is invalidated.
+	 */
+	public InputStream pendingRelease(InputStream stream, C connection) {
+		return StreamUtil.watch(stream, () -> releaseConnection(connection) , () -> invalidateConnection(connection));
+	}
+
+	/**
+	 * Postpone the release of the connection to after the stream is closed.
+	 * If an IOException occurs while closing the stream, the connection is invalidated.
+	 */
+	public OutputStream pendingRelease(OutputStream stream, C connection) {
+		return new FilterOutputStream(stream) {
+			private boolean released = false;
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+			}
+
+			@Override
+			public void close() throws IOException {
+				if (released) {
+					return;
+				}
+				released = true;
+				try {
+					super.close();
+				} catch (IOException e) {
+					invalidateConnection(connection);
+					throw e;
+				}
+				releaseConnection(connection);
+			}
+		};
+	}
+
+	public int getNumActive() {
+		return pool==null ? 0 : pool.getNumActive();
+	}
+
+	public int getNumIdle() {
+		return pool==null ? 0 : pool.getNumIdle();
+	}
+}
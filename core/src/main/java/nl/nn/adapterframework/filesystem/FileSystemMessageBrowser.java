@@ -1,5 +1,5 @@
 /*
-   Copyright 2020 WeAreFrank!
+   Copyright 2020, 2021 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -20,12 +20,14 @@ import java.nio.file.DirectoryStream;
 import java.util.Date;
 import java.util.Iterator;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.Logger;
 
 import nl.nn.adapterframework.core.IMessageBrowser;
 import nl.nn.adapterframework.core.IMessageBrowsingIterator;
 import nl.nn.adapterframework.core.IMessageBrowsingIteratorItem;
 import nl.nn.adapterframework.core.ListenerException;
+import nl.nn.adapterframework.core.SeekingMessageBrowsingIterator;
 import nl.nn.adapterframework.util.LogUtil;
 
 public class FileSystemMessageBrowser<F, FS extends IBasicFileSystem<F>> implements IMessageBrowser<F> {
@@ -64,6 +66,16 @@ public class FileSystemMessageBrowser<F, FS extends IBasicFileSystem<F>> impleme
 		return getIterator(); // TODO: implement filter and sort order
 	}
 
+	@Override
+	public IMessageBrowsingIterator getIterator(Date startTime, Date endTime, SortOrder order, Date seekDate, String seekKey) throws ListenerException {
+		IMessageBrowsingIterator iterator = getIterator(startTime, endTime, order);
+		if (StringUtils.isEmpty(seekKey)) {
+			return iterator;
+		}
+		// files are listed in the order of the folder, not sorted by date 
+		return new SeekingMessageBrowsingIterator(iterator, SortOrder.NONE, seekDate, seekKey);
+	}
+
 	@Override
 	public IMessageBrowsingIteratorItem getContext(String storageKey) throws ListenerException {
 		return new FileSystemMessageBrowsingIteratorItem<F, FS>(fileSystem, browseMessage(storageKey), messageIdPropertyKey);
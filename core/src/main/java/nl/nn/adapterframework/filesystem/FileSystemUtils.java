@@ -1,5 +1,5 @@
 /*
-   Copyright 2020 WeAreFrank!
+   Copyright 2020-2021 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -17,9 +17,15 @@ package nl.nn.adapterframework.filesystem;
 
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -28,6 +34,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.Logger;
 
 import lombok.Lombok;
+import nl.nn.adapterframework.scheduler.NamedThreadFactory;
 import nl.nn.adapterframework.util.DateUtils;
 import nl.nn.adapterframework.util.LogUtil;
 import nl.nn.adapterframework.util.Misc;
@@ -114,6 +121,73 @@ public class FileSystemUtils {
 		return newFile;
 	}
 
+	/**
+	 * Moves a number of files to the same destination folder, using up to <code>threads</code> transfers at the same time.
+	 * Each transfer uses its own connection, when the FileSystem uses a pool of connections.
+	 * @return the moved files, in the order of the files that were passed in.
+	 */
+	public static <F> List<F> moveFiles(IBasicFileSystem<F> fileSystem, List<F> files, String destinationFolder, boolean overwrite, int numOfBackups, boolean createFolders, int threads) throws FileSystemException {
+		return transferFiles(fileSystem, files, destinationFolder, createFolders, threads, "move", file -> moveFile(fileSystem, file, destinationFolder, overwrite, numOfBackups, false));
+	}
+
+	/**
+	 * Copies a number of files to the same destination folder, using up to <code>threads</code> transfers at the same time.
+	 * Each transfer uses its own connection, when the FileSystem uses a pool of connections.
+	 * @return the copied files, in the order of the files that were passed in.
+	 */
+	public static <F> List<F> copyFiles(IBasicFileSystem<F> fileSystem, List<F> files, String destinationFolder, boolean overwrite, int numOfBackups, boolean createFolders, int threads) throws FileSystemException {
+		return transferFiles(fileSystem, files, destinationFolder, createFolders, threads, "copy", file -> copyFile(fileSystem, file, destinationFolder, overwrite, numOfBackups, false));
+	}
+
+	private interface FileTransfer<F> {
+		F transfer(F file) throws FileSystemException;
+	}
+
+	private static <F> List<F> transferFiles(IBasicFileSystem<F> fileSystem, List<F> files, String destinationFolder, boolean createFolders, int threads, String action, FileTransfer<F> transfer) throws FileSystemException {
+		List<F> result = new ArrayList<>(files.size());
+		if (files.isEmpty()) {
+			return result;
+		}
+		// the destination folder is prepared once, to avoid that parallel transfers all try to create it
+		if (createFolders && !fileSystem.folderExists(destinationFolder)) {
+			fileSystem.createFolder(destinationFolder);
+		}
+		int poolSize = Math.min(threads, files.size());
+		if (poolSize <= 1) {
+			for (F file:files) {
+				result.add(transfer.transfer(file));
+			}
+			return result;
+		}
+		NamedThreadFactory threadFactory = new NamedThreadFactory();
+		threadFactory.setThreadGroupName("FileSystemTransfer");
+		ExecutorService executor = Executors.newFixedThreadPool(poolSize, threadFactory);
+		try {
+			List<Future<F>> transfers = new ArrayList<>(files.size());
+			for (F file:files) {
+				transfers.add(executor.submit(() -> transfer.transfer(file)));
+			}
+			for (int i=0; i<transfers.size(); i++) {
+				try {
+					result.add(transfers.get(i).get());
+				} catch (ExecutionException e) {
+					transfers.forEach(f -> f.cancel(false));
+					Throwable cause = e.getCause();
+					if (cause instanceof FileSystemException) {
+						throw (FileSystemException)cause;
+					}
+					throw new FileSystemException("cannot "+action+" file [" + fileSystem.getName(files.get(i)) + "] to [" + destinationFolder + "]", cause);
+				}
+			}
+			return result;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new FileSystemException("interrupted while waiting for files to "+action+" to [" + destinationFolder + "]", e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
 	
 	public static <F> void rolloverByNumber(IWritableFileSystem<F> fileSystem, F file, int numberOfBackups) throws FileSystemException {
 		if (!fileSystem.exists(file)) {
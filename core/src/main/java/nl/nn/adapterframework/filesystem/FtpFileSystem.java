@@ -15,6 +15,7 @@
 */
 package nl.nn.adapterframework.filesystem;
 
+import java.io.FilterInputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -28,15 +29,19 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang3.NotImplementedException;
+import org.apache.commons.net.ftp.FTPClient;
 import org.apache.commons.net.ftp.FTPFile;
 import org.apache.commons.net.ftp.FTPReply;
 
 import nl.nn.adapterframework.configuration.ConfigurationException;
+import nl.nn.adapterframework.doc.IbisDoc;
 import nl.nn.adapterframework.ftp.FtpConnectException;
 import nl.nn.adapterframework.ftp.FtpSession;
 import nl.nn.adapterframework.stream.Message;
+import nl.nn.adapterframework.util.ClassUtils;
 
 /**
+ * FileSystem on a FTP server. Each operation uses a connection from a pool, allowing multiple threads to use the FileSystem at the same time.
  * 
  * @author Daniël Meyer
  *
@@ -44,8 +49,11 @@ import nl.nn.adapterframework.stream.Message;
 public class FtpFileSystem extends FtpSession implements IWritableFileSystem<FTPFile> {
 
 	private String remoteDirectory = "";
+	private int maxConnections = 8;
+	private int maxIdleTime = 300;
 
 	private boolean open;
+	private FileSystemConnectionPool<FTPClient> connectionPool;
 
 
 	@Override
@@ -55,18 +63,44 @@ public class FtpFileSystem extends FtpSession implements IWritableFileSystem<FTP
 
 	@Override
 	public void open() throws FileSystemException {
-		try {
-			openClient(remoteDirectory);
-		} catch (FtpConnectException e) {
-			throw new FileSystemException("Cannot connect to the FTP server with domain ["+getHost()+"]", e);
-		}
+		connectionPool = new FileSystemConnectionPool<>(ClassUtils.nameOf(this), new FileSystemConnectionPool.ConnectionFactory<FTPClient>() {
+
+			@Override
+			public FTPClient createConnection() throws FileSystemException {
+				try {
+					return createConnectedFtpClient(remoteDirectory);
+				} catch (FtpConnectException e) {
+					throw new FileSystemException("Cannot connect to the FTP server with domain ["+getHost()+"]", e);
+				}
+			}
+
+			@Override
+			public void closeConnection(FTPClient client) {
+				closeFtpClient(client);
+			}
+
+			@Override
+			public boolean isConnectionValid(FTPClient client) {
+				try {
+					return client.isConnected() && client.sendNoOp();
+				} catch (IOException e) {
+					return false;
+				}
+			}
+		});
+		connectionPool.open(maxConnections, maxIdleTime);
+		// verify that a connection can be made, and keep it for the first operation
+		connectionPool.releaseConnection(connectionPool.getConnection());
 		open=true;
 	}
 
 	@Override
 	public void close() {
 		open=false;
-		closeClient();
+		if (connectionPool != null) {
+			connectionPool.close();
+			connectionPool = null;
+		}
 	}
 
 
@@ -88,162 +122,200 @@ public class FtpFileSystem extends FtpSession implements IWritableFileSystem<FTP
 		return toFile(folder+"/"+filename);
 	}
 
-	@Override
-	public int getNumberOfFilesInFolder(String folder) throws FileSystemException {
+	/**
+	 * An operation that uses a connection from the pool.
+	 */
+	private interface FtpAction<T> {
+		T execute(FTPClient client) throws IOException, FileSystemException;
+	}
+
+	private <T> T execute(FtpAction<T> action) throws FileSystemException {
+		return execute(null, action);
+	}
+
+	/**
+	 * Executes the action with a connection from the pool. Afterwards the connection is returned to the pool, unless an
+	 * IOException occurred. Then the connection is invalidated instead, as its state is unknown.
+	 */
+	private <T> T execute(String errorMessage, FtpAction<T> action) throws FileSystemException {
+		FTPClient client = connectionPool.getConnection();
+		T result;
 		try {
-			FTPFile[] files = ftpClient.listFiles(folder);
-			return files == null? 0 : files.length;
+			result = action.execute(client);
 		} catch (IOException e) {
-			throw new FileSystemException(e);
+			connectionPool.invalidateConnection(client);
+			throw errorMessage == null ? new FileSystemException(e) : new FileSystemException(errorMessage, e);
+		} catch (FileSystemException | RuntimeException e) {
+			connectionPool.releaseConnection(client);
+			throw e;
 		}
+		connectionPool.releaseConnection(client);
+		return result;
+	}
+
+	@Override
+	public int getNumberOfFilesInFolder(String folder) throws FileSystemException {
+		return execute(client -> {
+			FTPFile[] files = client.listFiles(folder);
+			return files == null? 0 : files.length;
+		});
 	}
 	
 	@Override
 	public DirectoryStream<FTPFile> listFiles(String folder) throws FileSystemException {
-		try {
-			return FileSystemUtils.getDirectoryStream(new FTPFilePathIterator(folder, ftpClient.listFiles(folder)));
-		} catch (IOException e) {
-			throw new FileSystemException(e);
-		}
+		return execute(client -> FileSystemUtils.getDirectoryStream(new FTPFilePathIterator(folder, client.listFiles(folder))));
 	}
 
 	@Override
 	public boolean exists(FTPFile f) throws FileSystemException {
-		try {
-			FTPFile[] files = ftpClient.listFiles(f.getName());
-			if(files.length > 0) {
-				return true;
-			}
-		} catch (IOException e) {
-			throw new FileSystemException(e);
-		}
-		return false;
+		return execute(client -> client.listFiles(f.getName()).length > 0);
 	}
 
-	private FilterOutputStream completePendingCommand(OutputStream os) {
+	/**
+	 * Completes the transfer when the stream is closed, after which the connection is returned to the pool.
+	 */
+	private OutputStream completePendingCommand(OutputStream os, FTPClient client) {
 		FilterOutputStream fos = new FilterOutputStream(os) {
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+			}
+
 			@Override
 			public void close() throws IOException {
 				super.close();
-				if(ftpClient.getReplyCode() == FTPReply.CODE_150) {
-					ftpClient.completePendingCommand();
+				if(client.getReplyCode() == FTPReply.CODE_150) {
+					client.completePendingCommand();
 				}
 			}
 		};
-		return fos;
+		return connectionPool.pendingRelease(fos, client);
 	}
 
 	@Override
 	public OutputStream createFile(FTPFile f) throws FileSystemException, IOException {
-		OutputStream outputStream = ftpClient.storeFileStream(f.getName());
-		return completePendingCommand(outputStream);
+		FTPClient client = connectionPool.getConnection();
+		try {
+			OutputStream outputStream = client.storeFileStream(f.getName());
+			if (outputStream == null) {
+				throw new FileSystemException("Cannot create file ["+f.getName()+"]: "+client.getReplyString());
+			}
+			return completePendingCommand(outputStream, client);
+		} catch (FileSystemException | IOException | RuntimeException e) {
+			connectionPool.invalidateConnection(client);
+			throw e;
+		}
 	}
 
 	@Override
 	public OutputStream appendFile(FTPFile f) throws FileSystemException, IOException {
-		OutputStream outputStream = ftpClient.appendFileStream(f.getName());
-		return completePendingCommand(outputStream);
+		FTPClient client = connectionPool.getConnection();
+		try {
+			OutputStream outputStream = client.appendFileStream(f.getName());
+			if (outputStream == null) {
+				throw new FileSystemException("Cannot append to file ["+f.getName()+"]: "+client.getReplyString());
+			}
+			return completePendingCommand(outputStream, client);
+		} catch (FileSystemException | IOException | RuntimeException e) {
+			connectionPool.invalidateConnection(client);
+			throw e;
+		}
 	}
 
 	@Override
 	public Message readFile(FTPFile f) throws FileSystemException, IOException {
-		InputStream inputStream = ftpClient.retrieveFileStream(f.getName());
-		ftpClient.completePendingCommand();
-		return new Message(inputStream);
+		FTPClient client = connectionPool.getConnection();
+		try {
+			InputStream ftpStream = client.retrieveFileStream(f.getName());
+			if (ftpStream == null) {
+				// the server did not start the transfer, e.g. because the file does not exist
+				throw new FileSystemException("Cannot read file ["+f.getName()+"]: "+client.getReplyString());
+			}
+			InputStream inputStream = new FilterInputStream(ftpStream) {
+				@Override
+				public void close() throws IOException {
+					super.close();
+					client.completePendingCommand();
+				}
+			};
+			return new Message(connectionPool.pendingRelease(inputStream, client));
+		} catch (FileSystemException | IOException | RuntimeException e) {
+			connectionPool.invalidateConnection(client);
+			throw e;
+		}
 	}
 
 	@Override
 	public void deleteFile(FTPFile f) throws FileSystemException {
-		try {
-			ftpClient.deleteFile(f.getName());
-		} catch (IOException e) {
-			throw new FileSystemException(e);
-		}
+		execute(client -> client.deleteFile(f.getName()));
 	}
 
 	
 	@Override
 	public boolean folderExists(String folder) throws FileSystemException {
-		boolean isDirectory = false;
-		try {
-			FTPFile[] files = ftpClient.listFiles(folder);
-			if(files.length > 1) 
-				isDirectory = true;
-		} catch (IOException e) {
-			throw new FileSystemException(e);
-		}
-		
-		return isDirectory;
+		return execute(client -> folderExists(client, folder));
+	}
+
+	private boolean folderExists(FTPClient client, String folder) throws IOException {
+		FTPFile[] files = client.listFiles(folder);
+		return files.length > 1;
 	}
 
 	@Override
 	public void createFolder(String folder) throws FileSystemException {
-		if(folderExists(folder)) {
-			throw new FileSystemException("Create directory for [" + folder + "] has failed. Directory already exists.");
-		}
-		try {
-			ftpClient.makeDirectory(folder);
-		} catch (IOException e) {
-			throw new FileSystemException(e);
-		}
+		execute(client -> {
+			if(folderExists(client, folder)) {
+				throw new FileSystemException("Create directory for [" + folder + "] has failed. Directory already exists.");
+			}
+			return client.makeDirectory(folder);
+		});
 	}
 
 	@Override
 	public void removeFolder(String folder, boolean removeNonEmptyFolder) throws FileSystemException {
-		if(!folderExists(folder)) {
-			throw new FileSystemException("Remove directory for [" + folder + "] has failed. Directory does not exist.");
-		}
-		try {
+		execute(client -> {
+			if(!folderExists(client, folder)) {
+				throw new FileSystemException("Remove directory for [" + folder + "] has failed. Directory does not exist.");
+			}
 			if(removeNonEmptyFolder) {
-				removeDirectoryContent(folder);
-			} else {
-				ftpClient.removeDirectory(folder);
+				removeDirectoryContent(client, folder);
+				return true;
 			}
-		} catch (IOException e) {
-			throw new FileSystemException(e);
-		}
+			return client.removeDirectory(folder);
+		});
 	}
 
 	/**
 	 * Recursively remove directory
 	 * @param folder
 	 * @throws IOException
-	 * @throws FileSystemException
 	 */
-	private void removeDirectoryContent(String folder) throws IOException, FileSystemException {
-		FTPFile[] files = ftpClient.listFiles(folder);
+	private void removeDirectoryContent(FTPClient client, String folder) throws IOException {
+		FTPFile[] files = client.listFiles(folder);
 		for (FTPFile ftpFile : files) {
 			String fileName=ftpFile.getName();
 			if (fileName.equals(".") || fileName.equals("..")) {
 				continue;
 			}
 			if(ftpFile.isDirectory()) {
-				removeDirectoryContent(folder+"/"+fileName);
+				removeDirectoryContent(client, folder+"/"+fileName);
 			} else {
-				deleteFile(ftpFile);
+				client.deleteFile(ftpFile.getName());
 			}
 		}
-		ftpClient.removeDirectory(folder);
+		client.removeDirectory(folder);
 	}
 
 	@Override
 	public FTPFile renameFile(FTPFile source, FTPFile destination) throws FileSystemException {
-		try {
-			ftpClient.rename(source.getName(), destination.getName());
-		} catch (IOException e) {
-			throw new FileSystemException(e);
-		}
+		execute(client -> client.rename(source.getName(), destination.getName()));
 		return destination;
 	}
 
 	@Override
 	public FTPFile moveFile(FTPFile f, String destinationFolder, boolean createFolder) throws FileSystemException {
 		String destinationFilename = destinationFolder+"/"+f.getName();
-		try {
-			ftpClient.rename(f.getName(), destinationFilename);
-		} catch (IOException e) {
-			throw new FileSystemException(e);
-		}
+		execute(client -> client.rename(f.getName(), destinationFilename));
 		return toFile(destinationFilename);
 	}
 	
@@ -269,13 +341,13 @@ public class FtpFileSystem extends FtpSession implements IWritableFileSystem<FTP
 
 	@Override
 	public Date getModificationTime(FTPFile f) throws FileSystemException {
-		try {
-			return ftpClient.listFiles(f.getName())[0].getTimestamp().getTime();
-		} catch (IndexOutOfBoundsException oobe) {
-			throw new FileSystemException("File could not be found", oobe);
-		} catch (IOException e) {
-			throw new FileSystemException("Could not retrieve file", e);
-		}
+		return execute("Could not retrieve file", client -> {
+			FTPFile[] files = client.listFiles(f.getName());
+			if (files.length == 0) {
+				throw new FileSystemException("File could not be found");
+			}
+			return files[0].getTimestamp().getTime();
+		});
 	}
 
 	@Override
@@ -300,6 +372,22 @@ public class FtpFileSystem extends FtpSession implements IWritableFileSystem<FTP
 		this.remoteDirectory = remoteDirectory;
 	}
 
+	@IbisDoc({"Maximum number of connections to the FTP server that are used at the same time", "8"})
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	@IbisDoc({"Time in seconds after which connections that have not been used are closed. When 0, connections are kept open", "300"})
+	public void setMaxIdleTime(int maxIdleTime) {
+		this.maxIdleTime = maxIdleTime;
+	}
+	public int getMaxIdleTime() {
+		return maxIdleTime;
+	}
+
 	private class FTPFilePathIterator implements Iterator<FTPFile> {
 
 		private List<FTPFile> files;
@@ -17,6 +17,7 @@ package nl.nn.adapterframework.filesystem;
 
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -25,9 +26,12 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import javax.mail.BodyPart;
+import javax.mail.FetchProfile;
 import javax.mail.Flags;
 import javax.mail.Folder;
 import javax.mail.Header;
@@ -67,15 +71,48 @@ public class ImapFileSystem extends MailFileSystemBase<Message, MimeBodyPart, IM
 
 	private @Getter String host = "";
 	private @Getter int port = 993;
+	private @Getter int fetchSize = 65536;
 	
 	private Session emailSession = Session.getInstance(System.getProperties());
 
+	// the parts of the messages that are used when messages are listed, are fetched for all new messages in a single command
+	private static final FetchProfile LIST_FETCH_PROFILE = new FetchProfile();
+	static {
+		LIST_FETCH_PROFILE.add(UIDFolder.FetchProfileItem.UID);
+		LIST_FETCH_PROFILE.add(FetchProfile.Item.ENVELOPE);
+		LIST_FETCH_PROFILE.add(FetchProfile.Item.FLAGS);
+		LIST_FETCH_PROFILE.add(FetchProfile.Item.SIZE);
+		LIST_FETCH_PROFILE.add(FetchProfile.Item.CONTENT_INFO);
+		LIST_FETCH_PROFILE.add(IMAPFolder.FetchProfileItem.HEADERS);
+	}
+
+	private Map<IMAPFolder, Map<String, ListedFolder>> listedFolders = new ConcurrentHashMap<>();
+
+	/**
+	 * Messages of a folder that have been listed before on a connection. As long as the UIDVALIDITY of the folder does not change,
+	 * messages keep their UID, and only messages with a UID from the next expected UID onwards need to be fetched from the server.
+	 */
+	static class ListedFolder {
+		IMAPFolder folder;
+		long uidValidity = -1;
+		long uidNext = 1;
+		List<Message> messages = new ArrayList<>();
+
+		ListedFolder(IMAPFolder folder) {
+			this.folder = folder;
+		}
+	}
 	
 	@Override
 	public void configure() throws ConfigurationException {
 		if (StringUtils.isEmpty(getHost())) {
 			throw new ConfigurationException("attribute host needs to be specified");
 		}
+		Properties properties = new Properties(System.getProperties());
+		// read message bodies in blocks of fetchSize, instead of loading them into memory completely
+		properties.setProperty("mail.imaps.partialfetch", "true");
+		properties.setProperty("mail.imaps.fetchsize", Integer.toString(getFetchSize()));
+		emailSession = Session.getInstance(properties);
 	}
 
 
@@ -109,6 +146,7 @@ public class ImapFileSystem extends MailFileSystemBase<Message, MimeBodyPart, IM
 
 	@Override
 	protected void closeConnection(IMAPFolder folder) throws FileSystemException {
+		listedFolders.remove(folder);
 		try (Store store = folder.getStore()) {
 			if (folder.isOpen()) {
 				folder.close();
@@ -198,8 +236,7 @@ public class ImapFileSystem extends MailFileSystemBase<Message, MimeBodyPart, IM
 			if (!folder.isOpen()) {
 				folder.open(Folder.READ_WRITE);
 			}
-			Message messages[] = folder.getMessages();
-			return messages.length;
+			return folder.getMessageCount();
 		} catch (MessagingException e) {
 			invalidateConnection(baseFolder);
 			throw new FileSystemException(e);
@@ -212,12 +249,18 @@ public class ImapFileSystem extends MailFileSystemBase<Message, MimeBodyPart, IM
 	public DirectoryStream<Message> listFiles(String foldername) throws FileSystemException {
 		IMAPFolder baseFolder = getConnection();
 		try {
-			IMAPFolder folder = getFolder(baseFolder, foldername);
-			if (!folder.isOpen()) {
-				folder.open(Folder.READ_WRITE);
+			Map<String, ListedFolder> listedFoldersOfConnection = listedFolders.computeIfAbsent(baseFolder, k -> new ConcurrentHashMap<>());
+			String key = foldername == null ? "" : foldername;
+			ListedFolder listedFolder = listedFoldersOfConnection.get(key);
+			if (listedFolder == null || !listedFolder.folder.isOpen()) {
+				IMAPFolder folder = getFolder(baseFolder, foldername);
+				if (!folder.isOpen()) {
+					folder.open(Folder.READ_WRITE);
+				}
+				listedFolder = new ListedFolder(folder);
+				listedFoldersOfConnection.put(key, listedFolder);
 			}
-			Message messages[] = folder.getMessages();
-			return FileSystemUtils.getDirectoryStream(Arrays.asList(messages));
+			return FileSystemUtils.getDirectoryStream(listMessages(listedFolder));
 		} catch (MessagingException e) {
 			invalidateConnection(baseFolder);
 			throw new FileSystemException(e);
@@ -226,6 +269,48 @@ public class ImapFileSystem extends MailFileSystemBase<Message, MimeBodyPart, IM
 		}
 	}
 
+	/**
+	 * Lists the messages of an open folder. Messages that were listed before on the same connection are reused, when they
+	 * have not been expunged. Only the new messages are fetched, with the parts that are required for processing
+	 * fetched in bulk, to avoid a round trip to the server for each message.
+	 */
+	List<Message> listMessages(ListedFolder listedFolder) throws MessagingException {
+		IMAPFolder folder = listedFolder.folder;
+		long uidValidity = folder.getUIDValidity();
+		Message[] newMessages;
+		boolean fullListing = uidValidity != listedFolder.uidValidity;
+		if (fullListing) {
+			if (listedFolder.uidValidity >= 0) {
+				log.info("UIDVALIDITY of folder ["+folder.getFullName()+"] changed from ["+listedFolder.uidValidity+"] to ["+uidValidity+"], listing all messages");
+			}
+			listedFolder.messages.clear();
+			listedFolder.uidValidity = uidValidity;
+			listedFolder.uidNext = 1;
+			newMessages = folder.getMessages();
+		} else {
+			// the server returns the last message in the folder when there are no messages with a UID in the range
+			newMessages = folder.getMessagesByUID(listedFolder.uidNext, UIDFolder.LASTUID);
+		}
+		listedFolder.messages.removeIf(Message::isExpunged);
+		List<Message> fetch = new ArrayList<>();
+		for (Message message : newMessages) {
+			// getMessagesByUID() has already retrieved the UIDs, so getUID() does not cause a round trip here
+			if (message != null && !message.isExpunged() && (fullListing || folder.getUID(message) >= listedFolder.uidNext)) {
+				fetch.add(message);
+			}
+		}
+		if (!fetch.isEmpty()) {
+			Message[] fetchArray = fetch.toArray(new Message[fetch.size()]);
+			folder.fetch(fetchArray, LIST_FETCH_PROFILE);
+			for (Message message : fetchArray) {
+				listedFolder.uidNext = Math.max(listedFolder.uidNext, folder.getUID(message) + 1);
+			}
+			listedFolder.messages.addAll(fetch);
+		}
+		if (log.isDebugEnabled()) log.debug("listed ["+listedFolder.messages.size()+"] messages of folder ["+folder.getFullName()+"], of which ["+fetch.size()+"] were fetched");
+		return new ArrayList<>(listedFolder.messages);
+	}
+
 	@Override
 	public void deleteFile(Message f) throws FileSystemException {
 		try {
@@ -613,4 +698,9 @@ public class ImapFileSystem extends MailFileSystemBase<Message, MimeBodyPart, IM
 		this.port = port;
 	}
 
+	@IbisDoc({ "3", "Number of bytes of a message body that are read from the IMAP server at a time. Larger messages are streamed in blocks of this size", "65536" })
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
 }
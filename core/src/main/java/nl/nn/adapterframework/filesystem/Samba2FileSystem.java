@@ -38,7 +38,6 @@ import javax.security.auth.kerberos.KerberosPrincipal;
 import javax.security.auth.login.LoginContext;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.logging.log4j.Logger;
 import org.ietf.jgss.GSSCredential;
 import org.ietf.jgss.GSSException;
 import org.ietf.jgss.GSSManager;
@@ -54,6 +53,7 @@ import com.hierynomus.mssmb2.SMB2CreateDisposition;
 import com.hierynomus.mssmb2.SMB2CreateOptions;
 import com.hierynomus.mssmb2.SMB2ShareAccess;
 import com.hierynomus.mssmb2.SMBApiException;
+import com.hierynomus.smbj.common.SMBRuntimeException;
 import com.hierynomus.protocol.commons.EnumWithValue;
 import com.hierynomus.protocol.commons.buffer.Buffer.BufferException;
 import com.hierynomus.protocol.transport.TransportException;
@@ -70,16 +70,15 @@ import nl.nn.adapterframework.configuration.ConfigurationException;
 import nl.nn.adapterframework.doc.IbisDoc;
 import nl.nn.adapterframework.stream.Message;
 import nl.nn.adapterframework.util.CredentialFactory;
-import nl.nn.adapterframework.util.LogUtil;
 
 /**
+ * FileSystem on a Samba share, using the SMB2 protocol.
+ * Each operation uses a session on the share from a pool, allowing multiple threads to use the FileSystem at the same time.
  * 
  * @author alisihab
  *
  */
-public class Samba2FileSystem extends FileSystemBase<String> implements IWritableFileSystem<String> {
-
-	protected Logger log = LogUtil.getLogger(this);
+public class Samba2FileSystem extends ConnectedFileSystemBase<String,DiskShare> implements IWritableFileSystem<String> {
 
 	private final String SPNEGO_OID="1.3.6.1.5.5.2";
 	private final String KERBEROS5_OID="1.2.840.113554.1.2.2";
@@ -99,8 +98,7 @@ public class Samba2FileSystem extends FileSystemBase<String> implements IWritabl
 
 	private SMBClient client = null;
 	private Connection connection;
-	private Session session;
-	private DiskShare diskShare;
+	private AuthenticationContext authenticationContext;
 
 	@Override
 	public void configure() throws ConfigurationException {
@@ -114,52 +112,83 @@ public class Samba2FileSystem extends FileSystemBase<String> implements IWritabl
 
 	@Override
 	public void open() throws FileSystemException {
+		authenticationContext = authenticate();
+		client = new SMBClient();
+		super.open();
+		// verify that the share can be reached, and keep the session for the first operation
+		releaseConnection(getConnection());
+	}
+
+	@Override
+	public void close() throws FileSystemException {
 		try {
-			AuthenticationContext auth = authenticate();
-			client = new SMBClient();
+			super.close();
+		} finally {
+			if(connection != null) {
+				try {
+					connection.close();
+				} catch (IOException e) {
+					log.warn("Cannot close connection to ["+domain+"]", e);
+				}
+			}
+			if(client != null) {
+				client.close();
+			}
+			connection = null;
+			client = null;
+			authenticationContext = null;
+		}
+	}
+
+	/**
+	 * Sessions share a single connection to the server, that is reestablished when it has been closed.
+	 */
+	private synchronized Connection getServerConnection() throws IOException {
+		if (connection == null || !connection.isConnected()) {
 			connection = client.connect(domain);
 			if(connection.isConnected()) {
 				log.debug("successfully created connection to ["+connection.getRemoteHostname()+"]");
 			}
-			session = connection.authenticate(auth);
+		}
+		return connection;
+	}
+
+	@Override
+	protected DiskShare createConnection() throws FileSystemException {
+		try {
+			Session session = getServerConnection().authenticate(authenticationContext);
 			if(session == null) {
 				throw new FileSystemException("Cannot create session for user ["+username+"] on domain ["+domain+"]");
 			}
-			diskShare = (DiskShare) session.connectShare(shareName);
+			DiskShare diskShare = (DiskShare) session.connectShare(shareName);
 			if(diskShare == null) {
+				session.close();
 				throw new FileSystemException("Cannot connect to the share ["+ shareName +"]");
 			}
-		} catch (IOException e) {
+			return diskShare;
+		} catch (IOException | SMBRuntimeException e) {
 			throw new FileSystemException("Cannot connect to samba server", e);
 		}
-		super.open();
 	}
 
 	@Override
-	public void close() throws FileSystemException {
-		super.close();
+	protected void closeConnection(DiskShare diskShare) throws FileSystemException {
 		try {
-			if(diskShare != null) {
+			try {
 				diskShare.close();
+			} finally {
+				diskShare.getTreeConnect().getSession().close();
 			}
-			if(session != null) {
-				session.close();		
-			}
-			if(connection != null) {
-				connection.close();
-			}
-			if(client != null) {
-				client.close();
-			}
-			diskShare = null;
-			session = null;
-			connection = null;
-			client = null;
 		} catch (IOException e) {
 			throw new FileSystemException(e);
 		}
 	}
 
+	@Override
+	protected boolean isConnectionValid(DiskShare diskShare) {
+		return diskShare.isConnected();
+	}
+
 	private AuthenticationContext authenticate() throws FileSystemException {
 		CredentialFactory credentialFactory = new CredentialFactory(getAuthAlias(), getUsername(), getPassword());
 		if (StringUtils.isNotEmpty(credentialFactory.getUsername())) {
@@ -235,13 +264,22 @@ public class Samba2FileSystem extends FileSystemBase<String> implements IWritabl
 
 	@Override
 	public DirectoryStream<String> listFiles(String folder) throws FileSystemException {
-		return FileSystemUtils.getDirectoryStream(new FilesIterator(folder, diskShare.list(folder)));
+		DiskShare diskShare = getConnection();
+		try {
+			return FileSystemUtils.getDirectoryStream(new FilesIterator(diskShare, folder, diskShare.list(folder)));
+		} finally {
+			releaseConnection(diskShare);
+		}
 	}
 
 	@Override
 	public boolean exists(String f) throws FileSystemException {
-		boolean exists = isFolder(f) ? diskShare.folderExists(f) : diskShare.fileExists(f);
-		return exists;
+		DiskShare diskShare = getConnection();
+		try {
+			return isFolder(diskShare, f) ? diskShare.folderExists(f) : diskShare.fileExists(f);
+		} finally {
+			releaseConnection(diskShare);
+		}
 	}
 
 	@Override
@@ -250,8 +288,15 @@ public class Samba2FileSystem extends FileSystemBase<String> implements IWritabl
 		Set<SMB2CreateOptions> createOptions = new HashSet<SMB2CreateOptions>(
 				EnumSet.of(SMB2CreateOptions.FILE_NON_DIRECTORY_FILE, SMB2CreateOptions.FILE_WRITE_THROUGH));
 		
-		final File file = diskShare.openFile(f, accessMask, null, SMB2ShareAccess.ALL,
-				SMB2CreateDisposition.FILE_OVERWRITE_IF, createOptions);
+		DiskShare diskShare = getConnection();
+		final File file;
+		try {
+			file = diskShare.openFile(f, accessMask, null, SMB2ShareAccess.ALL,
+					SMB2CreateDisposition.FILE_OVERWRITE_IF, createOptions);
+		} catch (RuntimeException e) {
+			releaseConnection(diskShare);
+			throw e;
+		}
 		OutputStream out = file.getOutputStream();
 		FilterOutputStream fos = new FilterOutputStream(out) {
 
@@ -265,12 +310,19 @@ public class Samba2FileSystem extends FileSystemBase<String> implements IWritabl
 				file.close();
 			}
 		};
-		return fos;
+		return pendingRelease(fos, diskShare);
 	}
 
 	@Override
 	public OutputStream appendFile(String f) throws FileSystemException, IOException {
-		final File file = getFile(f, AccessMask.FILE_APPEND_DATA, SMB2CreateDisposition.FILE_OPEN_IF);
+		DiskShare diskShare = getConnection();
+		final File file;
+		try {
+			file = getFile(diskShare, f, AccessMask.FILE_APPEND_DATA, SMB2CreateDisposition.FILE_OPEN_IF);
+		} catch (RuntimeException e) {
+			releaseConnection(diskShare);
+			throw e;
+		}
 		OutputStream out = file.getOutputStream();
 		FilterOutputStream fos = new FilterOutputStream(out) {
 
@@ -284,12 +336,19 @@ public class Samba2FileSystem extends FileSystemBase<String> implements IWritabl
 				file.close();
 			}
 		};
-		return fos;
+		return pendingRelease(fos, diskShare);
 	}
 
 	@Override
 	public Message readFile(String filename) throws FileSystemException, IOException {
-		final File file = getFile(filename, AccessMask.GENERIC_READ, SMB2CreateDisposition.FILE_OPEN);
+		DiskShare diskShare = getConnection();
+		final File file;
+		try {
+			file = getFile(diskShare, filename, AccessMask.GENERIC_READ, SMB2CreateDisposition.FILE_OPEN);
+		} catch (RuntimeException e) {
+			releaseConnection(diskShare);
+			throw e;
+		}
 		InputStream is = file.getInputStream();
 		FilterInputStream fis = new FilterInputStream(is) {
 
@@ -303,41 +362,55 @@ public class Samba2FileSystem extends FileSystemBase<String> implements IWritabl
 				file.close();
 			}
 		};
-		return new Message(fis);
+		return new Message(pendingRelease(fis, diskShare));
 	}
 
 	@Override
 	public void deleteFile(String f) throws FileSystemException {
-		diskShare.rm(f);
+		DiskShare diskShare = getConnection();
+		try {
+			diskShare.rm(f);
+		} finally {
+			releaseConnection(diskShare);
+		}
 	}
 
 	@Override
 	public String renameFile(String source, String destination) throws FileSystemException {
-		try (File file = getFile(source, AccessMask.GENERIC_ALL, SMB2CreateDisposition.FILE_OPEN)) {
+		DiskShare diskShare = getConnection();
+		try (File file = getFile(diskShare, source, AccessMask.GENERIC_ALL, SMB2CreateDisposition.FILE_OPEN)) {
 			file.rename(destination, true);
+		} finally {
+			releaseConnection(diskShare);
 		}
 		return destination;
 	}
 
 	@Override
 	public String moveFile(String f, String destinationFolder, boolean createFolder) throws FileSystemException {
-		try (File file = getFile(f, AccessMask.GENERIC_ALL, SMB2CreateDisposition.FILE_OPEN)) {
+		DiskShare diskShare = getConnection();
+		try (File file = getFile(diskShare, f, AccessMask.GENERIC_ALL, SMB2CreateDisposition.FILE_OPEN)) {
 			String destination = toFile(destinationFolder, f);
 			file.rename(destination, false);
 			return destination;
+		} finally {
+			releaseConnection(diskShare);
 		}
 	}
 
 	@Override
 	public String copyFile(String f, String destinationFolder, boolean createFolder) throws FileSystemException {
-		try (File file = getFile(f, AccessMask.GENERIC_ALL, SMB2CreateDisposition.FILE_OPEN)) {
+		DiskShare diskShare = getConnection();
+		try (File file = getFile(diskShare, f, AccessMask.GENERIC_ALL, SMB2CreateDisposition.FILE_OPEN)) {
 			String destination = toFile(destinationFolder, f);
-			try (File destinationFile = getFile(f, AccessMask.GENERIC_ALL, SMB2CreateDisposition.FILE_OVERWRITE)) {
+			try (File destinationFile = getFile(diskShare, f, AccessMask.GENERIC_ALL, SMB2CreateDisposition.FILE_OVERWRITE)) {
 				file.remoteCopyTo(destinationFile);
 			} catch (TransportException | BufferException e) {
 				throw new FileSystemException("cannot copy file ["+f+"] to ["+destinationFolder+"]",e);
 			}
 			return destination;
+		} finally {
+			releaseConnection(diskShare);
 		}
 	}
 
@@ -347,6 +420,15 @@ public class Samba2FileSystem extends FileSystemBase<String> implements IWritabl
 	}
 
 	public boolean isFolder(String f) throws FileSystemException {
+		DiskShare diskShare = getConnection();
+		try {
+			return isFolder(diskShare, f);
+		} finally {
+			releaseConnection(diskShare);
+		}
+	}
+
+	private boolean isFolder(DiskShare diskShare, String f) throws FileSystemException {
 		try {
 			return diskShare.getFileInformation(f).getStandardInformation().isDirectory();
 		}catch(SMBApiException e) {
@@ -368,27 +450,37 @@ public class Samba2FileSystem extends FileSystemBase<String> implements IWritabl
 
 	@Override
 	public void createFolder(String folder) throws FileSystemException {
-		if (folderExists(folder)) {
-			throw new FileSystemException("Create directory for [" + folder + "] has failed. Directory already exists.");
-		} else {
-			diskShare.mkdir(folder);
+		DiskShare diskShare = getConnection();
+		try {
+			if (isFolder(diskShare, folder)) {
+				throw new FileSystemException("Create directory for [" + folder + "] has failed. Directory already exists.");
+			} else {
+				diskShare.mkdir(folder);
+			}
+		} finally {
+			releaseConnection(diskShare);
 		}
 	}
 
 	@Override
 	public void removeFolder(String folder, boolean removeNonEmptyFolder) throws FileSystemException {
-		if (!folderExists(folder)) {
-			throw new FileSystemException("Remove directory for [" + folder + "] has failed. Directory does not exist.");
-		} else {
-			try {
-				diskShare.rmdir(folder, removeNonEmptyFolder);
-			} catch(SMBApiException e) {
-				new FileSystemException("Remove directory for [" + folder + "] has failed.", e);
+		DiskShare diskShare = getConnection();
+		try {
+			if (!isFolder(diskShare, folder)) {
+				throw new FileSystemException("Remove directory for [" + folder + "] has failed. Directory does not exist.");
+			} else {
+				try {
+					diskShare.rmdir(folder, removeNonEmptyFolder);
+				} catch(SMBApiException e) {
+					throw new FileSystemException("Remove directory for [" + folder + "] has failed.", e);
+				}
 			}
+		} finally {
+			releaseConnection(diskShare);
 		}
 	}
 
-	private File getFile(String filename, AccessMask accessMask, SMB2CreateDisposition createDisposition) {
+	private File getFile(DiskShare diskShare, String filename, AccessMask accessMask, SMB2CreateDisposition createDisposition) {
 		Set<SMB2ShareAccess> shareAccess = new HashSet<SMB2ShareAccess>();
 		shareAccess.addAll(SMB2ShareAccess.ALL);
 
@@ -403,7 +495,7 @@ public class Samba2FileSystem extends FileSystemBase<String> implements IWritabl
 		return file;
 	}
 
-	private Directory getFolder(String filename, AccessMask accessMask, SMB2CreateDisposition createDisposition) {
+	private Directory getFolder(DiskShare diskShare, String filename, AccessMask accessMask, SMB2CreateDisposition createDisposition) {
 		Set<SMB2ShareAccess> shareAccess = new HashSet<SMB2ShareAccess>();
 		shareAccess.addAll(SMB2ShareAccess.ALL);
 
@@ -417,17 +509,22 @@ public class Samba2FileSystem extends FileSystemBase<String> implements IWritabl
 
 	@Override
 	public long getFileSize(String f) throws FileSystemException {
-		long size;
-		if (isFolder(f)) {
-			try (Directory dir = getFolder(f, AccessMask.FILE_READ_ATTRIBUTES, SMB2CreateDisposition.FILE_OPEN)) {
-				size = dir.getFileInformation().getStandardInformation().getAllocationSize();
-				return size;
-			}
-		} else {
-			try (File file = getFile(f, AccessMask.FILE_READ_ATTRIBUTES, SMB2CreateDisposition.FILE_OPEN)) {
-				size = file.getFileInformation().getStandardInformation().getAllocationSize();
-				return size;
+		DiskShare diskShare = getConnection();
+		try {
+			long size;
+			if (isFolder(diskShare, f)) {
+				try (Directory dir = getFolder(diskShare, f, AccessMask.FILE_READ_ATTRIBUTES, SMB2CreateDisposition.FILE_OPEN)) {
+					size = dir.getFileInformation().getStandardInformation().getAllocationSize();
+					return size;
+				}
+			} else {
+				try (File file = getFile(diskShare, f, AccessMask.FILE_READ_ATTRIBUTES, SMB2CreateDisposition.FILE_OPEN)) {
+					size = file.getFileInformation().getStandardInformation().getAllocationSize();
+					return size;
+				}
 			}
+		} finally {
+			releaseConnection(diskShare);
 		}
 	}
 
@@ -443,16 +540,21 @@ public class Samba2FileSystem extends FileSystemBase<String> implements IWritabl
 
 	@Override
 	public Date getModificationTime(String f) throws FileSystemException {
-		if (isFolder(f)) {
-			try (Directory dir = getFolder(f, AccessMask.FILE_READ_ATTRIBUTES, SMB2CreateDisposition.FILE_OPEN)) {
-				Date date = dir.getFileInformation().getBasicInformation().getLastWriteTime().toDate();
-				return date;
-			}
-		} else {
-			try (File file = getFile(f, AccessMask.FILE_READ_ATTRIBUTES, SMB2CreateDisposition.FILE_OPEN)) {
-				Date date = file.getFileInformation().getBasicInformation().getLastWriteTime().toDate();
-				return date;
+		DiskShare diskShare = getConnection();
+		try {
+			if (isFolder(diskShare, f)) {
+				try (Directory dir = getFolder(diskShare, f, AccessMask.FILE_READ_ATTRIBUTES, SMB2CreateDisposition.FILE_OPEN)) {
+					Date date = dir.getFileInformation().getBasicInformation().getLastWriteTime().toDate();
+					return date;
+				}
+			} else {
+				try (File file = getFile(diskShare, f, AccessMask.FILE_READ_ATTRIBUTES, SMB2CreateDisposition.FILE_OPEN)) {
+					Date date = file.getFileInformation().getBasicInformation().getLastWriteTime().toDate();
+					return date;
+				}
 			}
+		} finally {
+			releaseConnection(diskShare);
 		}
 	}
 
@@ -542,7 +644,7 @@ public class Samba2FileSystem extends FileSystemBase<String> implements IWritabl
 		private int i = 0;
 		private String prefix;
 
-		public FilesIterator(String parent, List<FileIdBothDirectoryInformation> list) {
+		public FilesIterator(DiskShare diskShare, String parent, List<FileIdBothDirectoryInformation> list) {
 			prefix = parent != null ? parent + "\\" : "";
 			files = new ArrayList<FileIdBothDirectoryInformation>();
 			for (FileIdBothDirectoryInformation info : list) {
@@ -301,14 +301,27 @@ public class FtpSession implements IConfigurable {
 
 	
 	protected void checkReply(String cmd) throws IOException  {
-		if (!FTPReply.isPositiveCompletion(ftpClient.getReplyCode())) {
-			throw new IOException("Command [" + cmd + "] returned error [" + ftpClient.getReplyCode() + "]: " + ftpClient.getReplyString());
+		checkReply(ftpClient, cmd);
+	}
+
+	protected void checkReply(FTPClient client, String cmd) throws IOException  {
+		if (!FTPReply.isPositiveCompletion(client.getReplyCode())) {
+			throw new IOException("Command [" + cmd + "] returned error [" + client.getReplyCode() + "]: " + client.getReplyString());
 		} 
-		if (log.isDebugEnabled()) log.debug("Command [" + cmd + "] returned " + ftpClient.getReplyString());
+		if (log.isDebugEnabled()) log.debug("Command [" + cmd + "] returned " + client.getReplyString());
 	}
 	
 
 	private void openFtpClient(String remoteDirectory) throws FtpConnectException {
+		ftpClient = createConnectedFtpClient(remoteDirectory);
+	}
+
+	/**
+	 * Creates a new (non-sftp) client, that is connected and logged in to the server.
+	 * Allows a single FtpSession to be used by multiple clients, e.g. to use a pool of connections.
+	 */
+	protected FTPClient createConnectedFtpClient(String remoteDirectory) throws FtpConnectException {
+		FTPClient client = null;
 		try {
 			// set proxy properties
 			if (! StringUtils.isEmpty(proxyHost)) {
@@ -318,26 +331,27 @@ public class FtpSession implements IConfigurable {
 			}
 			
 			// connect and logic using normal, non-secure ftp 
-			ftpClient = createFTPClient();
-			ftpClient.connect(host, port);
+			client = createFTPClient();
+			client.connect(host, port);
 			if (isPassive()) {
-				ftpClient.enterLocalPassiveMode();
+				client.enterLocalPassiveMode();
 			}
 			CredentialFactory usercf = new CredentialFactory(getAuthAlias(), getUsername(), getPassword());
-			ftpClient.login(usercf.getUsername(), usercf.getPassword());
+			client.login(usercf.getUsername(), usercf.getPassword());
 	
 			if (! StringUtils.isEmpty(remoteDirectory)) {
-				ftpClient.changeWorkingDirectory(remoteDirectory);
-				checkReply("changeWorkingDirectory "+remoteDirectory);
+				client.changeWorkingDirectory(remoteDirectory);
+				checkReply(client, "changeWorkingDirectory "+remoteDirectory);
 			}
 			
 			if (StringUtils.isNotEmpty(fileType)) {
-				ftpClient.setFileType(getFileTypeIntValue());
-				checkReply("setFileType "+remoteDirectory);
+				client.setFileType(getFileTypeIntValue());
+				checkReply(client, "setFileType "+remoteDirectory);
 			}
+			return client;
 		}
 		catch(Exception e) {
-			closeFtpClient();
+			closeFtpClient(client);
 			throw new FtpConnectException(e);
 		}
 	}
@@ -382,18 +396,20 @@ public class FtpSession implements IConfigurable {
 	}
 	
 	private void closeFtpClient() {
-		if (ftpClient != null) {
-			if (ftpClient.isConnected()) {
-				try {
-					ftpClient.quit();
-					log.debug(ftpClient.getReplyString());
-					ftpClient.disconnect();
-				}
-				catch(Exception e) {
-					log.error("Error while closeing FtpClient", e);
-				}
+		closeFtpClient(ftpClient);
+		ftpClient = null;
+	}
+
+	protected void closeFtpClient(FTPClient client) {
+		if (client != null && client.isConnected()) {
+			try {
+				client.quit();
+				log.debug(client.getReplyString());
+				client.disconnect();
+			}
+			catch(Exception e) {
+				log.error("Error while closeing FtpClient", e);
 			}
-			ftpClient = null;
 		}
 	}
 	
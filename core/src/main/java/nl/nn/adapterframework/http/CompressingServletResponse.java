@@ -0,0 +1,430 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.Logger;
+
+import lombok.Getter;
+import nl.nn.adapterframework.util.AppConstants;
+import nl.nn.adapterframework.util.LogUtil;
+
+/**
+ * Response wrapper that compresses the response body with gzip or deflate, when the client accepts it.
+ * 
+ * The encoding is chosen from the <code>Accept-Encoding</code> header of the request. Output is buffered until
+ * <code>http.compression.minSize</code> bytes have been written. Responses that stay below that size are sent uncompressed,
+ * larger responses are compressed while they are being written. Responses that already have a <code>Content-Encoding</code>,
+ * that have no body (204, 304) or that contain already compressed media are never compressed.
+ * Every response that could have been compressed gets a <code>Vary: Accept-Encoding</code> header, and the strong ETag of a
+ * compressed response gets the encoding as suffix, so caches do not mix up the compressed and the uncompressed variant.
+ * {@link #finish()} must be called after the servlet has written its response.
+ */
+public class CompressingServletResponse extends HttpServletResponseWrapper {
+	private static final Logger LOG = LogUtil.getLogger(CompressingServletResponse.class);
+
+	public static final String GZIP = "gzip";
+	public static final String DEFLATE = "deflate";
+
+	private static final boolean COMPRESSION_ENABLED = AppConstants.getInstance().getBoolean("http.compression.enabled", true);
+	private static final int MIN_SIZE = AppConstants.getInstance().getInt("http.compression.minSize", 1024);
+
+	private final @Getter String encoding;
+	private final int minSize;
+	private final HttpCompressionStatistics statistics;
+	private final boolean varyOnEncoding;
+	private boolean varyAdded = false;
+
+	private CompressingOutputStream outputStream;
+	private PrintWriter writer;
+	private String contentLength;
+
+	public CompressingServletResponse(HttpServletResponse response, String encoding, int minSize, HttpCompressionStatistics statistics) {
+		this(response, encoding, minSize, statistics, true);
+	}
+
+	private CompressingServletResponse(HttpServletResponse response, String encoding, int minSize, HttpCompressionStatistics statistics, boolean varyOnEncoding) {
+		super(response);
+		this.encoding = encoding;
+		this.minSize = minSize;
+		this.statistics = statistics;
+		this.varyOnEncoding = varyOnEncoding;
+	}
+
+	/**
+	 * Wraps the response, using the encoding that is negotiated from the <code>Accept-Encoding</code> header of the request.
+	 * When compression is disabled or the client does not accept a supported encoding, the response is passed through as is.
+	 */
+	public static CompressingServletResponse wrap(HttpServletRequest request, HttpServletResponse response, String name) {
+		String encoding = COMPRESSION_ENABLED ? negotiateEncoding(request.getHeader("Accept-Encoding")) : null;
+		return new CompressingServletResponse(response, encoding, MIN_SIZE, HttpCompressionStatistics.getInstance(name), COMPRESSION_ENABLED);
+	}
+
+	/**
+	 * @return the ETag that is sent for the variant of the response that is compressed with the specified encoding.
+	 * Weak ETags are left as they are, as they are allowed to be shared by both variants.
+	 */
+	public static String getEncodedEtag(String etag, String encoding) {
+		if (etag == null || etag.startsWith("W/")) {
+			return etag;
+		}
+		if (etag.length() > 1 && etag.startsWith("\"") && etag.endsWith("\"")) {
+			return etag.substring(0, etag.length()-1) + "-" + encoding + "\"";
+		}
+		return etag + "-" + encoding;
+	}
+
+	/**
+	 * @return the ETag without the suffix that was added by {@link #getEncodedEtag(String, String)}, to compare
+	 * an ETag in an <code>If-None-Match</code> or <code>If-Match</code> header with the ETag of the uncompressed content.
+	 */
+	public static String getDecodedEtag(String etag) {
+		if (etag == null) {
+			return null;
+		}
+		for (String encoding : new String[] {GZIP, DEFLATE}) {
+			String suffix = "-" + encoding;
+			if (etag.endsWith(suffix + "\"")) {
+				return etag.substring(0, etag.length() - suffix.length() - 1) + "\"";
+			}
+			if (etag.endsWith(suffix)) {
+				return etag.substring(0, etag.length() - suffix.length());
+			}
+		}
+		return etag;
+	}
+
+	/**
+	 * @return the supported encoding with the highest quality value in the <code>Accept-Encoding</code> header, preferring gzip, or null when none is acceptable.
+	 */
+	public static String negotiateEncoding(String acceptEncoding) {
+		if (StringUtils.isBlank(acceptEncoding)) {
+			return null;
+		}
+		float gzipQuality = -1;
+		float deflateQuality = -1;
+		float wildcardQuality = -1;
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.split(";");
+			String name = parts[0].trim().toLowerCase();
+			float quality = 1;
+			for (int i=1; i<parts.length; i++) {
+				String param = parts[i].trim();
+				if (param.startsWith("q=")) {
+					try {
+						quality = Float.parseFloat(param.substring(2));
+					} catch (NumberFormatException e) {
+						quality = 0;
+					}
+				}
+			}
+			if (name.equals(GZIP) || name.equals("x-gzip")) {
+				gzipQuality = Math.max(gzipQuality, quality);
+			} else if (name.equals(DEFLATE)) {
+				deflateQuality = Math.max(deflateQuality, quality);
+			} else if (name.equals("*")) {
+				wildcardQuality = quality;
+			}
+		}
+		if (gzipQuality < 0) gzipQuality = wildcardQuality;
+		if (deflateQuality < 0) deflateQuality = wildcardQuality;
+		if (gzipQuality <= 0 && deflateQuality <= 0) {
+			return null;
+		}
+		return gzipQuality >= deflateQuality ? GZIP : DEFLATE;
+	}
+
+	private boolean isCompressionAllowed() {
+		return encoding != null && isCompressible();
+	}
+
+	/**
+	 * @return true when the response could be compressed for a client that accepts it.
+	 */
+	private boolean isCompressible() {
+		if (containsHeader("Content-Encoding")) {
+			return false;
+		}
+		int status = getStatus();
+		if (status == SC_NO_CONTENT || status == SC_NOT_MODIFIED) {
+			return false;
+		}
+		String contentType = getContentType();
+		if (contentType != null) {
+			String mimeType = contentType.toLowerCase();
+			if ((mimeType.startsWith("image/") && !mimeType.startsWith("image/svg")) || mimeType.startsWith("audio/") || mimeType.startsWith("video/")
+					|| mimeType.startsWith("application/zip") || mimeType.startsWith("application/gzip") || mimeType.startsWith("application/x-gzip")) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void addVaryHeader() {
+		if (varyOnEncoding && !varyAdded) {
+			varyAdded = true;
+			super.addHeader("Vary", "Accept-Encoding");
+		}
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if (encoding == null) {
+			if (isCompressible()) {
+				addVaryHeader();
+			}
+			return super.getOutputStream();
+		}
+		if (writer != null) {
+			throw new IllegalStateException("getWriter() has already been called on this response");
+		}
+		if (outputStream == null) {
+			outputStream = new CompressingOutputStream();
+		}
+		return outputStream;
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if (encoding == null) {
+			if (isCompressible()) {
+				addVaryHeader();
+			}
+			return super.getWriter();
+		}
+		if (writer == null) {
+			if (outputStream != null) {
+				throw new IllegalStateException("getOutputStream() has already been called on this response");
+			}
+			outputStream = new CompressingOutputStream();
+			writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+		}
+		return writer;
+	}
+
+	@Override
+	public void setContentLength(int len) {
+		if (encoding == null) {
+			super.setContentLength(len);
+		} else {
+			contentLength = Integer.toString(len);
+		}
+	}
+
+	// overrides ServletResponse.setContentLengthLong() of Servlet 3.1, that is not available in the Servlet API this is compiled with
+	public void setContentLengthLong(long len) {
+		if (encoding == null) {
+			super.setHeader("Content-Length", Long.toString(len));
+		} else {
+			contentLength = Long.toString(len);
+		}
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+		if (encoding != null && "Content-Length".equalsIgnoreCase(name)) {
+			contentLength = value;
+		} else if (isCompressed() && "ETag".equalsIgnoreCase(name)) {
+			super.setHeader(name, getEncodedEtag(value, encoding));
+		} else {
+			super.setHeader(name, value);
+		}
+	}
+
+	@Override
+	public void addHeader(String name, String value) {
+		if (encoding != null && "Content-Length".equalsIgnoreCase(name)) {
+			contentLength = value;
+		} else if (isCompressed() && "ETag".equalsIgnoreCase(name)) {
+			super.addHeader(name, getEncodedEtag(value, encoding));
+		} else {
+			super.addHeader(name, value);
+		}
+	}
+
+	private boolean isCompressed() {
+		return outputStream != null && outputStream.compressedCounter != null;
+	}
+
+	@Override
+	public void flushBuffer() throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+		if (outputStream == null || outputStream.isDecided()) {
+			super.flushBuffer();
+		}
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		outputStream = null;
+		writer = null;
+		contentLength = null;
+		varyAdded = false;
+	}
+
+	@Override
+	public void resetBuffer() {
+		super.resetBuffer();
+		if (outputStream != null) {
+			outputStream.resetBuffer();
+		}
+	}
+
+	@Override
+	public void sendError(int sc) throws IOException {
+		discardBuffer();
+		super.sendError(sc);
+	}
+
+	@Override
+	public void sendError(int sc, String msg) throws IOException {
+		discardBuffer();
+		super.sendError(sc, msg);
+	}
+
+	private void discardBuffer() {
+		if (outputStream != null && !outputStream.isDecided()) {
+			outputStream.finished = true;
+		}
+	}
+
+	/**
+	 * Writes the remainder of the response, and completes the compressed stream.
+	 */
+	public void finish() throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+		if (outputStream != null) {
+			outputStream.finish();
+		}
+	}
+
+	private class CompressingOutputStream extends ServletOutputStream {
+		private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		private OutputStream target;
+		private CountingOutputStream compressedCounter;
+		private long bytesIn = 0;
+		private boolean finished = false;
+
+		public boolean isDecided() {
+			return target != null;
+		}
+
+		private void decide(boolean compress) throws IOException {
+			if (isCompressible()) {
+				addVaryHeader();
+			}
+			if (compress) {
+				if (LOG.isDebugEnabled()) LOG.debug("compressing response using ["+encoding+"]");
+				CompressingServletResponse.super.setHeader("Content-Encoding", encoding);
+				String etag = getHeader("ETag");
+				if (etag != null) {
+					CompressingServletResponse.super.setHeader("ETag", getEncodedEtag(etag, encoding));
+				}
+				compressedCounter = new CountingOutputStream(CompressingServletResponse.super.getOutputStream());
+				target = GZIP.equals(encoding) ? new GZIPOutputStream(compressedCounter, 8192) : new DeflaterOutputStream(compressedCounter);
+			} else {
+				if (contentLength != null) {
+					CompressingServletResponse.super.setHeader("Content-Length", contentLength);
+				}
+				target = CompressingServletResponse.super.getOutputStream();
+			}
+			buffer.writeTo(target);
+			buffer = null;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			bytesIn++;
+			if (target != null) {
+				target.write(b);
+				return;
+			}
+			buffer.write(b);
+			if (buffer.size() >= minSize) {
+				decide(isCompressionAllowed());
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			bytesIn += len;
+			if (target != null) {
+				target.write(b, off, len);
+				return;
+			}
+			buffer.write(b, off, len);
+			if (buffer.size() >= minSize) {
+				decide(isCompressionAllowed());
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			// data below the threshold is kept until it is known whether it will be compressed
+			if (target != null) {
+				target.flush();
+			}
+		}
+
+		private void resetBuffer() {
+			if (target == null) {
+				buffer.reset();
+				bytesIn = 0;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			finish();
+		}
+
+		public void finish() throws IOException {
+			if (finished) {
+				return;
+			}
+			finished = true;
+			if (target == null) {
+				decide(false);
+			}
+			if (compressedCounter != null) {
+				target.close();
+				statistics.addCompressedResponse(bytesIn, compressedCounter.getByteCount());
+			} else {
+				target.flush();
+				statistics.addUncompressedResponse();
+			}
+		}
+	}
+}
@@ -0,0 +1,179 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.http;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.lang3.StringUtils;
+
+import nl.nn.adapterframework.util.StreamUtil;
+
+/**
+ * Request wrapper that transparently decompresses request bodies that are sent with <code>Content-Encoding</code> gzip or deflate.
+ * Both zlib wrapped and raw deflate data is accepted, as clients are known to send either for 'deflate'.
+ */
+public class DecompressingServletRequest extends HttpServletRequestWrapper {
+
+	private final String encoding;
+	private final HttpCompressionStatistics statistics;
+	private ServletInputStream inputStream;
+	private BufferedReader reader;
+
+	public DecompressingServletRequest(HttpServletRequest request, String encoding, HttpCompressionStatistics statistics) {
+		super(request);
+		this.encoding = encoding;
+		this.statistics = statistics;
+	}
+
+	/**
+	 * @return a decompressing wrapper when the request body is compressed with a supported encoding, otherwise the request itself.
+	 */
+	public static HttpServletRequest wrap(HttpServletRequest request, String name) {
+		String contentEncoding = StringUtils.trimToEmpty(request.getHeader("Content-Encoding")).toLowerCase();
+		switch (contentEncoding) {
+		case "gzip":
+		case "x-gzip":
+			return new DecompressingServletRequest(request, CompressingServletResponse.GZIP, HttpCompressionStatistics.getInstance(name));
+		case "deflate":
+			return new DecompressingServletRequest(request, CompressingServletResponse.DEFLATE, HttpCompressionStatistics.getInstance(name));
+		default:
+			return request;
+		}
+	}
+
+	@Override
+	public ServletInputStream getInputStream() throws IOException {
+		if (reader != null) {
+			throw new IllegalStateException("getReader() has already been called on this request");
+		}
+		if (inputStream == null) {
+			inputStream = new DecompressingInputStream(super.getInputStream());
+		}
+		return inputStream;
+	}
+
+	@Override
+	public BufferedReader getReader() throws IOException {
+		if (reader == null) {
+			String charset = getCharacterEncoding() != null ? getCharacterEncoding() : StreamUtil.DEFAULT_INPUT_STREAM_ENCODING;
+			reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+		}
+		return reader;
+	}
+
+	@Override
+	public int getContentLength() {
+		return -1;
+	}
+
+	@Override
+	public String getHeader(String name) {
+		if ("Content-Encoding".equalsIgnoreCase(name) || "Content-Length".equalsIgnoreCase(name)) {
+			return null;
+		}
+		return super.getHeader(name);
+	}
+
+	private class DecompressingInputStream extends ServletInputStream {
+		private final CountingInputStream compressed;
+		private InputStream decompressed;
+		private Inflater inflater;
+		private long bytesOut = 0;
+		private boolean done = false;
+
+		DecompressingInputStream(InputStream compressed) {
+			this.compressed = new CountingInputStream(compressed);
+		}
+
+		private InputStream getDecompressed() throws IOException {
+			if (decompressed == null) {
+				if (CompressingServletResponse.GZIP.equals(encoding)) {
+					decompressed = new GZIPInputStream(compressed, 8192);
+				} else {
+					PushbackInputStream pushback = new PushbackInputStream(compressed, 2);
+					byte[] header = new byte[2];
+					int len = pushback.read(header);
+					if (len > 0) {
+						pushback.unread(header, 0, len);
+					}
+					boolean zlibWrapped = len == 2 && (header[0] & 0x0F) == 8 && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+					inflater = new Inflater(!zlibWrapped);
+					decompressed = new InflaterInputStream(pushback, inflater, 8192);
+				}
+			}
+			return decompressed;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = getDecompressed().read();
+			if (b < 0) {
+				done();
+			} else {
+				bytesOut++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int count = getDecompressed().read(b, off, len);
+			if (count < 0) {
+				done();
+			} else {
+				bytesOut += count;
+			}
+			return count;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return decompressed != null ? decompressed.available() : 0;
+		}
+
+		private void done() {
+			if (!done) {
+				done = true;
+				statistics.addDecompressedRequest(compressed.getByteCount(), bytesOut);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			done();
+			if (decompressed != null) {
+				decompressed.close();
+			} else {
+				compressed.close();
+			}
+			if (inflater != null) {
+				inflater.end();
+			}
+		}
+	}
+}
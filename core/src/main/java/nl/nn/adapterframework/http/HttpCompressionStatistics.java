@@ -0,0 +1,106 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.http;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.Getter;
+import nl.nn.adapterframework.util.Counter;
+
+/**
+ * Keeps track of the bytes saved by compressing responses and decompressing requests, per servlet.
+ * 
+ * @see CompressingServletResponse
+ * @see DecompressingServletRequest
+ */
+public class HttpCompressionStatistics {
+
+	private static final Map<String, HttpCompressionStatistics> INSTANCES = new ConcurrentHashMap<>();
+
+	private final @Getter String name;
+	private final @Getter Counter compressedResponses = new Counter(0);
+	private final @Getter Counter uncompressedResponses = new Counter(0);
+	private final @Getter Counter responseBytesBeforeCompression = new Counter(0);
+	private final @Getter Counter responseBytesAfterCompression = new Counter(0);
+	private final @Getter Counter decompressedRequests = new Counter(0);
+	private final @Getter Counter requestBytesBeforeDecompression = new Counter(0);
+	private final @Getter Counter requestBytesAfterDecompression = new Counter(0);
+
+	private HttpCompressionStatistics(String name) {
+		this.name = name;
+	}
+
+	public static HttpCompressionStatistics getInstance(String name) {
+		return INSTANCES.computeIfAbsent(name, HttpCompressionStatistics::new);
+	}
+
+	void addCompressedResponse(long bytesIn, long bytesOut) {
+		compressedResponses.increase();
+		responseBytesBeforeCompression.increase(bytesIn);
+		responseBytesAfterCompression.increase(bytesOut);
+	}
+
+	void addUncompressedResponse() {
+		uncompressedResponses.increase();
+	}
+
+	void addDecompressedRequest(long bytesIn, long bytesOut) {
+		decompressedRequests.increase();
+		requestBytesBeforeDecompression.increase(bytesIn);
+		requestBytesAfterDecompression.increase(bytesOut);
+	}
+
+	/**
+	 * Number of bytes that did not have to be sent, because the responses were compressed.
+	 */
+	public long getSavedResponseBytes() {
+		return responseBytesBeforeCompression.getValue() - responseBytesAfterCompression.getValue();
+	}
+
+	/**
+	 * Number of bytes that did not have to be received, because the requests were compressed.
+	 */
+	public long getSavedRequestBytes() {
+		return requestBytesAfterDecompression.getValue() - requestBytesBeforeDecompression.getValue();
+	}
+
+	public Map<String, Object> asMap() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("compressedResponses", compressedResponses.getValue());
+		map.put("uncompressedResponses", uncompressedResponses.getValue());
+		map.put("responseBytesBeforeCompression", responseBytesBeforeCompression.getValue());
+		map.put("responseBytesAfterCompression", responseBytesAfterCompression.getValue());
+		map.put("savedResponseBytes", getSavedResponseBytes());
+		map.put("decompressedRequests", decompressedRequests.getValue());
+		map.put("requestBytesBeforeDecompression", requestBytesBeforeDecompression.getValue());
+		map.put("requestBytesAfterDecompression", requestBytesAfterDecompression.getValue());
+		map.put("savedRequestBytes", getSavedRequestBytes());
+		return map;
+	}
+
+	/**
+	 * @return the statistics of all servlets, keyed by servlet name.
+	 */
+	public static Map<String, Object> toMap() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (HttpCompressionStatistics statistics : INSTANCES.values()) {
+			map.put(statistics.getName(), statistics.asMap());
+		}
+		return map;
+	}
+}
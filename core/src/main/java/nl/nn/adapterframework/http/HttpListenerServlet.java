@@ -54,6 +54,16 @@ public class HttpListenerServlet extends HttpServlet {
 	}
 	
 
+	@Override
+	protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		CompressingServletResponse compressingResponse = CompressingServletResponse.wrap(request, response, "HttpListenerServlet");
+		try {
+			super.service(DecompressingServletRequest.wrap(request, "HttpListenerServlet"), compressingResponse);
+		} finally {
+			compressingResponse.finish();
+		}
+	}
+
 	public void invoke(String message, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
 		ISecurityHandler securityHandler = new HttpSecurityHandler(request);
 		try (PipeLineSession messageContext= new PipeLineSession()) {
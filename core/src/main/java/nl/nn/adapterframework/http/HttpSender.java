@@ -56,6 +56,7 @@ import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.entity.mime.FormBodyPart;
 import org.apache.http.entity.mime.FormBodyPartBuilder;
 import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.ContentBody;
 import org.apache.http.entity.mime.content.InputStreamBody;
 import org.apache.http.entity.mime.content.StringBody;
 import org.apache.http.message.BasicNameValuePair;
@@ -70,6 +71,7 @@ import nl.nn.adapterframework.configuration.SuppressKeys;
 import nl.nn.adapterframework.core.PipeLineSession;
 import nl.nn.adapterframework.core.SenderException;
 import nl.nn.adapterframework.doc.IbisDoc;
+import nl.nn.adapterframework.http.mime.MessageContentBody;
 import nl.nn.adapterframework.http.mime.MultipartEntityBuilder;
 import nl.nn.adapterframework.parameters.Parameter;
 import nl.nn.adapterframework.parameters.ParameterValue;
@@ -235,7 +237,7 @@ public class HttpSender extends HttpSenderBase {
 
 		if(postType.equals(PostType.URLENCODED) || postType.equals(PostType.FORMDATA) || postType.equals(PostType.MTOM)) {
 			try {
-				return getMultipartPostMethodWithParamsInBody(uri, message.asString(), parameters, session);
+				return getMultipartPostMethodWithParamsInBody(uri, preserveWhenRetried(message), parameters, session);
 			} catch (IOException e) {
 				throw new SenderException(getLogPrefix()+"unable to read message", e);
 			}
@@ -244,6 +246,22 @@ public class HttpSender extends HttpSenderBase {
 		}
 	}
 
+	/**
+	 * Streamed request bodies can only be sent again when the message can be read multiple times.
+	 * Only when retries are configured, a message that can be read only once is preserved.
+	 */
+	private Message preserveWhenRetried(Message message) throws IOException {
+		if (getMaxExecuteRetries() > 0 && message.requiresStream() && !message.isRepeatable()) {
+			if (log.isDebugEnabled()) log.debug(getLogPrefix()+"preserving message to be able to retry ["+getMaxExecuteRetries()+"] times");
+			message.preserve();
+		}
+		return message;
+	}
+
+	private boolean isStreamable(Message message) {
+		return message.isBinary() || message.requiresStream();
+	}
+
 	// Encode query parameter values.
 	private URI encodeQueryParameters(URI url) throws UnsupportedEncodingException, URISyntaxException {
 		URIBuilder uri = new URIBuilder(url);
@@ -288,7 +306,15 @@ public class HttpSender extends HttpSenderBase {
 				return method;
 			} else if (getMethodType().equals("POST") || getMethodType().equals("PUT")) {
 				HttpEntity entity;
-				if(postType.equals(PostType.RAW)) {
+				if(postType.equals(PostType.RAW) && isStreamable(preserveWhenRetried(message))) {
+					String suffix = null;
+					if (parameters!=null) {
+						StringBuffer params = new StringBuffer();
+						appendParameters(true,params,parameters);
+						suffix = params.toString();
+					}
+					entity = new MessageHttpEntity(message, getFullContentType(), getCharSet(), suffix);
+				} else if(postType.equals(PostType.RAW)) {
 					String messageString = message.asString();
 					if (parameters!=null) {
 						StringBuffer msg = new StringBuffer(messageString);
@@ -347,14 +373,14 @@ public class HttpSender extends HttpSenderBase {
 	/**
 	 * Returns a multi-parted message, either as X-WWW-FORM-URLENCODED, FORM-DATA or MTOM
 	 */
-	protected HttpPost getMultipartPostMethodWithParamsInBody(URI uri, String message, ParameterValueList parameters, PipeLineSession session) throws SenderException {
+	protected HttpPost getMultipartPostMethodWithParamsInBody(URI uri, Message message, ParameterValueList parameters, PipeLineSession session) throws SenderException, IOException {
 		HttpPost hmethod = new HttpPost(uri);
 
 		if (postType.equals(PostType.URLENCODED) && StringUtils.isEmpty(getMultipartXmlSessionKey())) { // x-www-form-urlencoded
 			List<NameValuePair> requestFormElements = new ArrayList<NameValuePair>();
 
 			if (StringUtils.isNotEmpty(getFirstBodyPartName())) {
-				requestFormElements.add(new BasicNameValuePair(getFirstBodyPartName(),message));
+				requestFormElements.add(new BasicNameValuePair(getFirstBodyPartName(),message.asString()));
 				log.debug(getLogPrefix()+"appended parameter ["+getFirstBodyPartName()+"] with value ["+message+"]");
 			}
 			if (parameters!=null) {
@@ -392,14 +418,31 @@ public class HttpSender extends HttpSenderBase {
 			return createMultipartBodypart(name, message, null);
 	}
 
+	/**
+	 * Creates the body part for the message. Messages that are not already in memory are streamed instead of read into a String.
+	 */
+	protected FormBodyPart createMultipartBodypart(String name, Message message) throws IOException {
+		if (!isStreamable(message)) {
+			return createMultipartBodypart(name, message.asString());
+		}
+		ContentType cType = getMultipartBodypartContentType(postType.equals(PostType.MTOM) ? "application/xop+xml" : null);
+		return createMultipartBodypart(name, new MessageContentBody(message, cType));
+	}
+
 	protected FormBodyPart createMultipartBodypart(String name, String message, String contentType) {
-		ContentType cType = ContentType.create("text/plain", getCharSet());
+		return createMultipartBodypart(name, new StringBody(message, getMultipartBodypartContentType(contentType)));
+	}
+
+	private ContentType getMultipartBodypartContentType(String contentType) {
 		if(StringUtils.isNotEmpty(contentType))
-			cType = ContentType.create(contentType, getCharSet());
+			return ContentType.create(contentType, getCharSet());
+		return ContentType.create("text/plain", getCharSet());
+	}
 
+	private FormBodyPart createMultipartBodypart(String name, ContentBody body) {
 		FormBodyPartBuilder bodyPart = FormBodyPartBuilder.create()
 			.setName(name)
-			.setBody(new StringBody(message, cType));
+			.setBody(body);
 
 		if (StringUtils.isNotEmpty(getMtomContentTransferEncoding()))
 			bodyPart.setField(MIME.CONTENT_TRANSFER_ENC, getMtomContentTransferEncoding());
@@ -419,7 +462,7 @@ public class HttpSender extends HttpSenderBase {
 		return bodyPart.build();
 	}
 
-	protected HttpEntity createMultiPartEntity(String message, ParameterValueList parameters, PipeLineSession session) throws SenderException {
+	protected HttpEntity createMultiPartEntity(Message message, ParameterValueList parameters, PipeLineSession session) throws SenderException, IOException {
 		MultipartEntityBuilder entity = MultipartEntityBuilder.create();
 
 		entity.setCharset(Charset.forName(getCharSet()));
@@ -428,7 +471,7 @@ public class HttpSender extends HttpSenderBase {
 
 		if (StringUtils.isNotEmpty(getFirstBodyPartName())) {
 			entity.addPart(createMultipartBodypart(getFirstBodyPartName(), message));
-			if (log.isDebugEnabled()) log.debug(getLogPrefix()+"appended stringpart ["+getFirstBodyPartName()+"] with value ["+message+"]");
+			if (log.isDebugEnabled()) log.debug(getLogPrefix()+"appended part ["+getFirstBodyPartName()+"] with value ["+message+"]");
 		}
 		if (parameters!=null) {
 			for(int i=0; i<parameters.size(); i++) {
@@ -28,6 +28,15 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
@@ -73,6 +82,7 @@ import org.htmlcleaner.TagNode;
 import nl.nn.adapterframework.configuration.ConfigurationException;
 import nl.nn.adapterframework.configuration.ConfigurationWarning;
 import nl.nn.adapterframework.core.HasPhysicalDestination;
+import nl.nn.adapterframework.core.IAsyncSender;
 import nl.nn.adapterframework.core.PipeLineSession;
 import nl.nn.adapterframework.core.ParameterException;
 import nl.nn.adapterframework.core.Resource;
@@ -82,7 +92,10 @@ import nl.nn.adapterframework.doc.IbisDoc;
 import nl.nn.adapterframework.parameters.Parameter;
 import nl.nn.adapterframework.parameters.ParameterValue;
 import nl.nn.adapterframework.parameters.ParameterValueList;
+import nl.nn.adapterframework.scheduler.NamedThreadFactory;
 import nl.nn.adapterframework.senders.SenderWithParametersBase;
+import nl.nn.adapterframework.statistics.HasStatistics;
+import nl.nn.adapterframework.statistics.StatisticsKeeperIterationHandler;
 import nl.nn.adapterframework.stream.Message;
 import nl.nn.adapterframework.task.TimeoutGuard;
 import nl.nn.adapterframework.util.AppConstants;
@@ -163,7 +176,7 @@ import nl.nn.adapterframework.util.XmlUtils;
  */
 //TODO: Fix javadoc!
 
-public abstract class HttpSenderBase extends SenderWithParametersBase implements HasPhysicalDestination {
+public abstract class HttpSenderBase extends SenderWithParametersBase implements HasPhysicalDestination, IAsyncSender, HasStatistics {
 
 	private String url;
 	private String urlParam = "url";
@@ -181,6 +194,15 @@ public abstract class HttpSenderBase extends SenderWithParametersBase implements
 	private HttpClientContext httpClientContext = HttpClientContext.create();
 	private CloseableHttpClient httpClient;
 
+	/** ASYNC **/
+	private boolean asyncMode = false;
+	private int asyncCompletionThreads = 2;
+	private ThreadPoolExecutor asyncRequestExecutor;
+	private ExecutorService asyncCompletionExecutor;
+	private final AtomicInteger asyncQueued = new AtomicInteger();
+	private final AtomicInteger asyncInFlight = new AtomicInteger();
+	private final AtomicLong asyncCompleted = new AtomicLong();
+
 	/** SECURITY */
 	private String authAlias;
 	private String userName;
@@ -502,6 +524,19 @@ public abstract class HttpSenderBase extends SenderWithParametersBase implements
 		}
 
 		httpClient = httpClientBuilder.build();
+
+		if (isAsyncMode()) {
+			// the connection pool limits the number of requests that can be executed concurrently, more request threads would only wait for a connection
+			NamedThreadFactory requestThreadFactory = new NamedThreadFactory();
+			requestThreadFactory.setThreadGroupName("HttpSenderRequest");
+			asyncRequestExecutor = new ThreadPoolExecutor(getMaxConnections(), getMaxConnections(), 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), requestThreadFactory);
+			asyncRequestExecutor.allowCoreThreadTimeOut(true);
+
+			NamedThreadFactory completionThreadFactory = new NamedThreadFactory();
+			completionThreadFactory.setThreadGroupName("HttpSenderCompletion");
+			asyncCompletionExecutor = Executors.newFixedThreadPool(getAsyncCompletionThreads(), completionThreadFactory);
+			log.debug(getLogPrefix()+"started asynchronous request pool of ["+getMaxConnections()+"] threads and completion pool of ["+getAsyncCompletionThreads()+"] threads");
+		}
 	}
 
 	public CloseableHttpClient getHttpClient() {
@@ -510,6 +545,16 @@ public abstract class HttpSenderBase extends SenderWithParametersBase implements
 
 	@Override
 	public void close() throws SenderException {
+		if (asyncRequestExecutor != null) {
+			for (Runnable queuedRequest : asyncRequestExecutor.shutdownNow()) {
+				((AsyncRequest) queuedRequest).cancel();
+			}
+			asyncRequestExecutor = null;
+		}
+		if (asyncCompletionExecutor != null) {
+			asyncCompletionExecutor.shutdown();
+			asyncCompletionExecutor = null;
+		}
 		try {
 			//Close the HttpClient and ConnectionManager to release resources and potential open connections
 			if(httpClient != null) {
@@ -580,6 +625,31 @@ public abstract class HttpSenderBase extends SenderWithParametersBase implements
 
 	@Override
 	public Message sendMessage(Message message, PipeLineSession session) throws SenderException, TimeOutException {
+		return executeRequest(prepareRequest(message, session), session);
+	}
+
+	/**
+	 * Schedules the request on the request pool of this sender. The calling thread is not occupied while the request is queued or executing.
+	 * The returned future is completed by the completion pool, so stages that are added to it do not hold up the request threads.
+	 */
+	@Override
+	public CompletableFuture<Message> sendMessageAsync(Message message, PipeLineSession session) throws SenderException {
+		ThreadPoolExecutor requestExecutor = asyncRequestExecutor;
+		if (requestExecutor == null) {
+			throw new SenderException(getLogPrefix()+"asynchronous requests require asyncMode=true and an opened sender");
+		}
+		AsyncRequest request = new AsyncRequest(prepareRequest(message, session), session);
+		asyncQueued.incrementAndGet();
+		try {
+			requestExecutor.execute(request);
+		} catch (RejectedExecutionException e) {
+			asyncQueued.decrementAndGet();
+			throw new SenderException(getLogPrefix()+"cannot schedule asynchronous request", e);
+		}
+		return request.future;
+	}
+
+	private PreparedRequest prepareRequest(Message message, PipeLineSession session) throws SenderException {
 		ParameterValueList pvl = null;
 		try {
 			if (paramList !=null) {
@@ -643,6 +713,12 @@ public abstract class HttpSenderBase extends SenderWithParametersBase implements
 		} catch (Exception e) {
 			throw new SenderException(e);
 		}
+		return new PreparedRequest(httpTarget, httpRequestBase);
+	}
+
+	private Message executeRequest(PreparedRequest request, PipeLineSession session) throws SenderException, TimeOutException {
+		final HttpHost httpTarget = request.target;
+		final HttpRequestBase httpRequestBase = request.method;
 
 		Message result = null;
 		int statusCode = -1;
@@ -756,6 +832,92 @@ public abstract class HttpSenderBase extends SenderWithParametersBase implements
 		return result;
 	}
 
+	@Override
+	public boolean isAsyncEnabled() {
+		return isAsyncMode();
+	}
+
+	/**
+	 * Number of asynchronous requests that are waiting for a request thread.
+	 */
+	public int getAsyncQueuedCount() {
+		return asyncQueued.get();
+	}
+
+	/**
+	 * Number of asynchronous requests that are currently being executed.
+	 */
+	public int getAsyncInFlightCount() {
+		return asyncInFlight.get();
+	}
+
+	@Override
+	public void iterateOverStatistics(StatisticsKeeperIterationHandler hski, Object data, int action) throws SenderException {
+		if (!isAsyncMode()) {
+			return;
+		}
+		Object asyncData = hski.openGroup(data, "asyncRequests", "async");
+		hski.handleScalar(asyncData, "inFlight", getAsyncInFlightCount());
+		hski.handleScalar(asyncData, "queued", getAsyncQueuedCount());
+		hski.handleScalar(asyncData, "completed", asyncCompleted.get());
+		hski.closeGroup(asyncData);
+	}
+
+	private static class PreparedRequest {
+		private final HttpHost target;
+		private final HttpRequestBase method;
+
+		PreparedRequest(HttpHost target, HttpRequestBase method) {
+			this.target = target;
+			this.method = method;
+		}
+	}
+
+	private class AsyncRequest implements Runnable {
+		private final PreparedRequest request;
+		private final PipeLineSession session;
+		private final CompletableFuture<Message> future = new CompletableFuture<>();
+
+		AsyncRequest(PreparedRequest request, PipeLineSession session) {
+			this.request = request;
+			this.session = session;
+		}
+
+		@Override
+		public void run() {
+			asyncQueued.decrementAndGet();
+			asyncInFlight.incrementAndGet();
+			try {
+				Message result = executeRequest(request, session);
+				complete(() -> future.complete(result));
+			} catch (Throwable t) {
+				complete(() -> future.completeExceptionally(t));
+			} finally {
+				asyncInFlight.decrementAndGet();
+			}
+		}
+
+		private void complete(Runnable completion) {
+			asyncCompleted.incrementAndGet();
+			ExecutorService completionExecutor = asyncCompletionExecutor;
+			try {
+				if (completionExecutor != null) {
+					completionExecutor.execute(completion);
+					return;
+				}
+			} catch (RejectedExecutionException e) {
+				log.debug(getLogPrefix()+"completion pool has been shut down, completing request on request thread");
+			}
+			completion.run();
+		}
+
+		private void cancel() {
+			asyncQueued.decrementAndGet();
+			request.method.abort();
+			future.completeExceptionally(new SenderException(getLogPrefix()+"sender was closed before the request was executed"));
+		}
+	}
+
 	@Override
 	public String getPhysicalDestinationName() {
 		if (urlParameter!=null) {
@@ -835,6 +997,22 @@ public abstract class HttpSenderBase extends SenderWithParametersBase implements
 		return maxExecuteRetries;
 	}
 
+	@IbisDoc({"13", "when true, callers that support it (like ParallelSenders and a parallel IteratingPipe) park on a future instead of occupying a thread per request. Requests are executed by a pool of <code>maxConnections</code> threads, replies are delivered by a small completion pool", "false"})
+	public void setAsyncMode(boolean asyncMode) {
+		this.asyncMode = asyncMode;
+	}
+	public boolean isAsyncMode() {
+		return asyncMode;
+	}
+
+	@IbisDoc({"14", "(only used when <code>asyncMode=true</code>) number of threads that deliver the replies of asynchronous requests", "2"})
+	public void setAsyncCompletionThreads(int asyncCompletionThreads) {
+		this.asyncCompletionThreads = asyncCompletionThreads;
+	}
+	public int getAsyncCompletionThreads() {
+		return asyncCompletionThreads;
+	}
+
 
 
 	@IbisDoc({"20", "alias used to obtain credentials for authentication to host", ""})
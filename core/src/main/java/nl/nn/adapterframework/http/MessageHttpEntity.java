@@ -0,0 +1,158 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+
+import org.apache.commons.io.ByteOrderMark;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BOMInputStream;
+import org.apache.commons.io.input.ReaderInputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.logging.log4j.Logger;
+
+import nl.nn.adapterframework.stream.Message;
+import nl.nn.adapterframework.util.LogUtil;
+import nl.nn.adapterframework.util.StreamUtil;
+
+/**
+ * HttpEntity that streams the contents of a {@link Message} to the wire, instead of materializing it as a String first.
+ * 
+ * Binary messages that are already encoded in the requested charset are copied as-is (minus a possible BOM), all other
+ * messages are transcoded on the fly. The Content-Length is only known up front when the size of the message is known
+ * and no transcoding is required, otherwise the entity is sent chunked.
+ * Optionally a suffix (e.g. url-encoded parameters) is appended to the message. When the message turns out to be empty,
+ * the first character of the suffix (the separator) is skipped.
+ */
+public class MessageHttpEntity extends AbstractHttpEntity {
+	protected Logger log = LogUtil.getLogger(this);
+
+	private static final ByteOrderMark[] BOMS = { ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE };
+
+	private final Message message;
+	private final Charset charset;
+	private final byte[] suffix;
+	private long contentLength = -1;
+	private BOMInputStream pending; // stream that was opened to inspect a non-repeatable message
+
+	public MessageHttpEntity(Message message, ContentType contentType, String charset) throws IOException {
+		this(message, contentType, charset, null);
+	}
+
+	public MessageHttpEntity(Message message, ContentType contentType, String charset, String suffix) throws IOException {
+		this.message = message;
+		this.charset = Charset.forName(StringUtils.isNotEmpty(charset) ? charset : StreamUtil.DEFAULT_INPUT_STREAM_ENCODING);
+		this.suffix = StringUtils.isNotEmpty(suffix) ? suffix.getBytes(this.charset) : null;
+		if (contentType != null) {
+			setContentType(contentType.toString());
+		}
+
+		long size = message.size();
+		if (message.isBinary() && size >= 0) {
+			BOMInputStream peek = openBinary();
+			ByteOrderMark bom = peek.getBOM();
+			if (message.isRepeatable()) {
+				peek.close();
+			} else {
+				pending = peek;
+			}
+			if (isPassThrough(bom)) {
+				long length = size - (bom != null ? bom.length() : 0);
+				if (this.suffix != null) {
+					length += length == 0 ? this.suffix.length-1 : this.suffix.length;
+				}
+				contentLength = length;
+			}
+		}
+		setChunked(contentLength < 0);
+	}
+
+	private BOMInputStream openBinary() throws IOException {
+		return new BOMInputStream(message.asInputStream(), BOMS);
+	}
+
+	private Charset getSourceCharset(ByteOrderMark bom) {
+		if (bom != null) {
+			return Charset.forName(bom.getCharsetName());
+		}
+		return Charset.forName(StringUtils.isNotEmpty(message.getCharset()) ? message.getCharset() : StreamUtil.DEFAULT_INPUT_STREAM_ENCODING);
+	}
+
+	private boolean isPassThrough(ByteOrderMark bom) {
+		return getSourceCharset(bom).equals(charset);
+	}
+
+	private InputStream openBody() throws IOException {
+		if (!message.isBinary()) {
+			return message.asInputStream(charset.name());
+		}
+		BOMInputStream binary = pending != null ? pending : openBinary();
+		pending = null;
+		ByteOrderMark bom = binary.getBOM();
+		if (isPassThrough(bom)) {
+			return binary;
+		}
+		if (log.isDebugEnabled()) log.debug("transcoding message from ["+getSourceCharset(bom)+"] to ["+charset+"]");
+		return new ReaderInputStream(new InputStreamReader(binary, getSourceCharset(bom)), charset);
+	}
+
+	@Override
+	public InputStream getContent() throws IOException {
+		InputStream body = openBody();
+		if (suffix == null) {
+			return body;
+		}
+		PushbackInputStream pushbackBody = new PushbackInputStream(body, 1);
+		int first = pushbackBody.read();
+		if (first < 0) {
+			pushbackBody.close();
+			return new ByteArrayInputStream(suffix, 1, suffix.length-1);
+		}
+		pushbackBody.unread(first);
+		return new SequenceInputStream(pushbackBody, new ByteArrayInputStream(suffix));
+	}
+
+	@Override
+	public void writeTo(OutputStream outstream) throws IOException {
+		try (InputStream content = getContent()) {
+			IOUtils.copy(content, outstream);
+		}
+	}
+
+	@Override
+	public long getContentLength() {
+		return contentLength;
+	}
+
+	@Override
+	public boolean isRepeatable() {
+		return message.isRepeatable();
+	}
+
+	@Override
+	public boolean isStreaming() {
+		return !isRepeatable();
+	}
+}
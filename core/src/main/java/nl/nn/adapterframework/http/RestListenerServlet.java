@@ -58,7 +58,15 @@ public class RestListenerServlet extends HttpServlet {
 	
 	@Override
 	protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-		
+		CompressingServletResponse compressingResponse = CompressingServletResponse.wrap(request, response, "RestListenerServlet");
+		try {
+			processRequest(DecompressingServletRequest.wrap(request, "RestListenerServlet"), compressingResponse);
+		} finally {
+			compressingResponse.finish();
+		}
+	}
+
+	private void processRequest(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
 		String path=request.getPathInfo();
 		String restPath=request.getServletPath();
 		String body = "";
@@ -0,0 +1,63 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.http.mime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+import nl.nn.adapterframework.http.MessageHttpEntity;
+import nl.nn.adapterframework.stream.Message;
+
+/**
+ * Multipart body part that streams a {@link Message}, the streaming counterpart of a StringBody.
+ * The length is only reported for repeatable messages, as the {@link MultipartEntity} regards a known length as repeatable.
+ */
+public class MessageContentBody extends AbstractContentBody {
+
+	private final MessageHttpEntity entity;
+	private final boolean repeatable;
+
+	public MessageContentBody(Message message, ContentType contentType) throws IOException {
+		super(contentType);
+		String charset = contentType.getCharset() != null ? contentType.getCharset().name() : null;
+		this.entity = new MessageHttpEntity(message, null, charset);
+		this.repeatable = message.isRepeatable();
+	}
+
+	@Override
+	public String getFilename() {
+		return null;
+	}
+
+	@Override
+	public void writeTo(OutputStream out) throws IOException {
+		entity.writeTo(out);
+	}
+
+	@Override
+	public String getTransferEncoding() {
+		return MIME.ENC_8BIT;
+	}
+
+	@Override
+	public long getContentLength() {
+		return repeatable ? entity.getContentLength() : -1;
+	}
+}
@@ -15,6 +15,11 @@ limitations under the License.
 */
 package nl.nn.adapterframework.http.rest;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.codec.binary.Hex;
+
 import nl.nn.adapterframework.util.AppConstants;
 
 public class ApiCacheManager {
@@ -24,6 +29,7 @@ public class ApiCacheManager {
 	private static String etagCacheType = appConstants.getProperty("etag.cache.type", "ehcache");
 	private static String instanceName = appConstants.getResolvedProperty("instance.name");
 	private static String dtapStage = appConstants.getResolvedProperty("dtap.stage");
+	private static String etagDigestAlgorithm = appConstants.getProperty("etag.digest.algorithm", "MD5");
 
 	/**
 	 * Get the etagCache, defaults to EhCache when no type has been specified.
@@ -53,6 +59,25 @@ public class ApiCacheManager {
 		return Integer.toOctalString(instanceName.hashCode()) + "_" +Integer.toHexString(uriPattern.hashCode()) + "_" + hash;
 	}
 
+	/**
+	 * Creates a new digest to calculate a content based etag with, see {@link #buildEtag(String, MessageDigest)}.
+	 */
+	public static MessageDigest createEtagDigest() {
+		try {
+			return MessageDigest.getInstance(etagDigestAlgorithm);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("cannot create etag digest ["+etagDigestAlgorithm+"]", e);
+		}
+	}
+
+	/**
+	 * Builds an etag from the digest of the response content. Unlike {@link #buildEtag(String, int)} the etag only depends on
+	 * the content, so it is the same on every node and survives restarts.
+	 */
+	public static String buildEtag(String uriPattern, MessageDigest digest) {
+		return Integer.toOctalString(instanceName.hashCode()) + "_" +Integer.toHexString(uriPattern.hashCode()) + "_" + Hex.encodeHexString(digest.digest());
+	}
+
 	public static String getParentCacheKey(ApiListener listener, String uri) {
 		String method = listener.getMethod();
 		String pattern = listener.getCleanPattern();
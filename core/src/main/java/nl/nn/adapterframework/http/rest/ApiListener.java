@@ -42,6 +42,8 @@ public class ApiListener extends PushingListenerAdapter implements HasPhysicalDe
 
 	private String uriPattern;
 	private boolean updateEtag = true;
+	private boolean validateEtagFirst = true;
+	private int etagTtl = 0;
 	private String operationId;
 
 	private String method;
@@ -223,6 +225,22 @@ public class ApiListener extends PushingListenerAdapter implements HasPhysicalDe
 		return updateEtag;
 	}
 
+	@IbisDoc({"6", "when <code>true</code>, a GET request with an If-None-Match header that equals the etag in the cache is answered with <code>304 Not Modified</code> before the pipeline is invoked. When <code>false</code> the pipeline is always invoked and the etag is validated against the digest of the result", "true"})
+	public void setValidateEtagFirst(boolean validateEtagFirst) {
+		this.validateEtagFirst = validateEtagFirst;
+	}
+	public boolean isValidateEtagFirst() {
+		return validateEtagFirst;
+	}
+
+	@IbisDoc({"6", "time in seconds a generated etag is kept in the cache and trusted by validateEtagFirst. 0 means the etag stays valid until it is invalidated by a PUT, POST or DELETE", "0"})
+	public void setEtagTtl(int etagTtl) {
+		this.etagTtl = etagTtl;
+	}
+	public int getEtagTtl() {
+		return etagTtl;
+	}
+
 	//TODO add authenticationType
 
 	@IbisDoc({"7", "enables security for this listener, must be one of [NONE, COOKIE, HEADER, AUTHROLE]. If you wish to use the application servers authorisation roles [AUTHROLE], you need to enable them globally for all ApiListeners with the `servlet.ApiListenerServlet.securityroles=ibistester,ibiswebservice` property", "NONE"})
@@ -313,6 +331,7 @@ public class ApiListener extends PushingListenerAdapter implements HasPhysicalDe
 		builder.append(" consumes["+getConsumesEnum().name()+"]");
 		builder.append(" messageIdHeader["+getMessageIdHeader()+"]");
 		builder.append(" updateEtag["+getUpdateEtag()+"]");
+		builder.append(" validateEtagFirst["+isValidateEtagFirst()+"]");
 		return builder.toString();
 	}
 
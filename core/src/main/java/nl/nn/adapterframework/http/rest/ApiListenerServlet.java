@@ -16,6 +16,12 @@ limitations under the License.
 package nl.nn.adapterframework.http.rest;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -40,6 +46,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.Logger;
 
 import nl.nn.adapterframework.core.PipeLineSession;
+import nl.nn.adapterframework.http.CompressingServletResponse;
+import nl.nn.adapterframework.http.DecompressingServletRequest;
 import nl.nn.adapterframework.http.HttpSecurityHandler;
 import nl.nn.adapterframework.http.HttpServletBase;
 import nl.nn.adapterframework.http.rest.ApiListener.AuthenticationMethods;
@@ -105,6 +113,15 @@ public class ApiListenerServlet extends HttpServletBase {
 	
 	@Override
 	protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		CompressingServletResponse compressingResponse = CompressingServletResponse.wrap(request, response, "ApiListenerServlet");
+		try {
+			processRequest(DecompressingServletRequest.wrap(request, "ApiListenerServlet"), compressingResponse);
+		} finally {
+			compressingResponse.finish();
+		}
+	}
+
+	private void processRequest(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
 
 		String uri = request.getPathInfo();
 		String method = request.getMethod().toUpperCase();
@@ -293,15 +310,15 @@ public class ApiListenerServlet extends HttpServletBase {
 					log.debug("found etag value["+cachedEtag+"] for key["+etagCacheKey+"]");
 	
 					if(method.equals("GET")) {
-						String ifNoneMatch = request.getHeader("If-None-Match");
-						if(ifNoneMatch != null && ifNoneMatch.equals(cachedEtag)) {
+						String ifNoneMatch = CompressingServletResponse.getDecodedEtag(request.getHeader("If-None-Match"));
+						if(listener.isValidateEtagFirst() && ifNoneMatch != null && ifNoneMatch.equals(cachedEtag)) {
 							response.setStatus(304);
 							if (log.isDebugEnabled()) log.debug(createAbortingMessage(remoteUser,304) + "matched if-none-match ["+ifNoneMatch+"]");
 							return;
 						}
 					}
 					else {
-						String ifMatch = request.getHeader("If-Match");
+						String ifMatch = CompressingServletResponse.getDecodedEtag(request.getHeader("If-Match"));
 						if(ifMatch != null && !ifMatch.equals(cachedEtag)) {
 							response.setStatus(412);
 							log.warn(createAbortingMessage(remoteUser,412) + "matched if-match ["+ifMatch+"] method ["+method+"]");
@@ -488,16 +505,39 @@ public class ApiListenerServlet extends HttpServletBase {
 				Message result = listener.processRequest(null, body, messageContext);
 
 				/**
-				 * Calculate an eTag over the processed result and store in cache
+				 * Add headers
 				 */
+				response.addHeader("Allow", (String) messageContext.get("allowedMethods"));
+
+				String contentType = listener.getContentType();
+				if(listener.getProducesEnum().equals(MediaTypes.ANY)) {
+					contentType = messageContext.get("contentType", contentType);
+				}
+				response.setHeader("Content-Type", contentType);
+
+				/**
+				 * Calculate an eTag over the processed result and store in cache.
+				 * Repeatable results are digested up front, streamed results are digested while they are written to the response.
+				 */
+				String cleanPattern = listener.getCleanPattern();
+				boolean calculateEtag = false;
 				if(messageContext.get("updateEtag", true)) {
-					log.debug("calculating etags over processed result");
-					String cleanPattern = listener.getCleanPattern();
 					if(!Message.isEmpty(result) && method.equals("GET") && cleanPattern != null) { //If the data has changed, generate a new eTag
-						String eTag = ApiCacheManager.buildEtag(cleanPattern, result.asObject().hashCode()); //The eTag has nothing to do with the content and can be a random string.
-						log.debug("adding/overwriting etag with key["+etagCacheKey+"] value["+eTag+"]");
-						cache.put(etagCacheKey, eTag);
-						response.addHeader("etag", eTag);
+						calculateEtag = true;
+						if(result.isRepeatable()) {
+							log.debug("calculating etag over processed result");
+							String eTag = ApiCacheManager.buildEtag(cleanPattern, digest(result, response.getCharacterEncoding()));
+							storeEtag(listener, etagCacheKey, eTag);
+							response.addHeader("etag", eTag);
+
+							String ifNoneMatch = CompressingServletResponse.getDecodedEtag(request.getHeader("If-None-Match"));
+							if(!listener.isValidateEtagFirst() && eTag.equals(ifNoneMatch)) {
+								response.setStatus(304);
+								if (log.isDebugEnabled()) log.debug(createAbortingMessage(remoteUser,304) + "result matched if-none-match ["+ifNoneMatch+"]");
+								return;
+							}
+							calculateEtag = false;
+						}
 					}
 					else {
 						log.debug("removing etag with key["+etagCacheKey+"]");
@@ -512,17 +552,6 @@ public class ApiListenerServlet extends HttpServletBase {
 					}
 				}
 
-				/**
-				 * Add headers
-				 */
-				response.addHeader("Allow", (String) messageContext.get("allowedMethods"));
-
-				String contentType = listener.getContentType();
-				if(listener.getProducesEnum().equals(MediaTypes.ANY)) {
-					contentType = messageContext.get("contentType", contentType);
-				}
-				response.setHeader("Content-Type", contentType);
-
 				/**
 				 * Check if an exitcode has been defined or if a statuscode has been added to the messageContext.
 				 */
@@ -535,7 +564,23 @@ public class ApiListenerServlet extends HttpServletBase {
 				 * Finalize the pipeline and write the result to the response
 				 */
 				if(!Message.isEmpty(result)) {
-					if(result.isBinary()) {
+					if(calculateEtag) {
+						log.debug("calculating etag while writing processed result");
+						MessageDigest digest = ApiCacheManager.createEtagDigest();
+						OutputStream outputStream = new DigestOutputStream(response.getOutputStream(), digest);
+						if(result.isBinary()) {
+							StreamUtil.copyStream(result.asInputStream(), outputStream, 4096);
+						} else {
+							Writer writer = new OutputStreamWriter(outputStream, response.getCharacterEncoding());
+							StreamUtil.copyReaderToWriter(result.asReader(), writer, 4096, false, false);
+							writer.flush();
+						}
+						String eTag = ApiCacheManager.buildEtag(cleanPattern, digest);
+						storeEtag(listener, etagCacheKey, eTag);
+						if(!response.isCommitted()) {
+							response.addHeader("etag", eTag);
+						}
+					} else if(result.isBinary()) {
 						StreamUtil.copyStream(result.asInputStream(), response.getOutputStream(), 4096);
 					} else {
 						StreamUtil.copyReaderToWriter(result.asReader(), response.getWriter(), 4096, false, false);
@@ -562,6 +607,27 @@ public class ApiListenerServlet extends HttpServletBase {
 		return "/api/*";
 	}
 
+	private MessageDigest digest(Message result, String charset) throws IOException {
+		MessageDigest digest = ApiCacheManager.createEtagDigest();
+		try (InputStream inputStream = result.asInputStream(charset)) {
+			byte[] buffer = new byte[4096];
+			int len;
+			while ((len = inputStream.read(buffer)) >= 0) {
+				digest.update(buffer, 0, len);
+			}
+		}
+		return digest;
+	}
+
+	private void storeEtag(ApiListener listener, String etagCacheKey, String eTag) {
+		log.debug("adding/overwriting etag with key["+etagCacheKey+"] value["+eTag+"]");
+		if(listener.getEtagTtl() > 0) {
+			cache.put(etagCacheKey, eTag, listener.getEtagTtl());
+		} else {
+			cache.put(etagCacheKey, eTag);
+		}
+	}
+
 	private String createAbortingMessage(String remoteUser, int statusCode) {
 		StringBuilder message = new StringBuilder("");
 		message.append("Aborting request ");
@@ -1,5 +1,5 @@
 /*
-   Copyright 2013 Nationale-Nederlanden
+   Copyright 2013 Nationale-Nederlanden, 2021 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -16,40 +16,35 @@
 package nl.nn.adapterframework.jdbc;
 
 import java.sql.Connection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
+ * SideTable that keeps the keys it has found in a {@link LookupCache}, that is shared by all CachedSideTables for the same table.
+ * 
  * @author  Gerrit van Brakel
  * @since  
  */
 public class CachedSideTable extends SideTable {
-	
-	private static Map cache=Collections.synchronizedMap(new HashMap());
-	private String mapKey;
-	
+
+	private LookupCache cache;
+
 	public CachedSideTable(String tableName, String keyColumn, String nameColumn, String sequence) {
 		super(tableName, keyColumn, nameColumn, sequence);
-		mapKey=tableName+"/"+keyColumn+"/"+nameColumn;
-		synchronized(cache) {
-			Map tableCache=(Map)cache.get(mapKey);
-			if (tableCache==null) {
-				tableCache=Collections.synchronizedMap(new HashMap());
-				cache.put(mapKey,tableCache);
-			}
-		}
+		cache=LookupCache.getCache(tableName+"/"+keyColumn+"/"+nameColumn);
 	}
 
+	/**
+	 * Loads all names of the table in the cache, using a single query.
+	 */
+	public int preload(Connection connection) throws JdbcException {
+		return cache.preload(connection, getSelectAllQuery());
+	}
+
+	@Override
 	public int findOrInsert(Connection connection, String name) throws JdbcException {
-		Integer result;
-		Map tableCache=(Map)cache.get(mapKey);
-		result=(Integer)tableCache.get(name);
-		if (result==null) {
-			result= new Integer(super.findOrInsert(connection, name));
-			tableCache.put(name,result);
-		}
-		return result.intValue();
+		return cache.get(name, n -> super.findOrInsert(connection, n));
 	}
 
+	public LookupCache getCache() {
+		return cache;
+	}
 }
@@ -132,7 +132,15 @@ public abstract class JdbcMessageBrowser<M> extends JdbcFacade implements IMessa
 
 
 
-	protected abstract String getSelectListQuery(IDbmsSupport dbmsSupport, Date startTime, Date endTime, IMessageBrowser.SortOrder order);
+	protected String getSelectListQuery(IDbmsSupport dbmsSupport, Date startTime, Date endTime, IMessageBrowser.SortOrder order) {
+		return getSelectListQuery(dbmsSupport, startTime, endTime, order, false);
+	}
+	/**
+	 * When seek is true, the query must select only the rows after the seek position, passed as three parameters: 
+	 * the date of the seek position twice, followed by the key of the seek position. Without a dateField the rows
+	 * are ordered by key, and the key of the seek position is the only parameter.
+	 */
+	protected abstract String getSelectListQuery(IDbmsSupport dbmsSupport, Date startTime, Date endTime, IMessageBrowser.SortOrder order, boolean seek);
 
 
 	protected String getWhereClause(String clause, boolean primaryKeyIsPartOfClause) {
@@ -237,6 +245,22 @@ public abstract class JdbcMessageBrowser<M> extends JdbcFacade implements IMessa
 
 	@Override
 	public IMessageBrowsingIterator getIterator(Date startTime, Date endTime, SortOrder order) throws ListenerException {
+		return getIterator(startTime, endTime, order, null, null);
+	}
+
+	@Override
+	public IMessageBrowsingIterator getIterator(Date startTime, Date endTime, SortOrder order, Date seekDate, String seekKey) throws ListenerException {
+		if (order==null || order==SortOrder.NONE) {
+			order = getOrderEnum();
+		}
+		boolean seek = StringUtils.isNotEmpty(seekKey);
+		if (StringUtils.isEmpty(getDateField())) {
+			startTime = null;
+			endTime = null;
+		} else if (seek && seekDate==null) {
+			// the rows are ordered by date first, the key alone does not tell where to continue
+			throw new ListenerException("cannot continue from seekKey ["+seekKey+"] without the seekDate of that position");
+		}
 		Connection conn;
 		PreparedStatement stmt=null;
 		IMessageBrowsingIterator result=null;
@@ -246,12 +270,12 @@ public abstract class JdbcMessageBrowser<M> extends JdbcFacade implements IMessa
 			throw new ListenerException(e);
 		}
 		try {
-			String query = getSelectListQuery(getDbmsSupport(), startTime, endTime, order);
+			String query = getSelectListQuery(getDbmsSupport(), startTime, endTime, order, seek);
 			if (log.isDebugEnabled()) {
 				log.debug("preparing selectListQuery ["+query+"]");
 			}
 			stmt = conn.prepareStatement(query);
-			if (startTime==null && endTime==null) {
+			if (startTime==null && endTime==null && !seek) {
 				applyStandardParameters(stmt, false, false);
 			} else {
 				int paramPos=applyStandardParameters(stmt, true, false);
@@ -261,6 +285,14 @@ public abstract class JdbcMessageBrowser<M> extends JdbcFacade implements IMessa
 				if (endTime!=null) {
 					stmt.setTimestamp(paramPos++, new Timestamp(endTime.getTime()));
 				}
+				if (seek) {
+					if (StringUtils.isNotEmpty(getDateField())) {
+						Timestamp seekTimestamp = seekDate instanceof Timestamp ? (Timestamp)seekDate : new Timestamp(seekDate.getTime());
+						stmt.setTimestamp(paramPos++, seekTimestamp);
+						stmt.setTimestamp(paramPos++, seekTimestamp);
+					}
+					JdbcUtil.setParameter(stmt, paramPos++, seekKey, getDbmsSupport().isParameterTypeMatchRequired());
+				}
 			}
 			ResultSet rs =  stmt.executeQuery();
 			result = new ResultSetIterator(conn,rs);
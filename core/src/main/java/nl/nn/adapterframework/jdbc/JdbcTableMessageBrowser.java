@@ -128,7 +128,10 @@ public class JdbcTableMessageBrowser<M> extends JdbcMessageBrowser<M> {
 	}
 
 	@Override
-	protected String getSelectListQuery(IDbmsSupport dbmsSupport, Date startTime, Date endTime, IMessageBrowser.SortOrder order) {
+	protected String getSelectListQuery(IDbmsSupport dbmsSupport, Date startTime, Date endTime, IMessageBrowser.SortOrder order, boolean seek) {
+		if(order==null || order.equals(SortOrder.NONE)) { //If no order has been set, use the default (DESC for messages and ASC for errors)
+			order = getOrderEnum();
+		}
 		String whereClause=null;
 		if (startTime!=null) {
 			whereClause=getDateField()+">=?";
@@ -136,11 +139,16 @@ public class JdbcTableMessageBrowser<M> extends JdbcMessageBrowser<M> {
 		if (endTime!=null) {
 			whereClause=Misc.concatStrings(whereClause, " AND ", getDateField()+"<?");
 		}
-		if(order.equals(SortOrder.NONE)) { //If no order has been set, use the default (DESC for messages and ASC for errors)
-			order = getOrderEnum();
+		if (seek) {
+			String comparator = order==SortOrder.DESC ? "<" : ">";
+			if (StringUtils.isNotEmpty(getDateField())) {
+				whereClause=Misc.concatStrings(whereClause, " AND ", getDateField()+comparator+"=? AND ("+getDateField()+comparator+"? OR "+getKeyField()+comparator+"?)");
+			} else {
+				whereClause=Misc.concatStrings(whereClause, " AND ", getKeyField()+comparator+"?");
+			}
 		}
 		return "SELECT "+provideIndexHintAfterFirstKeyword(dbmsSupport)+provideFirstRowsHintAfterFirstKeyword(dbmsSupport)+ getListClause()+ getWhereClause(whereClause,false)+
-				(StringUtils.isNotEmpty(getDateField())? " ORDER BY "+getDateField()+ " "+order.name():"")+provideTrailingFirstRowsHint(dbmsSupport);
+				(StringUtils.isNotEmpty(getDateField())? " ORDER BY "+getDateField()+ " "+order.name()+", "+getKeyField()+" "+order.name():" ORDER BY "+getKeyField()+" "+order.name())+provideTrailingFirstRowsHint(dbmsSupport);
 	}
 
 	
@@ -78,7 +78,7 @@ import nl.nn.adapterframework.util.Misc;
 	CONSTRAINT PK_IBISSTORE PRIMARY KEY (MESSAGEKEY)
 	);
 	
-	CREATE INDEX &lt;schema_owner&gt;.IX_IBISSTORE ON &lt;schema_owner&gt;.IBISSTORE (TYPE, SLOTID, MESSAGEDATE);
+	CREATE INDEX &lt;schema_owner&gt;.IX_IBISSTORE ON &lt;schema_owner&gt;.IBISSTORE (TYPE, SLOTID, MESSAGEDATE, MESSAGEKEY);
 	CREATE INDEX &lt;schema_owner&gt;.IX_IBISSTORE_02 ON &lt;schema_owner&gt;.IBISSTORE (EXPIRYDATE);
 	CREATE SEQUENCE &lt;schema_owner&gt;.SEQ_IBISSTORE;
 
@@ -106,7 +106,7 @@ import nl.nn.adapterframework.util.Misc;
 	CONSTRAINT PK_IBISSTORE PRIMARY KEY (MESSAGEKEY)
 	);
 	
-	CREATE INDEX IX_IBISSTORE ON IBISSTORE (TYPE, SLOTID, MESSAGEDATE);
+	CREATE INDEX IX_IBISSTORE ON IBISSTORE (TYPE, SLOTID, MESSAGEDATE, MESSAGEKEY);
 	CREATE INDEX IX_IBISSTORE_02 ON IBISSTORE (EXPIRYDATE);
 
 	COMMIT;
@@ -0,0 +1,216 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.Logger;
+
+import lombok.Getter;
+import nl.nn.adapterframework.util.AppConstants;
+import nl.nn.adapterframework.util.LogUtil;
+
+/**
+ * Cache of the integer keys of names in lookup tables, like the side tables of the statistics store.
+ * <p>
+ * Caches are shared by name, so all objects that refer to the same table use the same cache. Reads do not lock, the keys are
+ * stored as primitive ints. A cache holds at most <code>lookupCache.maxSize</code> entries; when it grows beyond that, the least
+ * recently used entries are evicted. Recency is approximate: it is measured with a clock that only advances when entries are added,
+ * so reads of an entry that was already read since the last addition do not write to shared state. When <code>lookupCache.timeToLive</code> is set, entries older than that number of
+ * milliseconds are looked up again. The contents of a table can be loaded into the cache with a single query using
+ * {@link #preload(Connection, String)}.
+ */
+public class LookupCache {
+	protected static Logger log = LogUtil.getLogger(LookupCache.class);
+
+	private static final int MAX_SIZE = AppConstants.getInstance().getInt("lookupCache.maxSize", 10000);
+	private static final long TIME_TO_LIVE = AppConstants.getInstance().getLong("lookupCache.timeToLive", 0);
+
+	private static final Map<String, LookupCache> caches = new ConcurrentHashMap<>();
+
+	private final @Getter String name;
+	private final @Getter int maxSize;
+	private final @Getter long timeToLive;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final AtomicLong clock = new AtomicLong();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	@FunctionalInterface
+	public interface Loader<E extends Exception> {
+		/**
+		 * @return the key of the name, or a negative value when it could not be found.
+		 */
+		int load(String name) throws E;
+	}
+
+	private static class Entry {
+		private final int value;
+		private final long created;
+		private volatile long lastAccess;
+
+		Entry(int value, long created, long lastAccess) {
+			this.value = value;
+			this.created = created;
+			this.lastAccess = lastAccess;
+		}
+	}
+
+	LookupCache(String name, int maxSize, long timeToLive) {
+		this.name = name;
+		this.maxSize = maxSize;
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * Returns the cache with the specified name, creating it when it does not exist yet.
+	 */
+	public static LookupCache getCache(String name) {
+		return caches.computeIfAbsent(name, n -> new LookupCache(n, MAX_SIZE, TIME_TO_LIVE));
+	}
+
+	/**
+	 * @return the cached key of the name, or -1 when it is not present in the cache.
+	 */
+	public int get(String name) {
+		Entry entry = entries.get(name);
+		if (entry == null) {
+			misses.increment();
+			return -1;
+		}
+		if (timeToLive > 0 && System.currentTimeMillis() - entry.created > timeToLive) {
+			entries.remove(name, entry);
+			misses.increment();
+			return -1;
+		}
+		long now = clock.get();
+		if (entry.lastAccess != now) {
+			entry.lastAccess = now;
+		}
+		hits.increment();
+		return entry.value;
+	}
+
+	public void put(String name, int value) {
+		entries.put(name, new Entry(value, System.currentTimeMillis(), clock.incrementAndGet()));
+		if (entries.size() > maxSize) {
+			evict();
+		}
+	}
+
+	/**
+	 * Returns the cached key of the name, or obtains it from the loader when it is not present in the cache.
+	 * Negative results of the loader are not cached.
+	 */
+	public <E extends Exception> int get(String name, Loader<E> loader) throws E {
+		int result = get(name);
+		if (result < 0) {
+			result = loader.load(name);
+			if (result >= 0) {
+				put(name, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Loads the results of a query that returns a name in the first column and its key in the second column into the cache.
+	 * At most {@link #getMaxSize() maxSize} rows are loaded.
+	 * @return the number of rows loaded.
+	 */
+	public int preload(Connection connection, String query) throws JdbcException {
+		if (log.isDebugEnabled()) log.debug("preloading lookup cache ["+name+"] using query ["+query+"]");
+		int count = 0;
+		try (PreparedStatement stmt = connection.prepareStatement(query)) {
+			try (ResultSet rs = stmt.executeQuery()) {
+				long now = System.currentTimeMillis();
+				long tick = clock.incrementAndGet();
+				while (count < maxSize && rs.next()) {
+					String key = rs.getString(1);
+					if (key != null) {
+						entries.putIfAbsent(key, new Entry(rs.getInt(2), now, tick));
+						count++;
+					}
+				}
+			}
+		} catch (Exception e) {
+			throw new JdbcException("could not preload lookup cache ["+name+"] using query ["+query+"]", e);
+		}
+		log.info("preloaded ["+count+"] entries in lookup cache ["+name+"]");
+		return count;
+	}
+
+	/**
+	 * Removes the least recently used entries, to make room for a tenth of the maximum size.
+	 * Only the threads that add entries take the lock, readers are not blocked.
+	 */
+	private synchronized void evict() {
+		int excess = entries.size() - maxSize;
+		if (excess <= 0) {
+			return;
+		}
+		int toRemove = Math.min(entries.size(), excess + Math.max(1, maxSize / 10));
+		List<Map.Entry<String, Entry>> candidates = new ArrayList<>(entries.entrySet());
+		candidates.sort((e1, e2) -> Long.compare(e1.getValue().lastAccess, e2.getValue().lastAccess));
+		for (int i = 0; i < toRemove; i++) {
+			Map.Entry<String, Entry> candidate = candidates.get(i);
+			if (entries.remove(candidate.getKey(), candidate.getValue())) {
+				evictions.increment();
+			}
+		}
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	public double getHitRate() {
+		long hitCount = hits.sum();
+		long total = hitCount + misses.sum();
+		return total == 0 ? 0 : (double) hitCount / total;
+	}
+
+	@Override
+	public String toString() {
+		return "LookupCache ["+name+"] size ["+size()+"] hits ["+getHits()+"] misses ["+getMisses()+"] evictions ["+getEvictions()+"]";
+	}
+}
@@ -1,5 +1,5 @@
 /*
-   Copyright 2013 Nationale-Nederlanden
+   Copyright 2013 Nationale-Nederlanden, 2021 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -32,6 +32,7 @@ public class SideTable {
 	protected Logger log = LogUtil.getLogger(this);
 	
 	private String selectQuery;
+	private String selectAllQuery;
 	private String selectNextValueQuery;
 	private String insertQuery;
 	
@@ -43,10 +44,18 @@ public class SideTable {
 
 	private void createQueries(String tableName, String keyColumn, String nameColumn, String sequence) {
 		selectQuery="SELECT "+keyColumn+" FROM "+tableName+" WHERE "+nameColumn+"=?";
+		selectAllQuery="SELECT "+nameColumn+","+keyColumn+" FROM "+tableName;
 		selectNextValueQuery="SELECT "+sequence+".nextval FROM DUAL";
 		insertQuery="INSERT INTO "+tableName+"("+keyColumn+","+nameColumn+") VALUES (?,?)";
 	}
 
+	/**
+	 * Query that returns the name and the key of all rows of the table.
+	 */
+	protected String getSelectAllQuery() {
+		return selectAllQuery;
+	}
+
 	public int findOrInsert(Connection connection, String name) throws JdbcException {
 		int result;
 		
@@ -0,0 +1,152 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.jms;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.jms.JMSException;
+import javax.jms.Session;
+
+import org.apache.logging.log4j.Logger;
+
+import lombok.Getter;
+import nl.nn.adapterframework.statistics.StatisticsKeeper;
+import nl.nn.adapterframework.util.CounterStatistic;
+import nl.nn.adapterframework.util.LogUtil;
+
+/**
+ * Commits the messages received on locally transacted JMS sessions in batches, instead of once per message.
+ * 
+ * A batch is committed when it contains batchSize messages, when its first message has been pending for batchTimeout ms,
+ * or when no message was received within the receive timeout. When processing of a message fails while other messages
+ * are pending, the complete batch is rolled back, and the redelivered messages are then processed and committed one by one,
+ * so only the failing message ends up being rolled back individually. This requires the messages to be idempotent, as
+ * the messages that were processed before the failure are processed again.
+ * 
+ * Each session is only used by a single consumer thread at a time, so the state per session does not need to be synchronized.
+ */
+public class BatchedSessionCommitter {
+	protected Logger log = LogUtil.getLogger(this);
+
+	public static final String THREAD_CONTEXT_KEY = "JmsBatchedSessionCommitter";
+
+	private final int batchSize;
+	private final long batchTimeout;
+	private final Map<Session, Batch> batches = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private final @Getter StatisticsKeeper batchSizes = new StatisticsKeeper("batch size");
+	private final @Getter CounterStatistic rollbacks = new CounterStatistic(0);
+
+	private static class Batch {
+		int pending;
+		long firstPendingTime;
+		int replay;
+		boolean rollbackOnly;
+	}
+
+	public BatchedSessionCommitter(int batchSize, long batchTimeout) {
+		this.batchSize = batchSize;
+		this.batchTimeout = batchTimeout;
+	}
+
+	/**
+	 * Marks the message that is currently processed on the session as failed, such that it will be rolled back.
+	 */
+	public void markRollbackOnly(Session session) {
+		getBatch(session).rollbackOnly = true;
+	}
+
+	/**
+	 * Called after a message received on the session has been processed.
+	 * @param failed <code>true</code> when processing resulted in an exception. When the message was processed on its own,
+	 * the session is committed nevertheless, as is done for sessions that are not batched.
+	 */
+	public void messageCompleted(Session session, boolean failed) throws JMSException {
+		Batch batch = getBatch(session);
+		if (failed || batch.rollbackOnly) {
+			if (batch.pending > 0) {
+				log.info("rolling back batch of ["+(batch.pending+1)+"] messages, they will be redelivered and committed one by one");
+				session.rollback();
+				rollbacks.increase();
+				batch.replay = batch.pending + 1;
+				batch.pending = 0;
+			} else {
+				if (batch.rollbackOnly) {
+					session.rollback();
+				} else {
+					session.commit();
+				}
+				if (batch.replay > 0) {
+					batch.replay--;
+				}
+			}
+			batch.rollbackOnly = false;
+		} else {
+			if (batch.pending++ == 0) {
+				batch.firstPendingTime = System.currentTimeMillis();
+			}
+			if (batch.replay > 0) {
+				batch.replay--;
+				commit(session, batch);
+			} else if (batch.pending >= batchSize || batchTimeout > 0 && System.currentTimeMillis() - batch.firstPendingTime >= batchTimeout) {
+				commit(session, batch);
+			}
+		}
+		removeIfIdle(session, batch);
+	}
+
+	/**
+	 * Commits the messages pending on the session, e.g. when no more messages were received within the receive timeout.
+	 */
+	public void flush(Session session) throws JMSException {
+		Batch batch = batches.get(session);
+		if (batch != null && batch.pending > 0) {
+			commit(session, batch);
+			removeIfIdle(session, batch);
+		}
+	}
+
+	/**
+	 * Called when the session has been rolled back outside of this committer, e.g. after an unexpected exception.
+	 */
+	public void rolledBack(Session session) {
+		Batch batch = batches.get(session);
+		if (batch != null && batch.pending > 0) {
+			rollbacks.increase();
+			batch.replay = batch.pending + 1;
+			batch.pending = 0;
+		}
+	}
+
+	private void commit(Session session, Batch batch) throws JMSException {
+		if (log.isDebugEnabled()) log.debug("committing batch of ["+batch.pending+"] messages");
+		session.commit();
+		batchSizes.addValue(batch.pending);
+		batch.pending = 0;
+	}
+
+	private Batch getBatch(Session session) {
+		return batches.computeIfAbsent(session, s -> new Batch());
+	}
+
+	private void removeIfIdle(Session session, Batch batch) {
+		if (batch.pending == 0 && batch.replay == 0 && !batch.rollbackOnly) {
+			batches.remove(session);
+		}
+	}
+}
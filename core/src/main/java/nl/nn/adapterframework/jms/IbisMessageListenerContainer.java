@@ -17,6 +17,7 @@ package nl.nn.adapterframework.jms;
 
 import javax.jms.Connection;
 import javax.jms.JMSException;
+import javax.jms.Message;
 import javax.jms.MessageConsumer;
 import javax.jms.Session;
 
@@ -31,7 +32,8 @@ import nl.nn.adapterframework.util.LogUtil;
 
 /**
  * Extend the DefaultMessageListenerContainer from Spring to add trace logging and make it possible to monitor the last
- * poll finished time.
+ * poll finished time. When a {@link BatchedSessionCommitter} is set, locally transacted sessions are committed in batches
+ * by that committer instead of after every message.
  * 
  * @author Niels Meijer
  * @author Jaco de Groot
@@ -40,6 +42,7 @@ public class IbisMessageListenerContainer extends DefaultMessageListenerContaine
 	protected Logger log = LogUtil.getLogger(this);
 
 	private CredentialFactory credentialFactory;
+	private BatchedSessionCommitter batchedSessionCommitter;
 
 	@Override
 	protected Connection createConnection() throws JMSException {
@@ -98,6 +101,33 @@ public class IbisMessageListenerContainer extends DefaultMessageListenerContaine
 		return messageReceived;
 	}
 
+	@Override
+	protected void commitIfNecessary(Session session, Message message) throws JMSException {
+		if (batchedSessionCommitter != null && isSessionLocallyTransacted(session)) {
+			if (message == null) {
+				// no message received within the receive timeout, commit what is pending
+				batchedSessionCommitter.flush(session);
+			}
+			return;
+		}
+		super.commitIfNecessary(session, message);
+	}
+
+	@Override
+	protected void rollbackOnExceptionIfNecessary(Session session, Throwable ex) throws JMSException {
+		super.rollbackOnExceptionIfNecessary(session, ex);
+		if (batchedSessionCommitter != null && isSessionLocallyTransacted(session)) {
+			batchedSessionCommitter.rolledBack(session);
+		}
+	}
+
+	public void setBatchedSessionCommitter(BatchedSessionCommitter batchedSessionCommitter) {
+		this.batchedSessionCommitter = batchedSessionCommitter;
+	}
+	public BatchedSessionCommitter getBatchedSessionCommitter() {
+		return batchedSessionCommitter;
+	}
+
 	public void setCredentialFactory(CredentialFactory credentialFactory) {
 		this.credentialFactory = credentialFactory;
 	}
@@ -33,8 +33,8 @@ import nl.nn.adapterframework.core.IMessageBrowser;
 import nl.nn.adapterframework.core.IMessageBrowsingIterator;
 import nl.nn.adapterframework.core.IMessageBrowsingIteratorItem;
 import nl.nn.adapterframework.core.ListenerException;
+import nl.nn.adapterframework.core.SeekingMessageBrowsingIterator;
 import nl.nn.adapterframework.doc.IbisDoc;
-import nl.nn.adapterframework.util.DateUtils;
 import nl.nn.adapterframework.util.Misc;
 
 /**
@@ -73,15 +73,31 @@ public abstract class JmsMessageBrowser<M, J extends javax.jms.Message> extends
 
 	@Override
 	public IMessageBrowsingIterator getIterator(Date startTime, Date endTime, SortOrder order) throws ListenerException {
+		return getIterator(startTime, endTime, order, null, null);
+	}
+
+	/**
+	 * Queues are browsed in the order of arrival, so the seek position is found by skipping the messages before it. 
+	 * Messages that arrived before the insertDate of the seek position are already excluded by the selector.
+	 */
+	@Override
+	public IMessageBrowsingIterator getIterator(Date startTime, Date endTime, SortOrder order, Date seekDate, String seekKey) throws ListenerException {
 		String selector=getSelector();
 		if (startTime!=null) {
-			selector=Misc.concatStrings(selector, " AND ", "JMSTimestamp >= "+DateUtils.format(startTime));
+			selector=Misc.concatStrings(selector, " AND ", "JMSTimestamp >= "+startTime.getTime());
 		}
 		if (endTime!=null) {
-			selector=Misc.concatStrings(selector, " AND ", "JMSTimestamp < "+DateUtils.format(endTime));
+			selector=Misc.concatStrings(selector, " AND ", "JMSTimestamp < "+endTime.getTime());
+		}
+		if (seekDate!=null) {
+			selector=Misc.concatStrings(selector, " AND ", "JMSTimestamp >= "+seekDate.getTime());
 		}
 		try {
-			return new JmsQueueBrowserIterator(this,(Queue)getDestination(),selector);
+			IMessageBrowsingIterator iterator = new JmsQueueBrowserIterator(this,(Queue)getDestination(),selector);
+			if (StringUtils.isEmpty(seekKey)) {
+				return iterator;
+			}
+			return new SeekingMessageBrowsingIterator(iterator, SortOrder.ASC, seekDate, seekKey);
 		} catch (Exception e) {
 			throw new ListenerException(e);
 		}
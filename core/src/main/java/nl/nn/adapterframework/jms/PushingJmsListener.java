@@ -35,8 +35,11 @@ import nl.nn.adapterframework.core.IbisExceptionListener;
 import nl.nn.adapterframework.core.ListenerException;
 import nl.nn.adapterframework.core.PipeLineResult;
 import nl.nn.adapterframework.core.PipeLineSession;
+import nl.nn.adapterframework.core.SenderException;
 import nl.nn.adapterframework.doc.IbisDoc;
 import nl.nn.adapterframework.receivers.Receiver;
+import nl.nn.adapterframework.statistics.HasStatistics;
+import nl.nn.adapterframework.statistics.StatisticsKeeperIterationHandler;
 import nl.nn.adapterframework.util.CredentialFactory;
 /**
  * JMSListener re-implemented as a pushing listener rather than a pulling listener.
@@ -82,7 +85,7 @@ import nl.nn.adapterframework.util.CredentialFactory;
  * @author  Tim van der Leeuw
  * @since   4.8
  */
-public class PushingJmsListener extends JmsListenerBase implements IPortConnectedListener<javax.jms.Message>, IThreadCountControllable, IKnowsDeliveryCount<javax.jms.Message> {
+public class PushingJmsListener extends JmsListenerBase implements IPortConnectedListener<javax.jms.Message>, IThreadCountControllable, IKnowsDeliveryCount<javax.jms.Message>, HasStatistics {
 
 	private String listenerPort;
 	private String cacheMode;
@@ -91,6 +94,8 @@ public class PushingJmsListener extends JmsListenerBase implements IPortConnecte
 	private Receiver<javax.jms.Message> receiver;
 	private IbisExceptionListener exceptionListener;
 	private long pollGuardInterval = Long.MIN_VALUE;
+	private int batchSize = 0;
+	private long batchTimeout = 1000;
 
 	@Override
 	public void configure() throws ConfigurationException {
@@ -205,8 +210,12 @@ public class PushingJmsListener extends JmsListenerBase implements IPortConnecte
 			if (plr!=null && !isTransacted() && isJmsTransacted()
 					&& StringUtils.isNotEmpty(getCommitOnState())
 					&& !getCommitOnState().equals(plr.getState())) {
+				BatchedSessionCommitter batchedSessionCommitter = (BatchedSessionCommitter) threadContext.get(BatchedSessionCommitter.THREAD_CONTEXT_KEY);
 				if (session==null) {
 					log.error(getLogPrefix()+"session is null, cannot roll back session");
+				} else if (batchedSessionCommitter!=null) {
+					log.warn(getLogPrefix()+"got exit state ["+plr.getState()+"], rolling back message");
+					batchedSessionCommitter.markRollbackOnly(session);
 				} else {
 					log.warn(getLogPrefix()+"got exit state ["+plr.getState()+"], rolling back session");
 					session.rollback();
@@ -374,6 +383,13 @@ public class PushingJmsListener extends JmsListenerBase implements IPortConnecte
 		}
 	}
 
+	@Override
+	public void iterateOverStatistics(StatisticsKeeperIterationHandler hski, Object data, int action) throws SenderException {
+		if (jmsConnector instanceof HasStatistics) {
+			((HasStatistics)jmsConnector).iterateOverStatistics(hski, data, action);
+		}
+	}
+
 	@IbisDoc({"interval in milliseconds for the poll guard to check whether a successful poll was done by the receive (https://docs.oracle.com/javaee/7/api/javax/jms/messageconsumer.html#receive-long-) since last check. when polling has stopped this will be logged and the listener will be stopped and started in an attempt to workaround problems with polling. polling might stop due to bugs in the jms driver/implementation which should be fixed by the supplier. as the poll time includes reading and processing of the message no successful poll might be registered since the last check when message processing takes a long time, hence while messages are being processed the check on last successful poll will be skipped. set to -1 to disable", "ten times the specified timeout"})
 	public void setPollGuardInterval(long pollGuardInterval) {
 		this.pollGuardInterval = pollGuardInterval;
@@ -383,4 +399,20 @@ public class PushingJmsListener extends JmsListenerBase implements IPortConnecte
 		return pollGuardInterval;
 	}
 
+	@IbisDoc({"when set larger than 1, and <code>jmsTransacted</code> is set true on a Receiver that is not transacted, up to this number of messages are processed in a single local JMS transaction and committed together. When processing of a message fails, the batch is rolled back and the redelivered messages are committed one by one. Only use this for idempotent processing, and with cacheMode CACHE_SESSION or CACHE_CONSUMER", "0"})
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	@IbisDoc({"maximum time in milliseconds a batch is kept open after its first message was processed. Pending messages are also committed when no message is received within the receive timeout", "1000 [ms]"})
+	public void setBatchTimeout(long batchTimeout) {
+		this.batchTimeout = batchTimeout;
+	}
+	public long getBatchTimeout() {
+		return batchTimeout;
+	}
+
 }
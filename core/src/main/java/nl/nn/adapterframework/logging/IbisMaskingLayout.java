@@ -15,7 +15,7 @@
 */
 package nl.nn.adapterframework.logging;
 
-import nl.nn.adapterframework.util.Misc;
+import nl.nn.adapterframework.util.MaskingEngine;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.config.Configuration;
@@ -61,6 +61,16 @@ public abstract class IbisMaskingLayout extends AbstractStringLayout {
 	 */
 	private static Set<String> globalReplace = new HashSet<>();
 
+	/**
+	 * Compiled form of {@link #globalReplace}, replaced every time the set changes.
+	 */
+	private static volatile MaskingEngine globalMaskingEngine = MaskingEngine.getInstance(null);
+
+	/**
+	 * Compiled form of {@link #threadLocalReplace}, together with the set it was compiled from.
+	 */
+	private static ThreadLocal<ThreadMaskingEngine> threadLocalMaskingEngine = new ThreadLocal<>();
+
 	/**
 	 * @param config
 	 * @param charset defaults to the system's default
@@ -77,8 +87,8 @@ public abstract class IbisMaskingLayout extends AbstractStringLayout {
 		String message = msg.getFormattedMessage();
 
 		if (StringUtils.isNotEmpty(message)) {
-			message = Misc.hideAll(message, globalReplace);
-			message = Misc.hideAll(message, threadLocalReplace.get());
+			message = globalMaskingEngine.hideAll(message, 0);
+			message = getThreadLocalMaskingEngine().hideAll(message, 0);
 
 			int length = message.length();
 			if (maxLength > 0 && length > maxLength) {
@@ -144,10 +154,12 @@ public abstract class IbisMaskingLayout extends AbstractStringLayout {
 
 	public static void addToGlobalReplace(String regex) {
 		globalReplace.add(regex);
+		globalMaskingEngine = MaskingEngine.getInstance(globalReplace);
 	}
 
 	public static void removeFromGlobalReplace(String regex) {
 		globalReplace.remove(regex);
+		globalMaskingEngine = MaskingEngine.getInstance(globalReplace);
 	}
 
 	public static Set<String> getGlobalReplace() {
@@ -156,6 +168,7 @@ public abstract class IbisMaskingLayout extends AbstractStringLayout {
 
 	public static void cleanGlobalReplace() {
 		globalReplace = new HashSet<>();
+		globalMaskingEngine = MaskingEngine.getInstance(null);
 	}
 
 	public static void addToThreadLocalReplace(Collection<String> collection) {
@@ -165,6 +178,7 @@ public abstract class IbisMaskingLayout extends AbstractStringLayout {
 			createThreadLocalReplace();
 
 		threadLocalReplace.get().addAll(collection);
+		threadLocalMaskingEngine.remove();
 	}
 
 	/**
@@ -177,6 +191,7 @@ public abstract class IbisMaskingLayout extends AbstractStringLayout {
 		if (threadLocalReplace.get() == null)
 			createThreadLocalReplace();
 		threadLocalReplace.get().add(regex);
+		threadLocalMaskingEngine.remove();
 	}
 
 	/**
@@ -187,6 +202,7 @@ public abstract class IbisMaskingLayout extends AbstractStringLayout {
 		if(StringUtils.isEmpty(regex)) return;
 
 		threadLocalReplace.get().remove(regex);
+		threadLocalMaskingEngine.remove();
 
 		if(threadLocalReplace.get().isEmpty())
 			removeThreadLocalReplace();
@@ -206,5 +222,29 @@ public abstract class IbisMaskingLayout extends AbstractStringLayout {
 
 	public static void removeThreadLocalReplace() {
 		threadLocalReplace.remove();
+		threadLocalMaskingEngine.remove();
+	}
+
+	/**
+	 * Returns the compiled form of the thread local set. It is compiled again when a different set has been assigned to the thread.
+	 */
+	private static MaskingEngine getThreadLocalMaskingEngine() {
+		Set<String> regexes = threadLocalReplace.get();
+		ThreadMaskingEngine cached = threadLocalMaskingEngine.get();
+		if (cached == null || cached.regexes != regexes) {
+			cached = new ThreadMaskingEngine(regexes, MaskingEngine.getInstance(regexes));
+			threadLocalMaskingEngine.set(cached);
+		}
+		return cached.engine;
+	}
+
+	private static class ThreadMaskingEngine {
+		private final Set<String> regexes;
+		private final MaskingEngine engine;
+
+		ThreadMaskingEngine(Set<String> regexes, MaskingEngine engine) {
+			this.regexes = regexes;
+			this.engine = engine;
+		}
 	}
 }
@@ -1,5 +1,5 @@
 /*
-   Copyright 2013 Nationale-Nederlanden
+   Copyright 2013 Nationale-Nederlanden, 2021 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -15,10 +15,12 @@
 */
 package nl.nn.adapterframework.monitoring;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -26,13 +28,20 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import nl.nn.adapterframework.configuration.Configuration;
 import nl.nn.adapterframework.configuration.ConfigurationException;
 import nl.nn.adapterframework.configuration.digester.AttributeCheckingRule;
 import nl.nn.adapterframework.core.IAdapter;
 import nl.nn.adapterframework.core.ISender;
+import nl.nn.adapterframework.scheduler.NamedThreadFactory;
 import nl.nn.adapterframework.util.AppConstants;
 import nl.nn.adapterframework.util.DateUtils;
 import nl.nn.adapterframework.util.Lock;
@@ -78,6 +87,13 @@ public class MonitorManager implements EventHandler {
 
 
 	private boolean enabled = AppConstants.getInstance().getBoolean("monitoring.enabled", false);
+	private boolean asyncEventHandling = AppConstants.getInstance().getBoolean("monitoring.events.async", true);
+	private int maxPendingEvents = AppConstants.getInstance().getInt("monitoring.events.maxPending", 1000);
+	private final Map<EventThrowing, Deque<PendingEvent>> pendingEvents = new LinkedHashMap<>(); // events that still need to be evaluated, by source in the order they were first fired
+	private int pendingEventCount = 0; // guarded by pendingEvents
+	private int droppedEventCount = 0; // guarded by pendingEvents
+	private boolean drainScheduled = false; // guarded by pendingEvents
+	private ExecutorService eventExecutor;
 	private Date lastStateChange=null;
 
 	private Lock structureLock = new Lock();
@@ -750,31 +766,116 @@ public class MonitorManager implements EventHandler {
 		}
 	}
 
+	/**
+	 * Registers the occurrence of an event. When monitoring.events.async is set, the triggers are evaluated and the
+	 * destinations are notified on a single separate thread, so the thread that fires the event is not delayed. Pending 
+	 * events are kept per source, in the order the sources first fired them. Repeated occurrences of the last pending event
+	 * of a source are coalesced with it, also when other sources fire events in between, while the events of a single
+	 * source are evaluated in the order they were fired, so a trigger and its reverse trigger are never swapped.
+	 * At most monitoring.events.maxPending events are kept pending, further events are dropped until they are evaluated.
+	 */
 	public void fireEvent(EventThrowing source, String eventCode) {
 		if (isEnabled()) {
-			try {
-				structureLock.acquireShared();
+			if (isAsyncEventHandling()) {
+				synchronized (pendingEvents) {
+					Deque<PendingEvent> eventsOfSource = pendingEvents.computeIfAbsent(source, s -> new ArrayDeque<>());
+					PendingEvent last = eventsOfSource.peekLast();
+					if (last!=null && Objects.equals(last.eventCode, eventCode)) {
+						last.count++;
+					} else if (pendingEventCount >= maxPendingEvents) {
+						droppedEventCount++;
+					} else {
+						eventsOfSource.addLast(new PendingEvent(source, eventCode));
+						pendingEventCount++;
+					}
+					if (eventsOfSource.isEmpty()) {
+						pendingEvents.remove(source);
+					}
+					if (drainScheduled) {
+						return;
+					}
+					drainScheduled = true;
+				}
 				try {
-					Map notificationListenersOfEvent = (Map)eventNotificationListeners.get(eventCode);
-					if (notificationListenersOfEvent!=null) {
-						for (Iterator it=notificationListenersOfEvent.keySet().iterator(); it.hasNext();) {
-							Trigger trigger = (Trigger)it.next();
-							Set throwerFilter = (Set)notificationListenersOfEvent.get(trigger);
-							if (throwerFilter==null || throwerFilter.contains(source)) {
-								try {
-									trigger.evaluateEvent(source,eventCode);
-								} catch (MonitorException e) {
-									log.error("Could not evaluate event ["+eventCode+"]",e);
-								}
+					getEventExecutor().execute(this::evaluatePendingEvents);
+				} catch (RejectedExecutionException e) {
+					// the executor was shut down in the meantime
+					evaluatePendingEvents();
+				}
+			} else {
+				evaluateEvent(source, eventCode, 1);
+			}
+		}
+	}
+
+	private void evaluatePendingEvents() {
+		while (true) {
+			Deque<PendingEvent> eventsOfSource;
+			synchronized (pendingEvents) {
+				if (droppedEventCount>0) {
+					log.warn("dropped ["+droppedEventCount+"] monitoring events, as ["+maxPendingEvents+"] events were pending");
+					droppedEventCount = 0;
+				}
+				Iterator<Deque<PendingEvent>> it = pendingEvents.values().iterator();
+				if (!it.hasNext()) {
+					drainScheduled = false;
+					return;
+				}
+				eventsOfSource = it.next();
+				it.remove();
+				pendingEventCount -= eventsOfSource.size();
+			}
+			for (PendingEvent event:eventsOfSource) {
+				evaluateEvent(event.source, event.eventCode, event.count);
+			}
+		}
+	}
+
+	// must be single threaded, to evaluate the events in the order they were fired
+	private synchronized ExecutorService getEventExecutor() {
+		if (eventExecutor==null) {
+			NamedThreadFactory threadFactory = new NamedThreadFactory();
+			threadFactory.setThreadGroupName("MonitorEvents");
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+			executor.allowCoreThreadTimeOut(true);
+			eventExecutor = executor;
+		}
+		return eventExecutor;
+	}
+
+	/**
+	 * Stops the thread that evaluates events asynchronously, after it has evaluated the pending events.
+	 */
+	public synchronized void destroy() {
+		if (eventExecutor!=null) {
+			eventExecutor.shutdown();
+			eventExecutor=null;
+		}
+	}
+
+	private void evaluateEvent(EventThrowing source, String eventCode, int count) {
+		try {
+			structureLock.acquireShared();
+			try {
+				Map notificationListenersOfEvent = (Map)eventNotificationListeners.get(eventCode);
+				if (notificationListenersOfEvent!=null) {
+					for (Iterator it=notificationListenersOfEvent.keySet().iterator(); it.hasNext();) {
+						Trigger trigger = (Trigger)it.next();
+						Set throwerFilter = (Set)notificationListenersOfEvent.get(trigger);
+						if (throwerFilter==null || throwerFilter.contains(source)) {
+							try {
+								trigger.evaluateEvent(source,eventCode,count);
+							} catch (MonitorException e) {
+								log.error("Could not evaluate event ["+eventCode+"]",e);
 							}
 						}
 					}
-				} finally {
-					structureLock.releaseShared();
 				}
-			} catch (InterruptedException e) {
-				log.error("Could not obtain lock for fireEvent" , e);
+			} finally {
+				structureLock.releaseShared();
 			}
+		} catch (InterruptedException e) {
+			log.error("Could not obtain lock for fireEvent" , e);
 		}
 	}
 
@@ -852,6 +953,24 @@ public class MonitorManager implements EventHandler {
 		return structureLock;
 	}
 
+	private static class PendingEvent {
+		private final EventThrowing source;
+		private final String eventCode;
+		private int count = 1; // guarded by pendingEvents
+
+		PendingEvent(EventThrowing source, String eventCode) {
+			this.source = source;
+			this.eventCode = eventCode;
+		}
+	}
+
+	public void setAsyncEventHandling(boolean asyncEventHandling) {
+		this.asyncEventHandling = asyncEventHandling;
+	}
+	public boolean isAsyncEventHandling() {
+		return asyncEventHandling;
+	}
+
 	public void setEnabled(boolean b) {
 		enabled = b;
 	}
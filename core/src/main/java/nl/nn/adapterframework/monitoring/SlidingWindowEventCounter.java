@@ -0,0 +1,71 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.monitoring;
+
+/**
+ * Counts events in a sliding time window using a fixed ring of buckets, so memory use does not depend on the number of events.
+ * 
+ * The window is divided into at most {@value #MAX_BUCKETS} buckets. Events are counted per bucket, and a bucket is reused
+ * as soon as it has dropped out of the window. Consequently, the window moves in steps of one bucket width, and events that
+ * are older than the window minus one bucket width may already have been dropped.
+ */
+class SlidingWindowEventCounter {
+
+	static final int MAX_BUCKETS = 60;
+
+	private final long bucketWidth;
+	private final long[] bucketIds;
+	private final int[] counts;
+
+	/**
+	 * @param period length of the window in milliseconds
+	 */
+	SlidingWindowEventCounter(long period) {
+		int numBuckets = (int)Math.max(1, Math.min(MAX_BUCKETS, period/1000));
+		bucketWidth = Math.max(1, period/numBuckets);
+		bucketIds = new long[numBuckets];
+		counts = new int[numBuckets];
+		clear();
+	}
+
+	/**
+	 * Registers <code>count</code> events at time <code>now</code>, and returns the number of events in the window ending at <code>now</code>.
+	 */
+	synchronized int addAndGet(long now, int count) {
+		long bucketId = now / bucketWidth;
+		int index = (int)(bucketId % counts.length);
+		if (bucketIds[index] != bucketId) {
+			bucketIds[index] = bucketId;
+			counts[index] = 0;
+		}
+		counts[index] += count;
+
+		int total = 0;
+		for (int i=0; i<counts.length; i++) {
+			if (bucketId - bucketIds[i] < counts.length) {
+				total += counts[i];
+			}
+		}
+		return total;
+	}
+
+	synchronized void clear() {
+		for (int i=0; i<counts.length; i++) {
+			bucketIds[i] = Long.MIN_VALUE;
+			counts[i] = 0;
+		}
+	}
+}
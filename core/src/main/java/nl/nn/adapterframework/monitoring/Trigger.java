@@ -25,7 +25,6 @@ import java.util.Map;
 
 import nl.nn.adapterframework.configuration.ConfigurationException;
 import nl.nn.adapterframework.core.IAdapter;
-import nl.nn.adapterframework.util.DateUtils;
 import nl.nn.adapterframework.util.LogUtil;
 import nl.nn.adapterframework.util.Misc;
 import nl.nn.adapterframework.util.XmlBuilder;
@@ -57,7 +56,7 @@ public class Trigger {
 	private int threshold=0;
 	private int period=0;
 	
-	private LinkedList<Date> eventDts=null;
+	private SlidingWindowEventCounter eventCounter=null;
 		
 
 	public void configure() throws ConfigurationException {
@@ -71,11 +70,9 @@ public class Trigger {
 			throw new ConfigurationException(e);
 		}
 		if (threshold>0) {
-			if (eventDts==null) {
-				eventDts = new LinkedList<Date>();
-			}
+			eventCounter = new SlidingWindowEventCounter(getPeriod()*1000L);
 		} else {
-			eventDts=null;
+			eventCounter=null;
 		}
 	}
 	
@@ -84,33 +81,31 @@ public class Trigger {
 	}
 
 	public void evaluateEvent(EventThrowing source, String eventCode) throws MonitorException {
+		evaluateEvent(source, eventCode, 1);
+	}
+
+	/**
+	 * Evaluates <code>count</code> occurrences of the same event at once, as coalesced by the {@link MonitorManager}.
+	 */
+	public void evaluateEvent(EventThrowing source, String eventCode, int count) throws MonitorException {
 		Date now = new Date();
 		if (getThreshold()>0) {
-			cleanUpEvents(now);
-			eventDts.add(now);
-			if (eventDts.size()>=getThreshold()) {
+			if (eventCounter==null) {
+				eventCounter = new SlidingWindowEventCounter(getPeriod()*1000L);
+			}
+			int eventsInPeriod = eventCounter.addAndGet(now.getTime(), count);
+			if (log.isDebugEnabled()) log.debug(getLogPrefix()+"counted ["+eventsInPeriod+"] events in period for threshold ["+getThreshold()+"]");
+			if (eventsInPeriod>=getThreshold()) {
 				getOwner().changeState(now, alarm, getSeverityEnum(), source, eventCode, null);
 			}
 		} else {
 			getOwner().changeState(now, alarm, getSeverityEnum(), source, eventCode, null);
 		}
-	}	
-	
-	public void notificationOfReverseTrigger(EventThrowing source) {
-		if (eventDts!=null) {
-			eventDts.clear();
-		}
 	}
 
-	protected void cleanUpEvents(Date now) {
-		while(eventDts.size()>0) {
-			Date firstDate = (Date)eventDts.getFirst();
-			if ((now.getTime()-firstDate.getTime())>getPeriod()*1000) {
-				eventDts.removeFirst();
-				if (log.isDebugEnabled()) log.debug("removed element dated ["+DateUtils.format(firstDate)+"]");
-			} else {
-				break;
-			}
+	public void notificationOfReverseTrigger(EventThrowing source) {
+		if (eventCounter!=null) {
+			eventCounter.clear();
 		}
 	}
 
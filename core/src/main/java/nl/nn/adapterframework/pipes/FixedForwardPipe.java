@@ -1,5 +1,5 @@
 /*
-   Copyright 2013, 2016, 2020 Nationale-Nederlanden, 2020 WeAreFrank!
+   Copyright 2013, 2016, 2020 Nationale-Nederlanden, 2020, 2021 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -112,6 +112,17 @@ public abstract class FixedForwardPipe extends AbstractPipe {
 		return forward;
 	}
 
+	/**
+	 * A pipe that is fed by the previous pipe is executed as part of that pipe, and not invoked by the PipeProcessors.
+	 * Returns <code>true</code> when no input or output manipulations are configured that the PipeProcessors would perform.
+	 */
+	protected boolean canBeFedByPreviousPipe() {
+		return StringUtils.isEmpty(getGetInputFromSessionKey()) && StringUtils.isEmpty(getStoreResultInSessionKey())
+				&& StringUtils.isEmpty(getGetInputFromFixedValue()) && StringUtils.isEmpty(getEmptyInputReplacement()) && !isPreserveInput()
+				&& StringUtils.isEmpty(getChompCharSize()) && StringUtils.isEmpty(getElementToMove()) && StringUtils.isEmpty(getElementToMoveChain()) && !isRestoreMovedElements()
+				&& !isSkipOnEmptyInput() && StringUtils.isEmpty(getIfParam()) && getLocker()==null && !isWriteToSecLog();
+	}
+
 
 	@IbisDoc({"2", "when set, the processing continues directly at the forward of this pipe, without executing the pipe itself", "false"})
 	public void setSkipOnEmptyInput(boolean b) {
@@ -24,6 +24,7 @@ import nl.nn.adapterframework.util.LogUtil;
 import org.apache.logging.log4j.Logger;
 import org.springframework.core.task.TaskExecutor;
 
+import java.io.IOException;
 import java.util.HashMap;
 
 /**
@@ -49,6 +50,12 @@ public class IsolatedServiceCaller {
 	}
 
 	public void callServiceAsynchronous(String serviceName, String correlationID, Message message, HashMap context, boolean targetIsJavaListener) throws ListenerException {
+		try {
+			// the message is returned to the caller as well, and the stream it might contain will not survive the session of the caller
+			message.preserve();
+		} catch (IOException e) {
+			throw new ListenerException(ClassUtils.nameOf(this)+" cannot preserve message for asynchronous call", e);
+		}
 		IsolatedServiceExecutor ise=new IsolatedServiceExecutor(serviceName, correlationID, message, context, targetIsJavaListener, null);
 		getTaskExecutor().execute(ise);
 	}
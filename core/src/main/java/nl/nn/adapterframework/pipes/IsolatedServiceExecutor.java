@@ -47,9 +47,9 @@ public class IsolatedServiceExecutor extends RequestReplyExecutor {
 	public void run() {
 		try {
 			if (targetIsJavaListener) {
-				reply = new Message(JavaListener.getListener(serviceName).processRequest(correlationID, request.asString(), context));
+				reply = JavaListener.getListener(serviceName).processRequest(correlationID, request, context);
 			} else {
-				reply = new Message(ServiceDispatcher.getInstance().dispatchRequest(serviceName, correlationID, request.asString(), context));
+				reply = ServiceDispatcher.getInstance().dispatchRequest(serviceName, correlationID, request, context);
 			}
 		} catch (Throwable t) {
 			log.warn("IsolatedServiceCaller caught exception",t);
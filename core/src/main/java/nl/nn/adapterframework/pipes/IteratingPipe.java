@@ -331,7 +331,11 @@ public abstract class IteratingPipe<I> extends MessageSendingPipe {
 						if (isCollectResults()) {
 							executorList.add(pse);
 						}
-						getTaskExecutor().execute(pse);
+						if (pse.isAsync()) {
+							pse.runAsync();
+						} else {
+							getTaskExecutor().execute(pse);
+						}
 					} else {
 						if (getBlockSize()>0 && itemsInBlock==0) {
 							startBlock();
@@ -1,5 +1,5 @@
 /*
-   Copyright 2017, 2018 Nationale-Nederlanden, 2020 WeAreFrank!
+   Copyright 2017, 2018 Nationale-Nederlanden, 2020, 2021 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -131,6 +131,11 @@ public class Json2XmlValidator extends XmlValidator implements HasPhysicalDestin
 	 * The format of the input message (XML or JSON) is automatically detected.
 	 * @throws PipeRunException when <code>isThrowException</code> is true and a validationerror occurred.
 	 */
+	@Override
+	public boolean canProvideOutputStream() {
+		return false; // input can be JSON, and output can be converted
+	}
+
 	@Override
 	public PipeRunResult doPipe(Message input, PipeLineSession session, boolean responseMode) throws PipeRunException {
 		String messageToValidate;
@@ -284,6 +289,8 @@ public class Json2XmlValidator extends XmlValidator implements HasPhysicalDestin
 			}
 		} catch (Exception e) {
 			resultEvent= validator.finalizeValidation(context, session, e);
+		} finally {
+			validator.releaseValidatorHandler(context, validatorHandler);
 		}
 		resultEvent= validator.finalizeValidation(context, session, null);
 		PipeForward forward=determineForward(resultEvent, session, responseMode);
@@ -70,6 +70,8 @@ import nl.nn.adapterframework.senders.ConfigurationAware;
 import nl.nn.adapterframework.statistics.HasStatistics;
 import nl.nn.adapterframework.statistics.StatisticsKeeper;
 import nl.nn.adapterframework.statistics.StatisticsKeeperIterationHandler;
+import nl.nn.adapterframework.statistics.tracing.FlightRecorder;
+import nl.nn.adapterframework.statistics.tracing.SpanType;
 import nl.nn.adapterframework.stream.IOutputStreamingSupport;
 import nl.nn.adapterframework.stream.IStreamingSender;
 import nl.nn.adapterframework.stream.Message;
@@ -855,6 +857,7 @@ public class MessageSendingPipe extends StreamingPipe implements HasSender, HasS
 					}
 				}
 			}
+			int traceSpan = FlightRecorder.getInstance().beginSpan(SpanType.forSender(sender), sender.getName());
 			try {
 				if (sender instanceof IStreamingSender && getOutputValidator()==null && getOutputWrapper()==null && !isStreamResultToServlet()) {
 					sendResult =  ((IStreamingSender)sender).sendMessage(input, session, getNextPipe());
@@ -869,6 +872,8 @@ public class MessageSendingPipe extends StreamingPipe implements HasSender, HasS
 			} catch (TimeOutException toe) {
 				exitState = TIMEOUT_FORWARD;
 				throw toe;
+			} finally {
+				FlightRecorder.getInstance().endSpan(traceSpan);
 			}
 			if (Thread.currentThread().isInterrupted()) {
 				exitState = INTERRUPT_FORWARD;
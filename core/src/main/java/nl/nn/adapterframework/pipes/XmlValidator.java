@@ -34,12 +34,15 @@ import javax.xml.validation.ValidatorHandler;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.xerces.xs.XSModel;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
 import org.xml.sax.helpers.XMLFilterImpl;
 
 import nl.nn.adapterframework.configuration.ConfigurationException;
 import nl.nn.adapterframework.configuration.ConfigurationWarnings;
 import nl.nn.adapterframework.configuration.HasSpecialDefaultValues;
 import nl.nn.adapterframework.core.IDualModeValidator;
+import nl.nn.adapterframework.core.IForwardTarget;
 import nl.nn.adapterframework.core.IPipe;
 import nl.nn.adapterframework.core.PipeLineSession;
 import nl.nn.adapterframework.core.IValidator;
@@ -48,10 +51,18 @@ import nl.nn.adapterframework.core.PipeForward;
 import nl.nn.adapterframework.core.PipeRunException;
 import nl.nn.adapterframework.core.PipeRunResult;
 import nl.nn.adapterframework.core.PipeStartException;
+import nl.nn.adapterframework.core.SenderException;
 import nl.nn.adapterframework.doc.IbisDoc;
 import nl.nn.adapterframework.doc.IbisDocRef;
 import nl.nn.adapterframework.soap.SoapVersion;
+import nl.nn.adapterframework.statistics.HasStatistics;
+import nl.nn.adapterframework.statistics.StatisticsKeeperIterationHandler;
+import nl.nn.adapterframework.stream.IOutputStreamingSupport;
 import nl.nn.adapterframework.stream.Message;
+import nl.nn.adapterframework.stream.MessageOutputStream;
+import nl.nn.adapterframework.stream.StreamingException;
+import nl.nn.adapterframework.stream.xml.XmlTee;
+import nl.nn.adapterframework.util.AppConstants;
 import nl.nn.adapterframework.util.ClassUtils;
 import nl.nn.adapterframework.util.TransformerPool;
 import nl.nn.adapterframework.util.XmlUtils;
@@ -64,6 +75,7 @@ import nl.nn.adapterframework.validation.XSD;
 import nl.nn.adapterframework.validation.XercesXmlValidator;
 import nl.nn.adapterframework.validation.XmlValidatorException;
 import nl.nn.adapterframework.xml.RootElementToSessionKeyFilter;
+import nl.nn.adapterframework.xml.SaxException;
 
 
 /**
@@ -81,7 +93,7 @@ import nl.nn.adapterframework.xml.RootElementToSessionKeyFilter;
 * @author Johan Verrips IOS
 * @author Jaco de Groot
 */
-public class XmlValidator extends FixedForwardPipe implements SchemasProvider, HasSpecialDefaultValues, IDualModeValidator, IXmlValidator {
+public class XmlValidator extends FixedForwardPipe implements SchemasProvider, HasSpecialDefaultValues, IDualModeValidator, IXmlValidator, HasStatistics, IOutputStreamingSupport {
 
 	private String schemaLocation;
 	private String noNamespaceSchemaLocation;
@@ -92,6 +104,7 @@ public class XmlValidator extends FixedForwardPipe implements SchemasProvider, H
 	private String soapNamespace = SoapVersion.SOAP11.namespace;
 	private String rootElementSessionKey;
 	private String rootNamespaceSessionKey;
+	private boolean streamingActive = AppConstants.getInstance().getBoolean("streaming.auto", false);
 
 
 	private Set<List<String>> requestRootValidations;
@@ -199,6 +212,13 @@ public class XmlValidator extends FixedForwardPipe implements SchemasProvider, H
 		super.stop();
 	}
 
+	@Override
+	public void iterateOverStatistics(StatisticsKeeperIterationHandler hski, Object data, int action) throws SenderException {
+		if (validator instanceof HasStatistics) {
+			((HasStatistics)validator).iterateOverStatistics(hski, data, action);
+		}
+	}
+
 	protected void checkSchemaSpecified() throws ConfigurationException {
 		if (StringUtils.isEmpty(getNoNamespaceSchemaLocation()) &&
 				StringUtils.isEmpty(getSchemaLocation()) &&
@@ -264,6 +284,105 @@ public class XmlValidator extends FixedForwardPipe implements SchemasProvider, H
 		return determineForward(resultEvent, session, responseMode);
 	}
 
+	/**
+	 * Returns <code>true</code> when the previous pipe can pass its output as a stream of events to this validator, that
+	 * validates the events and passes them on unchanged to the next pipe, so the message is not serialized and parsed again.
+	 * This requires throwException, because the next pipe has already processed the message when the validation result is known,
+	 * and an empty soapNamespace, because the SOAP body is not extracted from a stream of events.
+	 */
+	public boolean canProvideOutputStream() {
+		return isStreamingActive() && canBeFedByPreviousPipe() && isThrowException() && StringUtils.isEmpty(getSoapNamespace());
+	}
+
+	@Override
+	public boolean supportsOutputStreamPassThrough() {
+		return false;
+	}
+
+	@Override
+	public MessageOutputStream provideOutputStream(PipeLineSession session, IForwardTarget next) throws StreamingException {
+		if (!canProvideOutputStream()) {
+			return null;
+		}
+		MessageOutputStream target = MessageOutputStream.getTargetStream(this, session, getNextPipe());
+		ValidationContext context;
+		ValidatorHandler validatorHandler;
+		try {
+			context = validator.createValidationContext(session, getRootValidations(false), getInvalidRootNamespaces());
+			validatorHandler = validator.getValidatorHandler(session, context);
+		} catch (ConfigurationException | PipeRunException e) {
+			throw new StreamingException(getLogPrefix(session)+"cannot obtain validator", e);
+		}
+		XMLFilterImpl storeRootFilter = StringUtils.isNotEmpty(getRootElementSessionKey()) ? new RootElementToSessionKeyFilter(session, getRootElementSessionKey(), getRootNamespaceSessionKey(), null) : null;
+		if (storeRootFilter!=null) {
+			validatorHandler.setContentHandler(storeRootFilter);
+			storeRootFilter.setContentHandler(context.getContentHandler());
+			storeRootFilter.setErrorHandler(context.getErrorHandler());
+		} else {
+			validatorHandler.setContentHandler(context.getContentHandler());
+		}
+		validatorHandler.setErrorHandler(context.getErrorHandler());
+
+		ValidatingTee tee = new ValidatingTee(target.asContentHandler(), validatorHandler, context, session);
+		return new MessageOutputStream(this, tee, target, null, session) {
+			@Override
+			public void afterClose() throws Exception {
+				tee.release();
+			}
+		};
+	}
+
+	private IForwardTarget getNextPipe() {
+		if (getPipeLine()==null) {
+			return null;
+		}
+		try {
+			return getPipeLine().resolveForward(this, getForward());
+		} catch (PipeRunException e) {
+			log.warn("no next pipe found",e);
+			return null;
+		}
+	}
+
+	/**
+	 * Passes the events to the ValidatorHandler and to the next pipe, and evaluates the validation at the end of the document,
+	 * before the next pipe receives the end of the document.
+	 */
+	private class ValidatingTee extends XmlTee {
+		private final ValidatorHandler validatorHandler;
+		private final ValidationContext context;
+		private final PipeLineSession session;
+		private boolean released = false;
+
+		ValidatingTee(ContentHandler handler, ValidatorHandler validatorHandler, ValidationContext context, PipeLineSession session) {
+			super(handler, validatorHandler);
+			this.validatorHandler = validatorHandler;
+			this.context = context;
+			this.session = session;
+		}
+
+		@Override
+		public void endDocument() throws SAXException {
+			validatorHandler.endDocument();
+			release();
+			try {
+				determineForward(validator.finalizeValidation(context, session, null), session, false);
+			} catch (XmlValidatorException | PipeRunException e) {
+				throw new SaxException(getLogPrefix(session)+"validation failed", e);
+			}
+			if (getContentHandler()!=null) {
+				getContentHandler().endDocument();
+			}
+		}
+
+		void release() {
+			if (!released) {
+				released = true;
+				validator.releaseValidatorHandler(context, validatorHandler);
+			}
+		}
+	}
+
 	protected PipeForward determineForward(String resultEvent, PipeLineSession session, boolean responseMode) throws PipeRunException {
 		throwEvent(resultEvent);
 		if (AbstractXmlValidator.XML_VALIDATOR_VALID_MONITOR_EVENT.equals(resultEvent)) {
@@ -907,5 +1026,13 @@ public class XmlValidator extends FixedForwardPipe implements SchemasProvider, H
 		return rootNamespaceSessionKey;
 	}
 
+	@IbisDoc({"42", "If true, then this pipe can be provided with the output of the previous pipe as a stream of events, when throwException is set and soapNamespace is empty. Can be used to switch this streaming off for debugging purposes","set by appconstant streaming.auto"})
+	public void setStreamingActive(boolean streamingActive) {
+		this.streamingActive = streamingActive;
+	}
+	public boolean isStreamingActive() {
+		return streamingActive;
+	}
+
 
 }
\ No newline at end of file
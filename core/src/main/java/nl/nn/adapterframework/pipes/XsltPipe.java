@@ -1,5 +1,5 @@
 /*
-   Copyright 2013, 2016, 2019 Nationale-Nederlanden, 2020 WeAreFrank!
+   Copyright 2013, 2016, 2019 Nationale-Nederlanden, 2020, 2021 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -98,6 +98,11 @@ public class XsltPipe extends StreamingPipe implements IThreadCreator {
 	}
 
 	
+	@Override
+	public boolean canProvideOutputStream() {
+		return super.canProvideOutputStream() && StringUtils.isEmpty(getSessionKey()) && (getParameterList()==null || !getParameterList().parameterEvaluationRequiresInputMessage());
+	}
+
 	@Override
 	public boolean canStreamToNextPipe() {
 		return super.canStreamToNextPipe() && StringUtils.isEmpty(getSessionKey());
@@ -142,6 +147,9 @@ public class XsltPipe extends StreamingPipe implements IThreadCreator {
 
 	@Override
 	public MessageOutputStream provideOutputStream(PipeLineSession session) throws StreamingException {
+		if (!canProvideOutputStream()) {
+			return null;
+		}
 		return sender.provideOutputStream(session, getNextPipe());
 	}
 
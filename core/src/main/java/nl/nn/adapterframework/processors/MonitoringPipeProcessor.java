@@ -23,6 +23,8 @@ import nl.nn.adapterframework.core.PipeRunException;
 import nl.nn.adapterframework.core.PipeRunResult;
 import nl.nn.adapterframework.pipes.AbstractPipe;
 import nl.nn.adapterframework.statistics.StatisticsKeeper;
+import nl.nn.adapterframework.statistics.tracing.FlightRecorder;
+import nl.nn.adapterframework.statistics.tracing.SpanType;
 import nl.nn.adapterframework.stream.Message;
 import nl.nn.adapterframework.util.AppConstants;
 import nl.nn.adapterframework.util.LogUtil;
@@ -47,6 +49,7 @@ public class MonitoringPipeProcessor extends PipeProcessorBase {
 		}
     	
 		long pipeStartTime= System.currentTimeMillis();
+		int traceSpan = FlightRecorder.getInstance().beginSpan(SpanType.forPipe(pipe), pipe==null?null:pipe.getName());
 		
 		if (log.isDebugEnabled()){  // for performance reasons
 			StringBuffer sb=new StringBuffer();
@@ -91,6 +94,7 @@ public class MonitoringPipeProcessor extends PipeProcessorBase {
 			throw new PipeRunException(pipe, "Uncaught runtime exception running pipe '"
 					+ (pipe==null?"null":pipe.getName()) + "'", re);
 		} finally {
+			FlightRecorder.getInstance().endSpan(traceSpan);
 			long pipeEndTime = System.currentTimeMillis();
 			pipeDuration = pipeEndTime - pipeStartTime;
 			StatisticsKeeper sk = pipeLine.getPipeStatistics(pipe);
@@ -0,0 +1,163 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.receivers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.Logger;
+
+import lombok.Getter;
+import nl.nn.adapterframework.core.IThreadCountControllable;
+import nl.nn.adapterframework.util.CounterStatistic;
+import nl.nn.adapterframework.util.LogUtil;
+
+/**
+ * Adjusts the number of threads of a {@link PullingListenerContainer} between a minimum and a maximum,
+ * based on the throughput, processing latency and idle rate of the listener observed during each interval.
+ * 
+ * The algorithm is AIMD (additive increase, multiplicative decrease) style:
+ * <ul>
+ * <li>when most polls return no message, the listener is idle and the number of threads is decreased by one;</li>
+ * <li>when the average processing duration has grown beyond <code>latencyTolerance</code> times the lowest
+ * average duration observed, without the throughput increasing, the extra threads only cause contention and
+ * the number of threads is multiplied by <code>decreaseFactor</code>;</li>
+ * <li>when nearly all polls return a message, there is more work than threads and the number of threads is increased by one.</li>
+ * </ul>
+ */
+public class AdaptiveThreadCountController {
+	protected Logger log = LogUtil.getLogger(this);
+
+	public static final double IDLE_THRESHOLD = 0.5;
+	public static final double BUSY_THRESHOLD = 0.1;
+	public static final double LATENCY_TOLERANCE = 2.0;
+	public static final double DECREASE_FACTOR = 0.75;
+	// the baseline latency is allowed to drift upwards a little every interval, to adapt to a changing message mix
+	private static final double BASELINE_DRIFT = 1.05;
+
+	public enum Decision { NONE, INCREASE, DECREASE_IDLE, DECREASE_LATENCY }
+
+	private final IThreadCountControllable target;
+	private final @Getter int minThreads;
+	private final @Getter int maxThreads;
+	private final long intervalMillis;
+
+	private final AtomicLong nextEvaluation;
+	private final LongAdder polls = new LongAdder();
+	private final LongAdder messages = new LongAdder();
+	private final LongAdder processingDuration = new LongAdder();
+	private long windowStart;
+
+	private double baselineLatency = -1;
+	private double lastThroughput = -1;
+
+	private final @Getter CounterStatistic increases = new CounterStatistic(0);
+	private final @Getter CounterStatistic decreases = new CounterStatistic(0);
+	private @Getter Decision lastDecision = Decision.NONE;
+	private @Getter double lastThroughputPerSecond;
+	private @Getter double lastAverageLatency;
+	private @Getter double lastIdleRate;
+
+	public AdaptiveThreadCountController(IThreadCountControllable target, int minThreads, int maxThreads, long intervalMillis) {
+		this.target = target;
+		this.minThreads = Math.max(1, minThreads);
+		this.maxThreads = Math.max(this.minThreads, maxThreads);
+		this.intervalMillis = intervalMillis;
+		windowStart = System.currentTimeMillis();
+		nextEvaluation = new AtomicLong(windowStart + intervalMillis);
+	}
+
+	/**
+	 * Registers the outcome of a single poll of the listener.
+	 * @param messageReceived <code>true</code> if the poll returned a message
+	 * @param duration the time in milliseconds it took to process the message
+	 */
+	public void pollCompleted(boolean messageReceived, long duration) {
+		polls.increment();
+		if (messageReceived) {
+			messages.increment();
+			processingDuration.add(duration);
+		}
+		long now = System.currentTimeMillis();
+		long due = nextEvaluation.get();
+		if (now >= due && nextEvaluation.compareAndSet(due, now + intervalMillis)) {
+			evaluate(now);
+		}
+	}
+
+	private synchronized void evaluate(long now) {
+		long windowMillis = Math.max(1, now - windowStart);
+		windowStart = now;
+		Decision decision = decide(polls.sumThenReset(), messages.sumThenReset(), processingDuration.sumThenReset(), windowMillis, target.getMaxThreadCount());
+		lastDecision = decision;
+		switch (decision) {
+		case INCREASE:
+			target.increaseThreadCount();
+			increases.increase();
+			break;
+		case DECREASE_IDLE:
+			target.decreaseThreadCount();
+			decreases.increase();
+			break;
+		case DECREASE_LATENCY:
+			int current = target.getMaxThreadCount();
+			int newLimit = Math.max(minThreads, (int)(current * DECREASE_FACTOR));
+			for (int i=current; i>newLimit; i--) {
+				target.decreaseThreadCount();
+			}
+			decreases.increase();
+			break;
+		default:
+			break;
+		}
+		if (decision!=Decision.NONE && log.isDebugEnabled()) {
+			log.debug("decision ["+decision+"] changed maxThreadCount to ["+target.getMaxThreadCount()+"], throughput ["+lastThroughputPerSecond+"]/s average duration ["+lastAverageLatency+"] ms idle rate ["+lastIdleRate+"]");
+		}
+	}
+
+	/**
+	 * Determines how to adjust the number of threads, given the observations of a single interval.
+	 */
+	Decision decide(long polls, long messages, long duration, long windowMillis, int currentLimit) {
+		if (polls==0) {
+			return Decision.NONE;
+		}
+		double throughput = messages * 1000.0 / windowMillis;
+		double idleRate = (polls - messages) / (double)polls;
+		double latency = messages>0 ? duration / (double)messages : 0;
+		double previousThroughput = lastThroughput;
+		lastThroughput = throughput;
+		lastThroughputPerSecond = throughput;
+		lastAverageLatency = latency;
+		lastIdleRate = idleRate;
+
+		if (idleRate >= IDLE_THRESHOLD) {
+			return currentLimit>minThreads ? Decision.DECREASE_IDLE : Decision.NONE;
+		}
+		if (baselineLatency<0 || latency < baselineLatency) {
+			baselineLatency = latency;
+		} else {
+			baselineLatency = Math.min(latency, baselineLatency * BASELINE_DRIFT);
+		}
+		if (latency > baselineLatency * LATENCY_TOLERANCE && throughput <= previousThroughput) {
+			return currentLimit>minThreads ? Decision.DECREASE_LATENCY : Decision.NONE;
+		}
+		if (idleRate < BUSY_THRESHOLD) {
+			return currentLimit<maxThreads ? Decision.INCREASE : Decision.NONE;
+		}
+		return Decision.NONE;
+	}
+}
@@ -0,0 +1,138 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.receivers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+
+import org.apache.logging.log4j.Logger;
+
+import lombok.Getter;
+import nl.nn.adapterframework.core.IListenerConnector;
+import nl.nn.adapterframework.jms.BatchedSessionCommitter;
+import nl.nn.adapterframework.scheduler.NamedThreadFactory;
+import nl.nn.adapterframework.util.Counter;
+import nl.nn.adapterframework.util.CounterStatistic;
+import nl.nn.adapterframework.util.LogUtil;
+
+/**
+ * In-memory queue of messages that are to be retried after a delay, so that the thread that received
+ * the message can be released during the back-off, instead of sleeping until the retry interval has passed.
+ * 
+ * Used by the {@link Receiver} for one-way messages of non-transacted pushing listeners when <code>delayedRetry=true</code>.
+ * Transacted listeners leave the message in the transactional source, and pulling listeners suspend polling instead.
+ * The message is retried with a copy of the threadContext, without the sessions and other resources of the thread
+ * that received it, as these are closed or reused by the time the message is retried.
+ * Messages that are still queued when the queue is closed are retried immediately, so they are not lost.
+ */
+public class DelayedRetryQueue<M> {
+	protected Logger log = LogUtil.getLogger(this);
+
+	private static final List<String> RESOURCE_KEYS = Arrays.asList(IListenerConnector.THREAD_CONTEXT_SESSION_KEY, BatchedSessionCommitter.THREAD_CONTEXT_KEY);
+
+	private final Receiver<M> receiver;
+	private ScheduledThreadPoolExecutor executor;
+	private final Set<RetryTask> queued = ConcurrentHashMap.newKeySet();
+
+	private final @Getter Counter pending = new Counter(0);
+	private final @Getter CounterStatistic scheduled = new CounterStatistic(0);
+
+	public DelayedRetryQueue(Receiver<M> receiver) {
+		this.receiver = receiver;
+	}
+
+	public synchronized void open() {
+		if (executor==null) {
+			NamedThreadFactory threadFactory = new NamedThreadFactory();
+			threadFactory.setThreadGroupName("DelayedRetry");
+			executor = new ScheduledThreadPoolExecutor(1, threadFactory);
+		}
+	}
+
+	public synchronized void schedule(Object rawMessageOrWrapper, Map<String,Object> threadContext, long delay) {
+		if (executor==null) {
+			throw new IllegalStateException("delayed retry queue of receiver ["+receiver.getName()+"] is not open");
+		}
+		RetryTask task = new RetryTask(rawMessageOrWrapper, copyWithoutResources(threadContext));
+		queued.add(task);
+		pending.increase();
+		scheduled.increase();
+		executor.schedule(task, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Copies the threadContext, leaving out the sessions, connections and other resources of the receiving thread.
+	 */
+	static Map<String,Object> copyWithoutResources(Map<String,Object> threadContext) {
+		Map<String,Object> result = new HashMap<>();
+		for (Map.Entry<String,Object> entry:threadContext.entrySet()) {
+			Object value = entry.getValue();
+			if (!RESOURCE_KEYS.contains(entry.getKey()) && !(value instanceof AutoCloseable || value instanceof Session || value instanceof MessageConsumer || value instanceof javax.jms.Connection)) {
+				result.put(entry.getKey(), value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Stops the queue, and retries the messages that are still queued immediately.
+	 */
+	public void close() {
+		synchronized (this) {
+			if (executor==null) {
+				return;
+			}
+			executor.shutdownNow();
+			executor = null;
+		}
+		List<RetryTask> remaining = new ArrayList<>(queued);
+		if (!remaining.isEmpty()) {
+			log.info("retrying ["+remaining.size()+"] delayed messages of receiver ["+receiver.getName()+"] before closing");
+		}
+		for (RetryTask task:remaining) {
+			task.run();
+		}
+	}
+
+	private class RetryTask implements Runnable {
+		private final Object rawMessageOrWrapper;
+		private final Map<String,Object> threadContext;
+
+		RetryTask(Object rawMessageOrWrapper, Map<String,Object> threadContext) {
+			this.rawMessageOrWrapper = rawMessageOrWrapper;
+			this.threadContext = threadContext;
+		}
+
+		@Override
+		public void run() {
+			if (!queued.remove(this)) {
+				return; // already retried
+			}
+			pending.decrease();
+			receiver.processDelayedRetry(rawMessageOrWrapper, threadContext);
+		}
+	}
+}
@@ -124,6 +124,22 @@ public class JavaListener implements IPushingListener<String>, RequestProcessor,
 
 	@Override
 	public String processRequest(String correlationId, String rawMessage, HashMap context) throws ListenerException {
+		try {
+			return processRequest(correlationId, rawMessage, new Message(rawMessage), context).asString();
+		} catch (IOException e) {
+			throw new ListenerException("cannot convert stream", e);
+		}
+	}
+
+	/**
+	 * Processes the message without converting it to a String, so streams, byte arrays and files are passed through to the
+	 * adapter unchanged. The result is returned as produced by the adapter.
+	 */
+	public Message processRequest(String correlationId, Message message, Map<String,Object> context) throws ListenerException {
+		return processRequest(correlationId, null, message, context);
+	}
+
+	private Message processRequest(String correlationId, String rawMessage, Message message, Map<String,Object> context) throws ListenerException {
 		if (!isOpen()) {
 			throw new ListenerException("JavaListener [" + getName() + "] is not opened");
 		}
@@ -141,23 +157,13 @@ public class JavaListener implements IPushingListener<String>, RequestProcessor,
 				}
 			}
 		}
-		Message message =  new Message(rawMessage);
 		if (throwException) {
-			try {
-				return handler.processRequest(this, correlationId, rawMessage, message, (Map<String,Object>)context).asString();
-			} catch (IOException e) {
-				throw new ListenerException("cannot convert stream", e);
-			}
-		} 
+			return handler.processRequest(this, correlationId, rawMessage, message, context);
+		}
 		try {
-			return handler.processRequest(this, correlationId, rawMessage, message, context).asString();
-		} catch (ListenerException | IOException e) {
-			try {
-				return handler.formatException(null,correlationId, message, e).asString();
-			} catch (IOException e1) {
-				e.addSuppressed(e1);
-				throw new ListenerException(e);
-			}
+			return handler.processRequest(this, correlationId, rawMessage, message, context);
+		} catch (ListenerException e) {
+			return handler.formatException(null,correlationId, message, e);
 		}
 	}
 
@@ -64,6 +64,7 @@ public class PullingListenerContainer<M> implements IThreadCountControllable {
 	private boolean idle = false; // true if the last messages received was null, will cause wait loop
 	private int retryInterval = 1;
 	private int maxThreadCount = 1;
+	private AdaptiveThreadCountController adaptiveThreadCountController = null;
 
 	/**
 	 * The thread-pool for spawning threads, injected by Spring
@@ -79,8 +80,13 @@ public class PullingListenerContainer<M> implements IThreadCountControllable {
 			pollToken = new Semaphore(receiver.getNumThreadsPolling());
 		}
 
-		processToken = new Semaphore(receiver.getNumThreads());
-		maxThreadCount = receiver.getNumThreads();
+		if (receiver.isAdaptiveNumThreads() && receiver.getNumThreadsMin() < receiver.getNumThreads()) {
+			adaptiveThreadCountController = new AdaptiveThreadCountController(this, receiver.getNumThreadsMin(), receiver.getNumThreads(), receiver.getAdaptiveNumThreadsInterval() * 1000L);
+			maxThreadCount = adaptiveThreadCountController.getMinThreads();
+		} else {
+			maxThreadCount = receiver.getNumThreads();
+		}
+		processToken = new Semaphore(maxThreadCount);
 		if (receiver.getTransactionAttributeNum() != TransactionDefinition.PROPAGATION_NOT_SUPPORTED) {
 			DefaultTransactionDefinition txDef = new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
 			if (receiver.getTransactionTimeout() > 0) {
@@ -163,6 +169,13 @@ public class PullingListenerContainer<M> implements IThreadCountControllable {
 							Thread.sleep(1000);
 						}
 					}
+					if (receiver.isSuspended()) {
+						// delayed retry: only this controller waits, worker threads are released
+						log.debug("polling suspended by retry interval");
+						while (receiver.isSuspended() && receiver.isInRunState(RunStateEnum.STARTED)) {
+							Thread.sleep(1000);
+						}
+					}
 					taskExecutor.execute(new ListenTask());
 				}
 			} catch (InterruptedException e) {
@@ -199,6 +212,7 @@ public class PullingListenerContainer<M> implements IThreadCountControllable {
 			IPullingListener<M> listener = null;
 			Map<String,Object> threadContext = null;
 			boolean pollTokenReleased=false;
+			long processingDuration=-1;
 			try {
 				threadsRunning.increase();
 				if (receiver.isInRunState(RunStateEnum.STARTED)) {
@@ -279,6 +293,7 @@ public class PullingListenerContainer<M> implements IThreadCountControllable {
 								pollToken.release();
 							}
 						}
+						long processingStart = System.currentTimeMillis();
 						try {
 							receiver.processRawMessage(listener, rawMessage, threadContext);
 							if (txStatus != null) {
@@ -304,6 +319,7 @@ public class PullingListenerContainer<M> implements IThreadCountControllable {
 								}
 							}
 						}
+						processingDuration = System.currentTimeMillis() - processingStart;
 					} finally {
 						if (txStatus != null && !txStatus.isCompleted()) {
 							rollBack(txStatus, rawMessage);
@@ -318,6 +334,9 @@ public class PullingListenerContainer<M> implements IThreadCountControllable {
 					pollToken.release();
 				}
 				threadsRunning.decrease();
+				if (adaptiveThreadCountController != null) {
+					adaptiveThreadCountController.pollCompleted(processingDuration>=0, processingDuration);
+				}
 				if (listener != null) {
 					try {
 						listener.closeThread(threadContext);
@@ -365,6 +384,10 @@ public class PullingListenerContainer<M> implements IThreadCountControllable {
 		if (currentInterval*2 > Receiver.RCV_SUSPENSION_MESSAGE_THRESHOLD) {
 			receiver.throwEvent(Receiver.RCV_SUSPENDED_MONITOR_EVENT);
 		}
+		if (receiver.isDelayedRetry()) {
+			receiver.suspendFor(currentInterval);
+			return;
+		}
 		while (receiver.isInRunState(RunStateEnum.STARTED) && currentInterval-- > 0) {
 			try {
 				Thread.sleep(1000);
@@ -390,6 +413,10 @@ public class PullingListenerContainer<M> implements IThreadCountControllable {
 		return txManager;
 	}
 
+	public AdaptiveThreadCountController getAdaptiveThreadCountController() {
+		return adaptiveThreadCountController;
+	}
+
 	public void setTaskExecutor(TaskExecutor executor) {
 		taskExecutor = executor;
 	}
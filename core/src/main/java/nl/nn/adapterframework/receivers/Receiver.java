@@ -84,6 +84,7 @@ import nl.nn.adapterframework.senders.ConfigurationAware;
 import nl.nn.adapterframework.statistics.HasStatistics;
 import nl.nn.adapterframework.statistics.StatisticsKeeper;
 import nl.nn.adapterframework.statistics.StatisticsKeeperIterationHandler;
+import nl.nn.adapterframework.statistics.tracing.FlightRecorder;
 import nl.nn.adapterframework.stream.Message;
 import nl.nn.adapterframework.task.TimeoutGuard;
 import nl.nn.adapterframework.util.ClassUtils;
@@ -199,6 +200,7 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 	// within the transaction. WebSphere default transaction timeout is 120.
 	public static final int MAX_RETRY_INTERVAL=100;
 	public final String RETRY_FLAG_SESSION_KEY="retry"; // a session variable with this key will be set "true" if the message is manually retried, is redelivered, or it's messageid has been seen before
+	public static final String DELAYED_RETRY_SESSION_KEY="delayedRetry"; // a session variable with this key will be set "true" if the message is retried from the delayed retry queue
 
 	/**
 	 * CONTINUE: don't stop the receiver and an error occurs.
@@ -220,6 +222,11 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 	// the number of threads that are actively polling for messages (concurrently, only for pulling listeners)
 	private int numThreadsPolling = 1;
 	private int pollInterval=10;
+	// adjust the number of threads between numThreadsMin and numThreads, based on observed load (only for pulling listeners)
+	private boolean adaptiveNumThreads=false;
+	private int numThreadsMin = 1;
+	private int adaptiveNumThreadsInterval = 10;
+	private boolean delayedRetry=false;
 
 	private boolean checkForDuplicates=false;
 	private String checkForDuplicatesMethod="MESSAGEID";
@@ -249,6 +256,8 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 
 
 	private int retryInterval=1;
+	private volatile long suspendedUntil=0;
+	private DelayedRetryQueue<M> delayedRetryQueue;
 
 	private boolean suspensionMessagePending=false;
 	private boolean configurationSucceeded = false;
@@ -435,6 +444,9 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 			throw new ListenerException(e);
 		}
 		getListener().open();
+		if (delayedRetryQueue!=null) {
+			delayedRetryQueue.open();
+		}
 		throwEvent(RCV_STARTED_RUNNING_MONITOR_EVENT);
 		if (getListener() instanceof IPullingListener){
 			// start all threads
@@ -462,6 +474,9 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 	 */
 	protected void closeAllResources() {
 		log.debug(getLogPrefix()+"closing");
+		if (delayedRetryQueue!=null) {
+			delayedRetryQueue.close();
+		}
 		try {
 			getListener().close();
 		} catch (Throwable t) {
@@ -607,6 +622,13 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 			}
 			if (getListener() instanceof IPullingListener) {
 				setListenerContainer(createListenerContainer());
+			} else if (isAdaptiveNumThreads()) {
+				ConfigurationWarnings.add(this, log, "adaptiveNumThreads is only supported for pulling listeners, not for listener type ["+ClassUtils.nameOf(getListener())+"]");
+			}
+			if (isDelayedRetry() && getListener() instanceof IPushingListener && !isTransacted()
+					&& !(getListener() instanceof JMSFacade && ((JMSFacade)getListener()).isJmsTransacted())) {
+				// with jmsTransacted the message is committed off the broker when processing returns, a delayed retry would only live in memory
+				delayedRetryQueue = new DelayedRetryQueue<>(this);
 			}
 			if (getListener() instanceof JdbcFacade) {
 				((JdbcFacade)getListener()).setTransacted(isTransacted());
@@ -1013,7 +1035,7 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 
 		PipeLineSession.setListenerParameters(context, null, correlationId, tsReceived, tsSent);
 		String messageId = (String) context.get(PipeLineSession.originalMessageIdKey);
-		return processMessageInAdapter(rawMessage, message, messageId, correlationId, context, waitingTime, false);
+		return processMessageInAdapter(rawMessage, message, messageId, correlationId, context, waitingTime, false, false);
 	}
 
 
@@ -1079,7 +1101,9 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 		String messageId = (String)threadContext.get(PipeLineSession.originalMessageIdKey);
 		long endExtractingMessage = System.currentTimeMillis();
 		messageExtractionStatistics.addValue(endExtractingMessage-startExtractingMessage);
-		processMessageInAdapter(rawMessageOrWrapper, message, messageId, technicalCorrelationId, threadContext, waitingDuration, manualRetry);
+		// a reply is expected when the message has a replyTo destination, these messages must be answered by the thread that received them
+		boolean oneWay = threadContext.get("replyTo")==null;
+		processMessageInAdapter(rawMessageOrWrapper, message, messageId, technicalCorrelationId, threadContext, waitingDuration, manualRetry, oneWay);
 	}
 
 	
@@ -1141,8 +1165,9 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 	/*
 	 * Assumes message is read, and when transacted, transaction is still open.
 	 */
-	private Message processMessageInAdapter(Object rawMessageOrWrapper, Message message, String messageId, String technicalCorrelationId, Map<String,Object>threadContext, long waitingDuration, boolean manualRetry) throws ListenerException {
+	private Message processMessageInAdapter(Object rawMessageOrWrapper, Message message, String messageId, String technicalCorrelationId, Map<String,Object>threadContext, long waitingDuration, boolean manualRetry, boolean oneWay) throws ListenerException {
 		long startProcessingTimestamp = System.currentTimeMillis();
+		long startProcessingNanos = System.nanoTime();
 //		if (message==null) {
 //			requestSizeStatistics.addValue(0);
 //		} else {
@@ -1222,6 +1247,12 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 			}
 		}
 		try {
+			if (oneWay && isRetryToBeDelayed(messageId, manualRetry, rawMessageOrWrapper, threadContext)) {
+				// the message is processed again by the delayed retry queue, that will take care of caching the result,
+				// moving it to the errorStorage and calling afterMessageProcessed(). Nothing of that must be done here.
+				setExitState(threadContext, "delayed", 503);
+				return Message.nullMessage();
+			}
 			if (hasProblematicHistory(messageId, manualRetry, rawMessageOrWrapper, message, threadContext, businessCorrelationId)) {
 				if (!isTransacted()) {
 					log.warn(getLogPrefix()+"received message with messageId [" + messageId + "] which has a problematic history; aborting processing");
@@ -1285,6 +1316,7 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 				try {
 					if (log.isDebugEnabled()) log.debug(getLogPrefix()+"activating TimeoutGuard with transactionTimeout ["+getTransactionTimeout()+"]s");
 					tg.activateGuard(getTransactionTimeout());
+					FlightRecorder.getInstance().messageReceived(startProcessingNanos, waitingDuration);
 					pipeLineResult = adapter.processMessageWithExceptions(businessCorrelationId, pipelineMessage, pipelineSession);
 					setExitState(threadContext, pipeLineResult.getState(), pipeLineResult.getExitCode());
 					pipelineSession.put("exitcode", ""+ pipeLineResult.getExitCode());
@@ -1359,7 +1391,13 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 				try {
 					Map<String,Object> afterMessageProcessedMap=threadContext;
 					if (pipelineSession!=null) {
-						threadContext.putAll(pipelineSession);
+						if (getListener() instanceof JavaListener) {
+							// the threadContext is the context of the caller, that only receives the returnedSessionKeys
+							afterMessageProcessedMap = new HashMap<>(threadContext);
+							afterMessageProcessedMap.putAll(pipelineSession);
+						} else {
+							threadContext.putAll(pipelineSession);
+						}
 					}
 					try {
 						getListener().afterMessageProcessed(pipeLineResult, rawMessageOrWrapper, afterMessageProcessedMap);
@@ -1392,6 +1430,10 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 				}
 			} finally {
 				if (pipelineSession != null ) {
+					if (result != null && getListener() instanceof JavaListener) {
+						// the result is returned to the calling adapter, that closes it when its own session is closed
+						result.unregisterCloseable(pipelineSession);
+					}
 					pipelineSession.close();
 				}
 			}
@@ -1460,7 +1502,9 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 			} else {
 				threadContext.put(RETRY_FLAG_SESSION_KEY, "true");
 				if (getMaxRetries()<0) {
-					increaseRetryIntervalAndWait(null,getLogPrefix()+"message with messageId ["+messageId+"] has already been received ["+prci.receiveCount+"] times; maxRetries=["+getMaxRetries()+"]");
+					if (!threadContext.containsKey(DELAYED_RETRY_SESSION_KEY)) { // delayed retries have already waited the retry interval
+						increaseRetryIntervalAndWait(null,getLogPrefix()+"message with messageId ["+messageId+"] has already been received ["+prci.receiveCount+"] times; maxRetries=["+getMaxRetries()+"]");
+					}
 					return false;
 				}
 				if (prci.receiveCount<=getMaxRetries()) {
@@ -1481,6 +1525,35 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 		return isCheckForDuplicates() && getMessageLog()!= null && getMessageLog().containsMessageId(messageId);
 	}
 	
+	/*
+	 * returns true if the message has been put in the delayed retry queue, and should not be processed now.
+	 * Only messages of one-way listeners are delayed, as for request-reply listeners the reply must be sent by the thread that received the message.
+	 */
+	private boolean isRetryToBeDelayed(String messageId, boolean manualRetry, Object rawMessageOrWrapper, Map<String,Object>threadContext) {
+		if (delayedRetryQueue==null || manualRetry || getMaxRetries()>=0 || threadContext.containsKey(DELAYED_RETRY_SESSION_KEY)) {
+			return false;
+		}
+		ProcessResultCacheItem prci = getCachedProcessResult(messageId);
+		if (prci==null) {
+			return false;
+		}
+		long interval = increaseRetryInterval(null, getLogPrefix()+"message with messageId ["+messageId+"] has already been received ["+prci.receiveCount+"] times; maxRetries=["+getMaxRetries()+"]");
+		delayedRetryQueue.schedule(rawMessageOrWrapper, threadContext, interval*1000);
+		return true;
+	}
+
+	/**
+	 * Processes a message that was put in the delayed retry queue, after its retry interval has passed.
+	 */
+	void processDelayedRetry(Object rawMessageOrWrapper, Map<String,Object> threadContext) {
+		threadContext.put(DELAYED_RETRY_SESSION_KEY, "true");
+		try {
+			processRawMessage(rawMessageOrWrapper, threadContext, -1, false);
+		} catch (Throwable t) {
+			error("caught Exception processing delayed retry of message", t);
+		}
+	}
+
 	private void resetProblematicHistory(String messageId) {
 		ProcessResultCacheItem prci = getCachedProcessResult(messageId);
 		if (prci!=null) {
@@ -1553,10 +1626,55 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 				throwEvent(RCV_RESUMED_MONITOR_EVENT);
 			}
 			retryInterval = 1;
+			suspendedUntil = 0;
 		}
 	}
 
+	/**
+	 * Increases the retry interval, and waits for the current interval to pass. When <code>delayedRetry=true</code>
+	 * and the listener is polled by a {@link PullingListenerContainer}, the calling thread is not blocked, but polling
+	 * is suspended until the current interval has passed. Pushing listeners always wait, as nothing would hold back
+	 * the next delivery of their connector.
+	 */
 	public void increaseRetryIntervalAndWait(Throwable t, String description) {
+		long currentInterval = increaseRetryInterval(t, description);
+		if (isDelayedRetry() && getListener() instanceof IPullingListener) {
+			suspendFor(currentInterval);
+			return;
+		}
+		while (isInRunState(RunStateEnum.STARTED) && currentInterval-- > 0) {
+			try {
+				Thread.sleep(1000);
+			} catch (Exception e2) {
+				error("sleep interupted", e2);
+				stopRunning();
+			}
+		}
+	}
+
+	/**
+	 * Suspends polling of pulling listeners for the specified number of seconds.
+	 */
+	public void suspendFor(long seconds) {
+		long until = System.currentTimeMillis() + seconds*1000;
+		synchronized (this) {
+			if (until > suspendedUntil) {
+				suspendedUntil = until;
+			}
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> when polling is suspended, because of a retry interval set by {@link #increaseRetryIntervalAndWait(Throwable, String)}.
+	 */
+	public boolean isSuspended() {
+		return suspendedUntil > System.currentTimeMillis();
+	}
+
+	/**
+	 * Increases the retry interval, and returns the interval in seconds that should be waited before the next retry.
+	 */
+	private long increaseRetryInterval(Throwable t, String description) {
 		long currentInterval;
 		synchronized (this) {
 			currentInterval = retryInterval;
@@ -1574,14 +1692,7 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 			suspensionMessagePending=true;
 			throwEvent(RCV_SUSPENDED_MONITOR_EVENT);
 		}
-		while (isInRunState(RunStateEnum.STARTED) && currentInterval-- > 0) {
-			try {
-				Thread.sleep(1000);
-			} catch (Exception e2) {
-				error("sleep interupted", e2);
-				stopRunning();
-			}
-		}
+		return currentInterval;
 	}
 	
 
@@ -1594,6 +1705,12 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 		hski.handleScalar(recData,"messagesReceivedThisInterval", numReceived.getIntervalValue());
 		hski.handleScalar(recData,"messagesRetriedThisInterval", numRetried.getIntervalValue());
 		hski.handleScalar(recData,"messagesRejectedThisInterval", numRejected.getIntervalValue());
+		if (delayedRetryQueue!=null) {
+			hski.handleScalar(recData,"messagesDelayed", delayedRetryQueue.getScheduled().getValue());
+			hski.handleScalar(recData,"messagesDelayedThisInterval", delayedRetryQueue.getScheduled().getIntervalValue());
+			hski.handleScalar(recData,"messagesDelayedPending", delayedRetryQueue.getPending().getValue());
+			delayedRetryQueue.getScheduled().performAction(action);
+		}
 		numReceived.performAction(action);
 		numRetried.performAction(action);
 		numRejected.performAction(action);
@@ -1612,6 +1729,28 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 		}
 		hski.closeGroup(istatData);
 
+		if (listenerContainer!=null && listenerContainer.getAdaptiveThreadCountController()!=null) {
+			AdaptiveThreadCountController atcc = listenerContainer.getAdaptiveThreadCountController();
+			Object adaptiveData=hski.openGroup(recData,null,"adaptiveNumThreads");
+			hski.handleScalar(adaptiveData,"numThreads", listenerContainer.getMaxThreadCount());
+			hski.handleScalar(adaptiveData,"numThreadsMin", atcc.getMinThreads());
+			hski.handleScalar(adaptiveData,"numThreadsMax", atcc.getMaxThreads());
+			hski.handleScalar(adaptiveData,"increases", atcc.getIncreases().getValue());
+			hski.handleScalar(adaptiveData,"decreases", atcc.getDecreases().getValue());
+			hski.handleScalar(adaptiveData,"increasesThisInterval", atcc.getIncreases().getIntervalValue());
+			hski.handleScalar(adaptiveData,"decreasesThisInterval", atcc.getDecreases().getIntervalValue());
+			hski.handleScalar(adaptiveData,"lastThroughputPerSecond", Math.round(atcc.getLastThroughputPerSecond()));
+			hski.handleScalar(adaptiveData,"lastAverageDuration", Math.round(atcc.getLastAverageLatency()));
+			hski.handleScalar(adaptiveData,"lastIdlePercentage", Math.round(atcc.getLastIdleRate()*100));
+			atcc.getIncreases().performAction(action);
+			atcc.getDecreases().performAction(action);
+			hski.closeGroup(adaptiveData);
+		}
+
+		if (getListener() instanceof HasStatistics) {
+			((HasStatistics)getListener()).iterateOverStatistics(hski, recData, action);
+		}
+
 		Iterable<StatisticsKeeper> statsIter = getQueueingStatistics();
 		if (statsIter!=null) {
 			Object qstatData=hski.openGroup(recData,null,"queueingStats");
@@ -2060,6 +2199,38 @@ public class Receiver<M> extends TransactionAttributes implements IManagable, IR
 		return numThreadsPolling;
 	}
 
+	@IbisDoc({"9", "If set to <code>true</code>, the number of threads is adjusted automatically between <code>numThreadsMin</code> and <code>numThreads</code>, based on the observed throughput, processing duration and idle rate of the listener (only for pulling listeners)", "false"})
+	public void setAdaptiveNumThreads(boolean adaptiveNumThreads) {
+		this.adaptiveNumThreads = adaptiveNumThreads;
+	}
+	public boolean isAdaptiveNumThreads() {
+		return adaptiveNumThreads;
+	}
+
+	@IbisDoc({"9", "The minimum number of threads that may execute a Pipeline concurrently when <code>adaptiveNumThreads=true</code>", "1"})
+	public void setNumThreadsMin(int numThreadsMin) {
+		this.numThreadsMin = numThreadsMin;
+	}
+	public int getNumThreadsMin() {
+		return numThreadsMin;
+	}
+
+	@IbisDoc({"9", "The interval in seconds at which the number of threads is evaluated when <code>adaptiveNumThreads=true</code>", "10"})
+	public void setAdaptiveNumThreadsInterval(int adaptiveNumThreadsInterval) {
+		this.adaptiveNumThreadsInterval = adaptiveNumThreadsInterval;
+	}
+	public int getAdaptiveNumThreadsInterval() {
+		return adaptiveNumThreadsInterval;
+	}
+
+	@IbisDoc({"9", "If set to <code>true</code>, threads are not blocked while the retry interval backs off after repeated failures. Pulling listeners stop polling until the retry interval has passed; for non-transacted pushing listeners, one-way messages that are to be retried (<code>maxRetries</code>&lt;0) are put in an in-memory delay queue. Transacted pushing listeners (including jmsTransacted) keep waiting, as their message is held in the transaction, and messages that expect a reply are not delayed", "false"})
+	public void setDelayedRetry(boolean delayedRetry) {
+		this.delayedRetry = delayedRetry;
+	}
+	public boolean isDelayedRetry() {
+		return delayedRetry;
+	}
+
 	@IbisDoc({"10", "The number of seconds waited after an unsuccesful poll attempt before another poll attempt is made. Only for polling listeners, not for e.g. ifsa, jms, webservice or javaListeners", "10"})
 	public void setPollInterval(int i) {
 		pollInterval = i;
@@ -63,6 +63,17 @@ public class ServiceDispatcher  {
 	 * @since 4.3
 	 */
 	public String dispatchRequest(String serviceName, String correlationId, String request, Map<String,Object> requestContext) throws ListenerException {
+		try {
+			return Message.asString(dispatchRequest(serviceName, correlationId, new Message(request), requestContext));
+		} catch (IOException e) {
+			throw new ListenerException(e);
+		}
+	}
+
+	/**
+	 * Dispatch a request, without converting the request and the result to a String.
+	 */
+	public Message dispatchRequest(String serviceName, String correlationId, Message request, Map<String,Object> requestContext) throws ListenerException {
 		if (log.isDebugEnabled()) {
 			log.debug("dispatchRequest for service ["+serviceName+"] correlationId ["+correlationId+"] message ["+request+"]");
 		}
@@ -72,13 +83,8 @@ public class ServiceDispatcher  {
 			throw new ListenerException("service ["+serviceName+"] is not registered");
 		}
 
-		String result;
-		try {
-			result = client.processRequest(correlationId, new Message(request), requestContext).asString();
-		} catch (IOException e) {
-			throw new ListenerException(e);
-		}
-		if (result == null) {
+		Message result = client.processRequest(correlationId, request, requestContext);
+		if (result == null || result.asObject() == null) {
 			log.warn("result is null!");
 		}
 
@@ -48,7 +48,6 @@ import nl.nn.adapterframework.configuration.IbisManager;
 import nl.nn.adapterframework.core.Adapter;
 import nl.nn.adapterframework.core.IAdapter;
 import nl.nn.adapterframework.core.IExtendedPipe;
-import nl.nn.adapterframework.core.IMessageBrowser;
 import nl.nn.adapterframework.core.IPipe;
 import nl.nn.adapterframework.core.ITransactionalStorage;
 import nl.nn.adapterframework.core.IbisTransaction;
@@ -58,12 +57,12 @@ import nl.nn.adapterframework.doc.IbisDoc;
 import nl.nn.adapterframework.jdbc.DirectQuerySender;
 import nl.nn.adapterframework.jdbc.FixedQuerySender;
 import nl.nn.adapterframework.jdbc.JdbcTransactionalStorage;
-import nl.nn.adapterframework.jdbc.dbms.Dbms;
 import nl.nn.adapterframework.jndi.JndiDataSourceFactory;
 import nl.nn.adapterframework.parameters.Parameter;
 import nl.nn.adapterframework.pipes.MessageSendingPipe;
 import nl.nn.adapterframework.receivers.Receiver;
 import nl.nn.adapterframework.scheduler.IbisJobDetail.JobType;
+import nl.nn.adapterframework.scheduler.MessageLogCleaner.CleanupResult;
 import nl.nn.adapterframework.senders.IbisLocalSender;
 import nl.nn.adapterframework.statistics.HasStatistics;
 import nl.nn.adapterframework.statistics.StatisticsKeeper;
@@ -725,48 +724,43 @@ public class JobDef extends TransactionAttributes implements ApplicationContextA
 
 		List<MessageLogObject> messageLogs = getAllMessageLogs(ibisManager);
 
-		for (MessageLogObject mlo: messageLogs) {
-			DirectQuerySender qs = null;
-			try {
-				qs = ibisManager.getIbisContext().createBeanAutowireByName(DirectQuerySender.class);
-				qs.setDatasourceName(mlo.getDatasourceName());
-				qs.setName("cleanupDatabase-"+mlo.getTableName());
-				qs.setQueryType("other");
-				qs.setTimeout(getQueryTimeout());
-
-				Parameter param = new Parameter();
-				param.setName("now");
-				param.setType(Parameter.TYPE_TIMESTAMP);
-				param.setValue(DateUtils.format(date));
-				qs.addParameter(param);
-				qs.configure(true);
-				qs.open();
-				
-				String query;
-				if (qs.getDatabaseType() == Dbms.MSSQL) {
-					query = "DELETE FROM " + mlo.getTableName() + " WHERE " + mlo.getKeyField() + " IN (SELECT "+(maxRows>0?"TOP "+maxRows+" ":"") + mlo.getKeyField() + " FROM " + mlo.getTableName()
-							+ " WITH (readpast) WHERE " + mlo.getTypeField() + " IN ('" + IMessageBrowser.StorageType.MESSAGELOG_PIPE.getCode() + "','" + IMessageBrowser.StorageType.MESSAGELOG_RECEIVER.getCode()
-							+ "') AND " + mlo.getExpiryDateField() + " < ?)";
-					qs.setSqlDialect(Dbms.MSSQL.getKey());
-				}
-				else {
-					query = ("DELETE FROM " + mlo.getTableName() + " WHERE " + mlo.getKeyField() + " IN (SELECT " + mlo.getKeyField() + " FROM " + mlo.getTableName()
-					+ " WHERE " + mlo.getTypeField() + " IN ('" + IMessageBrowser.StorageType.MESSAGELOG_PIPE.getCode() + "','" + IMessageBrowser.StorageType.MESSAGELOG_RECEIVER.getCode()
-					+ "') AND " + mlo.getExpiryDateField() + " < ?"+(maxRows>0?" FETCH FIRST "+maxRows+ " ROWS ONLY":"")+")");
-					qs.setSqlDialect(Dbms.ORACLE.getKey());
+		MessageLogCleaner cleaner = new MessageLogCleaner();
+		cleaner.setMaxRows(maxRows);
+		cleaner.setQueryTimeout(getQueryTimeout());
+		List<DirectQuerySender> senders = new ArrayList<>();
+		try {
+			for (MessageLogObject mlo: messageLogs) {
+				DirectQuerySender qs = null;
+				try {
+					qs = ibisManager.getIbisContext().createBeanAutowireByName(DirectQuerySender.class);
+					senders.add(qs);
+					qs.setDatasourceName(mlo.getDatasourceName());
+					qs.setName("cleanupDatabase-"+mlo.getTableName());
+					qs.configure(true);
+					qs.open();
+					cleaner.addTable(qs, mlo.getTableName(), mlo.getKeyField(), mlo.getTypeField(), mlo.getExpiryDateField());
+				} catch (Exception e) {
+					String msg = "error while preparing to delete expired records from table ["+mlo.getTableName()+"] (as part of scheduled job execution): " + e.getMessage();
+					getMessageKeeper().add(msg, MessageKeeperLevel.ERROR);
+					log.error(getLogPrefix()+msg);
 				}
+			}
 
-				Message result = qs.sendMessage(new Message(query), null);
-				log.info("result [" + result + "]");
-			} catch (Exception e) {
-				String msg = "error while deleting expired records from table ["+mlo.getTableName()+"] (as part of scheduled job execution): " + e.getMessage();
-				getMessageKeeper().add(msg, MessageKeeperLevel.ERROR);
-				log.error(getLogPrefix()+msg);
-			} finally {
-				if(qs != null) {
-					qs.close();
+			for (CleanupResult result : cleaner.cleanup(date)) {
+				if (result.getError() != null) {
+					String msg = "error while deleting expired records from table ["+result.getTableName()+"] (as part of scheduled job execution), deleted ["+result.getRowsDeleted()+"] records: " + result.getError().getMessage();
+					getMessageKeeper().add(msg, MessageKeeperLevel.ERROR);
+					log.error(getLogPrefix()+msg);
+				} else {
+					String msg = "deleted ["+result.getRowsDeleted()+"] expired records from table ["+result.getTableName()+"] in ["+result.getDuration()+"] ms (["+result.getRowsPerSecond()+"] records/s)";
+					getMessageKeeper().add(msg, MessageKeeperLevel.INFO);
+					log.info(getLogPrefix()+msg);
 				}
 			}
+		} finally {
+			for (DirectQuerySender qs : senders) {
+				qs.close();
+			}
 		}
 	}
 
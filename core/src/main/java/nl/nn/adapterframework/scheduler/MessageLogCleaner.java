@@ -0,0 +1,202 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.scheduler;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Logger;
+
+import lombok.Getter;
+import lombok.Setter;
+import nl.nn.adapterframework.core.IMessageBrowser.StorageType;
+import nl.nn.adapterframework.jdbc.JdbcException;
+import nl.nn.adapterframework.jdbc.JdbcFacade;
+import nl.nn.adapterframework.jdbc.dbms.Dbms;
+import nl.nn.adapterframework.util.AppConstants;
+import nl.nn.adapterframework.util.LogUtil;
+
+/**
+ * Deletes the expired records of message logs in small chunks, that are committed one by one, to limit the amount 
+ * of undo and the number of locks held at any time. Multiple tables are cleaned in parallel.
+ * 
+ * The chunk size adapts to the time it takes to delete a chunk. When a chunk takes longer than <code>maxChunkDuration</code>, 
+ * e.g. because it has to wait for locks held by other transactions, the chunk size is halved and the cleaner pauses 
+ * before it continues. Fast chunks let the chunk size grow back to its configured value.
+ */
+public class MessageLogCleaner {
+	protected Logger log = LogUtil.getLogger(this);
+
+	private @Getter @Setter int chunkSize = AppConstants.getInstance().getInt("cleanup.database.chunkSize", 1000);
+	private @Getter @Setter int maxRows = AppConstants.getInstance().getInt("cleanup.database.maxrows", 25000);
+	private @Getter @Setter int threads = AppConstants.getInstance().getInt("cleanup.database.threads", 4);
+	private @Getter @Setter long maxChunkDuration = AppConstants.getInstance().getLong("cleanup.database.maxChunkDuration", 2000);
+	private @Getter @Setter int queryTimeout = 0;
+
+	private List<MessageLogTable> tables = new ArrayList<>();
+
+	private class MessageLogTable {
+		private JdbcFacade facade;
+		private String tableName;
+		private String keyField;
+		private String typeField;
+		private String expiryDateField;
+	}
+
+	public static class CleanupResult {
+		private @Getter String tableName;
+		private @Getter long rowsDeleted;
+		private @Getter long duration;
+		private @Getter Exception error;
+
+		private CleanupResult(String tableName) {
+			this.tableName = tableName;
+		}
+
+		public long getRowsPerSecond() {
+			return duration > 0 ? rowsDeleted * 1000 / duration : rowsDeleted;
+		}
+	}
+
+	/**
+	 * Registers a message log table, to be cleaned using the connections of the facade.
+	 */
+	public void addTable(JdbcFacade facade, String tableName, String keyField, String typeField, String expiryDateField) {
+		MessageLogTable table = new MessageLogTable();
+		table.facade = facade;
+		table.tableName = tableName;
+		table.keyField = keyField;
+		table.typeField = typeField;
+		table.expiryDateField = expiryDateField;
+		tables.add(table);
+	}
+
+	/**
+	 * Deletes the records of all registered tables that expired before the given date, 
+	 * at most <code>maxRows</code> per table when maxRows is larger than 0.
+	 */
+	public List<CleanupResult> cleanup(Date expiryDate) {
+		List<CleanupResult> results = new ArrayList<>();
+		if (tables.isEmpty()) {
+			return results;
+		}
+		int poolSize = Math.max(1, Math.min(threads, tables.size()));
+		NamedThreadFactory threadFactory = new NamedThreadFactory();
+		threadFactory.setThreadGroupName("MessageLogCleaner");
+		ExecutorService executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+		try {
+			List<Future<CleanupResult>> futures = new ArrayList<>();
+			for (MessageLogTable table : tables) {
+				futures.add(executor.submit(() -> cleanup(table, expiryDate)));
+			}
+			for (Future<CleanupResult> future : futures) {
+				try {
+					results.add(future.get());
+				} catch (ExecutionException e) {
+					log.warn("unexpected exception cleaning message log", e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			log.warn("interrupted while cleaning message logs");
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+		return results;
+	}
+
+	private CleanupResult cleanup(MessageLogTable table, Date expiryDate) {
+		CleanupResult result = new CleanupResult(table.tableName);
+		long start = System.currentTimeMillis();
+		try (Connection conn = table.facade.getConnection()) {
+			Dbms dbms = table.facade.getDbmsSupport().getDbms();
+			int currentChunkSize = chunkSize > 0 ? chunkSize : Integer.MAX_VALUE;
+			while (!Thread.currentThread().isInterrupted()) {
+				int limit = currentChunkSize;
+				if (maxRows > 0) {
+					limit = (int)Math.min(limit, maxRows - result.rowsDeleted);
+					if (limit <= 0) {
+						log.info("stopped cleaning table ["+table.tableName+"] after ["+result.rowsDeleted+"] rows: limit reached");
+						break;
+					}
+				}
+				long chunkStart = System.currentTimeMillis();
+				int deleted = deleteChunk(conn, dbms, table, expiryDate, limit);
+				long chunkDuration = System.currentTimeMillis() - chunkStart;
+				result.rowsDeleted += deleted;
+				if (log.isDebugEnabled()) log.debug("deleted ["+deleted+"] rows from table ["+table.tableName+"] in ["+chunkDuration+"] ms, ["+result.rowsDeleted+"] rows in total");
+				if (deleted < limit) {
+					break;
+				}
+				if (chunkDuration > maxChunkDuration && currentChunkSize > 1) {
+					currentChunkSize = Math.max(1, Math.min(currentChunkSize, limit) / 2);
+					log.info("deleting a chunk from table ["+table.tableName+"] took ["+chunkDuration+"] ms, reducing chunk size to ["+currentChunkSize+"]");
+					Thread.sleep(chunkDuration);
+				} else if (chunkDuration < maxChunkDuration / 2 && chunkSize > 0 && currentChunkSize < chunkSize) {
+					currentChunkSize = Math.min(chunkSize, currentChunkSize * 2);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			result.error = e;
+		} catch (Exception e) {
+			result.error = e;
+		}
+		result.duration = System.currentTimeMillis() - start;
+		log.info("deleted ["+result.rowsDeleted+"] expired rows from table ["+table.tableName+"] in ["+result.duration+"] ms (["+result.getRowsPerSecond()+"] rows/s)");
+		return result;
+	}
+
+	private int deleteChunk(Connection conn, Dbms dbms, MessageLogTable table, Date expiryDate, int limit) throws SQLException, JdbcException {
+		try (PreparedStatement stmt = conn.prepareStatement(getDeleteQuery(dbms, table, limit))) {
+			stmt.setQueryTimeout(queryTimeout);
+			stmt.setTimestamp(1, new Timestamp(expiryDate.getTime()));
+			int deleted = stmt.executeUpdate();
+			if (!conn.getAutoCommit()) {
+				conn.commit();
+			}
+			return deleted;
+		}
+	}
+
+	private String getDeleteQuery(Dbms dbms, MessageLogTable table, int limit) {
+		String typeClause = table.typeField + " IN ('" + StorageType.MESSAGELOG_PIPE.getCode() + "','" + StorageType.MESSAGELOG_RECEIVER.getCode() + "')";
+		boolean limited = limit < Integer.MAX_VALUE;
+		switch (dbms) {
+		case MSSQL:
+			return "DELETE FROM " + table.tableName + " WHERE " + table.keyField + " IN (SELECT " + (limited ? "TOP " + limit + " " : "") + table.keyField + " FROM " + table.tableName
+					+ " WITH (readpast) WHERE " + typeClause + " AND " + table.expiryDateField + " < ?)";
+		case MYSQL:
+		case MARIADB:
+			// MySQL does not support LIMIT in IN-subqueries, but it does support it in DELETE statements
+			return "DELETE FROM " + table.tableName + " WHERE " + typeClause + " AND " + table.expiryDateField + " < ?" + (limited ? " LIMIT " + limit : "");
+		default:
+			return "DELETE FROM " + table.tableName + " WHERE " + table.keyField + " IN (SELECT " + table.keyField + " FROM " + table.tableName
+					+ " WHERE " + typeClause + " AND " + table.expiryDateField + " < ?" + (limited ? " FETCH FIRST " + limit + " ROWS ONLY" : "") + ")";
+		}
+	}
+}
@@ -15,7 +15,6 @@
 */
 package nl.nn.adapterframework.senders;
 
-import java.io.IOException;
 import java.util.HashMap;
 
 import org.apache.commons.lang3.StringUtils;
@@ -181,9 +180,9 @@ public class IbisLocalSender extends SenderWithParametersBase implements HasPhys
 					}
 				} else {
 					log.debug(getLogPrefix()+"calling "+serviceIndication+" in same Thread");
-					result = new Message(ServiceDispatcher.getInstance().dispatchRequest(getServiceName(), correlationID, message.asString(), context));
+					result = ServiceDispatcher.getInstance().dispatchRequest(getServiceName(), correlationID, message, context);
 				}
-			} catch (ListenerException | IOException e) {
+			} catch (ListenerException e) {
 				if (ExceptionUtils.getRootCause(e) instanceof TimeOutException) {
 					throw new TimeOutException(getLogPrefix()+"timeout calling "+serviceIndication+"",e);
 				}
@@ -225,9 +224,9 @@ public class IbisLocalSender extends SenderWithParametersBase implements HasPhys
 					}
 				} else {
 					log.debug(getLogPrefix()+"calling "+serviceIndication+" in same Thread");
-					result = new Message(listener.processRequest(correlationID,message.asString(),context));
+					result = listener.processRequest(correlationID, message, context);
 				}
-			} catch (ListenerException | IOException e) {
+			} catch (ListenerException e) {
 				if (ExceptionUtils.getRootCause(e) instanceof TimeOutException) {
 					throw new TimeOutException(getLogPrefix()+"timeout calling "+serviceIndication,e);
 				}
@@ -241,6 +240,10 @@ public class IbisLocalSender extends SenderWithParametersBase implements HasPhys
 				}
 			}
 		}
+		if (result != null && session != null) {
+			// streams that are passed through from the called adapter are closed when the session of the caller ends
+			result.closeOnCloseOf(session);
+		}
 		String exitState = (String)context.remove(PipeLineSession.EXIT_STATE_CONTEXT_KEY);
 		Object exitCode = context.remove(PipeLineSession.EXIT_CODE_CONTEXT_KEY);
 		if (exitState!=null && !exitState.equalsIgnoreCase(PipeLineExit.EXIT_STATE_SUCCESS)) {
@@ -19,6 +19,13 @@ import java.io.IOException;
 import java.net.URL;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import nl.nn.adapterframework.configuration.ConfigurationException;
 
 import nl.nn.adapterframework.core.PipeLineSession;
 import nl.nn.adapterframework.core.ISender;
@@ -31,8 +38,10 @@ import nl.nn.adapterframework.extensions.javascript.JavascriptEngine;
 import nl.nn.adapterframework.extensions.javascript.Rhino;
 import nl.nn.adapterframework.parameters.ParameterValue;
 import nl.nn.adapterframework.parameters.ParameterValueList;
+import nl.nn.adapterframework.statistics.StatisticsKeeperIterationHandler;
 import nl.nn.adapterframework.stream.Message;
 import nl.nn.adapterframework.util.ClassUtils;
+import nl.nn.adapterframework.util.CounterStatistic;
 import nl.nn.adapterframework.util.Misc;
 
 /**
@@ -44,6 +53,7 @@ import nl.nn.adapterframework.util.Misc;
  * you will need to create a parameter on the sender.
  * It is recommended to have the result of the javascript function be of type String, as the output of the sender will be 
  * of type String.
+ * The javascript is compiled once per runtime. Runtimes are kept in a pool, and are reused for subsequent messages.
  * 
  * @author Jarno Huibers
  * @since 7.4
@@ -56,6 +66,21 @@ public class JavascriptSender extends SenderSeries {
 	private String jsFileName;
 	private String jsFunctionName = "main";
 	private String engine = "J2V8";
+	private int poolSize = 4;
+	private int maxUsesPerRuntime = 1000;
+
+	private GenericObjectPool<JavascriptRuntime> runtimePool;
+	private CounterStatistic runtimesCreated = new CounterStatistic(0);
+	private CounterStatistic runtimesReused = new CounterStatistic(0);
+	private CounterStatistic runtimesDiscarded = new CounterStatistic(0);
+
+	@Override
+	public void configure() throws ConfigurationException {
+		super.configure();
+		if (getPoolSize() < 1) {
+			throw new ConfigurationException(getLogPrefix()+"poolSize must be at least 1");
+		}
+	}
 
 	@Override
 	protected boolean isSenderConfigured() {
@@ -96,6 +121,13 @@ public class JavascriptSender extends SenderSeries {
 			throw new SenderException(
 				getLogPrefix() + "JavaScript FunctionName not specified!");
 		}
+		openPool();
+	}
+
+	@Override
+	public void close() throws SenderException {
+		closePool();
+		super.close();
 	}
 
 	@Override
@@ -103,7 +135,6 @@ public class JavascriptSender extends SenderSeries {
 
 		Object jsResult = "";
 		int numberOfParameters = 0;
-		JavascriptEngine<?> jsInstance;
 
 		//Create a Parameter Value List
 		ParameterValueList pvl=null;
@@ -130,28 +161,155 @@ public class JavascriptSender extends SenderSeries {
 			}
 		}
 
-		//Start using an engine
+		//Borrow a runtime in which the given Javascript has already been compiled, and execute the given Javascript function
+		JavascriptRuntime runtime = borrowRuntime();
+		try {
+			if (runtime.uses > 0) {
+				runtimesReused.increase();
+			}
+			runtime.uses++;
+			runtime.session = session;
+			jsResult = runtime.jsInstance.executeFunction(jsFunctionName, jsParameters);
+		} catch (RuntimeException e) {
+			// the state of the runtime is unknown after an error, it will not be reused
+			runtime.failed = true;
+			throw e;
+		} finally {
+			runtimePool.returnObject(runtime);
+		}
+
+		// Pass jsResult, the result of the Javascript function.
+		// It is recommended to have the result of the Javascript function be of type String, which will be the output of the sender
+		return new Message(jsResult.toString());
+	}
+
+	private JavascriptRuntime borrowRuntime() throws SenderException {
+		try {
+			return runtimePool.borrowObject();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new SenderException(getLogPrefix()+"cannot obtain javascript runtime", e);
+		}
+	}
+
+	/**
+	 * Starts a new runtime for the configured engine, and compiles the given Javascript in it.
+	 * Callbacks to the senders are registered once, they call the sender with the session of the message that is being processed.
+	 */
+	private JavascriptRuntime createRuntime() {
+		JavascriptEngine<?> jsInstance;
 		if(engine.equalsIgnoreCase("Rhino")) {
 			jsInstance = new Rhino();
-			jsInstance.startRuntime();
 		} else {
 			jsInstance = new J2V8();
-			jsInstance.startRuntime();
+		}
+		jsInstance.startRuntime();
 
-			for (ISender sender: getSenders()) {
-				jsInstance.registerCallback(sender, session);
-			} 
+		JavascriptRuntime runtime = new JavascriptRuntime(jsInstance);
+		try {
+			if (!(jsInstance instanceof Rhino)) {
+				for (ISender sender: getSenders()) {
+					jsInstance.registerCallback(sender, () -> runtime.session);
+				}
+			}
+			jsInstance.executeScript(fileInput);
+		} catch (RuntimeException e) {
+			jsInstance.closeRuntime();
+			throw e;
 		}
+		jsInstance.releaseRuntime();
+		runtimesCreated.increase();
+		if (log.isDebugEnabled()) log.debug(getLogPrefix()+"started new javascript runtime using engine ["+engine+"]");
+		return runtime;
+	}
 
-		//Compile the given Javascript and execute the given Javascript function
-		jsInstance.executeScript(fileInput);
-		jsResult = jsInstance.executeFunction(jsFunctionName, jsParameters);
+	private void openPool() {
+		if (runtimePool==null) {
+			GenericObjectPoolConfig<JavascriptRuntime> config = new GenericObjectPoolConfig<>();
+			config.setMaxTotal(getPoolSize());
+			config.setMaxIdle(getPoolSize());
+			config.setTestOnReturn(true);
+			runtimePool=new GenericObjectPool<>(new BasePooledObjectFactory<JavascriptRuntime>() {
 
-		jsInstance.closeRuntime();
+				@Override
+				public JavascriptRuntime create() throws Exception {
+					return createRuntime();
+				}
 
-		// Pass jsResult, the result of the Javascript function.
-		// It is recommended to have the result of the Javascript function be of type String, which will be the output of the sender
-		return new Message(jsResult.toString());
+				@Override
+				public PooledObject<JavascriptRuntime> wrap(JavascriptRuntime runtime) {
+					return new DefaultPooledObject<JavascriptRuntime>(runtime);
+				}
+
+				@Override
+				public void activateObject(PooledObject<JavascriptRuntime> p) throws Exception {
+					p.getObject().jsInstance.acquireRuntime();
+					p.getObject().acquired = true;
+				}
+
+				@Override
+				public void passivateObject(PooledObject<JavascriptRuntime> p) throws Exception {
+					p.getObject().session = null;
+					p.getObject().acquired = false;
+					p.getObject().jsInstance.releaseRuntime();
+				}
+
+				@Override
+				public boolean validateObject(PooledObject<JavascriptRuntime> p) {
+					JavascriptRuntime runtime = p.getObject();
+					return !runtime.failed && (getMaxUsesPerRuntime() <= 0 || runtime.uses < getMaxUsesPerRuntime());
+				}
+
+				@Override
+				public void destroyObject(PooledObject<JavascriptRuntime> p) throws Exception {
+					runtimesDiscarded.increase();
+					JavascriptRuntime runtime = p.getObject();
+					// a runtime that fails validation on return is destroyed without being passivated, it is still held by this thread
+					if (!runtime.acquired) {
+						runtime.jsInstance.acquireRuntime();
+					}
+					runtime.session = null;
+					runtime.acquired = false;
+					runtime.jsInstance.closeRuntime();
+				}
+
+			}, config);
+		}
+	}
+
+	private void closePool() {
+		try {
+			if (runtimePool!=null) {
+				runtimePool.close();
+				runtimePool=null;
+			}
+		} catch (Exception e) {
+			log.warn(getLogPrefix()+"exception closing pool of javascript runtimes", e);
+		}
+	}
+
+	@Override
+	public void iterateOverStatistics(StatisticsKeeperIterationHandler hski, Object data, int action) throws SenderException {
+		super.iterateOverStatistics(hski, data, action);
+		hski.handleScalar(data, "runtimesCreated", runtimesCreated.getValue());
+		hski.handleScalar(data, "runtimesReused", runtimesReused.getValue());
+		hski.handleScalar(data, "runtimesDiscarded", runtimesDiscarded.getValue());
+		runtimesCreated.performAction(action);
+		runtimesReused.performAction(action);
+		runtimesDiscarded.performAction(action);
+	}
+
+	private static class JavascriptRuntime {
+		private final JavascriptEngine<?> jsInstance;
+		private PipeLineSession session;
+		private int uses = 0;
+		private boolean failed = false;
+		private boolean acquired = false;
+
+		JavascriptRuntime(JavascriptEngine<?> jsInstance) {
+			this.jsInstance = jsInstance;
+		}
 	}
 
 	@IbisDoc({"the name of the javascript file containing the functions to run", ""})
@@ -177,4 +335,20 @@ public class JavascriptSender extends SenderSeries {
 	public String getEngine() {
 		return engine;
 	}
+
+	@IbisDoc({"maximum number of runtimes that are kept to execute the javascript concurrently. The javascript is compiled once per runtime, global variables set by the javascript are therefore retained between calls that use the same runtime", "4"})
+	public void setPoolSize(int poolSize) {
+		this.poolSize = poolSize;
+	}
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	@IbisDoc({"number of calls after which a runtime is discarded and replaced by a new one. Runtimes are always discarded after an error. When set to 0, runtimes are reused without limit", "1000"})
+	public void setMaxUsesPerRuntime(int maxUsesPerRuntime) {
+		this.maxUsesPerRuntime = maxUsesPerRuntime;
+	}
+	public int getMaxUsesPerRuntime() {
+		return maxUsesPerRuntime;
+	}
 }
@@ -15,8 +15,11 @@
 */
 package nl.nn.adapterframework.senders;
 
+import java.util.concurrent.CompletionException;
+
 import org.apache.logging.log4j.Logger;
 
+import nl.nn.adapterframework.core.IAsyncSender;
 import nl.nn.adapterframework.core.PipeLineSession;
 import nl.nn.adapterframework.core.ISender;
 import nl.nn.adapterframework.core.RequestReplyExecutor;
@@ -69,4 +72,46 @@ public class ParallelSenderExecutor extends RequestReplyExecutor {
 		}
 	}
 
+	/**
+	 * @return true when the sender can execute the request without a thread waiting for the reply, see {@link #runAsync()}.
+	 */
+	public boolean isAsync() {
+		return sender instanceof IAsyncSender && ((IAsyncSender)sender).isAsyncEnabled();
+	}
+
+	/**
+	 * Alternative for {@link #run()} that starts the request on an {@link IAsyncSender} and returns immediately.
+	 * The semaphore and guard are released when the reply arrives.
+	 */
+	public void runAsync() {
+		long t1 = System.currentTimeMillis();
+		try {
+			((IAsyncSender)sender).sendMessageAsync(request, session).whenComplete((result, tr) -> {
+				if (tr==null) {
+					reply = result;
+				} else {
+					throwable = tr instanceof CompletionException && tr.getCause()!=null ? tr.getCause() : tr;
+					log.warn("SenderExecutor caught exception",throwable);
+				}
+				finish(t1);
+			});
+		} catch (Throwable tr) {
+			throwable = tr;
+			log.warn("SenderExecutor caught exception",tr);
+			finish(t1);
+		}
+	}
+
+	private void finish(long t1) {
+		try {
+			long t2 = System.currentTimeMillis();
+			sk.addValue(t2-t1);
+		} finally {
+			if (semaphore!=null) {
+				semaphore.release();
+			}
+			guard.releaseResource();
+		}
+	}
+
 }
@@ -89,7 +89,11 @@ public class ParallelSenders extends SenderSeries {
 			ParallelSenderExecutor pse = new ParallelSenderExecutor(sender, message, session, guard, getStatisticsKeeper(sender));
 			executorMap.put(sender, pse);
 
-			executor.execute(pse);
+			if (pse.isAsync()) {
+				pse.runAsync();
+			} else {
+				executor.execute(pse);
+			}
 		}
 		try {
 			guard.waitForAllResources();
@@ -0,0 +1,287 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.soap;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.NamespaceSupport;
+
+import lombok.Getter;
+import nl.nn.adapterframework.xml.FullXmlFilter;
+import nl.nn.adapterframework.xml.XmlWriter;
+
+/**
+ * Filter that unwraps a SOAP message in a single pass: the child elements of the SOAP Body are passed on to the
+ * ContentHandler of this filter, the SOAP Header is captured and SOAP Faults are counted. Elements that are passed
+ * on carry all namespace declarations that are in scope, like an XPath copy-of of the SOAP Body would.
+ * <p>
+ * The results are equal to those of {@link SoapWrapper#getBody(nl.nn.adapterframework.stream.Message, boolean, nl.nn.adapterframework.core.PipeLineSession, String)},
+ * {@link SoapWrapper#getHeader(nl.nn.adapterframework.stream.Message)} and {@link SoapWrapper#getFaultCount(nl.nn.adapterframework.stream.Message)}.
+ * Therefore the SOAP Header is only captured, and SOAP Faults are only counted, for SOAP 1.1 messages.
+ * The startDocument() event is passed on when the first element is passed on, so that nothing reaches the ContentHandler when the SOAP Body is empty.
+ */
+public class SoapBodyExtractingFilter extends FullXmlFilter {
+
+	private static final String ENVELOPE = "Envelope";
+	private static final String HEADER = "Header";
+	private static final String BODY = "Body";
+	private static final String FAULT = "Fault";
+
+	private final boolean allowPlainXml;
+	private final boolean captureHeader;
+	private final boolean failOnFault;
+
+	private @Getter SoapVersion soapVersion;
+	private @Getter int faultCount;
+	private XmlWriter headerWriter;
+
+	private NamespaceSupport namespaceSupport = new NamespaceSupport();
+	private boolean contextPushed;
+	private int elementLevel;
+	private boolean inHeader;
+	private boolean inBody;
+	private boolean documentStarted;
+
+	private ContentHandler target;
+	private int targetLevel;
+
+	/**
+	 * @param handler       receives the contents of the SOAP Body
+	 * @param allowPlainXml when <code>true</code>, a message that is not a SOAP message is passed on as a whole
+	 * @param captureHeader when <code>true</code>, the contents of the SOAP Header are captured and made available by {@link #getHeader()}
+	 * @param failOnFault   when <code>true</code>, a SAXException is thrown as soon as a SOAP Fault is found, before it is passed on
+	 */
+	public SoapBodyExtractingFilter(ContentHandler handler, boolean allowPlainXml, boolean captureHeader, boolean failOnFault) {
+		super(handler);
+		this.allowPlainXml = allowPlainXml;
+		this.captureHeader = captureHeader;
+		this.failOnFault = failOnFault;
+	}
+
+	@Override
+	public void startDocument() throws SAXException {
+		namespaceSupport.reset();
+		contextPushed = false;
+		elementLevel = 0;
+		inHeader = false;
+		inBody = false;
+		documentStarted = false;
+		target = null;
+		targetLevel = 0;
+		soapVersion = null;
+		faultCount = 0;
+		headerWriter = captureHeader ? new XmlWriter() : null;
+	}
+
+	@Override
+	public void endDocument() throws SAXException {
+		if (documentStarted) {
+			super.endDocument();
+		}
+	}
+
+	@Override
+	public void startPrefixMapping(String prefix, String uri) throws SAXException {
+		if (!contextPushed) {
+			namespaceSupport.pushContext();
+			contextPushed = true;
+		}
+		namespaceSupport.declarePrefix(prefix, uri);
+		if (target != null) {
+			target.startPrefixMapping(prefix, uri);
+		}
+	}
+
+	@Override
+	public void endPrefixMapping(String prefix) throws SAXException {
+		if (target != null) {
+			target.endPrefixMapping(prefix);
+		}
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		if (!contextPushed) {
+			namespaceSupport.pushContext();
+		}
+		contextPushed = false;
+		if (target != null) {
+			targetLevel++;
+			target.startElement(uri, localName, qName, atts);
+		} else {
+			switch (elementLevel) {
+			case 0:
+				if (ENVELOPE.equals(localName) && SoapVersion.SOAP11.namespace.equals(uri)) {
+					soapVersion = SoapVersion.SOAP11;
+				} else if (ENVELOPE.equals(localName) && SoapVersion.SOAP12.namespace.equals(uri)) {
+					soapVersion = SoapVersion.SOAP12;
+				} else {
+					soapVersion = SoapVersion.NONE;
+					if (allowPlainXml) {
+						startTarget(getContentHandler(), uri, localName, qName, atts);
+					}
+				}
+				break;
+			case 1:
+				if (uri.equals(soapVersion.namespace)) {
+					inHeader = HEADER.equals(localName) && soapVersion == SoapVersion.SOAP11;
+					inBody = BODY.equals(localName);
+				}
+				break;
+			case 2:
+				if (inHeader && headerWriter != null) {
+					startTarget(headerWriter, uri, localName, qName, atts);
+				} else if (inBody) {
+					if (FAULT.equals(localName) && SoapVersion.SOAP11.namespace.equals(uri)) {
+						faultCount++;
+						if (failOnFault) {
+							throw new SAXException("SOAP Body contains SOAP Fault");
+						}
+					}
+					startTarget(getContentHandler(), uri, localName, qName, atts);
+				}
+				break;
+			default:
+				break;
+			}
+		}
+		elementLevel++;
+	}
+
+	private void startTarget(ContentHandler handler, String uri, String localName, String qName, Attributes atts) throws SAXException {
+		if (handler == getContentHandler() && !documentStarted) {
+			super.startDocument();
+			documentStarted = true;
+		}
+		target = handler;
+		targetLevel = 1;
+		for (String prefix : getPrefixesInScope()) {
+			target.startPrefixMapping(prefix, namespaceSupport.getURI(prefix));
+		}
+		target.startElement(uri, localName, qName, atts);
+	}
+
+	private List<String> getPrefixesInScope() {
+		List<String> result = new ArrayList<>();
+		if (StringUtils.isNotEmpty(namespaceSupport.getURI(""))) {
+			result.add("");
+		}
+		for (Enumeration<?> prefixes = namespaceSupport.getPrefixes(); prefixes.hasMoreElements();) {
+			String prefix = (String)prefixes.nextElement();
+			if (!"xml".equals(prefix)) {
+				result.add(prefix);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		elementLevel--;
+		if (target != null) {
+			target.endElement(uri, localName, qName);
+			if (--targetLevel == 0) {
+				for (String prefix : getPrefixesInScope()) {
+					target.endPrefixMapping(prefix);
+				}
+				target = null;
+			}
+		} else if (elementLevel == 1) {
+			inHeader = false;
+			inBody = false;
+		}
+		namespaceSupport.popContext();
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		if (target != null) {
+			target.characters(ch, start, length);
+		}
+	}
+
+	@Override
+	public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+		if (target != null) {
+			target.ignorableWhitespace(ch, start, length);
+		}
+	}
+
+	@Override
+	public void processingInstruction(String target, String data) throws SAXException {
+		if (this.target != null) {
+			this.target.processingInstruction(target, data);
+		}
+	}
+
+	@Override
+	public void comment(char[] ch, int start, int length) throws SAXException {
+		if (target == getContentHandler()) {
+			super.comment(ch, start, length);
+		} else if (target instanceof LexicalHandler) {
+			((LexicalHandler)target).comment(ch, start, length);
+		}
+	}
+
+	@Override
+	public void startCDATA() throws SAXException {
+		if (target == getContentHandler()) {
+			super.startCDATA();
+		} else if (target instanceof LexicalHandler) {
+			((LexicalHandler)target).startCDATA();
+		}
+	}
+
+	@Override
+	public void endCDATA() throws SAXException {
+		if (target == getContentHandler()) {
+			super.endCDATA();
+		} else if (target instanceof LexicalHandler) {
+			((LexicalHandler)target).endCDATA();
+		}
+	}
+
+	@Override
+	public void startDTD(String name, String publicId, String systemId) throws SAXException {
+		// the document type declaration of the SOAP message is not passed on
+	}
+
+	@Override
+	public void endDTD() throws SAXException {
+		// the document type declaration of the SOAP message is not passed on
+	}
+
+	/**
+	 * Returns the contents of the SOAP Header, or an empty string when the message had no SOAP 1.1 Header.
+	 */
+	public String getHeader() {
+		return headerWriter != null ? headerWriter.toString() : null;
+	}
+
+	/**
+	 * Returns <code>true</code> when any content was passed on, i.e. the SOAP Body was not empty, or a plain XML message was allowed.
+	 */
+	public boolean isContentFound() {
+		return documentStarted;
+	}
+}
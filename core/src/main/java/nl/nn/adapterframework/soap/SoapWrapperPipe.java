@@ -22,6 +22,7 @@ import javax.xml.soap.SOAPException;
 import javax.xml.transform.TransformerException;
 
 import org.apache.commons.lang3.StringUtils;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
 import nl.nn.adapterframework.configuration.ConfigurationException;
@@ -33,12 +34,16 @@ import nl.nn.adapterframework.core.PipeRunResult;
 import nl.nn.adapterframework.core.PipeStartException;
 import nl.nn.adapterframework.core.SenderException;
 import nl.nn.adapterframework.doc.IbisDoc;
-import nl.nn.adapterframework.pipes.FixedForwardPipe;
 import nl.nn.adapterframework.stream.Message;
+import nl.nn.adapterframework.stream.MessageOutputStream;
+import nl.nn.adapterframework.stream.StreamingPipe;
 import nl.nn.adapterframework.util.CredentialFactory;
 import nl.nn.adapterframework.util.DomBuilderException;
 import nl.nn.adapterframework.util.TransformerPool;
 import nl.nn.adapterframework.util.XmlUtils;
+import nl.nn.adapterframework.xml.NamespaceRemovingFilter;
+import nl.nn.adapterframework.xml.RootElementRenamingFilter;
+import nl.nn.adapterframework.xml.UnusedNamespaceRemovingFilter;
 
 /**
  * Pipe to wrap or unwrap a message from/into a SOAP Envelope.
@@ -59,6 +64,7 @@ import nl.nn.adapterframework.util.XmlUtils;
  * <tr><td>{@link #setWssUserName(String) wssUserName}</td><td>&nbsp;</td><td>&nbsp;</td></tr>
  * <tr><td>{@link #setWssPassword(String) wssPassword}</td><td>&nbsp;</td><td>&nbsp;</td></tr>
  * <tr><td>{@link #setWssPasswordDigest(boolean) wssPasswordDigest}</td><td>when true, the password is sent digested. Otherwise it is sent in clear text</td><td>true</td></tr>
+ * <tr><td>{@link #setStreamingUnwrap(boolean) streamingUnwrap}</td><td>(only used when <code>direction=unwrap</code>) when <code>true</code>, the message is unwrapped in a single pass by a chain of SAX filters</td><td>false</td></tr>
  * <table>
  * <table border="1">
  * <tr><th>nested elements</th><th>description</th></tr>
@@ -68,7 +74,7 @@ import nl.nn.adapterframework.util.XmlUtils;
 
  * @author Peter Leeuwenburgh
  */
-public class SoapWrapperPipe extends FixedForwardPipe implements IWrapperPipe {
+public class SoapWrapperPipe extends StreamingPipe implements IWrapperPipe {
 	protected static final String DEFAULT_SOAP_HEADER_SESSION_KEY = "soapHeader";
 	protected static final String DEFAULT_SOAP_NAMESPACE_SESSION_KEY = "soapNamespace";
 
@@ -89,6 +95,7 @@ public class SoapWrapperPipe extends FixedForwardPipe implements IWrapperPipe {
 	private String root = null;
 	private boolean ignoreSoapFault = false;
 	private boolean allowPlainXml = false;
+	private boolean streamingUnwrap = false;
 	
 	private String wssAuthAlias;
 	private String wssUserName;
@@ -137,16 +144,16 @@ public class SoapWrapperPipe extends FixedForwardPipe implements IWrapperPipe {
 		if (StringUtils.isNotEmpty(getSoapBodyStyleSheet())) {
 			soapBodyTp = TransformerPool.configureStyleSheetTransformer(getLogPrefix(null), this, getSoapBodyStyleSheet(), 0);
 		}
-		if (isRemoveOutputNamespaces()) {
+		if (isRemoveOutputNamespaces() && !isUnwrapInSinglePass()) {
 			removeOutputNamespacesTp = XmlUtils.getRemoveNamespacesTransformerPool(true, false);
 		}
-		if (isRemoveUnusedOutputNamespaces() && !isRemoveOutputNamespaces()) {
+		if (isRemoveUnusedOutputNamespaces() && !isRemoveOutputNamespaces() && !isUnwrapInSinglePass()) {
 			removeUnusedOutputNamespacesTp = XmlUtils.getRemoveUnusedNamespacesXslt2TransformerPool(true, false);
 		}
 		if (StringUtils.isNotEmpty(getOutputNamespace())) {
 			outputNamespaceTp = XmlUtils.getAddRootNamespaceTransformerPool(getOutputNamespace(), true, false);
 		}
-		if (StringUtils.isNotEmpty(getRoot())) {
+		if (StringUtils.isNotEmpty(getRoot()) && !isUnwrapInSinglePass()) {
 			rootTp = XmlUtils.getChangeRootTransformerPool(getRoot(), true, false);
 		}
 		if (StringUtils.isNotEmpty(getWssAuthAlias()) || StringUtils.isNotEmpty(getWssUserName())) {
@@ -241,6 +248,15 @@ public class SoapWrapperPipe extends FixedForwardPipe implements IWrapperPipe {
 				return new PipeRunResult(getForward(), message);
 			}
 		}
+		if (isUnwrapInSinglePass()) {
+			try {
+				return unwrapInSinglePass(message, session);
+			} catch (PipeRunException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new PipeRunException(this, getLogPrefix(session) + " Unexpected exception during unwrapping ", e);
+			}
+		}
 		Message result;
 		try {
 			if ("wrap".equalsIgnoreCase(getDirection())) {
@@ -299,6 +315,58 @@ public class SoapWrapperPipe extends FixedForwardPipe implements IWrapperPipe {
 		return new PipeRunResult(getForward(), result);
 	}
 
+	private boolean isUnwrapInSinglePass() {
+		return !"wrap".equalsIgnoreCase(getDirection()) && isStreamingUnwrap();
+	}
+
+	/**
+	 * Unwraps the message in a single parse, by a chain of SAX filters that extracts the SOAP Body, removes namespaces and changes the root,
+	 * writing the result to the next pipe when it can accept a stream.
+	 */
+	protected PipeRunResult unwrapInSinglePass(Message message, PipeLineSession session) throws Exception {
+		try (MessageOutputStream target=getTargetStream(session)) {
+			ContentHandler handler = target.asContentHandler();
+			if (StringUtils.isNotEmpty(getRoot())) {
+				handler = new RootElementRenamingFilter(handler, getRoot());
+			}
+			if (isRemoveOutputNamespaces()) {
+				handler = new NamespaceRemovingFilter(handler);
+			} else if (isRemoveUnusedOutputNamespaces()) {
+				handler = new UnusedNamespaceRemovingFilter(handler);
+			}
+			SoapBodyExtractingFilter soapBodyExtractingFilter = new SoapBodyExtractingFilter(handler, isAllowPlainXml(), StringUtils.isNotEmpty(getSoapHeaderSessionKey()), !isIgnoreSoapFault());
+			try {
+				XmlUtils.parseXml(message.asInputSource(), soapBodyExtractingFilter);
+			} catch (SAXException e) {
+				if (!isIgnoreSoapFault() && soapBodyExtractingFilter.getFaultCount() > 0) {
+					throw new PipeRunException(this, getLogPrefix(session) + "SOAP Body contains SOAP Fault");
+				}
+				throw e;
+			}
+			if (StringUtils.isNotEmpty(getSoapNamespaceSessionKey())) {
+				session.put(getSoapNamespaceSessionKey(), soapBodyExtractingFilter.getSoapVersion().namespace);
+			}
+			if (!soapBodyExtractingFilter.isContentFound()) {
+				throw new PipeRunException(this, getLogPrefix(session) + "SOAP Body is empty or message is not a SOAP Message");
+			}
+			if (StringUtils.isNotEmpty(getSoapHeaderSessionKey())) {
+				session.put(getSoapHeaderSessionKey(), soapBodyExtractingFilter.getHeader());
+			}
+			return target.getPipeRunResult();
+		}
+	}
+
+	/**
+	 * The session variables set by unwrapping must be available before the next pipe is called, 
+	 * and a pipeline wrapper is not followed by the pipe its forward points to.
+	 */
+	@Override
+	public boolean canStreamToNextPipe() {
+		return super.canStreamToNextPipe()
+				&& !PipeLine.INPUT_WRAPPER_NAME.equals(getName()) && !PipeLine.OUTPUT_WRAPPER_NAME.equals(getName())
+				&& StringUtils.isEmpty(getSoapHeaderSessionKey()) && StringUtils.isEmpty(getSoapNamespaceSessionKey());
+	}
+
 	protected String determineSoapNamespace(PipeLineSession session) {
 		String soapNamespace = getSoapNamespace();
 		if (StringUtils.isEmpty(soapNamespace)) {
@@ -448,6 +516,15 @@ public class SoapWrapperPipe extends FixedForwardPipe implements IWrapperPipe {
 		return allowPlainXml;
 	}
 
+	@IbisDoc({"15", "(only used when <code>direction=unwrap</code>) If <code>true</code>, the message is unwrapped in a single pass by a chain of SAX filters, instead of by separate transformations for extracting the soap body, removing namespaces and changing the root. "
+			+ "When possible, the result is streamed to the next pipe", "false"})
+	public void setStreamingUnwrap(boolean streamingUnwrap) {
+		this.streamingUnwrap = streamingUnwrap;
+	}
+	public boolean isStreamingUnwrap() {
+		return streamingUnwrap;
+	}
+
 	@IbisDoc({"16", "alias used to obtain credentials for authentication to WebServiceSecurity", ""})
 	public void setWssAuthAlias(String string) {
 		wssAuthAlias = string;
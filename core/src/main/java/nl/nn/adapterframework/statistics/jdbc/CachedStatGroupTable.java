@@ -1,5 +1,5 @@
 /*
-   Copyright 2013 Nationale-Nederlanden
+   Copyright 2013 Nationale-Nederlanden, 2021 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -16,43 +16,29 @@
 package nl.nn.adapterframework.statistics.jdbc;
 
 import java.sql.Connection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 
 import nl.nn.adapterframework.jdbc.JdbcException;
+import nl.nn.adapterframework.jdbc.LookupCache;
 
 /**
+ * StatGroupTable that keeps the keys it has found in a {@link LookupCache}, that is shared by all CachedStatGroupTables for the same table.
+ * 
  * @author  Gerrit van Brakel
  * @since  
  */
 public class CachedStatGroupTable extends StatGroupTable {
-	
-	private static Map cache=Collections.synchronizedMap(new HashMap());
-	private String mapKey;
-	
+
+	private LookupCache cache;
+
 	public CachedStatGroupTable(String tableName, String keyColumn, String parentKeyColumn, String instanceKeyColumn, String nameColumn, String typeColumn, String sequence) {
 		super(tableName,keyColumn,parentKeyColumn,instanceKeyColumn,nameColumn,typeColumn,sequence);
-		mapKey=tableName+"/"+keyColumn+"/"+parentKeyColumn+"/"+nameColumn+"/"+typeColumn;
-		synchronized(cache) {
-			Map tableCache=(Map)cache.get(mapKey);
-			if (tableCache==null) {
-				tableCache=Collections.synchronizedMap(new HashMap());
-				cache.put(mapKey,tableCache);
-			}
-		}
+		cache=LookupCache.getCache(tableName+"/"+keyColumn+"/"+parentKeyColumn+"/"+nameColumn+"/"+typeColumn);
 	}
 
+	@Override
 	public int findOrInsert(Connection connection, int parentKey, int instanceKey, String name, String type) throws JdbcException {
-		Integer result;
-		Map tableCache=(Map)cache.get(mapKey);
 		String valueKey=parentKey+"/"+type+"/"+name;
-		result=(Integer)tableCache.get(valueKey);
-		if (result==null) {
-			result= new Integer(super.findOrInsert(connection, parentKey, instanceKey, name, type));
-			tableCache.put(valueKey,result);
-		}
-		return result.intValue();
+		return cache.get(valueKey, k -> super.findOrInsert(connection, parentKey, instanceKey, name, type));
 	}
 
 }
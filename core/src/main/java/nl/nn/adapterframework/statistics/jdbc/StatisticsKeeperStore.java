@@ -30,7 +30,6 @@ import nl.nn.adapterframework.core.SenderException;
 import nl.nn.adapterframework.jdbc.CachedSideTable;
 import nl.nn.adapterframework.jdbc.JdbcException;
 import nl.nn.adapterframework.jdbc.JdbcFacade;
-import nl.nn.adapterframework.jdbc.SideTable;
 import nl.nn.adapterframework.statistics.StatisticsKeeper;
 import nl.nn.adapterframework.statistics.StatisticsKeeperIterationHandler;
 import nl.nn.adapterframework.util.AppConstants;
@@ -46,9 +45,9 @@ import nl.nn.adapterframework.util.Misc;
  */
 public class StatisticsKeeperStore extends JdbcFacade implements StatisticsKeeperIterationHandler {
 
-	private SideTable instances=new CachedSideTable("ibisinstance", "instancekey", "name", "seq_ibisinstance");
-	private SideTable hosts=    new CachedSideTable("ibishost",     "hostkey",     "name", "seq_ibishost");
-	private SideTable statnames=new CachedSideTable("ibisstatname", "statnamekey", "name", "seq_ibisstatname");
+	private CachedSideTable instances=new CachedSideTable("ibisinstance", "instancekey", "name", "seq_ibisinstance");
+	private CachedSideTable hosts=    new CachedSideTable("ibishost",     "hostkey",     "name", "seq_ibishost");
+	private CachedSideTable statnames=new CachedSideTable("ibisstatname", "statnamekey", "name", "seq_ibisstatname");
 	
 	private StatGroupTable groups= new CachedStatGroupTable("ibisgroup", "groupkey", "parentgroup", "instancekey", "name", "type", "seq_ibisgroup");
 
@@ -81,12 +80,23 @@ public class StatisticsKeeperStore extends JdbcFacade implements StatisticsKeepe
 		createQueries();
 		String instance=AppConstants.getInstance().getString("instance.name","");
 		try (Connection connection = getConnection()) {
+			preload(connection);
 			instanceKey=instances.findOrInsert(connection,instance);
 		} catch (JdbcException | SQLException e) {
 			throw new ConfigurationException("could not find instancekey for instance ["+instance+"]",e);
 		}
 	}	
 
+	private void preload(Connection connection) {
+		for (CachedSideTable sideTable:new CachedSideTable[] {instances, hosts, statnames}) {
+			try {
+				sideTable.preload(connection);
+			} catch (JdbcException e) {
+				log.warn("could not preload "+sideTable.getCache(), e);
+			}
+		}
+	}
+
 	private void createQueries() {
 		
 		insertEventQueryInsertClause=
@@ -0,0 +1,249 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.statistics.tracing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import lombok.Getter;
+import nl.nn.adapterframework.util.AppConstants;
+
+/**
+ * Always-on recorder of per-message span trees.
+ * 
+ * Each message processed by an adapter gets a {@link MessageTrace} that records the time spent in the
+ * receiver, in each validator, wrapper and pipe, and in each sender call. Completed traces are published
+ * in a fixed-size lock-free ring buffer, that always holds the most recent traces. Next to that, the slowest
+ * traces seen since the last {@link #clear()} are retained, so that a single slow message is not lost among
+ * thousands of fast ones.
+ * 
+ * The trace of the message being processed is kept in a ThreadLocal. Adapters called in the same thread,
+ * e.g. via an IbisLocalSender, are recorded as a nested span in the trace of the calling adapter.
+ * 
+ * Configured by the properties <code>flightRecorder.active</code>, <code>flightRecorder.size</code>,
+ * <code>flightRecorder.slowest</code> and <code>flightRecorder.maxSpans</code>.
+ */
+public class FlightRecorder {
+	private static FlightRecorder self;
+
+	private final @Getter boolean active;
+	private final int maxSpans;
+	private final AtomicReferenceArray<MessageTrace> recentTraces;
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final MessageTrace[] slowestTraces;
+	private volatile long slowestThresholdMicros = 0;
+
+	private final ThreadLocal<ThreadState> threadState = ThreadLocal.withInitial(ThreadState::new);
+
+	private static class ThreadState {
+		MessageTrace trace;
+		long receivedNanos = -1;
+		long receiverWaitMillis = -1;
+	}
+
+	FlightRecorder(boolean active, int size, int slowest, int maxSpans) {
+		this.active = active && size>0;
+		this.maxSpans = Math.max(1, maxSpans);
+		recentTraces = new AtomicReferenceArray<>(Math.max(1, size));
+		slowestTraces = new MessageTrace[Math.max(0, slowest)];
+	}
+
+	public static synchronized FlightRecorder getInstance() {
+		if (self==null) {
+			AppConstants appConstants = AppConstants.getInstance();
+			self = new FlightRecorder(appConstants.getBoolean("flightRecorder.active", true),
+					appConstants.getInt("flightRecorder.size", 1000),
+					appConstants.getInt("flightRecorder.slowest", 50),
+					appConstants.getInt("flightRecorder.maxSpans", 256));
+		}
+		return self;
+	}
+
+	/**
+	 * To be called by a receiver just before it hands a message to its adapter.
+	 * @param receivedNanos the {@link System#nanoTime()} at which the receiver started processing the message
+	 * @param receiverWaitMillis the time the receiver waited for the message to arrive, or -1 if unknown
+	 */
+	public void messageReceived(long receivedNanos, long receiverWaitMillis) {
+		if (!active) {
+			return;
+		}
+		ThreadState state = threadState.get();
+		if (state.trace==null) {
+			state.receivedNanos = receivedNanos;
+			state.receiverWaitMillis = receiverWaitMillis;
+		}
+	}
+
+	/**
+	 * Starts the trace of a message, or a nested adapter span when a trace is already active in the current thread.
+	 * @return a handle to be passed to {@link #endMessage(int, boolean)}
+	 */
+	public int beginMessage(String adapterName, String messageId) {
+		if (!active) {
+			return -1;
+		}
+		ThreadState state = threadState.get();
+		long now = System.nanoTime();
+		if (state.trace!=null) {
+			return state.trace.beginSpan(SpanType.ADAPTER, adapterName, now);
+		}
+		long start = state.receivedNanos>=0 ? state.receivedNanos : now;
+		MessageTrace trace = new MessageTrace(ThreadLocalRandom.current().nextLong(), adapterName, messageId, start, maxSpans);
+		trace.beginSpan(SpanType.ADAPTER, adapterName, start);
+		if (state.receivedNanos>=0) {
+			trace.addCompletedSpan(SpanType.RECEIVER, "receiver", start, now);
+			trace.setReceiverWaitMillis(state.receiverWaitMillis);
+		}
+		state.receivedNanos = -1;
+		state.receiverWaitMillis = -1;
+		state.trace = trace;
+		return 0;
+	}
+
+	public void endMessage(int span, boolean successful) {
+		if (span<0) {
+			return;
+		}
+		ThreadState state = threadState.get();
+		MessageTrace trace = state.trace;
+		if (trace==null) {
+			return;
+		}
+		trace.endSpan(span, System.nanoTime());
+		if (span==0) {
+			if (!successful) {
+				trace.setSuccessful(false);
+			}
+			state.trace = null;
+			publish(trace);
+		} else if (!successful) {
+			trace.setSuccessful(false);
+		}
+	}
+
+	/**
+	 * Starts a span as child of the currently open span of the message being processed in the current thread.
+	 * @return a handle to be passed to {@link #endSpan(int)}, or -1 when no message is being traced
+	 */
+	public int beginSpan(SpanType type, String name) {
+		if (!active) {
+			return -1;
+		}
+		MessageTrace trace = threadState.get().trace;
+		if (trace==null) {
+			return -1;
+		}
+		return trace.beginSpan(type, name, System.nanoTime());
+	}
+
+	public void endSpan(int span) {
+		if (span<0) {
+			return;
+		}
+		MessageTrace trace = threadState.get().trace;
+		if (trace!=null) {
+			trace.endSpan(span, System.nanoTime());
+		}
+	}
+
+	private void publish(MessageTrace trace) {
+		long seq = sequence.getAndIncrement();
+		recentTraces.lazySet((int)(seq % recentTraces.length()), trace);
+		if (slowestTraces.length>0 && trace.getDurationMicros()>slowestThresholdMicros) {
+			retainIfSlow(trace);
+		}
+	}
+
+	private synchronized void retainIfSlow(MessageTrace trace) {
+		int last = slowestTraces.length-1;
+		if (slowestTraces[last]!=null && trace.getDurationMicros()<=slowestTraces[last].getDurationMicros()) {
+			return;
+		}
+		// insertion sort into array ordered by descending duration
+		int i = last;
+		while (i>0 && (slowestTraces[i-1]==null || slowestTraces[i-1].getDurationMicros()<trace.getDurationMicros())) {
+			slowestTraces[i] = slowestTraces[i-1];
+			i--;
+		}
+		slowestTraces[i] = trace;
+		if (slowestTraces[last]!=null) {
+			slowestThresholdMicros = slowestTraces[last].getDurationMicros();
+		}
+	}
+
+	/**
+	 * Returns the slowest traces among the most recent traces and the slowest traces retained since the last {@link #clear()}, slowest first.
+	 */
+	public List<MessageTrace> getSlowestTraces(int count) {
+		Map<MessageTrace,Boolean> candidates = new IdentityHashMap<>();
+		for (int i=0; i<recentTraces.length(); i++) {
+			MessageTrace trace = recentTraces.get(i);
+			if (trace!=null) {
+				candidates.put(trace, Boolean.TRUE);
+			}
+		}
+		synchronized (this) {
+			for (MessageTrace trace:slowestTraces) {
+				if (trace!=null) {
+					candidates.put(trace, Boolean.TRUE);
+				}
+			}
+		}
+		List<MessageTrace> result = new ArrayList<>(candidates.keySet());
+		result.sort(Comparator.comparingLong(MessageTrace::getDurationMicros).reversed());
+		if (result.size()>count) {
+			return new ArrayList<>(result.subList(0, Math.max(0, count)));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the most recently completed traces, most recent first.
+	 */
+	public List<MessageTrace> getRecentTraces(int count) {
+		long last = sequence.get();
+		int size = recentTraces.length();
+		List<MessageTrace> result = new ArrayList<>();
+		for (long seq=last-1; seq>=0 && seq>=last-size && result.size()<count; seq--) {
+			MessageTrace trace = recentTraces.get((int)(seq % size));
+			if (trace!=null) {
+				result.add(trace);
+			}
+		}
+		return result;
+	}
+
+	public long getNumberOfTracesRecorded() {
+		return sequence.get();
+	}
+
+	public synchronized void clear() {
+		for (int i=0; i<recentTraces.length(); i++) {
+			recentTraces.set(i, null);
+		}
+		Arrays.fill(slowestTraces, null);
+		slowestThresholdMicros = 0;
+	}
+}
@@ -0,0 +1,181 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.statistics.tracing;
+
+import java.util.Arrays;
+
+import lombok.Getter;
+
+/**
+ * Span tree of a single message, as recorded by the {@link FlightRecorder}.
+ * 
+ * Spans are kept in parallel arrays, indexed by the order in which they were started, to keep
+ * the number of objects allocated per message low. Span 0 is the root span of the adapter that
+ * received the message. A MessageTrace is only modified by the thread processing the message;
+ * once published to the {@link FlightRecorder} it is read-only.
+ */
+public class MessageTrace {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final int maxSpans;
+	private final @Getter long traceId;
+	private final @Getter String adapterName;
+	private final @Getter String messageId;
+	private final @Getter long startTimeMillis; // wall clock time of start of root span
+	private final long startNanos;             // nanoTime of start of root span
+	private @Getter long receiverWaitMillis=-1;
+	private @Getter boolean successful=true;
+	private @Getter int droppedSpans;
+
+	private int count;
+	private int current=-1;
+	private SpanType[] types;
+	private String[] names;
+	private int[] parents;
+	private long[] starts;
+	private long[] ends;
+
+	MessageTrace(long traceId, String adapterName, String messageId, long startNanos, int maxSpans) {
+		this.traceId = traceId;
+		this.adapterName = adapterName;
+		this.messageId = messageId;
+		this.maxSpans = maxSpans;
+		this.startNanos = startNanos;
+		this.startTimeMillis = System.currentTimeMillis() - (System.nanoTime() - startNanos) / 1000000L;
+		int capacity = Math.min(INITIAL_CAPACITY, maxSpans);
+		types = new SpanType[capacity];
+		names = new String[capacity];
+		parents = new int[capacity];
+		starts = new long[capacity];
+		ends = new long[capacity];
+	}
+
+	/**
+	 * Starts a new span as child of the currently open span.
+	 * @return the handle of the span, to be passed to {@link #endSpan(int, long)}, or -1 when the maximum number of spans has been reached.
+	 */
+	int beginSpan(SpanType type, String name, long startNanos) {
+		if (count>=types.length && !grow()) {
+			droppedSpans++;
+			return -1;
+		}
+		int span = count++;
+		types[span] = type;
+		names[span] = name;
+		parents[span] = current;
+		starts[span] = startNanos;
+		ends[span] = -1;
+		current = span;
+		return span;
+	}
+
+	void endSpan(int span, long endNanos) {
+		if (span<0 || span>=count) {
+			return;
+		}
+		ends[span] = endNanos;
+		current = parents[span];
+	}
+
+	/**
+	 * Adds a span that has already completed, without changing the currently open span.
+	 */
+	void addCompletedSpan(SpanType type, String name, long startNanos, long endNanos) {
+		int span = beginSpan(type, name, startNanos);
+		if (span>=0) {
+			ends[span] = endNanos;
+			current = parents[span];
+		}
+	}
+
+	private boolean grow() {
+		if (types.length>=maxSpans) {
+			return false;
+		}
+		int capacity = Math.min(types.length*2, maxSpans);
+		types = Arrays.copyOf(types, capacity);
+		names = Arrays.copyOf(names, capacity);
+		parents = Arrays.copyOf(parents, capacity);
+		starts = Arrays.copyOf(starts, capacity);
+		ends = Arrays.copyOf(ends, capacity);
+		return true;
+	}
+
+	void setReceiverWaitMillis(long receiverWaitMillis) {
+		this.receiverWaitMillis = receiverWaitMillis;
+	}
+
+	void setSuccessful(boolean successful) {
+		this.successful = successful;
+	}
+
+	boolean isRootOpen() {
+		return count>0 && ends[0]<0;
+	}
+
+	public int getSpanCount() {
+		return count;
+	}
+
+	public SpanType getSpanType(int span) {
+		return types[span];
+	}
+
+	public String getSpanName(int span) {
+		return names[span];
+	}
+
+	/**
+	 * @return the index of the parent span, or -1 for the root span.
+	 */
+	public int getParentSpan(int span) {
+		return parents[span];
+	}
+
+	/**
+	 * @return start of the span in microseconds, relative to the start of the root span.
+	 */
+	public long getSpanStartMicros(int span) {
+		return (starts[span] - startNanos) / 1000L;
+	}
+
+	/**
+	 * @return duration of the span in microseconds, or -1 if the span was not ended.
+	 */
+	public long getSpanDurationMicros(int span) {
+		if (ends[span]<0) {
+			return -1;
+		}
+		return (ends[span] - starts[span]) / 1000L;
+	}
+
+	public long getDurationMicros() {
+		return count==0 ? 0 : getSpanDurationMicros(0);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("MessageTrace adapter ["+adapterName+"] messageId ["+messageId+"] duration ["+getDurationMicros()/1000L+"] ms");
+		for (int i=0; i<count; i++) {
+			result.append("\n");
+			for (int p=parents[i]; p>=0; p=parents[p]) {
+				result.append("  ");
+			}
+			result.append(types[i]).append(" [").append(names[i]).append("] start [").append(getSpanStartMicros(i)).append("] us duration [").append(getSpanDurationMicros(i)).append("] us");
+		}
+		return result.toString();
+	}
+}
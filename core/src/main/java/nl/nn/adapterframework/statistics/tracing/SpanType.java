@@ -0,0 +1,57 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.statistics.tracing;
+
+import nl.nn.adapterframework.core.IPipe;
+import nl.nn.adapterframework.core.ISender;
+import nl.nn.adapterframework.core.IValidator;
+import nl.nn.adapterframework.core.IWrapperPipe;
+import nl.nn.adapterframework.jdbc.JdbcSenderBase;
+import nl.nn.adapterframework.jms.JMSFacade;
+
+/**
+ * Kind of work a span in a {@link MessageTrace} represents.
+ */
+public enum SpanType {
+	ADAPTER,
+	RECEIVER,
+	VALIDATOR,
+	WRAPPER,
+	PIPE,
+	SENDER,
+	JDBC,
+	JMS;
+
+	public static SpanType forPipe(IPipe pipe) {
+		if (pipe instanceof IValidator) {
+			return VALIDATOR;
+		}
+		if (pipe instanceof IWrapperPipe) {
+			return WRAPPER;
+		}
+		return PIPE;
+	}
+
+	public static SpanType forSender(ISender sender) {
+		if (sender instanceof JdbcSenderBase) {
+			return JDBC;
+		}
+		if (sender instanceof JMSFacade) {
+			return JMS;
+		}
+		return SENDER;
+	}
+}
@@ -0,0 +1,94 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.statistics.tracing;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.List;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+
+/**
+ * Exports {@link MessageTrace}s in the <a href="https://zipkin.io/zipkin-api/#/default/post_spans">Zipkin v2 JSON</a> format,
+ * that can be uploaded to Zipkin, Jaeger or an OpenTelemetry collector.
+ */
+public class ZipkinTraceExporter {
+
+	public static String toJson(List<MessageTrace> traces) {
+		StringWriter writer = new StringWriter();
+		write(traces, writer);
+		return writer.toString();
+	}
+
+	public static void write(List<MessageTrace> traces, Writer writer) {
+		try (JsonGenerator generator = Json.createGenerator(writer)) {
+			generator.writeStartArray();
+			for (MessageTrace trace:traces) {
+				writeTrace(trace, generator);
+			}
+			generator.writeEnd();
+		}
+	}
+
+	private static void writeTrace(MessageTrace trace, JsonGenerator generator) {
+		String traceId = toHex(trace.getTraceId());
+		long startMicros = trace.getStartTimeMillis() * 1000L;
+		for (int span=0; span<trace.getSpanCount(); span++) {
+			generator.writeStartObject();
+			generator.write("traceId", traceId);
+			generator.write("id", spanId(trace, span));
+			int parent = trace.getParentSpan(span);
+			if (parent>=0) {
+				generator.write("parentId", spanId(trace, parent));
+			}
+			generator.write("name", trace.getSpanType(span).name().toLowerCase()+" "+trace.getSpanName(span));
+			generator.write("timestamp", startMicros + trace.getSpanStartMicros(span));
+			long duration = trace.getSpanDurationMicros(span);
+			if (duration>=0) {
+				generator.write("duration", Math.max(1, duration));
+			}
+			generator.writeStartObject("localEndpoint");
+			generator.write("serviceName", trace.getAdapterName());
+			generator.writeEnd();
+			generator.writeStartObject("tags");
+			generator.write("spanType", trace.getSpanType(span).name());
+			if (span==0) {
+				if (trace.getMessageId()!=null) {
+					generator.write("messageId", trace.getMessageId());
+				}
+				generator.write("success", Boolean.toString(trace.isSuccessful()));
+				if (trace.getReceiverWaitMillis()>=0) {
+					generator.write("receiverWaitMillis", Long.toString(trace.getReceiverWaitMillis()));
+				}
+				if (trace.getDroppedSpans()>0) {
+					generator.write("droppedSpans", Integer.toString(trace.getDroppedSpans()));
+				}
+			}
+			generator.writeEnd();
+			generator.writeEnd();
+		}
+	}
+
+	private static String spanId(MessageTrace trace, int span) {
+		return toHex(trace.getTraceId() + span);
+	}
+
+	private static String toHex(long value) {
+		String hex = Long.toHexString(value);
+		return "0000000000000000".substring(hex.length()) + hex;
+	}
+}
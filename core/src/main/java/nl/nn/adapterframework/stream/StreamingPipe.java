@@ -1,5 +1,5 @@
 /*
-   Copyright 2019, 2020 WeAreFrank!
+   Copyright 2019-2021 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -51,9 +51,12 @@ public abstract class StreamingPipe extends FixedForwardPipe implements IOutputS
 	 * returns true when:
 	 *  a) the pipe can accept input by providing an OutputStream, and 
 	 *  b) there are no side effects configured that prevent handing over its PipeRunResult to the calling pipe.
+	 * 
+	 * When this pipe is fed by the previous pipe, it is not invoked by the PipeProcessors, so input and output manipulations 
+	 * that are performed by the PipeProcessors must not be configured.
 	 */
 	public boolean canProvideOutputStream() {
-		return StringUtils.isEmpty(getGetInputFromSessionKey()) && StringUtils.isEmpty(this.getStoreResultInSessionKey());
+		return canBeFedByPreviousPipe();
 	}
 
 	/**
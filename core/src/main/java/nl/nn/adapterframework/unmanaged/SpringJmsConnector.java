@@ -49,7 +49,12 @@ import nl.nn.adapterframework.core.IPortConnectedListener;
 import nl.nn.adapterframework.core.IThreadCountControllable;
 import nl.nn.adapterframework.core.IbisExceptionListener;
 import nl.nn.adapterframework.core.ListenerException;
+import nl.nn.adapterframework.core.SenderException;
+import nl.nn.adapterframework.jms.BatchedSessionCommitter;
 import nl.nn.adapterframework.jms.IbisMessageListenerContainer;
+import nl.nn.adapterframework.jms.PushingJmsListener;
+import nl.nn.adapterframework.statistics.HasStatistics;
+import nl.nn.adapterframework.statistics.StatisticsKeeperIterationHandler;
 import nl.nn.adapterframework.util.Counter;
 import nl.nn.adapterframework.util.CredentialFactory;
 import nl.nn.adapterframework.util.DateUtils;
@@ -73,16 +78,16 @@ import nl.nn.adapterframework.util.RunStateEnum;
  * @author  Tim van der Leeuw
  * @since   4.8
  */
-public class SpringJmsConnector extends AbstractJmsConfigurator implements IListenerConnector<Message>, IThreadCountControllable, BeanFactoryAware, ExceptionListener, SessionAwareMessageListener<Message> {
+public class SpringJmsConnector extends AbstractJmsConfigurator implements IListenerConnector<Message>, IThreadCountControllable, BeanFactoryAware, ExceptionListener, SessionAwareMessageListener<Message>, HasStatistics {
 
  	private PlatformTransactionManager txManager;
 	private BeanFactory beanFactory;
 	private DefaultMessageListenerContainer jmsContainer;
 	private String messageListenerClassName;
 
+	// XA transactions managed by the application server may require a fresh session for each transaction
 	public static final int DEFAULT_CACHE_LEVEL_TRANSACTED=DefaultMessageListenerContainer.CACHE_NONE;
-//	public static final int DEFAULT_CACHE_LEVEL_NON_TRANSACTED=DefaultMessageListenerContainer.CACHE_CONSUMER;
-	public static final int DEFAULT_CACHE_LEVEL_NON_TRANSACTED=DefaultMessageListenerContainer.CACHE_NONE;
+	public static final int DEFAULT_CACHE_LEVEL_NON_TRANSACTED=DefaultMessageListenerContainer.CACHE_CONSUMER;
 	
 //	public static final int MAX_MESSAGES_PER_TASK=100;
 	public static final int IDLE_TASK_EXECUTION_LIMIT=1000;
@@ -93,8 +98,11 @@ public class SpringJmsConnector extends AbstractJmsConfigurator implements IList
 	private boolean sessionTransacted;
 	private String messageSelector;
 	private long receiveTimeout;
+	private int batchSize;
+	private long batchTimeout;
 
 	private TransactionDefinition TX = null;
+	private BatchedSessionCommitter batchedSessionCommitter;
 
 	final Counter threadsProcessing = new Counter(0);
 
@@ -127,6 +135,10 @@ public class SpringJmsConnector extends AbstractJmsConfigurator implements IList
 		this.messageSelector = messageSelector;
 		this.receiveTimeout = receiveTimeout;
 		this.pollGuardInterval = pollGuardInterval;
+		if (jmsListener instanceof PushingJmsListener) {
+			this.batchSize = ((PushingJmsListener)jmsListener).getBatchSize();
+			this.batchTimeout = ((PushingJmsListener)jmsListener).getBatchTimeout();
+		}
 		configureEndpointConnection();
 	}
 
@@ -191,6 +203,21 @@ public class SpringJmsConnector extends AbstractJmsConfigurator implements IList
 		if (acknowledgeMode>=0) {
 			jmsContainer.setSessionAcknowledgeMode(acknowledgeMode);
 		}
+		if (batchSize > 1) {
+			if (TX != null || !sessionTransacted) {
+				throw new ConfigurationException(getLogPrefix()+"batchSize ["+batchSize+"] can only be used with jmsTransacted=true on a Receiver that is not transacted");
+			}
+			if (!(jmsContainer instanceof IbisMessageListenerContainer)) {
+				throw new ConfigurationException(getLogPrefix()+"batchSize ["+batchSize+"] requires MessageListenerContainer ["+IbisMessageListenerContainer.class.getName()+"]");
+			}
+			if (jmsContainer.getCacheLevel() < DefaultMessageListenerContainer.CACHE_SESSION) {
+				throw new ConfigurationException(getLogPrefix()+"batchSize ["+batchSize+"] requires cacheMode CACHE_SESSION or CACHE_CONSUMER, as pending messages are rolled back when the session is closed");
+			}
+			if (batchedSessionCommitter == null) {
+				batchedSessionCommitter = new BatchedSessionCommitter(batchSize, batchTimeout);
+			}
+			((IbisMessageListenerContainer)jmsContainer).setBatchedSessionCommitter(batchedSessionCommitter);
+		}
 		jmsContainer.setMessageListener(this);
 		// Use Spring BeanFactory to complete the auto-wiring of the JMS Listener Container,
 		// and run the bean lifecycle methods.
@@ -272,21 +299,30 @@ public class SpringJmsConnector extends AbstractJmsConfigurator implements IList
 			}
 
 			Map<String,Object> threadContext = new HashMap<>();
+			boolean failed = false;
 			try {
 				IPortConnectedListener<Message> listener = getListener();
 				threadContext.put(THREAD_CONTEXT_SESSION_KEY,session);
+				if (batchedSessionCommitter!=null) {
+					threadContext.put(BatchedSessionCommitter.THREAD_CONTEXT_KEY, batchedSessionCommitter);
+				}
 //				if (log.isDebugEnabled()) log.debug("transaction status before: "+JtaUtil.displayTransactionStatus());
 				getReceiver().processRawMessage(listener, message, threadContext);
 //				if (log.isDebugEnabled()) log.debug("transaction status after: "+JtaUtil.displayTransactionStatus());
 			} catch (ListenerException e) {
+				failed = true;
 				getReceiver().increaseRetryIntervalAndWait(e,getLogPrefix());
 				if (txStatus!=null) {
 					txStatus.setRollbackOnly();
 				}
 			} finally {
 				if (txStatus==null && jmsContainer.isSessionTransacted()) {
-					log.debug(getLogPrefix()+"committing JMS session");
-					session.commit();
+					if (batchedSessionCommitter!=null) {
+						batchedSessionCommitter.messageCompleted(session, failed);
+					} else {
+						log.debug(getLogPrefix()+"committing JMS session");
+						session.commit();
+					}
 				}
 			}
 		} finally {
@@ -369,6 +405,23 @@ public class SpringJmsConnector extends AbstractJmsConfigurator implements IList
 	}
 
 
+	@Override
+	public void iterateOverStatistics(StatisticsKeeperIterationHandler hski, Object data, int action) throws SenderException {
+		if (batchedSessionCommitter!=null) {
+			Object batchData=hski.openGroup(data,null,"batches");
+			hski.handleStatisticsKeeper(batchData, batchedSessionCommitter.getBatchSizes());
+			hski.handleScalar(batchData,"rollbacks", batchedSessionCommitter.getRollbacks().getValue());
+			hski.handleScalar(batchData,"rollbacksThisInterval", batchedSessionCommitter.getRollbacks().getIntervalValue());
+			batchedSessionCommitter.getBatchSizes().performAction(action);
+			batchedSessionCommitter.getRollbacks().performAction(action);
+			hski.closeGroup(batchData);
+		}
+	}
+
+	public BatchedSessionCommitter getBatchedSessionCommitter() {
+		return batchedSessionCommitter;
+	}
+
 	public String getLogPrefix() {
 		String result="SpringJmsContainer ";
 		if (getListener()!=null && getListener().getReceiver()!=null) {
@@ -508,26 +508,42 @@ public class FileUtils {
 	 * methods to create a fixed length string from a value
 	 */
 	public static String align(String val, int length, boolean leftAlign, char fillchar) {
-		StringBuffer result = new StringBuffer();
+		StringBuilder result = new StringBuilder(length);
 		align(result, val, length, leftAlign, fillchar);
 		return result.toString();
 	}
 	
-	public static void align(StringBuffer result, String val, int length, boolean leftAlign, char fillchar) {
-		if (val.length() > length) {
-			result.append(val.substring(0, length));
-		} else if (val.length() == length) {
-			result.append(val);
+	public static void align(StringBuilder result, CharSequence val, int length, boolean leftAlign, char fillchar) {
+		if (val.length() >= length) {
+			result.append(val, 0, length);
 		} else {
-			char[] fill = getFilledArray(length - val.length(), fillchar);
 			if (leftAlign) {
-				result.append(val).append(fill);			
+				result.append(val);
+				fill(result, length - val.length(), fillchar);
 			} else {
-				result.append(fill).append(val);
+				fill(result, length - val.length(), fillchar);
+				result.append(val);
 			}
 		}
 	}
 
+	/**
+	 * @deprecated use {@link #align(StringBuilder, CharSequence, int, boolean, char)} instead
+	 */
+	@Deprecated
+	public static void align(StringBuffer result, String val, int length, boolean leftAlign, char fillchar) {
+		result.append(align(val, length, leftAlign, fillchar));
+	}
+
+	/*
+	 * append length fillchars, without creating a filled array
+	 */
+	public static void fill(StringBuilder result, int length, char fillchar) {
+		for (int i=0; i<length; i++) {
+			result.append(fillchar);
+		}
+	}
+
 	/*
 	 * create a filled array   
 	 */
@@ -0,0 +1,165 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Hides the parts of messages that match a set of regular expressions, as used by {@link Misc#hideAll(String, Collection, int)}.
+ * 
+ * The regular expressions are compiled once per distinct set. Each expression is matched against the original message,
+ * and the union of all matched regions is hidden, so overlapping matches of different expressions are hidden completely.
+ * Expressions that start with a literal text are only matched against messages that contain that text.
+ */
+public class MaskingEngine {
+	private static final int MAX_CACHED_ENGINES = 100;
+	private static final String REGEX_METACHARACTERS = "[](){}.*+?^$|\\";
+
+	private static final Map<Set<String>, MaskingEngine> engines = Collections.synchronizedMap(new LinkedHashMap<Set<String>, MaskingEngine>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Set<String>, MaskingEngine> eldest) {
+			return size() > MAX_CACHED_ENGINES;
+		}
+	});
+	private static final MaskingEngine EMPTY = new MaskingEngine(Collections.emptySet());
+
+	private final List<Pattern> patterns = new ArrayList<>();
+	private final String[] literals;
+
+	private MaskingEngine(Set<String> regexes) {
+		String[] literals = new String[regexes.size()];
+		int i = 0;
+		for (String regex : regexes) {
+			patterns.add(Pattern.compile(regex));
+			literals[i++] = getRequiredLiteral(regex);
+		}
+		this.literals = literals;
+	}
+
+	/**
+	 * Returns the engine for the given set of regular expressions. Engines are cached, the regular expressions are compiled only
+	 * the first time a set is used.
+	 */
+	public static MaskingEngine getInstance(Collection<String> regexes) {
+		if (regexes == null || regexes.isEmpty()) {
+			return EMPTY;
+		}
+		Set<String> key = new HashSet<>(regexes.size());
+		for (String regex : regexes) {
+			if (StringUtils.isNotEmpty(regex)) {
+				key.add(regex);
+			}
+		}
+		if (key.isEmpty()) {
+			return EMPTY;
+		}
+		MaskingEngine engine = engines.get(key);
+		if (engine == null) {
+			engine = new MaskingEngine(key);
+			engines.put(key, engine);
+		}
+		return engine;
+	}
+
+	public boolean isEmpty() {
+		return patterns.isEmpty();
+	}
+
+	/**
+	 * Hides all characters that match any of the regular expressions.
+	 * If mode is set to 1, then the first half of each match gets hidden.
+	 * @see Misc#hideAll(String, Pattern, int)
+	 */
+	public String hideAll(String message, int mode) {
+		if (isEmpty() || StringUtils.isEmpty(message)) {
+			return message;
+		}
+		BitSet hidden = null;
+		for (int i = 0; i < patterns.size(); i++) {
+			if (StringUtils.isNotEmpty(literals[i]) && !message.contains(literals[i])) {
+				continue;
+			}
+			Matcher matcher = patterns.get(i).matcher(message);
+			while (matcher.find()) {
+				int end = matcher.end();
+				if (mode == 1) {
+					end = matcher.start() + (int) Math.ceil((double) (end - matcher.start()) / 2);
+				}
+				if (hidden == null) {
+					hidden = new BitSet(message.length());
+				}
+				hidden.set(matcher.start(), end);
+			}
+		}
+		if (hidden == null) {
+			return message;
+		}
+		StringBuilder result = new StringBuilder(message);
+		for (int i = hidden.nextSetBit(0); i >= 0; i = hidden.nextSetBit(i + 1)) {
+			result.setCharAt(i, '*');
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Returns the literal text that each match of the regular expression must start with, or an empty string if that cannot be determined.
+	 * A literal text in a leading lookbehind is used as well, e.g. <code>password="</code> for <code>(?&lt;=password=").+?(?=")</code>.
+	 */
+	static String getRequiredLiteral(String regex) {
+		if (regex.indexOf('|') >= 0) {
+			return "";
+		}
+		int start = regex.startsWith("(?<=") ? 4 : 0;
+		StringBuilder literal = new StringBuilder();
+		int i = start;
+		while (i < regex.length()) {
+			char c = regex.charAt(i);
+			if (c == '\\') {
+				if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+					break; // character classes like \d, and other escape sequences
+				}
+				c = regex.charAt(++i);
+			} else if (REGEX_METACHARACTERS.indexOf(c) >= 0) {
+				break;
+			}
+			char next = i + 1 < regex.length() ? regex.charAt(i + 1) : 0;
+			if (next == '*' || next == '?' || next == '{') {
+				break; // the character is optional
+			}
+			literal.append(c);
+			i++;
+			if (next == '+') {
+				break;
+			}
+		}
+		if (start > 0 && (i >= regex.length() || regex.charAt(i) != ')')) {
+			return ""; // the lookbehind is not a plain literal
+		}
+		return literal.toString();
+	}
+}
@@ -1279,11 +1279,7 @@ public class Misc {
 		if(collection == null || collection.isEmpty() || StringUtils.isEmpty(message))
 			return message; //Nothing to do!
 
-		for (String regex : collection) {
-			if (StringUtils.isNotEmpty(regex))
-				message = hideAll(message, regex, mode);
-		}
-		return message;
+		return MaskingEngine.getInstance(collection).hideAll(message, mode);
 	}
 
 	/**
@@ -1299,24 +1295,34 @@ public class Misc {
 	 * Else, all of it.
 	 */
 	public static String hideAll(String inputString, String regex, int mode) {
-		StringBuilder result = new StringBuilder();
-		Pattern pattern = Pattern.compile(regex);
+		return hideAll(inputString, Collections.singleton(regex), mode);
+	}
+
+	/**
+	 * Hides the parts of the input string that match the given pattern.
+	 * If mode is set to 1, then the first half of each match gets hidden.
+	 * Else, all of it.
+	 */
+	public static String hideAll(String inputString, Pattern pattern, int mode) {
 		Matcher matcher = pattern.matcher(inputString);
+		if (!matcher.find()) {
+			return inputString;
+		}
+		StringBuilder result = new StringBuilder(inputString.length());
 		int previous = 0;
-		while (matcher.find()) {
-			result.append(inputString.substring(previous, matcher.start()));
+		do {
+			result.append(inputString, previous, matcher.start());
 			int len = matcher.end() - matcher.start();
 			if (mode == 1) {
 				int lenFirstHalf = (int) Math.ceil((double) len / 2);
-				result.append(StringUtils.repeat("*", lenFirstHalf));
-				result.append(inputString.substring(matcher.start()
-						+ lenFirstHalf, matcher.start() + len));
+				FileUtils.fill(result, lenFirstHalf, '*');
+				result.append(inputString, matcher.start() + lenFirstHalf, matcher.end());
 			} else {
-				result.append(StringUtils.repeat("*", len));
+				FileUtils.fill(result, len, '*');
 			}
 			previous = matcher.end();
-		}
-		result.append(inputString.substring(previous, inputString.length()));
+		} while (matcher.find());
+		result.append(inputString, previous, inputString.length());
 		return result.toString();
 	}
 
@@ -0,0 +1,291 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.transform.ErrorListener;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+
+import org.apache.logging.log4j.Logger;
+
+import lombok.Getter;
+
+/**
+ * Cache of compiled stylesheets, shared by all {@link TransformerPool TransformerPools} that use the same stylesheet.
+ * <p>
+ * Stylesheets are identified by a hash of their contents, their systemId and the xslt version, and are kept per ClassLoader,
+ * as includes and imports are resolved by the ClassLoader of the configuration. The compiled stylesheets refer to their
+ * ClassLoader via their URIResolver, so the entries of a configuration are removed explicitly when it is closed, and no
+ * new entries are added for its ClassLoader until it is configured again. Per ClassLoader at most
+ * <code>transformerPool.templatesCache.maxSize</code> stylesheets are kept, the least recently used are evicted first.
+ * <p>
+ * When a stylesheet is requested while it is being compiled by another thread, e.g. during precompilation, the request
+ * waits for that compilation to finish, instead of compiling the stylesheet again. Warnings that were reported while
+ * compiling the stylesheet are reported again to each TransformerFactory that gets the stylesheet from the cache.
+ */
+public class TemplatesCache {
+	protected static Logger log = LogUtil.getLogger(TemplatesCache.class);
+
+	private static final boolean ENABLED = AppConstants.getInstance().getBoolean("transformerPool.templatesCache.enabled", true);
+	private static final int MAX_SIZE = AppConstants.getInstance().getInt("transformerPool.templatesCache.maxSize", 1000);
+
+	private static TemplatesCache self = new TemplatesCache(ENABLED, MAX_SIZE);
+
+	private final @Getter boolean enabled;
+	private final int maxSize;
+	private final Map<ClassLoader, Map<TemplatesKey, Future<CompiledTemplates>>> cache = new HashMap<>();
+	private final Set<ClassLoader> closedClassLoaders = Collections.newSetFromMap(new WeakHashMap<>());
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong compileTimeNanos = new AtomicLong();
+
+	private static class CompiledTemplates {
+		private final Templates templates;
+		private final List<TransformerException> warnings;
+
+		CompiledTemplates(Templates templates, List<TransformerException> warnings) {
+			this.templates = templates;
+			this.warnings = warnings;
+		}
+	}
+
+	TemplatesCache(boolean enabled, int maxSize) {
+		this.enabled = enabled;
+		this.maxSize = maxSize;
+	}
+
+	public static TemplatesCache getInstance() {
+		return self;
+	}
+
+	private static class TemplatesKey {
+		private final String contentHash;
+		private final String systemId;
+		private final int xsltVersion;
+
+		TemplatesKey(String contentHash, String systemId, int xsltVersion) {
+			this.contentHash = contentHash;
+			this.systemId = systemId;
+			this.xsltVersion = xsltVersion;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof TemplatesKey)) {
+				return false;
+			}
+			TemplatesKey other = (TemplatesKey) o;
+			return xsltVersion == other.xsltVersion && contentHash.equals(other.contentHash) && Objects.equals(systemId, other.systemId);
+		}
+
+		@Override
+		public int hashCode() {
+			return contentHash.hashCode();
+		}
+	}
+
+	/**
+	 * Returns the compiled stylesheet from the cache, or compiles the source using the factory when it is not present.
+	 * Stylesheets that fail to compile are not cached.
+	 */
+	Templates getTemplates(ClassLoader classLoader, String contentHash, String systemId, int xsltVersion, TransformerFactory factory, Source source) throws TransformerConfigurationException {
+		if (!enabled || contentHash == null) {
+			return compile(factory, source).templates;
+		}
+		TemplatesKey key = new TemplatesKey(contentHash, systemId, xsltVersion);
+		Future<CompiledTemplates> cached = null;
+		FutureTask<CompiledTemplates> task = null;
+		synchronized (cache) {
+			// e.g. a precompilation that finishes after its configuration was closed must not keep the ClassLoader alive
+			if (!closedClassLoaders.contains(classLoader)) {
+				Map<TemplatesKey, Future<CompiledTemplates>> entries = cache.computeIfAbsent(classLoader, cl -> new LinkedHashMap<TemplatesKey, Future<CompiledTemplates>>(16, 0.75f, true) {
+					@Override
+					protected boolean removeEldestEntry(Map.Entry<TemplatesKey, Future<CompiledTemplates>> eldest) {
+						return size() > maxSize;
+					}
+				});
+				cached = entries.get(key);
+				if (cached == null) {
+					task = new FutureTask<>(() -> compile(factory, source));
+					entries.put(key, task);
+					cached = task;
+				}
+			}
+		}
+		if (cached == null) {
+			return compile(factory, source).templates;
+		}
+		if (task != null) {
+			misses.incrementAndGet();
+			task.run();
+		}
+		try {
+			CompiledTemplates compiledTemplates = cached.get();
+			if (task == null) {
+				hits.incrementAndGet();
+				reportWarnings(factory, compiledTemplates.warnings);
+			}
+			return compiledTemplates.templates;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TransformerConfigurationException("interrupted while waiting for compilation of stylesheet ["+systemId+"]", e);
+		} catch (ExecutionException e) {
+			remove(classLoader, key, cached);
+			Throwable cause = e.getCause();
+			if (cause instanceof TransformerConfigurationException) {
+				throw (TransformerConfigurationException) cause;
+			}
+			throw new TransformerConfigurationException("cannot compile stylesheet ["+systemId+"]", cause);
+		}
+	}
+
+	private CompiledTemplates compile(TransformerFactory factory, Source source) throws TransformerConfigurationException {
+		ErrorListener errorListener = factory.getErrorListener();
+		List<TransformerException> warnings = new ArrayList<>();
+		factory.setErrorListener(new ErrorListener() {
+
+			@Override
+			public void warning(TransformerException exception) throws TransformerException {
+				warnings.add(exception);
+				errorListener.warning(exception);
+			}
+
+			@Override
+			public void error(TransformerException exception) throws TransformerException {
+				errorListener.error(exception);
+			}
+
+			@Override
+			public void fatalError(TransformerException exception) throws TransformerException {
+				errorListener.fatalError(exception);
+			}
+		});
+		long start = System.nanoTime();
+		try {
+			return new CompiledTemplates(factory.newTemplates(source), warnings);
+		} finally {
+			compileTimeNanos.addAndGet(System.nanoTime() - start);
+			factory.setErrorListener(errorListener);
+		}
+	}
+
+	private void reportWarnings(TransformerFactory factory, List<TransformerException> warnings) {
+		ErrorListener errorListener = factory.getErrorListener();
+		if (errorListener != null) {
+			for (TransformerException warning : warnings) {
+				try {
+					errorListener.warning(warning);
+				} catch (TransformerException e) {
+					log.warn("exception reporting warning of cached stylesheet", e);
+				}
+			}
+		}
+	}
+
+	private void remove(ClassLoader classLoader, TemplatesKey key, Future<CompiledTemplates> value) {
+		synchronized (cache) {
+			Map<TemplatesKey, Future<CompiledTemplates>> entries = cache.get(classLoader);
+			if (entries != null) {
+				entries.remove(key, value);
+			}
+		}
+	}
+
+	/**
+	 * Removes all stylesheets that were compiled for the ClassLoader.
+	 */
+	public void remove(ClassLoader classLoader) {
+		synchronized (cache) {
+			cache.remove(classLoader);
+		}
+	}
+
+	/**
+	 * Removes all stylesheets that were compiled for the ClassLoader of a configuration that is closed, and stops caching
+	 * stylesheets for it until {@link #open(ClassLoader)} is called, when the configuration is configured again.
+	 */
+	public void close(ClassLoader classLoader) {
+		synchronized (cache) {
+			closedClassLoaders.add(classLoader);
+			cache.remove(classLoader);
+		}
+	}
+
+	public void open(ClassLoader classLoader) {
+		synchronized (cache) {
+			closedClassLoaders.remove(classLoader);
+		}
+	}
+
+	public void clear() {
+		synchronized (cache) {
+			cache.clear();
+			closedClassLoaders.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (cache) {
+			return cache.values().stream().mapToInt(Map::size).sum();
+		}
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return the percentage of requests that were served from the cache.
+	 */
+	public double getHitRate() {
+		long requests = getHits() + getMisses();
+		return requests == 0 ? 0 : 100.0 * getHits() / requests;
+	}
+
+	/**
+	 * @return the total time spent compiling stylesheets, in milliseconds.
+	 */
+	public long getCompileTimeMillis() {
+		return compileTimeNanos.get() / 1000000;
+	}
+
+	@Override
+	public String toString() {
+		return "TemplatesCache size ["+size()+"] hits ["+getHits()+"] misses ["+getMisses()+"] hitRate ["+String.format("%.1f", getHitRate())+"%] compileTime ["+getCompileTimeMillis()+"ms]";
+	}
+}
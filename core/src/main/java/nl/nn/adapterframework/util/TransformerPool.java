@@ -16,13 +16,22 @@
 package nl.nn.adapterframework.util;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
@@ -37,6 +46,7 @@ import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamSource;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.pool2.BasePooledObjectFactory;
 import org.apache.commons.pool2.ObjectPool;
@@ -57,6 +67,7 @@ import nl.nn.adapterframework.core.ParameterException;
 import nl.nn.adapterframework.core.Resource;
 import nl.nn.adapterframework.parameters.ParameterList;
 import nl.nn.adapterframework.parameters.ParameterValueList;
+import nl.nn.adapterframework.scheduler.NamedThreadFactory;
 import nl.nn.adapterframework.stream.Message;
 import nl.nn.adapterframework.stream.ThreadLifeCycleEventListener;
 import nl.nn.adapterframework.xml.ClassLoaderURIResolver;
@@ -69,11 +80,15 @@ import nl.nn.adapterframework.xml.TransformerFilter;
  * <p>
  * When the property 'transformerPool.useCaching' equals true, transformers are
  * put in a cache and shared (for the same stylesheet) to save memory.
+ * <p>
+ * Independent of that, the compiled stylesheets are shared between TransformerPools
+ * via the {@link TemplatesCache}, so each stylesheet is compiled only once per configuration.
  * 
  * @author Gerrit van Brakel
  */
 public class TransformerPool {
 	private static final boolean USE_CACHING = AppConstants.getInstance().getBoolean("transformerPool.useCaching", false);
+	private static final int PRECOMPILE_THREADS = AppConstants.getInstance().getInt("transformerPool.precompileThreads", 4);
 
 	protected static Logger log = LogUtil.getLogger(TransformerPool.class);
 
@@ -82,6 +97,8 @@ public class TransformerPool {
 	private Templates templates;
 	private Resource reloadResource=null;
 	private int xsltVersion;
+	private String contentHash;
+	private ClassLoader classLoader;
 	
 	private Source configSource;
 	private Map<String,String> configMap;
@@ -92,33 +109,26 @@ public class TransformerPool {
 
 	private static Map<TransformerPoolKey, TransformerPool> transformerPools = new ConcurrentHashMap<TransformerPoolKey, TransformerPool>();
 
+	private static ExecutorService precompileExecutor;
+
 	private static class TransformerPoolKey {
 		private String xsltString;
 		private String urlString;
-		private long urlLastModified;
+		private String contentHash;
 		private String sysId;
 		private int xsltVersion;
 
-		TransformerPoolKey(String xsltString, URL url, String sysId, int xsltVersion) {
+		TransformerPoolKey(String xsltString, URL url, String contentHash, String sysId, int xsltVersion) {
 			this.xsltString = xsltString;
-			if (url == null) {
-				urlString = null;
-				urlLastModified = -1;
-			} else {
-				urlString = url.toString();
-				try {
-					urlLastModified = url.openConnection().getLastModified();
-				} catch (IOException e) {
-					urlLastModified = 0;
-				}
-			}
+			this.urlString = url == null ? null : url.toString();
+			this.contentHash = contentHash;
 			this.sysId = sysId;
 			this.xsltVersion = xsltVersion;
 		}
 
 		@Override
 		public String toString() {
-			return "xsltVersion [" + xsltVersion + "] sysId [" + sysId + "] url [" + urlString +  (urlLastModified > 0 ? " " + DateUtils.format(urlLastModified) : "") + "] xsltString [" + xsltString + "]";
+			return "xsltVersion [" + xsltVersion + "] sysId [" + sysId + "] url [" + urlString +  (contentHash != null ? " " + contentHash : "") + "] xsltString [" + xsltString + "]";
 		}
 
 		@Override
@@ -128,7 +138,7 @@ public class TransformerPool {
 				if (xsltVersion == other.xsltVersion
 						&& StringUtils.equals(sysId, other.sysId)
 						&& StringUtils.equals(urlString, other.urlString)
-						&& (urlLastModified != 0 && other.urlLastModified != 0 && urlLastModified == other.urlLastModified)
+						&& StringUtils.equals(contentHash, other.contentHash)
 						&& StringUtils.equals(xsltString, other.xsltString)) {
 					return true;
 				}
@@ -148,9 +158,10 @@ public class TransformerPool {
 
 
 
-	private TransformerPool(Source source, String sysId, int xsltVersion, Source configSource, IScopeProvider scopeProvider) throws TransformerConfigurationException {
+	private TransformerPool(Source source, String sysId, int xsltVersion, Source configSource, IScopeProvider scopeProvider, String contentHash) throws TransformerConfigurationException {
 		super();
 		this.configSource=configSource;
+		this.contentHash=contentHash;
 		try {
 			if (xsltVersion<=0) {
 				configMap=getConfigMap();
@@ -166,6 +177,7 @@ public class TransformerPool {
 		this.xsltVersion=xsltVersion;
 		tFactory = XmlUtils.getTransformerFactory(xsltVersion);
 		if(scopeProvider != null) {
+			classLoader = scopeProvider.getConfigurationClassLoader();
 			classLoaderURIResolver = new ClassLoaderURIResolver(scopeProvider);
 			if (log.isDebugEnabled()) log.debug("created Transformerpool for sysId ["+sysId+"] scopeProvider ["+ClassUtils.nameOf(scopeProvider)+"]");
 			tFactory.setURIResolver(classLoaderURIResolver);
@@ -184,7 +196,7 @@ public class TransformerPool {
 
 
 	private TransformerPool(Resource resource, int xsltVersion) throws TransformerConfigurationException, IOException, SAXException {
-		this(resource.asSource(),resource.getSystemId(),xsltVersion,resource.asSource(), resource.getScopeProvider());
+		this(resource.asSource(),resource.getSystemId(),xsltVersion,resource.asSource(), resource.getScopeProvider(), computeContentHash(resource));
 	}
 
 	//TODO Fix this, Thread.currentThread().getContextClassLoader() should not be used and causes memory leaks upon reloading configurations!!!
@@ -198,7 +210,20 @@ public class TransformerPool {
 	}
 
 	private TransformerPool(String xsltString, String sysId, int xsltVersion, IScopeProvider scopeProvider) throws TransformerConfigurationException {
-		this(new StreamSource(new StringReader(xsltString)), sysId, xsltVersion,new StreamSource(new StringReader(xsltString)), scopeProvider);
+		this(new StreamSource(new StringReader(xsltString)), sysId, xsltVersion,new StreamSource(new StringReader(xsltString)), scopeProvider, DigestUtils.sha256Hex(xsltString));
+	}
+
+	/**
+	 * Identifies the contents of a stylesheet, to find its compiled form in the {@link TemplatesCache}.
+	 * When stylesheets are automatically reloaded, no hash is computed, as changes in included stylesheets would not be detected.
+	 */
+	private static String computeContentHash(Resource resource) throws IOException {
+		if (XmlUtils.isAutoReload()) {
+			return null;
+		}
+		try (InputStream stream = resource.openStream()) {
+			return DigestUtils.sha256Hex(stream);
+		}
 	}
 
 	public static TransformerPool getInstance(String xsltString) throws TransformerConfigurationException {
@@ -235,7 +260,7 @@ public class TransformerPool {
 	}
 
 	private static synchronized TransformerPool retrieveInstance(String xsltString, String sysId, int xsltVersion) throws TransformerConfigurationException {
-		TransformerPoolKey tpKey = new TransformerPoolKey(xsltString, null, sysId, xsltVersion);
+		TransformerPoolKey tpKey = new TransformerPoolKey(xsltString, null, null, sysId, xsltVersion);
 		if (transformerPools.containsKey(tpKey)) {
 			return transformerPools.get(tpKey);
 		} else {
@@ -267,7 +292,7 @@ public class TransformerPool {
 	}
 
 	private static synchronized TransformerPool retrieveInstance(Resource resource, int xsltVersion) throws TransformerConfigurationException, IOException {
-		TransformerPoolKey tpKey = new TransformerPoolKey(null, resource.getURL(), null, xsltVersion);
+		TransformerPoolKey tpKey = new TransformerPoolKey(null, resource.getURL(), computeContentHash(resource), null, xsltVersion);
 		if (transformerPools.containsKey(tpKey)) {
 			return transformerPools.get(tpKey);
 		} else {
@@ -289,7 +314,7 @@ public class TransformerPool {
 			log.debug("setting systemId to ["+sysId+"]");
 		}
 		try {
-			templates=tFactory.newTemplates(source);
+			templates=TemplatesCache.getInstance().getTemplates(classLoader, contentHash, sysId, xsltVersion, tFactory, source);
 		} catch (TransformerConfigurationException e) {
 			TransformerErrorListener tel = (TransformerErrorListener)tFactory.getErrorListener();
 			TransformerException te=tel.getFatalTransformerException();
@@ -303,6 +328,7 @@ public class TransformerPool {
 	private void reloadTransformerPool() throws TransformerConfigurationException, IOException {
 		if (reloadResource!=null) {
 			try {
+				contentHash = computeContentHash(reloadResource);
 				initTransformerPool(reloadResource.asSource(), reloadResource.getSystemId());
 				pool.clear();
 			} catch (Exception e) {
@@ -377,6 +403,50 @@ public class TransformerPool {
 		return result;
 	}
 
+	/**
+	 * Compiles the stylesheets in the background, using <code>transformerPool.precompileThreads</code> threads, so that
+	 * the TransformerPools that are created while the configuration is configured can use the compiled stylesheets from
+	 * the {@link TemplatesCache}. Stylesheets that cannot be compiled are skipped here, their errors are reported when
+	 * the TransformerPool that uses them is configured.
+	 * 
+	 * @return the tasks that compile the stylesheets, to be cancelled when the configuration is closed.
+	 */
+	public static List<Future<?>> precompileStyleSheets(IScopeProvider scopeProvider, Collection<String> styleSheetNames) {
+		if (!TemplatesCache.getInstance().isEnabled() || PRECOMPILE_THREADS <= 0 || styleSheetNames.isEmpty()) {
+			return Collections.emptyList();
+		}
+		ExecutorService executor = getPrecompileExecutor();
+		List<Future<?>> tasks = new ArrayList<>(styleSheetNames.size());
+		for (String styleSheetName : styleSheetNames) {
+			tasks.add(executor.submit(() -> {
+				ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
+				try {
+					Thread.currentThread().setContextClassLoader(scopeProvider.getConfigurationClassLoader());
+					Resource styleSheet = Resource.getResource(scopeProvider, styleSheetName);
+					if (styleSheet != null) {
+						new TransformerPool(styleSheet, 0).close();
+					}
+				} catch (Exception e) {
+					if (log.isDebugEnabled()) log.debug("cannot precompile stylesheet ["+styleSheetName+"]", e);
+				} finally {
+					Thread.currentThread().setContextClassLoader(originalClassLoader);
+				}
+			}));
+		}
+		return tasks;
+	}
+
+	private static synchronized ExecutorService getPrecompileExecutor() {
+		if (precompileExecutor == null) {
+			NamedThreadFactory threadFactory = new NamedThreadFactory();
+			threadFactory.setThreadGroupName("PrecompileStyleSheets");
+			ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(PRECOMPILE_THREADS, PRECOMPILE_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+			threadPoolExecutor.allowCoreThreadTimeOut(true);
+			precompileExecutor = threadPoolExecutor;
+		}
+		return precompileExecutor;
+	}
+
 	public void open() {
 		if (pool==null) {
 			pool=new SoftReferenceObjectPool<>(new BasePooledObjectFactory<Transformer>() {
@@ -22,9 +22,21 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.ref.SoftReference;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 import javax.xml.transform.TransformerException;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.BeanInstantiationException;
 import org.springframework.beans.BeansException;
@@ -39,6 +51,7 @@ import org.xml.sax.SAXException;
 import nl.nn.adapterframework.configuration.Configuration;
 import nl.nn.adapterframework.core.IAdapter;
 import nl.nn.adapterframework.core.Resource;
+import nl.nn.adapterframework.scheduler.NamedThreadFactory;
 import nl.nn.adapterframework.util.AppConstants;
 import nl.nn.adapterframework.util.FileUtils;
 import nl.nn.adapterframework.util.LogUtil;
@@ -67,6 +80,13 @@ public class FlowDiagramManager implements ApplicationContextAware, Initializing
 	private TransformerPool transformerPoolConfig;
 	private Resource noImageAvailable;
 	private String fileExtension = null;
+	private boolean generateAsynchronously = APP_CONSTANTS.getBoolean("flow.generate.async", true);
+
+	/**
+	 * Worker that generates the flow diagrams in the background, or null when they are generated synchronously.
+	 */
+	private ExecutorService executor;
+	private final Map<File, Future<File>> flowDiagrams = new ConcurrentHashMap<>();
 
 	/**
 	 * Optional IFlowGenerator. If non present the FlowDiagramManager should still be 
@@ -88,6 +108,15 @@ public class FlowDiagramManager implements ApplicationContextAware, Initializing
 		} else {
 			if(log.isDebugEnabled()) log.debug("using IFlowGenerator ["+generator+"]");
 			fileExtension = generator.getFileExtension();
+
+			if(generateAsynchronously) {
+				NamedThreadFactory threadFactory = new NamedThreadFactory();
+				threadFactory.setThreadGroupName("FlowDiagram");
+				threadFactory.setThreadPriority(Thread.MIN_PRIORITY);
+				ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+				threadPoolExecutor.allowCoreThreadTimeOut(true);
+				executor = threadPoolExecutor;
+			}
 		}
 
 		noImageAvailable = Resource.getResource("/IAF_WebControl/GenerateFlowDiagram/svg/no_image_available.svg");
@@ -144,28 +173,33 @@ public class FlowDiagramManager implements ApplicationContextAware, Initializing
 	}
 
 	public InputStream get(IAdapter adapter) throws IOException {
-		File destFile = retrieveAdapterFlowFile(adapter);
-
-		if(destFile == null || !destFile.exists()) {
-			return noImageAvailable.openStream();
-		}
-
-		return new FileInputStream(destFile);
+		return get(retrieveAdapterFlowFile(adapter));
 	}
 
 	public InputStream get(Configuration configuration) throws IOException {
-		File destFile = retrieveConfigurationFlowFile(configuration);
-
-		if(destFile == null || !destFile.exists()) {
-			return noImageAvailable.openStream();
-		}
-
-		return new FileInputStream(destFile);
+		return get(retrieveConfigurationFlowFile(configuration));
 	}
 
 	public InputStream get(List<Configuration> configurations) throws IOException {
-		File destFile = retrieveAllConfigurationsFlowFile();
+		return get(retrieveAllConfigurationsFlowFile());
+	}
+
+	/**
+	 * Returns the flow diagram that has been generated for the flow file, or the `noImageAvailable` image
+	 * when it has not been generated (yet).
+	 */
+	private InputStream get(File flowFile) throws IOException {
+		Future<File> flowDiagram = flowFile == null ? null : flowDiagrams.get(flowFile);
+		if(flowDiagram == null || !flowDiagram.isDone() || flowDiagram.isCancelled()) {
+			return noImageAvailable.openStream();
+		}
 
+		File destFile;
+		try {
+			destFile = flowDiagram.get();
+		} catch (InterruptedException | ExecutionException e) {
+			return noImageAvailable.openStream();
+		}
 		if(destFile == null || !destFile.exists()) {
 			return noImageAvailable.openStream();
 		}
@@ -174,57 +208,102 @@ public class FlowDiagramManager implements ApplicationContextAware, Initializing
 	}
 
 	public void generate(IAdapter adapter) throws IOException {
-		File destFile = retrieveAdapterFlowFile(adapter);
-		if(destFile == null) return;
-
-		if(destFile.exists()) //If the file exists, update it
-			destFile.delete();
-
-		String dotOutput = null;
-		try {
-			dotOutput = generateDot(adapter);
-		} catch(Exception e) {
-			log.warn("failed to create dot file for adapter["+adapter.getName()+"]", e);
-		}
-
 		String name = "adapter[" + adapter.getName() + "]";
-		generateFlowDiagram(name, dotOutput, destFile);
+		String adapterConfiguration = adapter.getAdapterConfigurationAsString();
+		generate(name, retrieveAdapterFlowFile(adapter), adapterConfiguration, () -> transformerPoolAdapter.transform(adapterConfiguration, null));
 	}
 
 	public void generate(Configuration configuration) throws IOException {
-		File destFile = retrieveConfigurationFlowFile(configuration);
-		if(destFile == null) return;
+		String name = "configuration[" + configuration.getName() + "]";
+		String loadedConfiguration = configuration.getLoadedConfiguration();
+		generate(name, retrieveConfigurationFlowFile(configuration), loadedConfiguration, () -> transformerPoolConfig.transform(loadedConfiguration, null));
+	}
 
-		if(destFile.exists()) //If the file exists, update it
-			destFile.delete();
+	public void generate(List<Configuration> configurations) throws IOException {
+		String name = "configurations[*ALL*]";
+		String dotInput = getDotInput(configurations);
+		generate(name, retrieveAllConfigurationsFlowFile(), dotInput, () -> transformerPoolConfig.transform(dotInput, null));
+	}
 
-		String dotOutput = null;
-		try {
-			dotOutput = generateDot(configuration);
-		} catch(Exception e) {
-			log.warn("failed to create dot file for configuration["+configuration.getName()+"]", e);
+	/**
+	 * Schedules the generation of a flow diagram. The diagram is stored under a name that contains a hash of the
+	 * configuration it is generated from, a diagram that has been generated earlier for the same configuration is reused.
+	 * When generating asynchronously, the `noImageAvailable` image is returned until the diagram is ready.
+	 */
+	private void generate(String name, File flowFile, String configurationXml, DotGenerator dotGenerator) throws IOException {
+		if(flowFile == null) return;
+
+		String hash = DigestUtils.sha256Hex(APP_CONSTANTS.getProperty("application.version") + "\n" + configurationXml).substring(0, 16);
+		File destFile = new File(flowFile.getParentFile(), getBaseName(flowFile) + "-" + hash + "." + fileExtension);
+
+		FutureTask<File> task = new FutureTask<>(() -> {
+			if(destFile.exists()) {
+				if(log.isDebugEnabled()) log.debug("reusing flow diagram for " + name + " from [" + destFile.getName() + "]");
+			} else {
+				String dotOutput = null;
+				try {
+					dotOutput = dotGenerator.generateDot();
+				} catch(Exception e) {
+					log.warn("failed to create dot file for " + name, e);
+				}
+				generateFlowDiagram(name, dotOutput, destFile);
+			}
+			removeOtherFlowDiagrams(flowFile, destFile);
+			return destFile;
+		});
+		Future<File> previous = flowDiagrams.put(flowFile, task);
+		if(previous != null) {
+			previous.cancel(false);
 		}
 
-		String name = "configuration[" + configuration.getName() + "]";
-		generateFlowDiagram(name, dotOutput, destFile);
+		if(executor == null) {
+			task.run();
+			try {
+				task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("interrupted generating flow diagram for " + name, e);
+			} catch (ExecutionException e) {
+				if(e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				throw new IOException("error generating flow diagram for " + name, e.getCause());
+			}
+		} else {
+			executor.execute(() -> {
+				task.run();
+				try {
+					task.get();
+				} catch (CancellationException | InterruptedException e) {
+					// a newer version of the flow diagram has been scheduled, or the manager is shutting down
+				} catch (ExecutionException e) {
+					log.warn("error generating flow diagram for " + name, e.getCause());
+				}
+			});
+		}
 	}
 
-	public void generate(List<Configuration> configurations) throws IOException {
-		File destFile = retrieveAllConfigurationsFlowFile();
-		if(destFile == null) return;
-
-		destFile.delete();
+	private String getBaseName(File flowFile) {
+		String fileName = flowFile.getName();
+		return fileName.substring(0, fileName.length() - fileExtension.length() - 1);
+	}
 
-		String dotOutput = null;
-		try {
-			dotOutput = generateDot(configurations);
+	/**
+	 * Removes flow diagrams that have been generated for earlier versions of the configuration.
+	 */
+	private void removeOtherFlowDiagrams(File flowFile, File destFile) {
+		Pattern versionPattern = Pattern.compile(Pattern.quote(getBaseName(flowFile)) + "-[0-9a-f]{16}\\." + Pattern.quote(fileExtension));
+		File[] files = flowFile.getParentFile().listFiles((dir, fileName) -> versionPattern.matcher(fileName).matches());
+		if(files != null) {
+			for (File file : files) {
+				if(!file.equals(destFile) && !file.delete()) {
+					log.debug("unable to remove flow diagram [" + file.getPath() + "]");
+				}
+			}
 		}
-		catch(Exception e) {
-			log.warn("failed to create dot file for configurations"+configurations.toString()+"", e);
+		if(flowFile.exists()) { // flow diagram generated by an earlier version, that did not include a hash in the file name
+			flowFile.delete();
 		}
-
-		String name = "configurations[*ALL*]";
-		generateFlowDiagram(name, dotOutput, destFile);
 	}
 
 	public String generateDot(IAdapter adapter) throws TransformerException, IOException, SAXException {
@@ -236,13 +315,16 @@ public class FlowDiagramManager implements ApplicationContextAware, Initializing
 	}
 
 	public String generateDot(List<Configuration> configurations) throws TransformerException, IOException, SAXException {
-		String dotInput = "<configs>";
+		return transformerPoolConfig.transform(getDotInput(configurations), null);
+	}
+
+	private String getDotInput(List<Configuration> configurations) {
+		StringBuilder dotInput = new StringBuilder("<configs>");
 		for (Configuration configuration : configurations) {
-			dotInput = dotInput + XmlUtils.skipXmlDeclaration(configuration.getLoadedConfiguration());
+			dotInput.append(XmlUtils.skipXmlDeclaration(configuration.getLoadedConfiguration()));
 		}
-		dotInput = dotInput + "</configs>";
-
-		return transformerPoolConfig.transform(dotInput, null);
+		dotInput.append("</configs>");
+		return dotInput.toString();
 	}
 
 	private File retrieveAdapterFlowFile(IAdapter iAdapter) {
@@ -279,23 +361,38 @@ public class FlowDiagramManager implements ApplicationContextAware, Initializing
 		log.debug("generating flow diagram for " + name);
 		long start = System.currentTimeMillis();
 
-		try (FileOutputStream outputStream = new FileOutputStream(destination)) {
+		// write to a temporary file first, to prevent an incomplete diagram from being reused
+		File tempFile = new File(destination.getPath() + ".tmp");
+		try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
 			getFlowGenerator().generateFlow(name, dot, outputStream);
 		} catch (IOException e) {
 			if(log.isDebugEnabled()) log.debug("error generating flow diagram for ["+name+"]", e);
+			tempFile.delete();
 
 			throw e;
 		}
+		if(!tempFile.renameTo(destination)) {
+			tempFile.delete();
+			throw new IOException("unable to move flow diagram for ["+name+"] to ["+destination.getPath()+"]");
+		}
 
 		log.debug("finished generating flow diagram for ["+ name +"] in ["+ (System.currentTimeMillis()-start) +"] ms");
 	}
 
 	@Override
 	public void destroy() throws Exception {
+		if(executor != null)
+			executor.shutdownNow();
+
 		if(transformerPoolAdapter != null)
 			transformerPoolAdapter.close();
 
 		if(transformerPoolConfig != null)
 			transformerPoolConfig.close();
 	}
-}
\ No newline at end of file
+
+	@FunctionalInterface
+	private interface DotGenerator {
+		String generateDot() throws TransformerException, IOException, SAXException;
+	}
+}
@@ -152,6 +152,15 @@ public abstract class AbstractXmlValidator implements IScopeProvider {
 	}
 
 	public abstract ValidatorHandler getValidatorHandler(PipeLineSession session, ValidationContext context) throws ConfigurationException, PipeRunException;
+
+	/**
+	 * Hands back a ValidatorHandler obtained from {@link #getValidatorHandler(PipeLineSession, ValidationContext)}, once validation has finished.
+	 * Implementations that keep a pool of ValidatorHandlers can reuse it for subsequent validations.
+	 */
+	public void releaseValidatorHandler(ValidationContext context, ValidatorHandler validatorHandler) {
+		// nothing to release by default
+	}
+
 	public abstract List<XSModel> getXSModels();
 
 	/**
@@ -188,6 +197,8 @@ public abstract class AbstractXmlValidator implements IScopeProvider {
 			XmlUtils.parseXml(inputSource, validatorHandler, context.getErrorHandler());
 		} catch (IOException | SAXException e) {
 			return finalizeValidation(context, session, e);
+		} finally {
+			releaseValidatorHandler(context, validatorHandler);
 		}
 		return finalizeValidation(context, session, null);
 	}
@@ -29,6 +29,11 @@ import java.util.concurrent.atomic.AtomicLong;
 import javax.xml.validation.ValidatorHandler;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
 import org.apache.logging.log4j.Logger;
 import org.apache.xerces.impl.Constants;
 import org.apache.xerces.impl.xs.SchemaGrammar;
@@ -59,6 +64,9 @@ import nl.nn.adapterframework.configuration.ConfigurationException;
 import nl.nn.adapterframework.configuration.ConfigurationWarnings;
 import nl.nn.adapterframework.core.PipeLineSession;
 import nl.nn.adapterframework.core.PipeRunException;
+import nl.nn.adapterframework.core.SenderException;
+import nl.nn.adapterframework.statistics.HasStatistics;
+import nl.nn.adapterframework.statistics.StatisticsKeeperIterationHandler;
 import nl.nn.adapterframework.util.AppConstants;
 import nl.nn.adapterframework.util.LogUtil;
 import nl.nn.adapterframework.xml.ClassLoaderXmlEntityResolver;
@@ -76,10 +84,13 @@ import nl.nn.adapterframework.xml.ClassLoaderXmlEntityResolver;
  * </table>
  * <br>
  * N.B. noNamespaceSchemaLocation may contain spaces, but not if the schema is stored in a .jar or .zip file on the class path.
+ * <br>
+ * For schemas that do not depend on the session, pre-configured validating parsers and ValidatorHandlers are kept in a pool per validator,
+ * keyed by the preparsed grammars they were created for. The pool can be tuned using the properties <code>xmlValidator.pool.*</code>.
  * @author Johan Verrips IOS
  * @author Jaco de Groot
  */
-public class XercesXmlValidator extends AbstractXmlValidator {
+public class XercesXmlValidator extends AbstractXmlValidator implements HasStatistics {
 
 	private String DEFAULT_XML_SCHEMA_VERSION="1.1";
 
@@ -115,11 +126,17 @@ public class XercesXmlValidator extends AbstractXmlValidator {
 	private static final boolean sharedSymbolTable = AppConstants.getInstance().getBoolean("xmlValidator.sharedSymbolTable", false);
 	private static final int sharedSymbolTableSize = AppConstants.getInstance().getInt("xmlValidator.sharedSymbolTable.size", BIG_PRIME);
 	private int entityExpansionLimit = AppConstants.getInstance().getInt("xmlValidator.entityExpansionLimit", 100000);
+	private static final boolean poolActive = AppConstants.getInstance().getBoolean("xmlValidator.pool.active", true);
+	private static final int poolMaxIdlePerKey = AppConstants.getInstance().getInt("xmlValidator.pool.maxIdlePerKey", 8);
+	private static final long poolMinEvictableIdleTime = AppConstants.getInstance().getLong("xmlValidator.pool.minEvictableIdleTime", 300000L);
 
 	private static AtomicLong counter = new AtomicLong();
 	private String preparseResultId;
 	private PreparseResult preparseResult;
 
+	private GenericKeyedObjectPool<PreparseResult, XMLReader> parserPool;
+	private GenericKeyedObjectPool<PreparseResult, ValidatorHandler> validatorHandlerPool;
+
 	private static EhCache<PreparseResult> cache;
 	static {
 		if (maxInitialised != -1) {
@@ -163,9 +180,38 @@ public class XercesXmlValidator extends AbstractXmlValidator {
 			} else {
 				cache.put(preparseResultId, preparseResult);
 			}
+			if (poolActive) {
+				parserPool = createPool(new ValidatingParserFactory());
+				validatorHandlerPool = createPool(new ValidatorHandlerFactory());
+			}
 		}
 	}
 
+	@Override
+	public void stop() {
+		if (parserPool != null) {
+			parserPool.close();
+			parserPool = null;
+		}
+		if (validatorHandlerPool != null) {
+			validatorHandlerPool.close();
+			validatorHandlerPool = null;
+		}
+		super.stop();
+	}
+
+	private <T> GenericKeyedObjectPool<PreparseResult, T> createPool(BaseKeyedPooledObjectFactory<PreparseResult, T> factory) {
+		GenericKeyedObjectPoolConfig<T> config = new GenericKeyedObjectPoolConfig<>();
+		config.setMaxTotalPerKey(-1);
+		config.setMaxIdlePerKey(poolMaxIdlePerKey);
+		config.setBlockWhenExhausted(false);
+		config.setJmxEnabled(false);
+		// when the preparsed grammars are evicted from the EhCache, parsers for the old grammars will be cleaned up by the evictor
+		config.setMinEvictableIdleTimeMillis(poolMinEvictableIdleTime);
+		config.setTimeBetweenEvictionRunsMillis(poolMinEvictableIdleTime);
+		return new GenericKeyedObjectPool<>(factory, config);
+	}
+
 	private static class SymbolTableSingletonHelper {
 		private static final SymbolTable INSTANCE = new SymbolTable(sharedSymbolTableSize);
 	}
@@ -278,16 +324,43 @@ public class XercesXmlValidator extends AbstractXmlValidator {
 	
 	@Override
 	public ValidatorHandler getValidatorHandler(PipeLineSession session, ValidationContext context) throws ConfigurationException {
+		PreparseResult preparseResult = ((XercesValidationContext) context).getPreparseResult();
+		ValidatorHandler validatorHandler;
+		if (isPooled(validatorHandlerPool, preparseResult)) {
+			try {
+				validatorHandler = validatorHandlerPool.borrowObject(preparseResult);
+			} catch (ConfigurationException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new ConfigurationException(logPrefix + "Cannot obtain ValidatorHandler from pool", e);
+			}
+		} else {
+			validatorHandler = createValidatorHandler(preparseResult);
+		}
+		validatorHandler.setContentHandler(context.getContentHandler());
+		validatorHandler.setErrorHandler(context.getErrorHandler());
+		return validatorHandler;
+	}
+
+	@Override
+	public void releaseValidatorHandler(ValidationContext context, ValidatorHandler validatorHandler) {
+		PreparseResult preparseResult = ((XercesValidationContext) context).getPreparseResult();
+		if (isPooled(validatorHandlerPool, preparseResult)) {
+			release(validatorHandlerPool, preparseResult, validatorHandler);
+		}
+	}
+
+	private ValidatorHandler createValidatorHandler(PreparseResult preparseResult) throws ConfigurationException {
 		ValidatorHandler validatorHandler;
 
 		try {
 			javax.xml.validation.Schema schemaObject;
 			if (isXmlSchema1_0()) {
 				XMLSchemaFactory schemaFactory = new XMLSchemaFactory();
-				schemaObject = schemaFactory.newSchema(((XercesValidationContext) context).getGrammarPool());
+				schemaObject = schemaFactory.newSchema(preparseResult.getGrammarPool());
 			} else {
 				XMLSchema11Factory schemaFactory = new XMLSchema11Factory();
-				schemaObject = schemaFactory.newSchema(((XercesValidationContext) context).getGrammarPool());
+				schemaObject = schemaFactory.newSchema(preparseResult.getGrammarPool());
 			}
 
 			validatorHandler=schemaObject.newValidatorHandler();
@@ -305,9 +378,6 @@ public class XercesXmlValidator extends AbstractXmlValidator {
 			SecurityManager securityManager = new SecurityManager();
 			securityManager.setEntityExpansionLimit(entityExpansionLimit);
 			validatorHandler.setProperty(SECURITY_MANAGER_PROPERTY_ID, securityManager);
-
-			validatorHandler.setContentHandler(context.getContentHandler());
-			validatorHandler.setErrorHandler(context.getErrorHandler());
 		} catch (SAXNotRecognizedException e) {
 			throw new ConfigurationException(logPrefix + "ValidatorHandler does not recognize necessary feature", e);
 		} catch (SAXNotSupportedException e) {
@@ -315,9 +385,39 @@ public class XercesXmlValidator extends AbstractXmlValidator {
 		}
 		return validatorHandler;
 	}
+
+	/**
+	 * Obtains a validating parser for the grammars of the context. When the schemas do not depend on the session,
+	 * the parser is taken from a pool, and should be handed back using {@link #releaseValidatingParser(ValidationContext, XMLReader)}.
+	 */
 	public XMLReader createValidatingParser(PipeLineSession session, ValidationContext context) throws XmlValidatorException, ConfigurationException, PipeRunException {
-		SymbolTable symbolTable = ((XercesValidationContext)context).getSymbolTable();
-		XMLGrammarPool grammarPool = ((XercesValidationContext)context).getGrammarPool();
+		PreparseResult preparseResult = ((XercesValidationContext) context).getPreparseResult();
+		XMLReader parser;
+		if (isPooled(parserPool, preparseResult)) {
+			try {
+				parser = parserPool.borrowObject(preparseResult);
+			} catch (XmlValidatorException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new XmlValidatorException(logPrefix + "cannot obtain parser from pool", e);
+			}
+		} else {
+			parser = createValidatingParser(preparseResult);
+		}
+		parser.setErrorHandler(context.getErrorHandler());
+		return parser;
+	}
+
+	public void releaseValidatingParser(ValidationContext context, XMLReader parser) {
+		PreparseResult preparseResult = ((XercesValidationContext) context).getPreparseResult();
+		if (isPooled(parserPool, preparseResult)) {
+			release(parserPool, preparseResult, parser);
+		}
+	}
+
+	private XMLReader createValidatingParser(PreparseResult preparseResult) throws XmlValidatorException {
+		SymbolTable symbolTable = preparseResult.getSymbolTable();
+		XMLGrammarPool grammarPool = preparseResult.getGrammarPool();
 
 		XMLReader parser = new SAXParser(new ShadowedSymbolTable(symbolTable), grammarPool);
 		try {
@@ -329,7 +429,6 @@ public class XercesXmlValidator extends AbstractXmlValidator {
 //			parser.setFeature(DISSALLOW_DOCTYPE_DECL_FEATURE_ID, true);
 			parser.setFeature(SCHEMA_VALIDATION_FEATURE_ID, true);
 			parser.setFeature(SCHEMA_FULL_CHECKING_FEATURE_ID, isFullSchemaChecking());
-			parser.setErrorHandler(context.getErrorHandler());
 			org.apache.xerces.util.SecurityManager mgr = new org.apache.xerces.util.SecurityManager();
 			mgr.setEntityExpansionLimit(entityExpansionLimit);
 			parser.setProperty(SECURITY_MANAGER_PROPERTY_ID, mgr);
@@ -341,6 +440,88 @@ public class XercesXmlValidator extends AbstractXmlValidator {
 		return parser;
 	}
 
+	/**
+	 * Pools are only created for schemas that do not depend on the session, grammars preparsed per message are used only once.
+	 */
+	private boolean isPooled(GenericKeyedObjectPool<PreparseResult, ?> pool, PreparseResult preparseResult) {
+		return pool != null && preparseResult != null;
+	}
+
+	private <T> void release(GenericKeyedObjectPool<PreparseResult, T> pool, PreparseResult preparseResult, T object) {
+		try {
+			pool.returnObject(preparseResult, object);
+		} catch (Exception e) {
+			log.warn(logPrefix + "cannot return [" + object.getClass().getSimpleName() + "] to pool", e);
+		}
+	}
+
+	private class ValidatingParserFactory extends BaseKeyedPooledObjectFactory<PreparseResult, XMLReader> {
+
+		@Override
+		public XMLReader create(PreparseResult preparseResult) throws Exception {
+			return createValidatingParser(preparseResult);
+		}
+
+		@Override
+		public PooledObject<XMLReader> wrap(XMLReader parser) {
+			return new DefaultPooledObject<>(parser);
+		}
+
+		@Override
+		public void passivateObject(PreparseResult preparseResult, PooledObject<XMLReader> pooledObject) throws Exception {
+			XMLReader parser = pooledObject.getObject();
+			parser.setContentHandler(null);
+			parser.setErrorHandler(null);
+		}
+	}
+
+	private class ValidatorHandlerFactory extends BaseKeyedPooledObjectFactory<PreparseResult, ValidatorHandler> {
+
+		@Override
+		public ValidatorHandler create(PreparseResult preparseResult) throws Exception {
+			return createValidatorHandler(preparseResult);
+		}
+
+		@Override
+		public PooledObject<ValidatorHandler> wrap(ValidatorHandler validatorHandler) {
+			return new DefaultPooledObject<>(validatorHandler);
+		}
+
+		@Override
+		public void passivateObject(PreparseResult preparseResult, PooledObject<ValidatorHandler> pooledObject) throws Exception {
+			ValidatorHandler validatorHandler = pooledObject.getObject();
+			validatorHandler.setContentHandler(null);
+			validatorHandler.setErrorHandler(null);
+		}
+	}
+
+	@Override
+	public void iterateOverStatistics(StatisticsKeeperIterationHandler hski, Object data, int action) throws SenderException {
+		iterateOverPoolStatistics(hski, data, "validatingParserPool", parserPool);
+		iterateOverPoolStatistics(hski, data, "validatorHandlerPool", validatorHandlerPool);
+	}
+
+	private void iterateOverPoolStatistics(StatisticsKeeperIterationHandler hski, Object data, String name, GenericKeyedObjectPool<PreparseResult, ?> pool) throws SenderException {
+		if (pool == null) {
+			return;
+		}
+		Object poolData = hski.openGroup(data, name, "pool");
+		hski.handleScalar(poolData, "created", pool.getCreatedCount());
+		hski.handleScalar(poolData, "borrowed", pool.getBorrowedCount());
+		hski.handleScalar(poolData, "returned", pool.getReturnedCount());
+		hski.handleScalar(poolData, "destroyed", pool.getDestroyedCount());
+		hski.handleScalar(poolData, "active", pool.getNumActive());
+		hski.handleScalar(poolData, "idle", pool.getNumIdle());
+		hski.closeGroup(poolData);
+	}
+
+	GenericKeyedObjectPool<PreparseResult, XMLReader> getParserPool() {
+		return parserPool;
+	}
+
+	GenericKeyedObjectPool<PreparseResult, ValidatorHandler> getValidatorHandlerPool() {
+		return validatorHandlerPool;
+	}
 
 	private static XMLInputSource stringToXMLInputSource(Schema schema) throws IOException, ConfigurationException {
 		// SystemId is needed in case the schema has an import. Maybe we should
@@ -370,6 +551,10 @@ class XercesValidationContext extends ValidationContext {
 		this.preparseResult=preparseResult;
 	}
 
+	PreparseResult getPreparseResult() {
+		return preparseResult;
+	}
+
 	@Override
 	public String getSchemasId() {
 		return preparseResult.getSchemasId();
@@ -0,0 +1,105 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.webcontrol.api;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.security.RolesAllowed;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import nl.nn.adapterframework.statistics.tracing.FlightRecorder;
+import nl.nn.adapterframework.statistics.tracing.MessageTrace;
+import nl.nn.adapterframework.statistics.tracing.ZipkinTraceExporter;
+
+/**
+ * Dumps the slowest message traces recorded by the {@link FlightRecorder}.
+ */
+@Path("/")
+public final class ShowFlightRecorder extends Base {
+
+	@GET
+	@RolesAllowed({"IbisObserver", "IbisDataAdmin", "IbisAdmin", "IbisTester"})
+	@Path("/flightrecorder")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getSlowestTraces(@QueryParam("top") @DefaultValue("10") int top) throws ApiException {
+		FlightRecorder flightRecorder = FlightRecorder.getInstance();
+
+		Map<String, Object> returnMap = new LinkedHashMap<>();
+		returnMap.put("active", flightRecorder.isActive());
+		returnMap.put("tracesRecorded", flightRecorder.getNumberOfTracesRecorded());
+		List<Map<String, Object>> traces = new ArrayList<>();
+		for (MessageTrace trace:flightRecorder.getSlowestTraces(top)) {
+			traces.add(traceToMap(trace));
+		}
+		returnMap.put("traces", traces);
+
+		return Response.status(Response.Status.OK).entity(returnMap).build();
+	}
+
+	@GET
+	@RolesAllowed({"IbisObserver", "IbisDataAdmin", "IbisAdmin", "IbisTester"})
+	@Path("/flightrecorder/zipkin")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response exportSlowestTraces(@QueryParam("top") @DefaultValue("10") int top) throws ApiException {
+		String json = ZipkinTraceExporter.toJson(FlightRecorder.getInstance().getSlowestTraces(top));
+		return Response.status(Response.Status.OK).entity(json).build();
+	}
+
+	@DELETE
+	@RolesAllowed({"IbisDataAdmin", "IbisAdmin", "IbisTester"})
+	@Path("/flightrecorder")
+	public Response clear() throws ApiException {
+		FlightRecorder.getInstance().clear();
+		return Response.status(Response.Status.OK).build();
+	}
+
+	private Map<String, Object> traceToMap(MessageTrace trace) {
+		Map<String, Object> traceMap = new LinkedHashMap<>();
+		traceMap.put("adapter", trace.getAdapterName());
+		traceMap.put("messageId", trace.getMessageId());
+		traceMap.put("start", trace.getStartTimeMillis());
+		traceMap.put("duration", trace.getDurationMicros()/1000L);
+		traceMap.put("success", trace.isSuccessful());
+		if (trace.getReceiverWaitMillis()>=0) {
+			traceMap.put("receiverWait", trace.getReceiverWaitMillis());
+		}
+		if (trace.getDroppedSpans()>0) {
+			traceMap.put("droppedSpans", trace.getDroppedSpans());
+		}
+		List<Map<String, Object>> spans = new ArrayList<>();
+		for (int i=0; i<trace.getSpanCount(); i++) {
+			Map<String, Object> spanMap = new LinkedHashMap<>();
+			spanMap.put("type", trace.getSpanType(i).name());
+			spanMap.put("name", trace.getSpanName(i));
+			spanMap.put("parent", trace.getParentSpan(i));
+			spanMap.put("startMicros", trace.getSpanStartMicros(i));
+			spanMap.put("durationMicros", trace.getSpanDurationMicros(i));
+			spans.add(spanMap);
+		}
+		traceMap.put("spans", spans);
+		return traceMap;
+	}
+}
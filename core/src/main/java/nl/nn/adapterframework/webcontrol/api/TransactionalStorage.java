@@ -16,16 +16,19 @@ limitations under the License.
 package nl.nn.adapterframework.webcontrol.api;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.security.RolesAllowed;
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -35,8 +38,10 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.ToStringBuilder;
@@ -46,6 +51,7 @@ import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
 
+import lombok.Getter;
 import nl.nn.adapterframework.core.Adapter;
 import nl.nn.adapterframework.core.IListener;
 import nl.nn.adapterframework.core.IMessageBrowser;
@@ -147,7 +153,9 @@ public class TransactionalStorage extends Base {
 				@QueryParam("endDate") String endDateStr,
 				@QueryParam("sort") String sort,
 				@QueryParam("skip") int skipMessages,
-				@QueryParam("max") int maxMessages
+				@QueryParam("max") int maxMessages,
+				@QueryParam("seekKey") String seekKey,
+				@QueryParam("seekDate") String seekDateStr
 			) throws ApiException {
 
 		Adapter adapter = getIbisManager().getRegisteredAdapter(adapterName);
@@ -182,16 +190,13 @@ public class TransactionalStorage extends Base {
 		filter.setLabelMask(label);
 		filter.setStartDateMask(startDateStr);
 		filter.setEndDateMask(endDateStr);
+		filter.setSeekPosition(seekKey, seekDateStr);
 
 		if("desc".equalsIgnoreCase(sort))
 			filter.setSortOrder(SortOrder.DESC);
 		if("asc".equalsIgnoreCase(sort))
 			filter.setSortOrder(SortOrder.ASC);
-		Map<String, Object> resultObj = getMessages(storage, filter);
-		if(targetPSInfo != null && targetPSInfo.size()>0) {
-			resultObj.put("targetStates", targetPSInfo);
-		}
-		return Response.status(Response.Status.OK).entity(resultObj).build();
+		return Response.status(Response.Status.OK).entity(getMessages(storage, filter, targetPSInfo)).build();
 	}
 
 	@PUT
@@ -471,7 +476,9 @@ public class TransactionalStorage extends Base {
 				@QueryParam("endDate") String endDateStr,
 				@QueryParam("sort") String sort,
 				@QueryParam("skip") int skipMessages,
-				@QueryParam("max") int maxMessages
+				@QueryParam("max") int maxMessages,
+				@QueryParam("seekKey") String seekKey,
+				@QueryParam("seekDate") String seekDateStr
 			) throws ApiException {
 
 		Adapter adapter = getIbisManager().getRegisteredAdapter(adapterName);
@@ -499,13 +506,14 @@ public class TransactionalStorage extends Base {
 		filter.setLabelMask(label);
 		filter.setStartDateMask(startDateStr);
 		filter.setEndDateMask(endDateStr);
+		filter.setSeekPosition(seekKey, seekDateStr);
 
 		if("desc".equalsIgnoreCase(sort))
 			filter.setSortOrder(SortOrder.DESC);
 		if("asc".equalsIgnoreCase(sort))
 			filter.setSortOrder(SortOrder.ASC);
 
-		return Response.status(Response.Status.OK).entity(getMessages(storage, filter)).build();
+		return Response.status(Response.Status.OK).entity(getMessages(storage, filter, null)).build();
 	}
 
 	private String[] getMessages(MultipartBody inputDataMap) {
@@ -612,7 +620,14 @@ public class TransactionalStorage extends Base {
 				.build();
 	}
 
-	private Map<String, Object> getMessages(IMessageBrowser<?> transactionalStorage, MessageBrowsingFilter filter) {
+	/**
+	 * Writes the list of messages as it is read from the storage, so the size of the response does not affect the memory usage. 
+	 * When the maximum number of messages is reached, the response contains the position to continue from in <code>next</code>, 
+	 * that can be passed as seekKey and seekDate to retrieve the next page without reading the messages of the previous pages.
+	 * The messages are selected before the response is returned, so errors in the selection result in an error response
+	 * instead of a truncated list.
+	 */
+	private StreamingOutput getMessages(IMessageBrowser<?> transactionalStorage, MessageBrowsingFilter filter, Map<ProcessState, Map<String, String>> targetPSInfo) {
 		int messageCount = 0;
 		try {
 			messageCount = transactionalStorage.getMessageCount();
@@ -620,54 +635,103 @@ public class TransactionalStorage extends Base {
 			log.warn(e);
 			messageCount = -1;
 		}
+		final int totalMessages = messageCount;
 
-		Map<String, Object> returnObj = new HashMap<String, Object>(3);
-		returnObj.put("totalMessages", messageCount);
-		returnObj.put("skipMessages", filter.skipMessages());
-		returnObj.put("messageCount", messageCount - filter.skipMessages());
-
-		Date startDate = null;
-		Date endDate = null;
-		try (IMessageBrowsingIterator iterator = transactionalStorage.getIterator(startDate, endDate, filter.getSortOrder())) {
-			int count;
-			List<Object> messages = new LinkedList<Object>();
-			
-			for (count=0; iterator.hasNext(); ) {
-				try (IMessageBrowsingIteratorItem iterItem = iterator.next()) {
-					if(!filter.matchAny(iterItem))
-						continue;
-
-					count++;
-					if (count > filter.skipMessages()) { 
-						Map<String, Object> message = new HashMap<String, Object>(3);
-
-						message.put("id", iterItem.getId());
-						message.put("pos", count);
-						message.put("originalId", iterItem.getOriginalId());
-						message.put("correlationId", iterItem.getCorrelationId());
-						message.put("type", iterItem.getType());
-						message.put("host", iterItem.getHost());
-						message.put("insertDate", iterItem.getInsertDate());
-						message.put("expiryDate", iterItem.getExpiryDate());
-						message.put("comment", iterItem.getCommentString());
-						message.put("label", iterItem.getLabel());
-						messages.add(message);
-					}
-	
-					if (filter.maxMessages() > 0 && count >= (filter.maxMessages() + filter.skipMessages())) {
-						log.warn("stopped iterating messages after ["+count+"]: limit reached");
-						break;
+		final IMessageBrowsingIterator iterator;
+		try {
+			iterator = transactionalStorage.getIterator(filter.getStartDate(), filter.getEndDate(), filter.getSortOrder(), filter.getSeekDate(), filter.getSeekKey());
+		} catch (ListenerException e) {
+			throw new ApiException("cannot read messages from storage", e);
+		}
+
+		return new StreamingOutput() {
+			@Override
+			public void write(OutputStream out) throws IOException, WebApplicationException {
+				try (IMessageBrowsingIterator messages = iterator; JsonGenerator generator = Json.createGenerator(out)) {
+					generator.writeStartObject();
+					generator.write("totalMessages", totalMessages);
+					generator.write("skipMessages", filter.skipMessages());
+					generator.write("messageCount", totalMessages - filter.skipMessages());
+					if(targetPSInfo != null && targetPSInfo.size()>0) {
+						generator.writeStartObject("targetStates");
+						for (Map.Entry<ProcessState, Map<String, String>> entry : targetPSInfo.entrySet()) {
+							generator.writeStartObject(entry.getKey().name());
+							for (Map.Entry<String, String> info : entry.getValue().entrySet()) {
+								writeField(generator, info.getKey(), info.getValue());
+							}
+							generator.writeEnd();
+						}
+						generator.writeEnd();
 					}
+					writeMessages(generator, messages, filter);
+					generator.writeEnd();
+				} catch (ListenerException e) {
+					throw new WebApplicationException(e);
 				}
 			}
-			returnObj.put("messages", messages);
-		} catch (ListenerException|IOException e) {
-			throw new ApiException(e);
+		};
+	}
+
+	private void writeMessages(JsonGenerator generator, IMessageBrowsingIterator iterator, MessageBrowsingFilter filter) throws ListenerException, IOException {
+		String lastKey = null;
+		Date lastDate = null;
+		boolean limitReached = false;
+		generator.writeStartArray("messages");
+		for (int count=0; iterator.hasNext(); ) {
+			try (IMessageBrowsingIteratorItem iterItem = iterator.next()) {
+				if(!filter.matchAny(iterItem))
+					continue;
+
+				count++;
+				if (count > filter.skipMessages()) {
+					lastKey = iterItem.getId();
+					lastDate = iterItem.getInsertDate();
+					generator.writeStartObject();
+					writeField(generator, "id", lastKey);
+					generator.write("pos", count);
+					writeField(generator, "originalId", iterItem.getOriginalId());
+					writeField(generator, "correlationId", iterItem.getCorrelationId());
+					writeField(generator, "type", iterItem.getType());
+					writeField(generator, "host", iterItem.getHost());
+					writeField(generator, "insertDate", lastDate);
+					writeField(generator, "expiryDate", iterItem.getExpiryDate());
+					writeField(generator, "comment", iterItem.getCommentString());
+					writeField(generator, "label", iterItem.getLabel());
+					generator.writeEnd();
+				}
+
+				if (filter.maxMessages() > 0 && count >= (filter.maxMessages() + filter.skipMessages())) {
+					log.warn("stopped iterating messages after ["+count+"]: limit reached");
+					limitReached = true;
+					break;
+				}
+			}
+		}
+		generator.writeEnd();
+		if (limitReached && lastKey != null) {
+			generator.writeStartObject("next");
+			generator.write("seekKey", lastKey);
+			writeField(generator, "seekDate", lastDate==null ? null : (lastDate instanceof Timestamp ? lastDate : new Timestamp(lastDate.getTime())).toString());
+			generator.writeEnd();
 		}
+	}
+
+	private void writeField(JsonGenerator generator, String name, String value) {
+		if (value == null) {
+			generator.writeNull(name);
+		} else {
+			generator.write(name, value);
+		}
+	}
 
-		return returnObj;
+	private void writeField(JsonGenerator generator, String name, Date value) {
+		if (value == null) {
+			generator.writeNull(name);
+		} else {
+			generator.write(name, value.getTime());
+		}
 	}
-	
+
 	public Map<ProcessState, Map<String, String>> getTargetProcessStateInfo(Set<ProcessState> targetProcessStates) {
 		if(targetProcessStates == null) {
 			return null;
@@ -690,8 +754,10 @@ public class TransactionalStorage extends Base {
 		private String comment = null;
 		private String message = null;
 		private String label = null;
-		private Date startDate = null;
-		private Date endDate = null;
+		private @Getter Date startDate = null;
+		private @Getter Date endDate = null;
+		private @Getter String seekKey = null;
+		private @Getter Date seekDate = null;
 
 		private int maxMessages = 0;
 		private int skipMessages = 0;
@@ -857,6 +923,30 @@ public class TransactionalStorage extends Base {
 			}
 		}
 
+		/**
+		 * Sets the position to continue from, as returned in <code>next</code> by a previous request. The seekDate is 
+		 * formatted as a JDBC timestamp, to retain the full precision of the insertDate of the message.
+		 */
+		public void setSeekPosition(String seekKey, String seekDateStr) {
+			if(StringUtils.isEmpty(seekKey)) {
+				return;
+			}
+			this.seekKey = seekKey;
+			if(StringUtils.isNotEmpty(seekDateStr)) {
+				try {
+					seekDate = Timestamp.valueOf(seekDateStr);
+				} catch (IllegalArgumentException e) {
+					try {
+						seekDate = DateUtils.parseAnyDate(seekDateStr);
+					} catch(CalendarParserException ex) {
+						throw new ApiException("could not parse seekDate from ["+seekDateStr+"] msg["+ex.getMessage()+"]");
+					}
+					if(seekDate == null)
+						throw new ApiException("could not parse seekDate from ["+seekDateStr+"]");
+				}
+			}
+		}
+
 		public int skipMessages() {
 			return skipMessages;
 		}
@@ -0,0 +1,88 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.xml;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Filter that changes the name of the root element, the SAX equivalent of
+ * {@link nl.nn.adapterframework.util.XmlUtils#getChangeRootTransformerPool(String, boolean, boolean)}.
+ * The namespace and prefix of the root element are kept. Like the stylesheet, only the child elements of the root
+ * element are copied, text, comments and processing instructions directly under the root element are skipped.
+ */
+public class RootElementRenamingFilter extends FullXmlFilter {
+
+	private String root;
+	private int elementLevel = 0;
+
+	public RootElementRenamingFilter(ContentHandler handler, String root) {
+		super(handler);
+		this.root = root;
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		if (elementLevel++ == 0) {
+			super.startElement(uri, root, rename(qName), atts);
+		} else {
+			super.startElement(uri, localName, qName, atts);
+		}
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		if (--elementLevel == 0) {
+			super.endElement(uri, root, rename(qName));
+		} else {
+			super.endElement(uri, localName, qName);
+		}
+	}
+
+	private String rename(String qName) {
+		int colon = qName.indexOf(':');
+		return colon > 0 ? qName.substring(0, colon + 1) + root : root;
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		if (elementLevel > 1) {
+			super.characters(ch, start, length);
+		}
+	}
+
+	@Override
+	public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+		if (elementLevel > 1) {
+			super.ignorableWhitespace(ch, start, length);
+		}
+	}
+
+	@Override
+	public void comment(char[] ch, int start, int length) throws SAXException {
+		if (elementLevel > 1) {
+			super.comment(ch, start, length);
+		}
+	}
+
+	@Override
+	public void processingInstruction(String target, String data) throws SAXException {
+		if (elementLevel > 1) {
+			super.processingInstruction(target, data);
+		}
+	}
+}
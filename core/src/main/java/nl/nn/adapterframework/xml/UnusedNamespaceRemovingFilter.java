@@ -0,0 +1,128 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.xml;
+
+import java.util.Enumeration;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.NamespaceSupport;
+
+/**
+ * Filter that removes namespace declarations that are not used, the SAX equivalent of
+ * {@link nl.nn.adapterframework.util.XmlUtils#getRemoveUnusedNamespacesXslt2TransformerPool(boolean, boolean)}.
+ * Element names are written without prefix, with a default namespace declaration where the namespace changes.
+ * Namespaced attributes keep their prefix, and the prefix is declared where it is used. The prefix of an
+ * <code>xsi:type</code> value is removed when it refers to the namespace of the element; otherwise it is declared too.
+ */
+public class UnusedNamespaceRemovingFilter extends FullXmlFilter {
+
+	private static final String XSI_NAMESPACE = "http://www.w3.org/2001/XMLSchema-instance";
+
+	private NamespaceSupport inputNamespaces = new NamespaceSupport();
+	private NamespaceSupport outputNamespaces = new NamespaceSupport();
+	private boolean inputContextPushed;
+	private int generatedPrefixCount;
+
+	public UnusedNamespaceRemovingFilter(ContentHandler handler) {
+		super(handler);
+	}
+
+	@Override
+	public void startDocument() throws SAXException {
+		inputNamespaces.reset();
+		outputNamespaces.reset();
+		inputContextPushed = false;
+		super.startDocument();
+	}
+
+	@Override
+	public void startPrefixMapping(String prefix, String uri) throws SAXException {
+		if (!inputContextPushed) {
+			inputNamespaces.pushContext();
+			inputContextPushed = true;
+		}
+		inputNamespaces.declarePrefix(prefix, uri);
+	}
+
+	@Override
+	public void endPrefixMapping(String prefix) throws SAXException {
+		// namespace declarations are generated where they are used
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		if (!inputContextPushed) {
+			inputNamespaces.pushContext();
+		}
+		inputContextPushed = false;
+		outputNamespaces.pushContext();
+
+		declare("", uri);
+		AttributesImpl attributes = null;
+		for (int i = 0; i < atts.getLength(); i++) {
+			String attributeUri = atts.getURI(i);
+			if (StringUtils.isEmpty(attributeUri)) {
+				continue;
+			}
+			String attributeQName = atts.getQName(i);
+			int colon = attributeQName.indexOf(':');
+			String prefix = colon > 0 ? attributeQName.substring(0, colon) : null;
+			if (prefix == null) {
+				prefix = "ns" + (++generatedPrefixCount);
+			}
+			declare(prefix, attributeUri);
+			String value = atts.getValue(i);
+			if (XSI_NAMESPACE.equals(attributeUri) && "type".equals(atts.getLocalName(i)) && value.indexOf(':') > 0) {
+				String valuePrefix = value.substring(0, value.indexOf(':'));
+				String valueNamespace = inputNamespaces.getURI(valuePrefix);
+				if (valueNamespace != null && valueNamespace.equals(uri)) {
+					value = value.substring(valuePrefix.length() + 1);
+				} else if (valueNamespace != null) {
+					declare(valuePrefix, valueNamespace);
+				}
+			}
+			if (attributes == null) {
+				attributes = new AttributesImpl(atts);
+			}
+			attributes.setQName(i, prefix + ":" + atts.getLocalName(i));
+			attributes.setValue(i, value);
+		}
+		super.startElement(uri, localName, localName, attributes != null ? attributes : atts);
+	}
+
+	private void declare(String prefix, String uri) throws SAXException {
+		String current = outputNamespaces.getURI(prefix);
+		if (uri.equals(current) || current == null && uri.isEmpty()) {
+			return;
+		}
+		outputNamespaces.declarePrefix(prefix, uri);
+		super.startPrefixMapping(prefix, uri);
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		super.endElement(uri, localName, localName);
+		for (Enumeration<?> prefixes = outputNamespaces.getDeclaredPrefixes(); prefixes.hasMoreElements();) {
+			super.endPrefixMapping((String)prefixes.nextElement());
+		}
+		outputNamespaces.popContext();
+		inputNamespaces.popContext();
+	}
+}
@@ -0,0 +1,104 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RecordTransformerTest {
+
+	private RecordTransformer createTransformer(String outputFields) throws Exception {
+		RecordTransformer transformer = new RecordTransformer();
+		transformer.setName("transformer");
+		transformer.setOutputFields(outputFields);
+		transformer.configure();
+		return transformer;
+	}
+
+	@Test
+	public void parseFixedPositionsWithTrim() throws Exception {
+		RecordTransformer transformer = new RecordTransformer();
+		transformer.setInputFields("3,5,4,2");
+		transformer.setTrim(true);
+
+		List<String> fields = transformer.parse(null, "ab  cd ef   ");
+		assertEquals(Arrays.asList("ab", "cd e", "f", ""), fields);
+	}
+
+	@Test
+	public void parseSeparatedWithTrim() throws Exception {
+		RecordTransformer transformer = new RecordTransformer();
+		transformer.setInputSeparator(";");
+		transformer.setTrim(true);
+
+		List<String> fields = transformer.parse(null, " a ;b;  ; c");
+		assertEquals(Arrays.asList("a", "b", "", "c"), fields);
+	}
+
+	@Test
+	public void parseSeparatedWithoutTrim() throws Exception {
+		RecordTransformer transformer = new RecordTransformer();
+		transformer.setInputSeparator(";");
+
+		List<String> fields = transformer.parse(null, " a ;b;;");
+		assertEquals(Arrays.asList(" a ", "b", "", ""), fields);
+	}
+
+	@Test
+	public void transformFunctions() throws Exception {
+		RecordTransformer transformer = createTransformer("string([);inalign(1,5,left,_);inalign(2,4,right,0);substr(1,1,4);substr(2,0,6);fill(2,*);align(xy,3,right,.);string(])");
+
+		String result = transformer.handleRecord(null, Arrays.asList("abc", "12"));
+		assertEquals("[abc__0012bc12    **.xy]", result);
+	}
+
+	@Test
+	public void transformConditions() throws Exception {
+		RecordTransformer transformer = createTransformer("if(1,eq,{A|B});incopy(2);elseif(1,sw,{C|D});string(starts);endif();string(!)");
+
+		assertEquals("x!", transformer.handleRecord(null, Arrays.asList("A", "x")));
+		assertEquals("y!", transformer.handleRecord(null, Arrays.asList("B", "y")));
+		assertEquals("starts!", transformer.handleRecord(null, Arrays.asList("Dz", "z")));
+		assertEquals("!", transformer.handleRecord(null, Arrays.asList("E", "z")));
+	}
+
+	@Test
+	public void emptyResult() throws Exception {
+		RecordTransformer transformer = createTransformer("if(1,ne,A);incopy(2);endif()");
+
+		assertNull(transformer.handleRecord(null, Arrays.asList("A", "x")));
+	}
+
+	@Test
+	public void outputFieldImplementingStringBufferVariant() throws Exception {
+		RecordTransformer.IOutputField legacyField = new RecordTransformer.IOutputField() {
+			@Override
+			public RecordTransformer.IOutputField appendValue(RecordTransformer.IOutputField curFunction, StringBuffer result, List<String> inputFields) {
+				result.append(inputFields.get(0));
+				return null;
+			}
+		};
+		StringBuilder output = new StringBuilder("<");
+
+		assertNull(legacyField.appendValue(legacyField, output, Arrays.asList("abc")));
+		assertEquals("<abc", output.toString());
+	}
+}
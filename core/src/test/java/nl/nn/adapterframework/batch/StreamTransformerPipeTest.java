@@ -0,0 +1,119 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.batch;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Test;
+
+import nl.nn.adapterframework.core.PipeForward;
+import nl.nn.adapterframework.core.PipeLineSession;
+import nl.nn.adapterframework.core.PipeRunException;
+import nl.nn.adapterframework.stream.Message;
+
+public class StreamTransformerPipeTest {
+
+	private ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	private String createInput(int records) {
+		StringBuilder input = new StringBuilder();
+		for (int i=1; i<=records; i++) {
+			input.append("type").append(i/7).append(",record").append(i).append("\n");
+			if (i%50==0) {
+				input.append("\n"); // empty lines are ignored
+			}
+		}
+		return input.toString();
+	}
+
+	private StreamTransformerPipe createPipe(int maxThreads, String failOnField) throws Exception {
+		StreamTransformerPipe pipe = new StreamTransformerPipe();
+		pipe.setName("StreamTransformerPipe under test");
+		pipe.registerForward(new PipeForward("success", null));
+		pipe.setMaxThreads(maxThreads);
+		pipe.setChunkSize(10);
+		pipe.setTaskExecutor(executor::execute);
+
+		RecordTransformer recordHandler = new RecordTransformer() {
+			@Override
+			public String handleRecord(PipeLineSession session, List<String> parsedRecord) throws Exception {
+				if (parsedRecord.get(1).equals(failOnField)) {
+					throw new IllegalStateException("cannot transform ["+failOnField+"]");
+				}
+				return super.handleRecord(session, parsedRecord);
+			}
+		};
+		recordHandler.setName("recordHandler");
+		recordHandler.setInputSeparator(",");
+		recordHandler.setRecordIdentifyingFields("1");
+		recordHandler.addOutputInput(2);
+		pipe.registerRecordHandler(recordHandler);
+
+		Result2StringWriter resultHandler = new Result2StringWriter();
+		resultHandler.setName("resultHandler");
+		resultHandler.setBlockByRecordType(true);
+		resultHandler.setOnOpenBlock("<#name#>");
+		resultHandler.setOnCloseBlock("</#name#>");
+		pipe.registerResultHandler(resultHandler);
+
+		pipe.configure();
+		pipe.start();
+		return pipe;
+	}
+
+	private String transform(int maxThreads, String input) throws Exception {
+		StreamTransformerPipe pipe = createPipe(maxThreads, null);
+		PipeLineSession session = new PipeLineSession();
+		session.put(PipeLineSession.messageIdKey, "fakeMessageId");
+		return pipe.doPipe(new Message(input), session).getResult().asString();
+	}
+
+	@Test
+	public void parallelTransformationKeepsOrderAndBlocks() throws Exception {
+		String input = createInput(1000);
+		String expected = transform(1, input);
+		assertThat(expected, containsString("<type0>\nrecord1\n"));
+
+		assertEquals(expected, transform(4, input));
+	}
+
+	@Test
+	public void parallelTransformationReportsLineOfFailingRecord() throws Exception {
+		StreamTransformerPipe pipe = createPipe(4, "record500");
+		PipeLineSession session = new PipeLineSession();
+		session.put(PipeLineSession.messageIdKey, "fakeMessageId");
+		try {
+			pipe.doPipe(new Message(createInput(1000)), session);
+			fail("expected exception");
+		} catch (PipeRunException e) {
+			assertThat(e.getMessage(), containsString("at or after line [509]"));
+			assertThat(e.getMessage(), containsString("cannot transform [record500]"));
+		}
+	}
+}
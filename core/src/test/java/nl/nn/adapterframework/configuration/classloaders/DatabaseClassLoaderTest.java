@@ -1,5 +1,5 @@
 /*
-   Copyright 2019 Nationale-Nederlanden, 2020 WeAreFrank!
+   Copyright 2019 Nationale-Nederlanden, 2020-2021 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@ package nl.nn.adapterframework.configuration.classloaders;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
 import java.net.URL;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -27,7 +28,9 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.LogEvent;
 import org.hamcrest.Matchers;
 import org.hamcrest.core.StringContains;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import nl.nn.adapterframework.configuration.ClassLoaderManager;
 import nl.nn.adapterframework.configuration.ConfigurationException;
@@ -42,6 +45,10 @@ import nl.nn.adapterframework.testutil.TestAppender;
 public class DatabaseClassLoaderTest extends ConfigurationClassLoaderTestBase<DatabaseClassLoader> {
 	private final String ERROR_PREFIX = "error configuring ClassLoader for configuration [";
 	private final String ERROR_SUFFIX = "]";
+	private ResultSet resultSet;
+
+	@Rule
+	public TemporaryFolder cacheFolder = new TemporaryFolder();
 
 	@Override
 	public DatabaseClassLoader createClassLoader(ClassLoader parent) throws Exception {
@@ -84,6 +91,7 @@ public class DatabaseClassLoaderTest extends ConfigurationClassLoaderTestBase<Da
 		URL file = this.getClass().getResource(JAR_FILE);
 		doReturn(Misc.streamToBytes(file.openStream())).when(rs).getBytes(anyInt());
 		doReturn(rs).when(stmt).executeQuery();
+		resultSet = rs;
 		doReturn(fq).when(ibisContext).createBeanAutowireByName(FixedQuerySender.class);
 	}
 
@@ -98,6 +106,82 @@ public class DatabaseClassLoaderTest extends ConfigurationClassLoaderTestBase<Da
 		resourceExists("ClassLoader/fileOnlyOnZipClassPath.xml");
 	}
 
+	private DatabaseClassLoader createCachingClassLoader() throws Exception {
+		DatabaseClassLoader classLoader = new DatabaseClassLoader(new ClassLoaderMock());
+		classLoader.setBasePath(".");
+		classLoader.configure(ibisContext, getConfigurationName());
+		return classLoader;
+	}
+
+	@Test
+	public void cachedJarIsReused() throws Exception {
+		appConstants.put("configurations.database.cacheDir", cacheFolder.getRoot().getPath());
+		try {
+			mockDatabase();
+			DatabaseClassLoader first = createCachingClassLoader();
+			verify(resultSet).getBytes(anyInt());
+
+			mockDatabase();
+			DatabaseClassLoader second = createCachingClassLoader();
+			verify(resultSet, never()).getBytes(anyInt());
+			URL url = second.getResource("fileOnlyOnZipClassPath.xml");
+			assertNotNull(url);
+			assertTrue(Misc.streamToString(url.openStream()).length() > 0);
+			first.destroy();
+			second.destroy();
+		} finally {
+			appConstants.put("configurations.database.cacheDir", "");
+		}
+	}
+
+	@Test
+	public void unusedJarsAreRemovedFromCache() throws Exception {
+		appConstants.put("configurations.database.cacheDir", cacheFolder.getRoot().getPath());
+		try {
+			File configurationDir = new File(cacheFolder.getRoot(), getConfigurationName());
+			configurationDir.mkdirs();
+			File staleJar = new File(configurationDir, "stale.jar");
+			assertTrue(staleJar.createNewFile());
+
+			mockDatabase();
+			DatabaseClassLoader classLoader = createCachingClassLoader();
+			assertFalse(staleJar.exists());
+			assertEquals(1, configurationDir.listFiles().length);
+			classLoader.destroy();
+		} finally {
+			appConstants.put("configurations.database.cacheDir", "");
+		}
+	}
+
+	@Test
+	public void urlsRemainValidAfterReload() throws Exception {
+		appConstants.put("configurations.database.cacheDir", cacheFolder.getRoot().getPath());
+		try {
+			mockDatabase();
+			DatabaseClassLoader classLoader = createCachingClassLoader();
+			URL url = classLoader.getResource("fileOnlyOnZipClassPath.xml");
+
+			mockDatabase();
+			classLoader.reload();
+			assertTrue(Misc.streamToString(url.openStream()).length() > 0);
+			assertNotNull(classLoader.getResource("fileOnlyOnZipClassPath.xml"));
+			classLoader.destroy();
+		} finally {
+			appConstants.put("configurations.database.cacheDir", "");
+		}
+	}
+
+	@Test
+	public void jarIsKeptInMemoryWithoutCacheDir() throws Exception {
+		mockDatabase();
+
+		DatabaseClassLoader classLoader = createCachingClassLoader();
+
+		verify(resultSet).getBytes(anyInt());
+		assertNotNull(classLoader.getResource("fileOnlyOnZipClassPath.xml"));
+		classLoader.destroy();
+	}
+
 	/**
 	 * This test makes sure that when the config can't be found, it throws an ConfigurationException
 	 * @throws Exception
@@ -18,6 +18,7 @@ package nl.nn.adapterframework.configuration.classloaders;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.io.File;
 import java.net.URL;
 import java.util.List;
 import java.util.jar.JarFile;
@@ -79,6 +80,27 @@ public class JarFileClassLoaderTest extends ConfigurationClassLoaderTestBase<Jar
 		assertEquals("Path of resource invalid", fileNameWithBasePath, url.getPath());
 	}
 
+	@Test
+	public void replacedJarFilesAreClosedOnNextReload() throws Exception {
+		File jar = new File(this.getClass().getResource(JAR_FILE).getFile());
+		int openBefore = JarFileResources.getOpenCount(jar);
+
+		JarFileClassLoader classLoader = createClassLoader(new ClassLoaderMock(), JAR_FILE);
+		classLoader.setBasePath(".");
+		classLoader.configure(ibisContext, getConfigurationName());
+		assertEquals(openBefore + 1, JarFileResources.getOpenCount(jar));
+
+		for (int i=0; i<5; i++) {
+			classLoader.reload();
+			assertNotNull(classLoader.getResource("ClassLoader/fileOnlyOnZipClassPath.xml"));
+			// the current resources, and the resources replaced by the last reload
+			assertEquals("open handles after reload ["+i+"]", openBefore + 2, JarFileResources.getOpenCount(jar));
+		}
+
+		classLoader.destroy();
+		assertEquals(openBefore, JarFileResources.getOpenCount(jar));
+	}
+
 	@Test
 	public void testMyConfig() throws Exception {
 		TestAppender appender = TestAppender.newBuilder().useIbisPatternLayout("%level - %m").build();
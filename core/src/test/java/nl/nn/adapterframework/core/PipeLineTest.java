@@ -1,12 +1,16 @@
 package nl.nn.adapterframework.core;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 
+import java.util.Arrays;
+
 import org.hamcrest.core.StringEndsWith;
 import org.junit.Test;
 
 import nl.nn.adapterframework.configuration.ConfigurationException;
 import nl.nn.adapterframework.configuration.ConfigurationWarnings;
+import nl.nn.adapterframework.pipes.XsltPipe;
 
 public class PipeLineTest {
 
@@ -24,4 +28,35 @@ public class PipeLineTest {
 		String lastWarning = ConfigurationWarnings.getInstance().getLast();
 		assertThat(lastWarning,StringEndsWith.endsWith("PipeLine exit named [success] already exists"));
 	}
+
+	private XsltPipe createXsltPipe(String name, String xpathExpression) {
+		XsltPipe pipe = new XsltPipe();
+		pipe.setName(name);
+		pipe.setXpathExpression(xpathExpression);
+		pipe.setOutputType("xml");
+		return pipe;
+	}
+
+	@Test
+	public void testStreamingSegments() throws ConfigurationException {
+		Adapter adapter = new Adapter();
+		adapter.setName("testStreamingSegments");
+		PipeLine pipeline = new PipeLine();
+		PipeLineExit exit = new PipeLineExit();
+		exit.setPath("exit");
+		exit.setState("success");
+		pipeline.registerPipeLineExit(exit);
+		pipeline.addPipe(createXsltPipe("a", "/root/a"));
+		pipeline.addPipe(createXsltPipe("b", "/a/b"));
+		XsltPipe storing = createXsltPipe("c", "/b/c");
+		storing.setStoreResultInSessionKey("c");
+		pipeline.addPipe(storing);
+		pipeline.addPipe(createXsltPipe("d", "/c/d"));
+		pipeline.addPipe(createXsltPipe("e", "/d/e"));
+		adapter.setPipeLine(pipeline);
+
+		pipeline.configure();
+
+		assertEquals(Arrays.asList("a -> b", "d -> e"), pipeline.getStreamingSegments());
+	}
 }
@@ -0,0 +1,82 @@
+package nl.nn.adapterframework.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import nl.nn.adapterframework.core.IMessageBrowser.SortOrder;
+
+public class SeekingMessageBrowsingIteratorTest {
+
+	private IMessageBrowsingIteratorItem createItem(String id, long insertDate) throws ListenerException {
+		IMessageBrowsingIteratorItem item = mock(IMessageBrowsingIteratorItem.class);
+		when(item.getId()).thenReturn(id);
+		when(item.getInsertDate()).thenReturn(new Date(insertDate));
+		return item;
+	}
+
+	private IMessageBrowsingIterator createSource(String... ids) throws ListenerException {
+		List<IMessageBrowsingIteratorItem> items = new ArrayList<>();
+		for (int i=0; i<ids.length; i++) {
+			items.add(createItem(ids[i], 1000L*(i+1)));
+		}
+		Iterator<IMessageBrowsingIteratorItem> iterator = items.iterator();
+		return new IMessageBrowsingIterator() {
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public IMessageBrowsingIteratorItem next() {
+				return iterator.next();
+			}
+
+			@Override
+			public void close() {
+				// nothing to close
+			}
+		};
+	}
+
+	private String getIds(IMessageBrowsingIterator iterator) throws ListenerException {
+		StringBuilder result = new StringBuilder();
+		while (iterator.hasNext()) {
+			result.append(iterator.next().getId());
+		}
+		iterator.close();
+		return result.toString();
+	}
+
+	@Test
+	public void testSeekToKey() throws ListenerException {
+		IMessageBrowsingIterator iterator = new SeekingMessageBrowsingIterator(createSource("a", "b", "c", "d"), SortOrder.NONE, null, "b");
+		assertEquals("cd", getIds(iterator));
+	}
+
+	@Test
+	public void testSeekToLastKey() throws ListenerException {
+		IMessageBrowsingIterator iterator = new SeekingMessageBrowsingIterator(createSource("a", "b", "c"), SortOrder.NONE, null, "c");
+		assertEquals("", getIds(iterator));
+	}
+
+	@Test
+	public void testSeekToRemovedKeyUsesDate() throws ListenerException {
+		IMessageBrowsingIterator iterator = new SeekingMessageBrowsingIterator(createSource("a", "c", "d"), SortOrder.ASC, new Date(1500), "b");
+		assertEquals("cd", getIds(iterator));
+	}
+
+	@Test
+	public void testSeekToRemovedKeyWithoutOrder() throws ListenerException {
+		IMessageBrowsingIterator iterator = new SeekingMessageBrowsingIterator(createSource("a", "c", "d"), SortOrder.NONE, new Date(1500), "b");
+		assertEquals("", getIds(iterator));
+	}
+}
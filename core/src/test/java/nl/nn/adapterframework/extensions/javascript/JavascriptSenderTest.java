@@ -1,14 +1,19 @@
 package nl.nn.adapterframework.extensions.javascript;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
+import org.mozilla.javascript.Context;
 
 import edu.emory.mathcs.backport.java.util.Arrays;
 import nl.nn.adapterframework.configuration.ConfigurationException;
@@ -338,6 +343,81 @@ public class JavascriptSenderTest extends SenderTestBase<JavascriptSender> {
 		assertEquals("12", sender.sendMessage(input,session).asString());
 	}
 	
+	//The script is compiled once per runtime, the runtime is reused by other threads until maxUsesPerRuntime is reached.
+	@Test
+	public void runtimeIsReused() throws Exception {
+		Message dummyInput = new Message("dummyinput");
+		sender.setJsFileName("Javascript/JavascriptTest.js"); 
+		sender.setJsFunctionName("countCalls");
+		sender.setEngineName(engine);
+		sender.setPoolSize(1);
+		sender.setMaxUsesPerRuntime(2);
+
+		sender.configure();
+		sender.open();
+
+		assertEquals("1", sender.sendMessage(dummyInput,session).asString());
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			assertEquals("2", executor.submit(() -> sender.sendMessage(dummyInput,session).asString()).get());
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals("1", sender.sendMessage(dummyInput,session).asString());
+	}
+
+	//A runtime in which an error occurred is not reused
+	@Test
+	public void runtimeIsReplacedAfterError() throws Exception {
+		Message dummyInput = new Message("dummyinput");
+		sender.setJsFileName("Javascript/JavascriptTest.js"); 
+		sender.setJsFunctionName("countCalls");
+		sender.setEngineName(engine);
+		sender.setPoolSize(1);
+
+		Parameter param = new Parameter();
+		param.setName("x");
+		param.setSessionKey("action");
+		sender.addParameter(param);
+
+		sender.configure();
+		sender.open();
+
+		session.put("action", "count");
+		assertEquals("1", sender.sendMessage(dummyInput,session).asString());
+		assertEquals("2", sender.sendMessage(dummyInput,session).asString());
+		session.put("action", "fail");
+		try {
+			sender.sendMessage(dummyInput,session);
+			fail("expected the javascript function to fail");
+		} catch (RuntimeException e) {
+			// expected
+		}
+		session.put("action", "count");
+		assertEquals("1", sender.sendMessage(dummyInput,session).asString());
+	}
+
+	//Runtimes that are discarded on return are released, so Rhino contexts do not pile up on the calling thread
+	@Test
+	public void runtimesAreRecycledOnTheSameThread() throws Exception {
+		Message dummyInput = new Message("dummyinput");
+		sender.setJsFileName("Javascript/JavascriptTest.js"); 
+		sender.setJsFunctionName("countCalls");
+		sender.setEngineName(engine);
+		sender.setPoolSize(1);
+		sender.setMaxUsesPerRuntime(1);
+
+		sender.configure();
+		sender.open();
+
+		for (int i=0; i<5; i++) {
+			assertEquals("1", sender.sendMessage(dummyInput,session).asString());
+			if (engine.equals("Rhino")) {
+				assertNull("Rhino context still entered after call ["+i+"]", Context.getCurrentContext());
+			}
+		}
+	}
+
 	//This test is used to compare the performance of J2V8 to that of Nashorn. J2V8 should finish about ten times faster than Nashorn.
 	@Test
 	@Ignore
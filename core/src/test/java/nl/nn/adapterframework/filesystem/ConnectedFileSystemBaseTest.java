@@ -0,0 +1,300 @@
+package nl.nn.adapterframework.filesystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import nl.nn.adapterframework.configuration.ConfigurationException;
+import nl.nn.adapterframework.stream.Message;
+
+/**
+ * Tests the connection pool of {@link ConnectedFileSystemBase} and the bulk transfers of {@link FileSystemUtils},
+ * using a local stand-in for a remote FileSystem like Samba.
+ */
+public class ConnectedFileSystemBaseTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	private PooledLocalFileSystem fileSystem;
+
+	@Before
+	public void setUp() throws Exception {
+		fileSystem = new PooledLocalFileSystem(temp.getRoot().getAbsolutePath());
+		fileSystem.setMaxConnections(4);
+		fileSystem.configure();
+		fileSystem.open();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		fileSystem.close();
+	}
+
+	private List<Path> createFiles(int count) throws IOException {
+		List<Path> files = new ArrayList<>();
+		for (int i=0; i<count; i++) {
+			files.add(Files.write(temp.getRoot().toPath().resolve("file"+i+".txt"), ("content"+i).getBytes()));
+		}
+		return files;
+	}
+
+	@Test
+	public void bulkMoveUsesMultipleConnections() throws Exception {
+		List<Path> files = createFiles(12);
+
+		List<Path> moved = FileSystemUtils.moveFiles(fileSystem, files, "destination", false, 0, true, 4);
+
+		assertEquals(files.size(), moved.size());
+		for (int i=0; i<files.size(); i++) {
+			assertEquals("file"+i+".txt", moved.get(i).getFileName().toString());
+			assertTrue(Files.exists(moved.get(i)));
+			assertFalse(Files.exists(files.get(i)));
+		}
+		assertTrue("transfers should run in parallel, max concurrent was "+fileSystem.maxConcurrent.get(), fileSystem.maxConcurrent.get() > 1);
+		assertTrue("no more than maxConnections should be in use, max concurrent was "+fileSystem.maxConcurrent.get(), fileSystem.maxConcurrent.get() <= 4);
+		assertTrue(fileSystem.connectionsCreated.get() <= 4);
+	}
+
+	@Test
+	public void bulkCopyKeepsSourceFiles() throws Exception {
+		List<Path> files = createFiles(6);
+
+		List<Path> copied = FileSystemUtils.copyFiles(fileSystem, files, "destination", false, 0, true, 3);
+
+		assertEquals(files.size(), copied.size());
+		for (int i=0; i<files.size(); i++) {
+			assertEquals("content"+i, new String(Files.readAllBytes(copied.get(i))));
+			assertTrue(Files.exists(files.get(i)));
+		}
+	}
+
+	@Test
+	public void bulkMoveFailsWhenFileIsMissing() throws Exception {
+		List<Path> files = createFiles(4);
+		files.add(temp.getRoot().toPath().resolve("missing.txt"));
+
+		try {
+			FileSystemUtils.moveFiles(fileSystem, files, "destination", false, 0, true, 4);
+			fail("expected FileSystemException");
+		} catch (FileSystemException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("missing.txt"));
+		}
+	}
+
+	@Test
+	public void invalidConnectionIsReplaced() throws Exception {
+		Path file = createFiles(1).get(0);
+		assertTrue(fileSystem.exists(file));
+		assertTrue(fileSystem.exists(file));
+		int created = fileSystem.connectionsCreated.get();
+		assertEquals(1, created);
+
+		fileSystem.lastConnection.valid = false;
+
+		assertTrue(fileSystem.exists(file));
+		assertEquals(created+1, fileSystem.connectionsCreated.get());
+		assertEquals(1, fileSystem.connectionsClosed.get());
+	}
+
+	@Test(timeout=10000)
+	public void connectionIsReleasedWhenStreamIsClosed() throws Exception {
+		Path file = createFiles(1).get(0);
+		fileSystem.setMaxConnections(1);
+		fileSystem.close();
+		fileSystem.open();
+
+		for (int i=0; i<3; i++) {
+			Message message = fileSystem.readFile(file);
+			assertEquals("content0", message.asString());
+		}
+		assertEquals(1, fileSystem.connectionsCreated.get());
+	}
+
+	private static class Connection {
+		private boolean valid = true;
+	}
+
+	/**
+	 * Stand-in for a remote FileSystem, that uses a connection for each operation.
+	 */
+	private static class PooledLocalFileSystem extends ConnectedFileSystemBase<Path, Connection> {
+		private final LocalFileSystem local = new LocalFileSystem();
+		private final AtomicInteger connectionsCreated = new AtomicInteger();
+		private final AtomicInteger connectionsClosed = new AtomicInteger();
+		private final AtomicInteger active = new AtomicInteger();
+		private final AtomicInteger maxConcurrent = new AtomicInteger();
+		private volatile Connection lastConnection;
+
+		private PooledLocalFileSystem(String root) {
+			local.setRoot(root);
+		}
+
+		@Override
+		public void configure() throws ConfigurationException {
+			local.configure();
+		}
+
+		@Override
+		protected Connection createConnection() throws FileSystemException {
+			connectionsCreated.incrementAndGet();
+			lastConnection = new Connection();
+			return lastConnection;
+		}
+
+		@Override
+		protected void closeConnection(Connection connection) throws FileSystemException {
+			connectionsClosed.incrementAndGet();
+		}
+
+		@Override
+		protected boolean isConnectionValid(Connection connection) {
+			return connection.valid;
+		}
+
+		private interface Action<T> {
+			T execute() throws FileSystemException;
+		}
+
+		private <T> T withConnection(Action<T> action) throws FileSystemException {
+			Connection connection = getConnection();
+			try {
+				int current = active.incrementAndGet();
+				maxConcurrent.accumulateAndGet(current, Math::max);
+				return action.execute();
+			} finally {
+				active.decrementAndGet();
+				releaseConnection(connection);
+			}
+		}
+
+		private <T> T transfer(Action<T> action) throws FileSystemException {
+			return withConnection(() -> {
+				try {
+					// simulate network latency, to let transfers overlap
+					Thread.sleep(20);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return action.execute();
+			});
+		}
+
+		@Override
+		public DirectoryStream<Path> listFiles(String folder) throws FileSystemException {
+			return withConnection(() -> local.listFiles(folder));
+		}
+
+		@Override
+		public String getName(Path f) {
+			return local.getName(f);
+		}
+
+		@Override
+		public Path toFile(String filename) throws FileSystemException {
+			return local.toFile(filename);
+		}
+
+		@Override
+		public Path toFile(String defaultFolder, String filename) throws FileSystemException {
+			return local.toFile(defaultFolder, filename);
+		}
+
+		@Override
+		public boolean exists(Path f) throws FileSystemException {
+			return withConnection(() -> local.exists(f));
+		}
+
+		@Override
+		public boolean folderExists(String folder) throws FileSystemException {
+			return withConnection(() -> local.folderExists(folder));
+		}
+
+		@Override
+		public Message readFile(Path f) throws FileSystemException, IOException {
+			Connection connection = getConnection();
+			try {
+				return new Message(pendingRelease(Files.newInputStream(f), connection));
+			} catch (IOException e) {
+				releaseConnection(connection);
+				throw e;
+			}
+		}
+
+		@Override
+		public void deleteFile(Path f) throws FileSystemException {
+			withConnection(() -> {
+				local.deleteFile(f);
+				return null;
+			});
+		}
+
+		@Override
+		public Path moveFile(Path f, String destinationFolder, boolean createFolder) throws FileSystemException {
+			return transfer(() -> local.moveFile(f, destinationFolder, createFolder));
+		}
+
+		@Override
+		public Path copyFile(Path f, String destinationFolder, boolean createFolder) throws FileSystemException {
+			return transfer(() -> local.copyFile(f, destinationFolder, createFolder));
+		}
+
+		@Override
+		public void createFolder(String folder) throws FileSystemException {
+			withConnection(() -> {
+				local.createFolder(folder);
+				return null;
+			});
+		}
+
+		@Override
+		public void removeFolder(String folder, boolean removeNonEmptyFolder) throws FileSystemException {
+			withConnection(() -> {
+				local.removeFolder(folder, removeNonEmptyFolder);
+				return null;
+			});
+		}
+
+		@Override
+		public long getFileSize(Path f) throws FileSystemException {
+			return local.getFileSize(f);
+		}
+
+		@Override
+		public String getCanonicalName(Path f) throws FileSystemException {
+			return local.getCanonicalName(f);
+		}
+
+		@Override
+		public Date getModificationTime(Path f) throws FileSystemException {
+			return local.getModificationTime(f);
+		}
+
+		@Override
+		public Map<String, Object> getAdditionalFileProperties(Path f) throws FileSystemException {
+			return null;
+		}
+
+		@Override
+		public String getPhysicalDestinationName() {
+			return local.getPhysicalDestinationName();
+		}
+	}
+}
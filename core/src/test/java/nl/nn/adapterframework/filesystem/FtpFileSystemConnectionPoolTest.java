@@ -0,0 +1,125 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.filesystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the use of the connection pool of the {@link FtpFileSystem}, using mocked FTPClients.
+ */
+public class FtpFileSystemConnectionPoolTest {
+
+	private List<FTPClient> clients = new ArrayList<>();
+	private List<FTPClient> closedClients = new ArrayList<>();
+	private FtpFileSystem fileSystem;
+
+	@Before
+	public void setUp() throws Exception {
+		fileSystem = new FtpFileSystem() {
+			@Override
+			protected FTPClient createConnectedFtpClient(String remoteDirectory) {
+				FTPClient client = mock(FTPClient.class);
+				when(client.isConnected()).thenReturn(true);
+				try {
+					when(client.sendNoOp()).thenReturn(true);
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+				clients.add(client);
+				return client;
+			}
+
+			@Override
+			protected void closeFtpClient(FTPClient client) {
+				closedClients.add(client);
+			}
+		};
+		fileSystem.open();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		fileSystem.close();
+	}
+
+	@Test
+	public void connectionIsReusedAfterSuccess() throws Exception {
+		fileSystem.getNumberOfFilesInFolder("folder");
+		fileSystem.getNumberOfFilesInFolder("folder");
+
+		assertEquals(1, clients.size());
+		assertTrue(closedClients.isEmpty());
+	}
+
+	@Test
+	public void connectionIsInvalidatedAfterIOException() throws Exception {
+		when(clients.get(0).listFiles("folder")).thenThrow(new IOException("connection reset"));
+		try {
+			fileSystem.getNumberOfFilesInFolder("folder");
+			fail("expected FileSystemException");
+		} catch (FileSystemException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+		assertEquals(1, closedClients.size());
+
+		assertEquals(0, fileSystem.getNumberOfFilesInFolder("folder"));
+		assertEquals(2, clients.size());
+	}
+
+	@Test
+	public void connectionIsReleasedAfterFunctionalError() throws Exception {
+		when(clients.get(0).listFiles("folder")).thenReturn(new FTPFile[] { new FTPFile(), new FTPFile() });
+		try {
+			fileSystem.createFolder("folder");
+			fail("expected FileSystemException");
+		} catch (FileSystemException e) {
+			assertTrue(e.getMessage().contains("Directory already exists"));
+		}
+
+		fileSystem.getNumberOfFilesInFolder("folder");
+		assertEquals(1, clients.size());
+		assertTrue(closedClients.isEmpty());
+	}
+
+	@Test
+	public void readFileWithoutTransferInvalidatesConnection() throws Exception {
+		when(clients.get(0).getReplyString()).thenReturn("550 file not found");
+		try {
+			fileSystem.readFile(fileSystem.toFile("missing.txt"));
+			fail("expected FileSystemException");
+		} catch (FileSystemException e) {
+			assertTrue(e.getMessage().contains("550 file not found"));
+		}
+		assertEquals(1, closedClients.size());
+
+		fileSystem.getNumberOfFilesInFolder("folder");
+		assertEquals(2, clients.size());
+	}
+}
@@ -0,0 +1,92 @@
+package nl.nn.adapterframework.filesystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.mail.FetchProfile;
+import javax.mail.Message;
+import javax.mail.UIDFolder;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.mail.imap.IMAPFolder;
+
+import nl.nn.adapterframework.filesystem.ImapFileSystem.ListedFolder;
+
+/**
+ * Tests the UID based incremental listing of {@link ImapFileSystem}, against a mocked IMAP folder.
+ */
+public class ImapFileSystemListingTest {
+
+	private ImapFileSystem fileSystem = new ImapFileSystem();
+	private IMAPFolder folder;
+	private ListedFolder listedFolder;
+
+	@Before
+	public void setUp() throws Exception {
+		folder = mock(IMAPFolder.class);
+		when(folder.getFullName()).thenReturn("INBOX");
+		when(folder.getUIDValidity()).thenReturn(42L);
+		listedFolder = new ListedFolder(folder);
+	}
+
+	private Message createMessage(long uid) throws Exception {
+		Message message = mock(Message.class);
+		when(folder.getUID(message)).thenReturn(uid);
+		return message;
+	}
+
+	@Test
+	public void onlyNewMessagesAreFetched() throws Exception {
+		Message m1 = createMessage(1);
+		Message m2 = createMessage(2);
+		when(folder.getMessages()).thenReturn(new Message[] { m1, m2 });
+
+		List<Message> result = fileSystem.listMessages(listedFolder);
+		assertEquals(Arrays.asList(m1, m2), result);
+		verify(folder).fetch(eq(new Message[] { m1, m2 }), any(FetchProfile.class));
+
+		// no new messages, the server returns the last message of the folder
+		when(folder.getMessagesByUID(3, UIDFolder.LASTUID)).thenReturn(new Message[] { m2 });
+		result = fileSystem.listMessages(listedFolder);
+		assertEquals(Arrays.asList(m1, m2), result);
+		verify(folder, times(1)).fetch(any(Message[].class), any(FetchProfile.class));
+
+		// a new message arrives, and the first one has been moved away
+		Message m3 = createMessage(3);
+		when(m1.isExpunged()).thenReturn(true);
+		when(folder.getMessagesByUID(3, UIDFolder.LASTUID)).thenReturn(new Message[] { m3 });
+		result = fileSystem.listMessages(listedFolder);
+		assertEquals(Arrays.asList(m2, m3), result);
+		verify(folder).fetch(eq(new Message[] { m3 }), any(FetchProfile.class));
+
+		verify(folder, times(1)).getMessages();
+		verify(folder, never()).getMessagesByUID(4, UIDFolder.LASTUID);
+	}
+
+	@Test
+	public void changedUidValidityCausesFullListing() throws Exception {
+		Message m1 = createMessage(1);
+		when(folder.getMessages()).thenReturn(new Message[] { m1 });
+		fileSystem.listMessages(listedFolder);
+
+		Message m1renumbered = createMessage(7);
+		when(folder.getUIDValidity()).thenReturn(43L);
+		when(folder.getMessages()).thenReturn(new Message[] { m1renumbered });
+
+		List<Message> result = fileSystem.listMessages(listedFolder);
+		assertEquals(Arrays.asList(m1renumbered), result);
+		assertEquals(8, listedFolder.uidNext);
+		verify(folder, times(2)).getMessages();
+	}
+}
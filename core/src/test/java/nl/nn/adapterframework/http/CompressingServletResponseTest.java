@@ -0,0 +1,119 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.OutputStream;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class CompressingServletResponseTest {
+
+	@Test
+	public void testNegotiateEncoding() {
+		assertNull(CompressingServletResponse.negotiateEncoding(null));
+		assertNull(CompressingServletResponse.negotiateEncoding(""));
+		assertNull(CompressingServletResponse.negotiateEncoding("identity"));
+		assertEquals("gzip", CompressingServletResponse.negotiateEncoding("gzip"));
+		assertEquals("gzip", CompressingServletResponse.negotiateEncoding("x-gzip"));
+		assertEquals("gzip", CompressingServletResponse.negotiateEncoding("deflate, gzip"));
+		assertEquals("deflate", CompressingServletResponse.negotiateEncoding("deflate"));
+		assertEquals("deflate", CompressingServletResponse.negotiateEncoding("gzip;q=0.2, deflate;q=0.8"));
+		assertEquals("gzip", CompressingServletResponse.negotiateEncoding("*"));
+		assertEquals("deflate", CompressingServletResponse.negotiateEncoding("gzip;q=0, *"));
+		assertNull(CompressingServletResponse.negotiateEncoding("gzip;q=0, deflate;q=0"));
+	}
+
+	private CompressingServletResponse createResponse(MockHttpServletResponse response, String encoding) {
+		return new CompressingServletResponse(response, encoding, 10, HttpCompressionStatistics.getInstance("test"));
+	}
+
+	private void write(CompressingServletResponse response, int size) throws Exception {
+		OutputStream out = response.getOutputStream();
+		for (int i=0; i<size; i++) {
+			out.write('a');
+		}
+		response.finish();
+	}
+
+	@Test
+	public void testVaryHeaderOnEveryCompressibleResponse() throws Exception {
+		MockHttpServletResponse compressed = new MockHttpServletResponse();
+		write(createResponse(compressed, "gzip"), 100);
+		assertEquals("gzip", compressed.getHeader("Content-Encoding"));
+		assertEquals("Accept-Encoding", compressed.getHeader("Vary"));
+
+		MockHttpServletResponse small = new MockHttpServletResponse();
+		write(createResponse(small, "gzip"), 5);
+		assertNull(small.getHeader("Content-Encoding"));
+		assertEquals("Accept-Encoding", small.getHeader("Vary"));
+
+		MockHttpServletResponse notAccepted = new MockHttpServletResponse();
+		write(createResponse(notAccepted, null), 100);
+		assertNull(notAccepted.getHeader("Content-Encoding"));
+		assertEquals("Accept-Encoding", notAccepted.getHeader("Vary"));
+
+		MockHttpServletResponse image = new MockHttpServletResponse();
+		CompressingServletResponse imageResponse = createResponse(image, "gzip");
+		imageResponse.setContentType("image/png");
+		write(imageResponse, 100);
+		assertNull(image.getHeader("Vary"));
+	}
+
+	@Test
+	public void testEtagOfCompressedResponse() throws Exception {
+		MockHttpServletResponse before = new MockHttpServletResponse();
+		CompressingServletResponse beforeResponse = createResponse(before, "gzip");
+		beforeResponse.setHeader("ETag", "\"abc\"");
+		write(beforeResponse, 100);
+		assertEquals("\"abc-gzip\"", before.getHeader("ETag"));
+
+		MockHttpServletResponse after = new MockHttpServletResponse();
+		CompressingServletResponse afterResponse = createResponse(after, "gzip");
+		write(afterResponse, 100);
+		afterResponse.addHeader("etag", "abc");
+		assertEquals("abc-gzip", after.getHeader("ETag"));
+
+		MockHttpServletResponse uncompressed = new MockHttpServletResponse();
+		CompressingServletResponse uncompressedResponse = createResponse(uncompressed, "gzip");
+		uncompressedResponse.setHeader("ETag", "\"abc\"");
+		write(uncompressedResponse, 5);
+		assertEquals("\"abc\"", uncompressed.getHeader("ETag"));
+
+		assertEquals("W/\"abc\"", CompressingServletResponse.getEncodedEtag("W/\"abc\"", "gzip"));
+		assertEquals("\"abc\"", CompressingServletResponse.getDecodedEtag("\"abc-gzip\""));
+		assertEquals("abc", CompressingServletResponse.getDecodedEtag("abc-deflate"));
+		assertEquals("abc", CompressingServletResponse.getDecodedEtag("abc"));
+	}
+
+	@Test
+	public void testContentLengthLongIsNotPassedForCompressedResponse() throws Exception {
+		MockHttpServletResponse compressed = new MockHttpServletResponse();
+		CompressingServletResponse compressedResponse = createResponse(compressed, "gzip");
+		compressedResponse.setContentLengthLong(100);
+		write(compressedResponse, 100);
+		assertNull(compressed.getHeader("Content-Length"));
+
+		MockHttpServletResponse small = new MockHttpServletResponse();
+		CompressingServletResponse smallResponse = createResponse(small, "gzip");
+		smallResponse.setContentLengthLong(5);
+		write(smallResponse, 5);
+		assertEquals("5", small.getHeader("Content-Length"));
+	}
+}
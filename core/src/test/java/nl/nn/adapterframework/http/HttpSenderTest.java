@@ -16,11 +16,15 @@
 package nl.nn.adapterframework.http;
 
 import static nl.nn.adapterframework.testutil.TestAssertions.assertEqualsIgnoreCRLF;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
@@ -232,6 +236,40 @@ public class HttpSenderTest extends HttpSenderTestBase<HttpSender> {
 		assertEqualsIgnoreCRLF(getFile("simpleMockedHttpPost.txt"), result.trim());
 	}
 
+	@Test
+	public void asyncHttpPost() throws Throwable {
+		HttpSender sender = getSender(false); //Cannot add headers (aka parameters) for this test!
+		Message input = new Message("hallo this is my message");
+
+		PipeLineSession pls = new PipeLineSession(session);
+
+		sender.setMethodType("post");
+		sender.setAsyncMode(true);
+
+		sender.configure();
+		sender.open();
+
+		assertTrue(sender.isAsyncEnabled());
+		CompletableFuture<Message> future = sender.sendMessageAsync(input, pls);
+		String result = future.get(10, TimeUnit.SECONDS).asString();
+		assertEqualsIgnoreCRLF(getFile("simpleMockedHttpPost.txt"), result.trim());
+		assertEquals(0, sender.getAsyncQueuedCount());
+	}
+
+	@Test(expected = SenderException.class)
+	public void asyncHttpPostRequiresAsyncMode() throws Throwable {
+		HttpSender sender = getSender(false); //Cannot add headers (aka parameters) for this test!
+		Message input = new Message("hallo this is my message");
+
+		sender.setMethodType("post");
+
+		sender.configure();
+		sender.open();
+
+		assertFalse(sender.isAsyncEnabled());
+		sender.sendMessageAsync(input, new PipeLineSession(session));
+	}
+
 	@Test
 	public void simpleMockedHttpPostEncodeMessage() throws Throwable {
 		HttpSender sender = getSender(false); //Cannot add headers (aka parameters) for this test!
@@ -303,6 +341,92 @@ public class HttpSenderTest extends HttpSenderTestBase<HttpSender> {
 		assertEqualsIgnoreCRLF(getFile("simpleMockedHttpPostAppendParamsToBodyAndEmptyBody.txt"), result.trim());
 	}
 
+	@Test
+	public void streamedHttpPostAppendParamsToBody() throws Throwable {
+		HttpSender sender = getSender(false); //Cannot add headers (aka parameters) for this test!
+		sender.setUrl("http://127.0.0.1/something&dummy=true");
+		Message input = new Message(new ByteArrayInputStream("hallo".getBytes()));
+
+		PipeLineSession pls = new PipeLineSession(session);
+
+		sender.setMethodType("post");
+		sender.setMaxExecuteRetries(0);
+
+		Parameter param1 = new Parameter();
+		param1.setName("key");
+		param1.setValue("value");
+		sender.addParameter(param1);
+
+		Parameter param2 = new Parameter();
+		param2.setName("otherKey");
+		param2.setValue("otherValue");
+		sender.addParameter(param2);
+
+		sender.configure();
+		sender.open();
+
+		String result = sender.sendMessage(input, pls).asString();
+		assertTrue("input message should not have been preserved", input.requiresStream());
+		assertEqualsIgnoreCRLF(getFile("simpleMockedHttpPostAppendParamsToBody.txt"), result.trim());
+	}
+
+	@Test
+	public void streamedHttpPostAppendParamsToBodyAndEmptyBody() throws Throwable {
+		HttpSender sender = getSender(false); //Cannot add headers (aka parameters) for this test!
+		sender.setUrl("http://127.0.0.1/something&dummy=true");
+		Message input = new Message(new ByteArrayInputStream(new byte[0]));
+
+		PipeLineSession pls = new PipeLineSession(session);
+
+		sender.setMethodType("post");
+		sender.setMaxExecuteRetries(0);
+
+		Parameter param1 = new Parameter();
+		param1.setName("key");
+		param1.setValue("value");
+		sender.addParameter(param1);
+
+		Parameter param2 = new Parameter();
+		param2.setName("otherKey");
+		param2.setValue("otherValue");
+		sender.addParameter(param2);
+
+		sender.configure();
+		sender.open();
+
+		String result = sender.sendMessage(input, pls).asString();
+		assertEqualsIgnoreCRLF(getFile("simpleMockedHttpPostAppendParamsToBodyAndEmptyBody.txt"), result.trim());
+	}
+
+	@Test
+	public void streamedHttpPostIsPreservedWhenRetried() throws Throwable {
+		HttpSender sender = getSender(false); //Cannot add headers (aka parameters) for this test!
+		sender.setUrl("http://127.0.0.1/something&dummy=true");
+		Message input = new Message(new ByteArrayInputStream("hallo".getBytes()));
+
+		PipeLineSession pls = new PipeLineSession(session);
+
+		sender.setMethodType("post");
+		sender.setMaxExecuteRetries(1);
+
+		Parameter param1 = new Parameter();
+		param1.setName("key");
+		param1.setValue("value");
+		sender.addParameter(param1);
+
+		Parameter param2 = new Parameter();
+		param2.setName("otherKey");
+		param2.setValue("otherValue");
+		sender.addParameter(param2);
+
+		sender.configure();
+		sender.open();
+
+		String result = sender.sendMessage(input, pls).asString();
+		assertTrue("input message should have been preserved", input.isRepeatable());
+		assertEqualsIgnoreCRLF(getFile("simpleMockedHttpPostAppendParamsToBody.txt"), result.trim());
+	}
+
 	@Test
 	public void simpleMockedHttpPut() throws Throwable {
 		HttpSender sender = getSender(false); //Cannot add headers (aka parameters) for this test!
@@ -595,6 +719,33 @@ public class HttpSenderTest extends HttpSenderTestBase<HttpSender> {
 		assertEqualsIgnoreCRLF(getFile("simpleMockedHttpMultipart.txt"), result.trim());
 	}
 
+	@Test
+	public void streamedHttpMultipart() throws Throwable {
+		HttpSender sender = getSender();
+		Message input = new Message(new ByteArrayInputStream("<xml>input</xml>".getBytes()));
+
+		PipeLineSession pls = new PipeLineSession(session);
+
+		sender.setMethodType("POST");
+		sender.setParamsInUrl(false);
+		sender.setInputMessageParam("request");
+		sender.setMaxExecuteRetries(0); //Don't preserve the stream
+
+		String xmlMultipart = "<parts><part type=\"file\" name=\"document.pdf\" "
+				+ "sessionKey=\"part_file\" size=\"72833\" "
+				+ "mimeType=\"application/pdf\"/></parts>";
+		pls.put("multipartXml", xmlMultipart);
+		pls.put("part_file", new ByteArrayInputStream("<dummy xml file/>".getBytes()));
+
+		sender.setMultipartXmlSessionKey("multipartXml");
+
+		sender.configure();
+		sender.open();
+
+		String result = sender.sendMessage(input, pls).asString();
+		assertEqualsIgnoreCRLF(getFile("simpleMockedHttpMultipart.txt"), result.trim());
+	}
+
 	@Test
 	public void postTypeMultipart() throws Throwable {
 		HttpSender sender = getSender();
@@ -0,0 +1,107 @@
+package nl.nn.adapterframework.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.net.URL;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Test;
+
+import nl.nn.adapterframework.stream.Message;
+import nl.nn.adapterframework.testutil.TestFileUtils;
+
+public class MessageHttpEntityTest {
+
+	private byte[] write(MessageHttpEntity entity) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		entity.writeTo(out);
+		return out.toByteArray();
+	}
+
+	@Test
+	public void testStreamOfUnknownSizeIsChunked() throws Exception {
+		Message message = new Message(new ByteArrayInputStream("hallo".getBytes("UTF-8")));
+		MessageHttpEntity entity = new MessageHttpEntity(message, ContentType.TEXT_PLAIN, "UTF-8");
+
+		assertEquals(-1, entity.getContentLength());
+		assertTrue(entity.isChunked());
+		assertFalse(entity.isRepeatable());
+		assertEquals("text/plain; charset=ISO-8859-1", entity.getContentType().getValue());
+		assertEquals("hallo", new String(write(entity), "UTF-8"));
+	}
+
+	@Test
+	public void testKnownSizeIsSentWithContentLength() throws Exception {
+		Message message = new Message("hallo é".getBytes("UTF-8"));
+		MessageHttpEntity entity = new MessageHttpEntity(message, null, "UTF-8", "&key=value");
+
+		assertEquals(8+10, entity.getContentLength());
+		assertFalse(entity.isChunked());
+		assertTrue(entity.isRepeatable());
+		byte[] result = write(entity);
+		assertEquals(entity.getContentLength(), result.length);
+		assertEquals("hallo é&key=value", new String(result, "UTF-8"));
+		assertArrayEquals("entity should be repeatable", result, write(entity));
+	}
+
+	@Test
+	public void testRepeatableUrl() throws Exception {
+		URL url = TestFileUtils.getTestFileURL("/Documents/doc001.pdf");
+		Message message = new Message(url);
+		MessageHttpEntity entity = new MessageHttpEntity(message, null, "UTF-8");
+
+		assertTrue(entity.isRepeatable());
+		assertArrayEquals(message.asByteArray(), write(entity));
+	}
+
+	@Test
+	public void testEmptyMessageSkipsSeparatorOfSuffix() throws Exception {
+		Message message = new Message(new byte[0]);
+		MessageHttpEntity entity = new MessageHttpEntity(message, null, "UTF-8", "&key=value");
+
+		assertEquals(9, entity.getContentLength());
+		assertEquals("key=value", new String(write(entity), "UTF-8"));
+	}
+
+	@Test
+	public void testEmptyStreamSkipsSeparatorOfSuffix() throws Exception {
+		Message message = new Message(new ByteArrayInputStream(new byte[0]));
+		MessageHttpEntity entity = new MessageHttpEntity(message, null, "UTF-8", "&key=value");
+
+		assertEquals("key=value", new String(write(entity), "UTF-8"));
+	}
+
+	@Test
+	public void testBomIsRemoved() throws Exception {
+		byte[] bytes = {(byte)0xEF, (byte)0xBB, (byte)0xBF, 'a', 'b', 'c'};
+		MessageHttpEntity entity = new MessageHttpEntity(new Message(bytes), null, "UTF-8");
+
+		assertEquals(3, entity.getContentLength());
+		assertEquals("abc", new String(write(entity), "UTF-8"));
+	}
+
+	@Test
+	public void testOtherCharsetIsTranscoded() throws Exception {
+		Message message = new Message("hallo é".getBytes("UTF-8"));
+		MessageHttpEntity entity = new MessageHttpEntity(message, null, "ISO-8859-1");
+
+		assertEquals(-1, entity.getContentLength());
+		assertTrue(entity.isChunked());
+		assertEquals("hallo é", new String(write(entity), "ISO-8859-1"));
+	}
+
+	@Test
+	public void testReaderIsEncoded() throws Exception {
+		Message message = new Message(new StringReader("hallo é"));
+		MessageHttpEntity entity = new MessageHttpEntity(message, null, "UTF-8", "&key=value");
+
+		assertEquals(-1, entity.getContentLength());
+		assertEquals("hallo é&key=value", new String(write(entity), "UTF-8"));
+	}
+}
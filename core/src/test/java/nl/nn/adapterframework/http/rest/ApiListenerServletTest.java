@@ -22,7 +22,11 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -31,13 +35,17 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.logging.log4j.Logger;
@@ -57,6 +65,7 @@ import nl.nn.adapterframework.core.IMessageHandler;
 import nl.nn.adapterframework.core.ListenerException;
 import nl.nn.adapterframework.stream.Message;
 import nl.nn.adapterframework.util.LogUtil;
+import nl.nn.adapterframework.util.StreamUtil;
 
 public class ApiListenerServletTest extends Mockito {
 	private Logger log = LogUtil.getLogger(this);
@@ -104,19 +113,19 @@ public class ApiListenerServletTest extends Mockito {
 		ApiServiceDispatcher.getInstance().clear();
 	}
 
-	private void addListener(String uri, Methods method) throws ListenerException, ConfigurationException {
-		addListener(uri, method, null, null);
+	private ApiListener addListener(String uri, Methods method) throws ListenerException, ConfigurationException {
+		return addListener(uri, method, null, null);
 	}
 
-	private void addListener(String uri, Methods method, AuthMethods authMethod) throws ListenerException, ConfigurationException {
-		addListener(uri, method, null, null, authMethod);
+	private ApiListener addListener(String uri, Methods method, AuthMethods authMethod) throws ListenerException, ConfigurationException {
+		return addListener(uri, method, null, null, authMethod);
 	}
 
-	private void addListener(String uri, Methods method, MediaTypes consumes, MediaTypes produces) throws ListenerException, ConfigurationException {
-		addListener(uri, method, consumes, produces, null);
+	private ApiListener addListener(String uri, Methods method, MediaTypes consumes, MediaTypes produces) throws ListenerException, ConfigurationException {
+		return addListener(uri, method, consumes, produces, null);
 	}
 
-	private void addListener(String uri, Methods method, MediaTypes consumes, MediaTypes produces, AuthMethods authMethod) throws ListenerException, ConfigurationException {
+	private ApiListener addListener(String uri, Methods method, MediaTypes consumes, MediaTypes produces, AuthMethods authMethod) throws ListenerException, ConfigurationException {
 		ApiListener listener = spy(ApiListener.class);
 		listener.setUriPattern(uri);
 		listener.setMethod(method.name());
@@ -139,6 +148,7 @@ public class ApiListenerServletTest extends Mockito {
 
 		listeners.add(listener);
 		log.info("created ApiListener "+listener.toString());
+		return listener;
 	}
 
 	private HttpServletRequest createRequest(String uriPattern, Methods method, String content) {
@@ -552,6 +562,68 @@ public class ApiListenerServletTest extends Mockito {
 		assertNull(result.getErrorMessage());
 	}
 
+	@Test
+	public void eTagIsBasedOnContent() throws ServletException, IOException, ListenerException, ConfigurationException {
+		String uri = "/etag50";
+		addListener(uri, Methods.GET);
+		String content = "{\"tralalalallala\":true}";
+
+		session = new HashMap<String, Object>();
+		session.put("response-content", content);
+		Response result1 = service(createRequest(uri, Methods.GET, null));
+		String etag = result1.getHeader("etag");
+		assertNotNull(etag);
+		assertTrue("etag ["+etag+"] should end with the digest of the content", etag.endsWith("_"+DigestUtils.md5Hex(content)));
+
+		// another node, or the same node after a restart, must calculate the same etag
+		ApiCacheManager.getInstance().remove(ApiCacheManager.buildCacheKey(uri));
+		Response result2 = service(createRequest(uri, Methods.GET, null));
+		assertEquals(etag, result2.getHeader("etag"));
+		assertEquals(etag, ApiCacheManager.getInstance().get(ApiCacheManager.buildCacheKey(uri)));
+	}
+
+	@Test
+	public void eTagIsCalculatedWhileStreaming() throws ServletException, IOException, ListenerException, ConfigurationException {
+		String uri = "/etag51";
+		addListener(uri, Methods.GET);
+		String content = "{\"tralalalallala\":true}";
+
+		session = new HashMap<String, Object>();
+		session.put("response-content", new ByteArrayInputStream(content.getBytes("UTF-8")));
+		Response result = service(createRequest(uri, Methods.GET, null));
+
+		assertEquals(200, result.getStatus());
+		assertEquals(content, result.getContentAsString());
+		String etag = result.getHeader("etag");
+		assertNotNull(etag);
+		assertTrue("etag ["+etag+"] should end with the digest of the content", etag.endsWith("_"+DigestUtils.md5Hex(content)));
+		assertEquals(etag, ApiCacheManager.getInstance().get(ApiCacheManager.buildCacheKey(uri)));
+	}
+
+	@Test
+	public void eTagValidatedAfterPipelineWhenNotValidatingFirst() throws ServletException, IOException, ListenerException, ConfigurationException {
+		String uri = "/etag52";
+		ApiListener listener = addListener(uri, Methods.GET);
+		listener.setValidateEtagFirst(false);
+		String etagCacheKey = ApiCacheManager.buildCacheKey(uri);
+		ApiCacheManager.getInstance().put(etagCacheKey, "my-etag-value");
+
+		Map<String, String> headers = new HashMap<String, String>();
+		headers.put("if-none-match", "my-etag-value");
+		session = new HashMap<String, Object>();
+		session.put("response-content", "{\"tralalalallala\":true}");
+		Response result = service(createRequest(uri, Methods.GET, null, headers));
+
+		assertEquals(200, result.getStatus());
+		assertEquals("{\"tralalalallala\":true}", result.getContentAsString());
+		String etag = result.getHeader("etag");
+
+		headers.put("if-none-match", etag);
+		result = service(createRequest(uri, Methods.GET, null, headers));
+		assertEquals(304, result.getStatus());
+		assertEquals("", result.getContentAsString());
+	}
+
 	@Test
 	public void cookieAuthentication401() throws ServletException, IOException, ListenerException, ConfigurationException {
 		String uri = "/cookie";
@@ -690,6 +762,61 @@ public class ApiListenerServletTest extends Mockito {
 
 
 
+	@Test
+	public void compressedResponseWhenClientAcceptsGzip() throws Exception {
+		String uri="/compressedResponse";
+		addListener(uri, Methods.POST, MediaTypes.JSON, MediaTypes.JSON);
+		String content = "{\"value\":\""+StringUtils.repeat("compress me ", 500)+"\"}";
+
+		Map<String, String> headers = new HashMap<String, String>();
+		headers.put("Accept-Encoding", "deflate;q=0.5, gzip");
+		headers.put("content-type", "application/json");
+		Response result = service(createRequest(uri, Methods.POST, content, headers));
+		assertEquals(200, result.getStatus());
+		assertEquals("gzip", result.getHeader("Content-Encoding"));
+		assertEquals("Accept-Encoding", result.getHeader("Vary"));
+		byte[] compressed = result.getContentAsByteArray();
+		assertTrue("response should be smaller than ["+content.length()+"] bytes but was ["+compressed.length+"]", compressed.length < content.length());
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			assertEquals(content, StreamUtil.streamToString(in, null, "UTF-8"));
+		}
+	}
+
+	@Test
+	public void smallResponseIsNotCompressed() throws ServletException, IOException, ListenerException, ConfigurationException {
+		String uri="/smallResponseIsNotCompressed";
+		addListener(uri, Methods.POST, MediaTypes.JSON, MediaTypes.JSON);
+
+		Map<String, String> headers = new HashMap<String, String>();
+		headers.put("Accept-Encoding", "gzip");
+		headers.put("content-type", "application/json");
+		Response result = service(createRequest(uri, Methods.POST, "{}", headers));
+		assertEquals(200, result.getStatus());
+		assertFalse(result.containsHeader("Content-Encoding"));
+		assertEquals("{}", result.getContentAsString());
+	}
+
+	@Test
+	public void compressedRequestIsDecompressed() throws Exception {
+		String uri="/compressedRequest";
+		addListener(uri, Methods.POST, MediaTypes.JSON, MediaTypes.JSON);
+		String content = "{\"value\":\"decompress me\"}";
+
+		Map<String, String> headers = new HashMap<String, String>();
+		headers.put("Content-Encoding", "gzip");
+		headers.put("content-type", "application/json");
+		MockHttpServletRequest request = createRequest(uri, Methods.POST, null, headers);
+		ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(gzipped)) {
+			out.write(content.getBytes("UTF-8"));
+		}
+		request.setContent(gzipped.toByteArray());
+
+		Response result = service(request);
+		assertEquals(200, result.getStatus());
+		assertEquals(content, result.getContentAsString());
+	}
+
 	private class MessageHandler implements IMessageHandler<Message> {
 
 		@Override
@@ -769,6 +896,10 @@ public class ApiListenerServletTest extends Mockito {
 			return response.getContentAsString();
 		}
 
+		public byte[] getContentAsByteArray() {
+			return response.getContentAsByteArray();
+		}
+
 		public int getStatus() {
 			return response.getStatus();
 		}
@@ -3,6 +3,7 @@ package nl.nn.adapterframework.jdbc;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeTrue;
 
@@ -10,6 +11,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
 
 import javax.sql.DataSource;
 
@@ -17,6 +20,10 @@ import org.junit.Test;
 
 import lombok.Getter;
 import nl.nn.adapterframework.configuration.ConfigurationException;
+import nl.nn.adapterframework.core.IMessageBrowser.SortOrder;
+import nl.nn.adapterframework.core.IMessageBrowser.StorageType;
+import nl.nn.adapterframework.core.IMessageBrowsingIterator;
+import nl.nn.adapterframework.core.IMessageBrowsingIteratorItem;
 import nl.nn.adapterframework.core.ListenerException;
 import nl.nn.adapterframework.core.ProcessState;
 import nl.nn.adapterframework.jdbc.JdbcQuerySenderBase.QueryType;
@@ -437,4 +444,77 @@ public class JdbcTableListenerTest extends JdbcTestBase {
 	public void testForRaceConditionHandlingOnParallelGet7() throws Exception {
 		testForRaceConditionHandlingOnParallelGet(7);
 	}
+
+	private String browseKeys(JdbcTableMessageBrowser<?> browser, Date seekDate, String seekKey, int max) throws ListenerException {
+		StringBuilder result = new StringBuilder();
+		try (IMessageBrowsingIterator iterator = browser.getIterator(null, null, SortOrder.ASC, seekDate, seekKey)) {
+			for (int i=0; i<max && iterator.hasNext(); i++) {
+				try (IMessageBrowsingIteratorItem item = iterator.next()) {
+					result.append(item.getId());
+				}
+			}
+		}
+		return result.toString();
+	}
+
+	private JdbcTableMessageBrowser<?> createBrowser() throws Exception {
+		listener.configure();
+		JdbcTableMessageBrowser<?> browser = new JdbcTableMessageBrowser<Object>(listener, "1", StorageType.MESSAGELOG_RECEIVER) {
+			@Override
+			public Connection getConnection() throws JdbcException {
+				try {
+					return getDbConnection();
+				} catch (SQLException e) {
+					throw new JdbcException(e);
+				}
+			}
+		};
+		browser.configure();
+		return browser;
+	}
+
+	@Test
+	public void testBrowseWithSeekPosition() throws Exception {
+		listener.setTimestampField("TDATETIME");
+		JdbcTableMessageBrowser<?> browser = createBrowser();
+
+		Timestamp[] dates = { Timestamp.valueOf("2021-05-01 10:00:00.0"), Timestamp.valueOf("2021-05-01 10:00:00.0"), Timestamp.valueOf("2021-05-01 11:00:00.0"), Timestamp.valueOf("2021-05-01 11:00:00.0"), Timestamp.valueOf("2021-05-01 12:00:00.0") };
+		try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO TEMP (TKEY,TINT,TDATETIME) VALUES (?,1,?)")) {
+			for (int i=0; i<dates.length; i++) {
+				stmt.setInt(1, i+1);
+				stmt.setTimestamp(2, dates[i]);
+				stmt.execute();
+			}
+		}
+
+		assertEquals("12", browseKeys(browser, null, null, 2));
+		assertEquals("345", browseKeys(browser, dates[1], "2", 10));
+		assertEquals("45", browseKeys(browser, dates[2], "3", 10));
+		assertEquals("", browseKeys(browser, dates[4], "5", 10));
+	}
+
+	@Test
+	public void testBrowseWithSeekPositionWithoutTimestampField() throws Exception {
+		JdbcTableMessageBrowser<?> browser = createBrowser();
+
+		try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO TEMP (TKEY,TINT) VALUES (?,1)")) {
+			for (int key : new int[] { 3, 1, 5, 2, 4 }) {
+				stmt.setInt(1, key);
+				stmt.execute();
+			}
+		}
+
+		assertEquals("12", browseKeys(browser, null, null, 2));
+		assertEquals("34", browseKeys(browser, null, "2", 2));
+		assertEquals("5", browseKeys(browser, null, "4", 2));
+		assertEquals("", browseKeys(browser, null, "5", 2));
+	}
+
+	@Test
+	public void testBrowseWithSeekKeyWithoutSeekDate() throws Exception {
+		listener.setTimestampField("TDATETIME");
+		JdbcTableMessageBrowser<?> browser = createBrowser();
+
+		assertThrows(ListenerException.class, () -> browser.getIterator(null, null, SortOrder.ASC, null, "2"));
+	}
 }
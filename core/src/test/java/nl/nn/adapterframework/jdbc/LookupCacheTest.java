@@ -0,0 +1,142 @@
+package nl.nn.adapterframework.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class LookupCacheTest {
+
+	private AtomicInteger loads = new AtomicInteger();
+
+	private int load(String name) {
+		loads.incrementAndGet();
+		return name.equals("unknown") ? -1 : name.length();
+	}
+
+	@Test
+	public void keysAreLoadedOnce() {
+		LookupCache cache = new LookupCache("test", 100, 0);
+		assertEquals(3, cache.get("abc", this::load));
+		assertEquals(3, cache.get("abc", this::load));
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(0.5, cache.getHitRate(), 0.001);
+	}
+
+	@Test
+	public void negativeResultsAreNotCached() {
+		LookupCache cache = new LookupCache("test", 100, 0);
+		assertEquals(-1, cache.get("unknown", this::load));
+		assertEquals(-1, cache.get("unknown", this::load));
+		assertEquals(2, loads.get());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void leastRecentlyUsedKeysAreEvicted() {
+		LookupCache cache = new LookupCache("test", 10, 0);
+		for (int i=0; i<10; i++) {
+			cache.put("key"+i, i);
+		}
+		assertEquals(0, cache.get("key0"));
+		cache.put("key10", 10);
+		assertEquals(9, cache.size());
+		assertEquals(2, cache.getEvictions());
+		assertEquals(0, cache.get("key0"));
+		assertEquals(-1, cache.get("key1"));
+		assertEquals(-1, cache.get("key2"));
+		assertEquals(10, cache.get("key10"));
+	}
+
+	@Test
+	public void keysReadSinceLastAdditionAreRetained() {
+		LookupCache cache = new LookupCache("test", 10, 0);
+		for (int i=0; i<10; i++) {
+			cache.put("key"+i, i);
+		}
+		for (int i=0; i<5; i++) {
+			for (int j=0; j<3; j++) {
+				assertEquals(i, cache.get("key"+i));
+			}
+		}
+		cache.put("key10", 10);
+		assertEquals(2, cache.getEvictions());
+		for (int i=0; i<5; i++) {
+			assertEquals(i, cache.get("key"+i));
+		}
+		assertEquals(-1, cache.get("key5"));
+		assertEquals(-1, cache.get("key6"));
+	}
+
+	@Test
+	public void statisticsAreCountedByConcurrentReaders() throws Exception {
+		LookupCache cache = new LookupCache("test", 100, 0);
+		cache.put("abc", 3);
+		int threadCount = 4;
+		int readsPerThread = 10000;
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t=0; t<threadCount; t++) {
+				futures.add(executor.submit(() -> {
+					for (int i=0; i<readsPerThread; i++) {
+						assertEquals(3, cache.get("abc"));
+						assertEquals(-1, cache.get("def"));
+					}
+				}));
+			}
+			for (Future<?> future:futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(threadCount * readsPerThread, cache.getHits());
+		assertEquals(threadCount * readsPerThread, cache.getMisses());
+	}
+
+	@Test
+	public void expiredKeysAreLoadedAgain() throws Exception {
+		LookupCache cache = new LookupCache("test", 100, 20);
+		cache.get("abc", this::load);
+		Thread.sleep(50);
+		cache.get("abc", this::load);
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void preloadLoadsAllRows() throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.next()).thenReturn(true, true, true, false);
+		when(rs.getString(1)).thenReturn("a", "b", "c");
+		when(rs.getInt(2)).thenReturn(1, 2, 3);
+		PreparedStatement stmt = mock(PreparedStatement.class);
+		when(stmt.executeQuery()).thenReturn(rs);
+		Connection connection = mock(Connection.class);
+		when(connection.prepareStatement("SELECT name,key FROM table")).thenReturn(stmt);
+
+		LookupCache cache = new LookupCache("test", 100, 0);
+		assertEquals(3, cache.preload(connection, "SELECT name,key FROM table"));
+		assertEquals(2, cache.get("b", this::load));
+		assertEquals(0, loads.get());
+	}
+
+	@Test
+	public void cachesAreSharedByName() {
+		assertSame(LookupCache.getCache("table/key/name"), LookupCache.getCache("table/key/name"));
+	}
+}
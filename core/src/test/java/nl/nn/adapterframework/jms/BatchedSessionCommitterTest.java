@@ -0,0 +1,112 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.jms;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import javax.jms.Session;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchedSessionCommitterTest {
+
+	private BatchedSessionCommitter committer;
+	private Session session;
+
+	@Before
+	public void setUp() {
+		committer = new BatchedSessionCommitter(3, 0);
+		session = mock(Session.class);
+	}
+
+	@Test
+	public void testCommitWhenBatchIsFull() throws Exception {
+		committer.messageCompleted(session, false);
+		committer.messageCompleted(session, false);
+		verify(session, never()).commit();
+
+		committer.messageCompleted(session, false);
+		verify(session, times(1)).commit();
+		assertEquals(1, committer.getBatchSizes().getCount());
+		assertEquals(3, committer.getBatchSizes().getMax());
+	}
+
+	@Test
+	public void testFlushCommitsPendingMessages() throws Exception {
+		committer.flush(session);
+		verify(session, never()).commit();
+
+		committer.messageCompleted(session, false);
+		committer.flush(session);
+		verify(session, times(1)).commit();
+
+		committer.flush(session);
+		verify(session, times(1)).commit();
+	}
+
+	@Test
+	public void testCommitAfterBatchTimeout() throws Exception {
+		committer = new BatchedSessionCommitter(100, 50);
+		committer.messageCompleted(session, false);
+		verify(session, never()).commit();
+
+		Thread.sleep(60);
+		committer.messageCompleted(session, false);
+		verify(session, times(1)).commit();
+	}
+
+	@Test
+	public void testFailureRollsBackBatchAndReplaysOneByOne() throws Exception {
+		committer.messageCompleted(session, false);
+		committer.messageCompleted(session, true);
+		verify(session, times(1)).rollback();
+		verify(session, never()).commit();
+		assertEquals(1, committer.getRollbacks().getValue());
+
+		// the two redelivered messages are committed one by one
+		committer.messageCompleted(session, false);
+		verify(session, times(1)).commit();
+		committer.messageCompleted(session, true); // failing message on its own is handled as without batching
+		verify(session, times(2)).commit();
+		verify(session, times(1)).rollback();
+
+		// then batching resumes
+		committer.messageCompleted(session, false);
+		committer.messageCompleted(session, false);
+		verify(session, times(2)).commit();
+		committer.messageCompleted(session, false);
+		verify(session, times(3)).commit();
+	}
+
+	@Test
+	public void testRollbackOnlyOfSingleMessage() throws Exception {
+		committer.markRollbackOnly(session);
+		committer.messageCompleted(session, false);
+		verify(session, times(1)).rollback();
+		verify(session, never()).commit();
+		assertEquals(0, committer.getRollbacks().getValue());
+
+		committer.messageCompleted(session, false);
+		committer.messageCompleted(session, false);
+		committer.messageCompleted(session, false);
+		verify(session, times(1)).commit();
+	}
+}
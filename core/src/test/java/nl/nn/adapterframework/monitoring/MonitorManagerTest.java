@@ -0,0 +1,132 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.monitoring;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+public class MonitorManagerTest {
+
+	private MonitorManager manager = MonitorManager.getInstance();
+	private boolean enabled;
+	private boolean async;
+
+	@Before
+	public void setUp() {
+		enabled = manager.isEnabled();
+		async = manager.isAsyncEventHandling();
+		manager.setEnabled(true);
+		manager.setAsyncEventHandling(true);
+	}
+
+	@After
+	public void tearDown() {
+		manager.setEnabled(enabled);
+		manager.setAsyncEventHandling(async);
+	}
+
+	@Test
+	public void testEventsAreEvaluatedInOrder() throws Exception {
+		EventThrowing source = mock(EventThrowing.class);
+		Trigger blockingTrigger = mock(Trigger.class);
+		Trigger trigger = mock(Trigger.class);
+		manager.registerEventNotificationListener(blockingTrigger, "orderTestBlock", source);
+		manager.registerEventNotificationListener(trigger, "orderTestSuspended", source);
+		manager.registerEventNotificationListener(trigger, "orderTestResumed", source);
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			started.countDown();
+			release.await(10, TimeUnit.SECONDS);
+			return null;
+		}).when(blockingTrigger).evaluateEvent(eq(source), eq("orderTestBlock"), anyInt());
+
+		manager.fireEvent(source, "orderTestBlock");
+		started.await(10, TimeUnit.SECONDS);
+		manager.fireEvent(source, "orderTestSuspended");
+		manager.fireEvent(source, "orderTestResumed");
+		manager.fireEvent(source, "orderTestSuspended");
+		manager.fireEvent(source, "orderTestSuspended");
+		release.countDown();
+
+		verify(trigger, timeout(10000)).evaluateEvent(source, "orderTestSuspended", 2);
+		InOrder inOrder = inOrder(trigger);
+		inOrder.verify(trigger).evaluateEvent(source, "orderTestSuspended", 1);
+		inOrder.verify(trigger).evaluateEvent(source, "orderTestResumed", 1);
+		inOrder.verify(trigger).evaluateEvent(source, "orderTestSuspended", 2);
+	}
+
+	@Test
+	public void testInterleavedSourcesAreCoalesced() throws Exception {
+		EventThrowing source = mock(EventThrowing.class);
+		EventThrowing otherSource = mock(EventThrowing.class);
+		Trigger blockingTrigger = mock(Trigger.class);
+		Trigger trigger = mock(Trigger.class);
+		manager.registerEventNotificationListener(blockingTrigger, "coalesceTestBlock", source);
+		manager.registerEventNotificationListener(trigger, "coalesceTestEvent", null);
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			started.countDown();
+			release.await(10, TimeUnit.SECONDS);
+			return null;
+		}).when(blockingTrigger).evaluateEvent(eq(source), eq("coalesceTestBlock"), anyInt());
+
+		manager.fireEvent(source, "coalesceTestBlock");
+		started.await(10, TimeUnit.SECONDS);
+		for (int i=0; i<3; i++) {
+			manager.fireEvent(source, "coalesceTestEvent");
+			manager.fireEvent(otherSource, "coalesceTestEvent");
+		}
+		release.countDown();
+
+		verify(trigger, timeout(10000)).evaluateEvent(otherSource, "coalesceTestEvent", 3);
+		InOrder inOrder = inOrder(trigger);
+		inOrder.verify(trigger).evaluateEvent(source, "coalesceTestEvent", 3);
+		inOrder.verify(trigger).evaluateEvent(otherSource, "coalesceTestEvent", 3);
+		verifyNoMoreInteractions(trigger);
+	}
+
+	@Test
+	public void testEventsAreEvaluatedAfterDestroy() throws Exception {
+		EventThrowing source = mock(EventThrowing.class);
+		Trigger trigger = mock(Trigger.class);
+		manager.registerEventNotificationListener(trigger, "destroyTestEvent", source);
+
+		manager.fireEvent(source, "destroyTestEvent");
+		verify(trigger, timeout(10000)).evaluateEvent(source, "destroyTestEvent", 1);
+		manager.destroy();
+
+		manager.fireEvent(source, "destroyTestEvent");
+		verify(trigger, timeout(10000).times(2)).evaluateEvent(source, "destroyTestEvent", 1);
+	}
+}
@@ -0,0 +1,82 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+
+public class TriggerTest {
+
+	@Test
+	public void testSlidingWindowEventCounter() {
+		SlidingWindowEventCounter counter = new SlidingWindowEventCounter(10000);
+		long start = 1_000_000L;
+		assertEquals(1, counter.addAndGet(start, 1));
+		assertEquals(3, counter.addAndGet(start+500, 2));
+		assertEquals(4, counter.addAndGet(start+5000, 1));
+		assertEquals(5, counter.addAndGet(start+9000, 1));
+		// the events of the first bucket have dropped out of the window
+		assertEquals(3, counter.addAndGet(start+11000, 1));
+		// all events have dropped out of the window
+		assertEquals(1, counter.addAndGet(start+60000, 1));
+
+		counter.clear();
+		assertEquals(1, counter.addAndGet(start+60000, 1));
+	}
+
+	@Test
+	public void testSlidingWindowEventCounterUsesLimitedNumberOfBuckets() {
+		SlidingWindowEventCounter counter = new SlidingWindowEventCounter(3600*1000L);
+		long start = 60_000_000L; // at the start of a bucket
+		for (int i=0; i<3600; i++) {
+			counter.addAndGet(start+i*1000L, 1000);
+		}
+		assertEquals(3600*1000+1, counter.addAndGet(start+3599*1000L, 1));
+	}
+
+	@Test
+	public void testThreshold() throws Exception {
+		Monitor monitor = mock(Monitor.class);
+		Trigger trigger = new Trigger();
+		trigger.setOwner(monitor);
+		trigger.setAlarm(true);
+		trigger.setSeverity("WARNING");
+		trigger.setEventCode("event");
+		trigger.setThreshold(5);
+		trigger.setPeriod(60);
+		trigger.configure();
+
+		EventThrowing source = mock(EventThrowing.class);
+		trigger.evaluateEvent(source, "event");
+		trigger.evaluateEvent(source, "event", 3);
+		verify(monitor, never()).changeState(any(), anyBoolean(), any(), any(), any(), any());
+
+		trigger.evaluateEvent(source, "event");
+		verify(monitor, times(1)).changeState(any(), eq(true), eq(SeverityEnum.WARNING), eq(source), eq("event"), any());
+
+		trigger.notificationOfReverseTrigger(source);
+		trigger.evaluateEvent(source, "event");
+		verify(monitor, times(1)).changeState(any(), anyBoolean(), any(), any(), any(), any());
+	}
+}
@@ -0,0 +1,92 @@
+package nl.nn.adapterframework.pipes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import nl.nn.adapterframework.core.PipeRunException;
+import nl.nn.adapterframework.core.PipeRunResult;
+import nl.nn.adapterframework.soap.SoapVersion;
+import nl.nn.adapterframework.soap.SoapWrapperPipe;
+import nl.nn.adapterframework.testutil.TestAssertions;
+
+public class SoapWrapperPipeStreamingUnwrapTest extends SoapWrapperPipeTest<SoapWrapperPipe> {
+
+	@Override
+	public SoapWrapperPipe createPipe() {
+		SoapWrapperPipe pipe = new SoapWrapperPipe();
+		pipe.setStreamingUnwrap(true);
+		return pipe;
+	}
+
+	@Test
+	public void testUnwrapStoresHeaderAndSoapNamespace() throws Exception {
+		pipe.setDirection("unwrap");
+		pipe.setSoapHeaderSessionKey("header");
+		pipe.setSoapNamespaceSessionKey("soapNamespace");
+		pipe.configure();
+		pipe.start();
+
+		String input = "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+				+"<soapenv:Header><MessageHeader xmlns=\"urn:header\"><MessageId>id</MessageId></MessageHeader></soapenv:Header>"
+				+"<soapenv:Body><root xmlns=\"urn:body\"><attrib>1</attrib></root></soapenv:Body></soapenv:Envelope>";
+
+		PipeRunResult prr = doPipe(pipe, input, session);
+
+		assertEquals("<root xmlns=\"urn:body\"><attrib>1</attrib></root>", prr.getResult().asString());
+		assertEquals("<MessageHeader xmlns=\"urn:header\" xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\"><MessageId>id</MessageId></MessageHeader>", session.get("header"));
+		assertEquals(SoapVersion.SOAP11.namespace, session.get("soapNamespace"));
+	}
+
+	@Test
+	public void testUnwrapRemovesUnusedPrefixedNamespaces() throws Exception {
+		pipe.setDirection("unwrap");
+		pipe.configure();
+		pipe.start();
+
+		String input = "<soapenv:Envelope xmlns:soapenv=\"http://www.w3.org/2003/05/soap-envelope\" xmlns:unused=\"urn:unused\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
+				+"<soapenv:Body><ns:root xmlns:ns=\"urn:body\" xmlns:other=\"urn:other\"><ns:attrib xsi:type=\"ns:type\" other:id=\"1\">1</ns:attrib><child xmlns=\"\"/></ns:root></soapenv:Body></soapenv:Envelope>";
+		String expected = "<root xmlns=\"urn:body\"><attrib xsi:type=\"type\" other:id=\"1\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xmlns:other=\"urn:other\">1</attrib><child xmlns=\"\"/></root>";
+
+		PipeRunResult prr = doPipe(pipe, input, session);
+
+		TestAssertions.assertEqualsIgnoreCRLF(expected, prr.getResult().asString());
+	}
+
+	@Test
+	public void testUnwrapSoapFault() throws Exception {
+		pipe.setDirection("unwrap");
+		pipe.configure();
+		pipe.start();
+
+		String input = "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\"><soapenv:Body>"
+				+"<soapenv:Fault><faultcode>soapenv:Server</faultcode><faultstring>error</faultstring></soapenv:Fault></soapenv:Body></soapenv:Envelope>";
+		try {
+			doPipe(pipe, input, session);
+			fail("expected exception");
+		} catch (PipeRunException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("SOAP Body contains SOAP Fault"));
+		}
+	}
+
+	@Test
+	public void testUnwrapPlainXml() throws Exception {
+		pipe.setDirection("unwrap");
+		pipe.configure();
+		pipe.start();
+
+		String input = "<root xmlns=\"urn:body\"><attrib>1</attrib></root>";
+		try {
+			doPipe(pipe, input, session);
+			fail("expected exception");
+		} catch (PipeRunException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("SOAP Body is empty or message is not a SOAP Message"));
+		}
+
+		pipe.setAllowPlainXml(true);
+		PipeRunResult prr = doPipe(pipe, input, session);
+		assertEquals(input, prr.getResult().asString());
+	}
+}
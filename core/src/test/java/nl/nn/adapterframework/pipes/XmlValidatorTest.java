@@ -1,5 +1,8 @@
 package nl.nn.adapterframework.pipes;
 
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertThrows;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -10,7 +13,10 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
 import nl.nn.adapterframework.configuration.ConfigurationException;
+import nl.nn.adapterframework.core.Adapter;
 import nl.nn.adapterframework.core.PipeForward;
+import nl.nn.adapterframework.core.PipeLine;
+import nl.nn.adapterframework.core.PipeLineExit;
 import nl.nn.adapterframework.core.PipeLineSession;
 import nl.nn.adapterframework.core.PipeRunException;
 import nl.nn.adapterframework.core.PipeRunResult;
@@ -191,5 +197,50 @@ public class XmlValidatorTest extends XmlValidatorTestBase {
 	public void testStoreRootElement() throws Exception {
 		testStoreRootElement(SCHEMA_LOCATION_BASIC_A_OK, "A", INPUT_FILE_BASIC_A_OK);
 	}
+
+	private XsltPipe createXsltPipe(String name, String xpathExpression, String outputType) {
+		XsltPipe pipe = new XsltPipe();
+		pipe.setName(name);
+		pipe.setXpathExpression(xpathExpression);
+		pipe.setOutputType(outputType);
+		return pipe;
+	}
+
+	@Test
+	public void testValidatorPassesStreamToNextPipe() throws Exception {
+		Adapter adapter = new Adapter();
+		adapter.setName("testValidatorPassesStreamToNextPipe");
+		PipeLine pipeline = new PipeLine();
+		PipeLineExit exit = new PipeLineExit();
+		exit.setPath("exit");
+		exit.setState("success");
+		pipeline.registerPipeLineExit(exit);
+		XsltPipe first = createXsltPipe("first", "/Root", "xml");
+		pipeline.addPipe(first);
+		XmlValidator validator = new XmlValidator();
+		validator.setName("validator");
+		validator.setImplementation(implementation);
+		validator.setSchema("/Validation/Parameters/simple.xsd");
+		validator.setRoot("Root");
+		validator.setThrowException(true);
+		validator.setSoapNamespace("");
+		validator.setRootElementSessionKey("rootElement");
+		pipeline.addPipe(validator);
+		pipeline.addPipe(createXsltPipe("last", "/Root/a", "text"));
+		adapter.setPipeLine(pipeline);
+		pipeline.configure();
+		pipeline.start();
+
+		assertEquals(Arrays.asList("first -> validator -> last"), pipeline.getStreamingSegments());
+
+		PipeLineSession session = new PipeLineSession();
+		PipeRunResult result = first.doPipe(new Message("<Root><a>A</a><b>B</b></Root>"), session);
+		assertEquals("A", result.getResult().asString());
+		assertEquals("exit", result.getPipeForward().getPath());
+		assertEquals("Root", session.get("rootElement"));
+
+		PipeRunException e = assertThrows(PipeRunException.class, () -> first.doPipe(new Message("<Root><b>B</b></Root>"), new PipeLineSession()));
+		assertThat(e.getMessage(), containsString("Invalid content was found starting with element 'b'"));
+	}
 	
 }
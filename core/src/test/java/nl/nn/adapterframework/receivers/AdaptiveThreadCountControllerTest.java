@@ -0,0 +1,89 @@
+package nl.nn.adapterframework.receivers;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import nl.nn.adapterframework.core.IThreadCountControllable;
+import nl.nn.adapterframework.receivers.AdaptiveThreadCountController.Decision;
+
+public class AdaptiveThreadCountControllerTest {
+
+	private ThreadCountControllable target;
+	private AdaptiveThreadCountController controller;
+
+	private class ThreadCountControllable implements IThreadCountControllable {
+		int maxThreadCount = 2;
+
+		@Override
+		public boolean isThreadCountReadable() {
+			return true;
+		}
+		@Override
+		public boolean isThreadCountControllable() {
+			return true;
+		}
+		@Override
+		public int getCurrentThreadCount() {
+			return maxThreadCount;
+		}
+		@Override
+		public int getMaxThreadCount() {
+			return maxThreadCount;
+		}
+		@Override
+		public void increaseThreadCount() {
+			maxThreadCount++;
+		}
+		@Override
+		public void decreaseThreadCount() {
+			maxThreadCount--;
+		}
+	}
+
+	@Before
+	public void setUp() {
+		target = new ThreadCountControllable();
+		controller = new AdaptiveThreadCountController(target, 2, 4, 1000);
+	}
+
+	@Test
+	public void testNoPolls() {
+		assertEquals(Decision.NONE, controller.decide(0, 0, 0, 1000, 2));
+	}
+
+	@Test
+	public void testIncreaseWhenBusy() {
+		assertEquals(Decision.INCREASE, controller.decide(100, 100, 1000, 1000, 2));
+		assertEquals(Decision.INCREASE, controller.decide(200, 200, 2000, 1000, 3));
+		assertEquals("must not exceed maximum", Decision.NONE, controller.decide(300, 300, 3000, 1000, 4));
+	}
+
+	@Test
+	public void testDecreaseWhenIdle() {
+		assertEquals(Decision.DECREASE_IDLE, controller.decide(100, 10, 100, 1000, 3));
+		assertEquals("must not go below minimum", Decision.NONE, controller.decide(100, 10, 100, 1000, 2));
+	}
+
+	@Test
+	public void testDecreaseWhenLatencyGrowsWithoutThroughputGain() {
+		assertEquals(Decision.INCREASE, controller.decide(100, 100, 1000, 1000, 3));
+		// latency 10 times higher, throughput the same
+		assertEquals(Decision.DECREASE_LATENCY, controller.decide(100, 100, 10000, 1000, 4));
+	}
+
+	@Test
+	public void testNoDecreaseWhenLatencyGrowsWithThroughput() {
+		assertEquals(Decision.INCREASE, controller.decide(100, 100, 1000, 1000, 2));
+		assertEquals(Decision.INCREASE, controller.decide(300, 300, 9000, 1000, 3));
+	}
+
+	@Test
+	public void testPollCompletedAdjustsTarget() throws Exception {
+		controller = new AdaptiveThreadCountController(target, 2, 4, 0);
+		controller.pollCompleted(true, 10);
+		assertEquals(3, target.getMaxThreadCount());
+		assertEquals(1, controller.getIncreases().getValue());
+	}
+}
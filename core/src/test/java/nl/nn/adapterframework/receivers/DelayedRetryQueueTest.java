@@ -0,0 +1,89 @@
+package nl.nn.adapterframework.receivers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import nl.nn.adapterframework.core.IListenerConnector;
+import nl.nn.adapterframework.jms.BatchedSessionCommitter;
+
+public class DelayedRetryQueueTest {
+
+	private Receiver<String> receiver;
+	private DelayedRetryQueue<String> queue;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		receiver = mock(Receiver.class);
+		queue = new DelayedRetryQueue<>(receiver);
+		queue.open();
+	}
+
+	@After
+	public void tearDown() {
+		queue.close();
+	}
+
+	@Test
+	public void testRetryAfterDelay() {
+		Map<String,Object> threadContext = new HashMap<>();
+		queue.schedule("message", threadContext, 50);
+		assertEquals(1, queue.getPending().getValue());
+		verify(receiver, never()).processDelayedRetry(any(), any());
+
+		verify(receiver, timeout(2000)).processDelayedRetry(eq("message"), eq(threadContext));
+		assertEquals(0, queue.getPending().getValue());
+		assertEquals(1, queue.getScheduled().getValue());
+	}
+
+	@Test
+	public void testCloseRetriesPendingMessages() {
+		Map<String,Object> threadContext = new HashMap<>();
+		queue.schedule("message", threadContext, 3600000);
+		queue.close();
+
+		verify(receiver).processDelayedRetry(eq("message"), eq(threadContext));
+		assertEquals(0, queue.getPending().getValue());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testResourcesOfReceivingThreadAreNotRetained() {
+		Map<String,Object> threadContext = new HashMap<>();
+		threadContext.put("key", "value");
+		threadContext.put(IListenerConnector.THREAD_CONTEXT_SESSION_KEY, mock(javax.jms.Session.class));
+		threadContext.put(BatchedSessionCommitter.THREAD_CONTEXT_KEY, "committer");
+		threadContext.put("connection", mock(java.sql.Connection.class));
+		queue.schedule("message", threadContext, 3600000);
+		threadContext.put("key", "changed");
+		queue.close();
+
+		ArgumentCaptor<Map<String,Object>> captor = ArgumentCaptor.forClass(Map.class);
+		verify(receiver).processDelayedRetry(eq("message"), captor.capture());
+		Map<String,Object> retryContext = captor.getValue();
+		assertEquals("value", retryContext.get("key"));
+		assertFalse(retryContext.containsKey(IListenerConnector.THREAD_CONTEXT_SESSION_KEY));
+		assertFalse(retryContext.containsKey(BatchedSessionCommitter.THREAD_CONTEXT_KEY));
+		assertFalse(retryContext.containsKey("connection"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testScheduleWhenClosed() {
+		queue.close();
+		queue.schedule("message", new HashMap<>(), 10);
+	}
+}
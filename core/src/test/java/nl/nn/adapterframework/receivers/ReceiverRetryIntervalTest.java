@@ -0,0 +1,48 @@
+package nl.nn.adapterframework.receivers;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.junit.Test;
+
+import nl.nn.adapterframework.core.IListener;
+import nl.nn.adapterframework.core.IPullingListener;
+import nl.nn.adapterframework.core.IPushingListener;
+import nl.nn.adapterframework.util.RunStateEnum;
+
+public class ReceiverRetryIntervalTest {
+
+	private Receiver<String> createReceiver(IListener<String> listener) {
+		Receiver<String> receiver = new Receiver<>();
+		receiver.setName("receiver");
+		receiver.setListener(listener);
+		receiver.setDelayedRetry(true);
+		receiver.setRunState(RunStateEnum.STARTED);
+		return receiver;
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testPullingListenerSuspendsPolling() {
+		Receiver<String> receiver = createReceiver(mock(IPullingListener.class));
+
+		long start = System.currentTimeMillis();
+		receiver.increaseRetryIntervalAndWait(null, "failure");
+
+		assertTrue("calling thread should not be blocked", System.currentTimeMillis() - start < 900);
+		assertTrue(receiver.isSuspended());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testPushingListenerWaitsForRetryInterval() {
+		Receiver<String> receiver = createReceiver(mock(IPushingListener.class));
+
+		long start = System.currentTimeMillis();
+		receiver.increaseRetryIntervalAndWait(null, "failure");
+
+		assertTrue("calling thread should wait for the retry interval", System.currentTimeMillis() - start >= 900);
+		assertFalse("nothing polls a pushing listener, suspending it would not back off", receiver.isSuspended());
+	}
+}
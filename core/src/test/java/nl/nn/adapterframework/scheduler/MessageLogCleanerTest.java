@@ -0,0 +1,89 @@
+package nl.nn.adapterframework.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import nl.nn.adapterframework.jdbc.JdbcException;
+import nl.nn.adapterframework.jdbc.JdbcFacade;
+import nl.nn.adapterframework.jdbc.JdbcTestBase;
+import nl.nn.adapterframework.scheduler.MessageLogCleaner.CleanupResult;
+
+public class MessageLogCleanerTest extends JdbcTestBase {
+
+	private JdbcFacade facade;
+
+	public MessageLogCleanerTest(String productKey, String url, String userid, String password, boolean testPeekDoesntFindRecordsAlreadyLocked) throws SQLException {
+		super(productKey, url, userid, password, testPeekDoesntFindRecordsAlreadyLocked);
+		facade = new JdbcFacade() {
+			@Override
+			public Connection getConnection() throws JdbcException {
+				try {
+					return MessageLogCleanerTest.this.getConnection();
+				} catch (SQLException e) {
+					throw new JdbcException(e);
+				}
+			}
+		};
+	}
+
+	private void insertRows(int firstKey, int count, String type, Date expiryDate) throws SQLException {
+		try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO TEMP (TKEY,TVARCHAR,TDATETIME) VALUES (?,?,?)")) {
+			for (int i=0; i<count; i++) {
+				stmt.setInt(1, firstKey+i);
+				stmt.setString(2, type);
+				stmt.setTimestamp(3, new Timestamp(expiryDate.getTime()));
+				stmt.execute();
+			}
+		}
+	}
+
+	private int countRows() throws SQLException {
+		try (PreparedStatement stmt = connection.prepareStatement("SELECT COUNT(*) FROM TEMP"); ResultSet rs = stmt.executeQuery()) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+
+	private List<CleanupResult> cleanup(int chunkSize, int maxRows) throws SQLException {
+		Date now = new Date();
+		insertRows(1, 12, "L", new Date(now.getTime()-60000));
+		insertRows(20, 8, "A", new Date(now.getTime()-60000));
+		insertRows(40, 2, "E", new Date(now.getTime()-60000));
+		insertRows(60, 3, "L", new Date(now.getTime()+60000));
+
+		MessageLogCleaner cleaner = new MessageLogCleaner();
+		cleaner.setChunkSize(chunkSize);
+		cleaner.setMaxRows(maxRows);
+		cleaner.addTable(facade, "TEMP", "TKEY", "TVARCHAR", "TDATETIME");
+		return cleaner.cleanup(now);
+	}
+
+	@Test
+	public void testCleanupInChunks() throws SQLException {
+		List<CleanupResult> results = cleanup(3, 0);
+
+		assertEquals(1, results.size());
+		assertNull(results.get(0).getError());
+		assertEquals(20, results.get(0).getRowsDeleted());
+		assertEquals(5, countRows());
+	}
+
+	@Test
+	public void testCleanupStopsAtMaxRows() throws SQLException {
+		List<CleanupResult> results = cleanup(3, 7);
+
+		assertNull(results.get(0).getError());
+		assertEquals(7, results.get(0).getRowsDeleted());
+		assertEquals(18, countRows());
+	}
+}
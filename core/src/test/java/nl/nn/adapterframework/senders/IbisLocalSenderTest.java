@@ -0,0 +1,226 @@
+/*
+   Copyright 2021 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package nl.nn.adapterframework.senders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import nl.nn.adapterframework.configuration.Configuration;
+import nl.nn.adapterframework.core.Adapter;
+import nl.nn.adapterframework.core.IListener;
+import nl.nn.adapterframework.core.IMessageHandler;
+import nl.nn.adapterframework.core.IPushingListener;
+import nl.nn.adapterframework.core.PipeLine;
+import nl.nn.adapterframework.core.PipeLineExit;
+import nl.nn.adapterframework.core.PipeLineSession;
+import nl.nn.adapterframework.core.PipeRunException;
+import nl.nn.adapterframework.core.PipeRunResult;
+import nl.nn.adapterframework.pipes.FixedForwardPipe;
+import nl.nn.adapterframework.processors.CorePipeLineProcessor;
+import nl.nn.adapterframework.processors.CorePipeProcessor;
+import nl.nn.adapterframework.receivers.JavaListener;
+import nl.nn.adapterframework.receivers.Receiver;
+import nl.nn.adapterframework.stream.Message;
+import nl.nn.adapterframework.util.RunStateEnum;
+
+public class IbisLocalSenderTest extends SenderTestBase<IbisLocalSender> {
+
+	private JavaListener listener;
+	private Object receivedRequest;
+	private AtomicBoolean streamClosed = new AtomicBoolean();
+
+	@Override
+	public IbisLocalSender createSender() throws Exception {
+		IMessageHandler<String> handler = mock(IMessageHandler.class);
+		doAnswer(invocation -> {
+			Message message = invocation.getArgument(3);
+			Map<String,Object> context = invocation.getArgument(4);
+			receivedRequest = message.asObject();
+			context.put("returnedKey", "returnedValue");
+			context.put("otherKey", "otherValue");
+			return new Message(new ByteArrayInputStream(("<reply>"+message.asString()+"</reply>").getBytes()));
+		}).when(handler).processRequest(any(), any(), any(), any(), any());
+
+		listener = new JavaListener();
+		listener.setName("IbisLocalSenderTestListener");
+		listener.setHandler(handler);
+		listener.configure();
+		listener.open();
+
+		IbisLocalSender sender = new IbisLocalSender();
+		sender.setJavaListener(listener.getName());
+		sender.setCheckDependency(false);
+		return sender;
+	}
+
+	@After
+	public void closeListener() throws Exception {
+		listener.close();
+	}
+
+	@Test
+	public void streamIsPassedThrough() throws Exception {
+		sender.configure();
+		sender.open();
+
+		InputStream request = new ByteArrayInputStream("<request/>".getBytes());
+		Message result = sendMessage(new Message(request));
+
+		assertSame(request, receivedRequest);
+		assertTrue(result.asObject() instanceof InputStream);
+		assertEquals("<reply><request/></reply>", result.asString());
+	}
+
+	@Test
+	public void onlyReturnedSessionKeysAreCopied() throws Exception {
+		sender.setReturnedSessionKeys("returnedKey");
+		sender.configure();
+		sender.open();
+
+		sendMessage("<request/>");
+
+		assertEquals("returnedValue", session.get("returnedKey"));
+		assertFalse(session.containsKey("otherKey"));
+	}
+
+	@Test
+	public void streamReturnedByAdapterIsNotClosed() throws Exception {
+		Adapter adapter = createStreamingAdapter("IbisLocalSenderTestStreamingListener");
+		try {
+			IbisLocalSender localSender = new IbisLocalSender();
+			localSender.setJavaListener("IbisLocalSenderTestStreamingListener");
+			localSender.setCheckDependency(false);
+			localSender.configure();
+			localSender.open();
+
+			Message result = localSender.sendMessage(new Message("<request/>"), session);
+
+			assertFalse("stream was closed before it was returned", streamClosed.get());
+			assertTrue(result.asObject() instanceof InputStream);
+			assertEquals("<streamed/>", result.asString());
+		} finally {
+			adapter.stopRunning();
+		}
+	}
+
+	@Test
+	public void undeclaredSessionKeysAreNotCopiedToCallerContext() throws Exception {
+		JavaListener javaListener = new JavaListener();
+		javaListener.setName("IbisLocalSenderTestSessionKeysListener");
+		Adapter adapter = createStreamingAdapter(javaListener, "returnedKey");
+		try {
+			Map<String,Object> context = new HashMap<>();
+			Message result = javaListener.processRequest("cid", new Message("<request/>"), context);
+
+			assertEquals("<streamed/>", result.asString());
+			assertEquals("returnedValue", context.get("returnedKey"));
+			assertFalse(context.containsKey("otherKey"));
+		} finally {
+			adapter.stopRunning();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void streamIsClosedWhenResultIsNotReturnedToAnAdapter() throws Exception {
+		IPushingListener<String> pushingListener = mock(IPushingListener.class);
+		when(pushingListener.getName()).thenReturn("IbisLocalSenderTestPushingListener");
+		Adapter adapter = createStreamingAdapter(pushingListener, null);
+		try {
+			Receiver<String> receiver = (Receiver<String>) adapter.getReceiverByName("streamingReceiver");
+			receiver.processRequest(pushingListener, "cid", "<request/>", new Message("<request/>"), new HashMap<>());
+
+			assertTrue("stream registered on the session of the called adapter was not closed", streamClosed.get());
+		} finally {
+			adapter.stopRunning();
+		}
+	}
+
+	private Adapter createStreamingAdapter(String listenerName) throws Exception {
+		JavaListener javaListener = new JavaListener();
+		javaListener.setName(listenerName);
+		return createStreamingAdapter(javaListener, null);
+	}
+
+	private Adapter createStreamingAdapter(IListener<String> listener, String returnedSessionKeys) throws Exception {
+		Adapter adapter = spy(Adapter.class);
+		adapter.setName("IbisLocalSenderTestStreamingAdapter");
+		adapter.setConfiguration(mock(Configuration.class));
+		adapter.setTaskExecutor(new SyncTaskExecutor());
+
+		CorePipeLineProcessor pipeLineProcessor = new CorePipeLineProcessor();
+		pipeLineProcessor.setPipeProcessor(new CorePipeProcessor());
+		PipeLine pipeline = new PipeLine();
+		pipeline.setPipeLineProcessor(pipeLineProcessor);
+		PipeLineExit exit = new PipeLineExit();
+		exit.setPath("EXIT");
+		exit.setState("success");
+		pipeline.registerPipeLineExit(exit);
+		FixedForwardPipe pipe = new FixedForwardPipe() {
+			@Override
+			public PipeRunResult doPipe(Message message, PipeLineSession session) throws PipeRunException {
+				// like a sender that returns a stream, that is closed when the session is closed if nobody consumes it
+				InputStream stream = new FilterInputStream(new ByteArrayInputStream("<streamed/>".getBytes())) {
+					@Override
+					public void close() throws IOException {
+						streamClosed.set(true);
+						super.close();
+					}
+				};
+				session.put("returnedKey", "returnedValue");
+				session.put("otherKey", "otherValue");
+				Message result = new Message(stream);
+				result.closeOnCloseOf(session);
+				return new PipeRunResult(getForward(), result);
+			}
+		};
+		pipe.setName("streamingPipe");
+		pipeline.addPipe(pipe);
+		adapter.setPipeLine(pipeline);
+
+		Receiver<String> receiver = new Receiver<>();
+		receiver.setName("streamingReceiver");
+		receiver.setListener(listener);
+		receiver.setReturnedSessionKeys(returnedSessionKeys);
+		PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+		when(txManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		receiver.setTxManager(txManager);
+		adapter.registerReceiver(receiver);
+
+		adapter.configure();
+		adapter.startRunning();
+		while (adapter.getRunState() != RunStateEnum.STARTED) {
+			Thread.sleep(100);
+		}
+		return adapter;
+	}
+}
@@ -2,11 +2,19 @@ package nl.nn.adapterframework.senders;
 
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import nl.nn.adapterframework.core.IAsyncSender;
+import nl.nn.adapterframework.core.PipeLineSession;
 import nl.nn.adapterframework.stream.Message;
 import nl.nn.adapterframework.testutil.TestAssertions;
 import nl.nn.adapterframework.testutil.TestFileUtils;
@@ -15,7 +23,11 @@ public class ParallelSendersTest extends SenderTestBase<ParallelSenders> {
 
 	private static final int DELAY = 2000;
 	private ThreadPoolTaskExecutor executor = null;
+	private boolean rejectThreads = false;
 	protected TaskExecutor getTaskExecutor() {
+		if(rejectThreads) {
+			return task -> fail("no thread should have been started");
+		}
 		if(executor == null) {
 			executor = new ThreadPoolTaskExecutor();
 			executor.setCorePoolSize(10);
@@ -64,6 +76,53 @@ public class ParallelSendersTest extends SenderTestBase<ParallelSenders> {
 		assertTrue(duration < DELAY + 1000);
 	}
 
+	private class AsyncTestSender extends EchoSender implements IAsyncSender {
+		private ScheduledExecutorService scheduler;
+
+		public AsyncTestSender(String name, ScheduledExecutorService scheduler) {
+			setName(name);
+			this.scheduler = scheduler;
+		}
+
+		@Override
+		public boolean isAsyncEnabled() {
+			return true;
+		}
+
+		@Override
+		public CompletableFuture<Message> sendMessageAsync(Message message, PipeLineSession session) {
+			CompletableFuture<Message> future = new CompletableFuture<>();
+			scheduler.schedule(() -> future.complete(new Message("reply of "+getName())), DELAY, TimeUnit.MILLISECONDS);
+			return future;
+		}
+	}
+
+	@Test
+	public void test10AsyncSubSendersWithoutThreads() throws Exception {
+		ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+		try {
+			rejectThreads = true;
+			long startTime = System.currentTimeMillis();
+			for (int i = 0; i < 10; i++) {
+				sender.registerSender(new AsyncTestSender("Sender"+i, scheduler));
+			}
+
+			sender.configure();
+			sender.open();
+
+			Message message = new Message("<dummy/>");
+			String result = sender.sendMessage(message, session).asString();
+			for (int i = 0; i < 10; i++) {
+				assertTrue(result, result.contains("senderName=\"Sender"+i+"\" type=\"String\">reply of Sender"+i+"</result>"));
+			}
+
+			long duration = System.currentTimeMillis() - startTime;
+			assertTrue("Test took ["+duration+"]s", duration < DELAY + 1000);
+		} finally {
+			scheduler.shutdownNow();
+		}
+	}
+
 	@Test
 	public void test5wrappersWith10SubSenders() throws Exception {
 		long startTime = System.currentTimeMillis();
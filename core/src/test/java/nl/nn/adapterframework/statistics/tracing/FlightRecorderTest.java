@@ -0,0 +1,116 @@
+package nl.nn.adapterframework.statistics.tracing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class FlightRecorderTest {
+
+	private MessageTrace processMessage(FlightRecorder flightRecorder, String adapterName, long sleep) throws InterruptedException {
+		flightRecorder.messageReceived(System.nanoTime(), 5);
+		int root = flightRecorder.beginMessage(adapterName, "mid-"+adapterName);
+		int pipe = flightRecorder.beginSpan(SpanType.PIPE, "pipe1");
+		int sender = flightRecorder.beginSpan(SpanType.JDBC, "sender1");
+		Thread.sleep(sleep);
+		flightRecorder.endSpan(sender);
+		flightRecorder.endSpan(pipe);
+		int nested = flightRecorder.beginMessage("nestedAdapter", "nested-mid");
+		flightRecorder.endMessage(nested, true);
+		flightRecorder.endMessage(root, true);
+		return flightRecorder.getRecentTraces(1).get(0);
+	}
+
+	@Test
+	public void testSpanTree() throws Exception {
+		FlightRecorder flightRecorder = new FlightRecorder(true, 10, 2, 100);
+		MessageTrace trace = processMessage(flightRecorder, "adapter", 1);
+
+		assertEquals("adapter", trace.getAdapterName());
+		assertEquals("mid-adapter", trace.getMessageId());
+		assertEquals(5, trace.getReceiverWaitMillis());
+		assertTrue(trace.isSuccessful());
+		assertEquals(5, trace.getSpanCount());
+
+		assertEquals(SpanType.ADAPTER, trace.getSpanType(0));
+		assertEquals(-1, trace.getParentSpan(0));
+		assertEquals(SpanType.RECEIVER, trace.getSpanType(1));
+		assertEquals(0, trace.getParentSpan(1));
+		assertEquals(SpanType.PIPE, trace.getSpanType(2));
+		assertEquals(0, trace.getParentSpan(2));
+		assertEquals(SpanType.JDBC, trace.getSpanType(3));
+		assertEquals(2, trace.getParentSpan(3));
+		assertEquals(SpanType.ADAPTER, trace.getSpanType(4));
+		assertEquals("nestedAdapter", trace.getSpanName(4));
+		assertEquals(0, trace.getParentSpan(4));
+
+		assertTrue(trace.getSpanDurationMicros(3)>=1000);
+		assertTrue(trace.getDurationMicros()>=trace.getSpanDurationMicros(2));
+	}
+
+	@Test
+	public void testNoSpansOutsideMessage() {
+		FlightRecorder flightRecorder = new FlightRecorder(true, 10, 2, 100);
+		assertEquals(-1, flightRecorder.beginSpan(SpanType.PIPE, "pipe"));
+		flightRecorder.endSpan(-1);
+		assertEquals(0, flightRecorder.getNumberOfTracesRecorded());
+	}
+
+	@Test
+	public void testInactive() {
+		FlightRecorder flightRecorder = new FlightRecorder(false, 10, 2, 100);
+		int root = flightRecorder.beginMessage("adapter", "mid");
+		assertEquals(-1, root);
+		flightRecorder.endMessage(root, true);
+		assertEquals(0, flightRecorder.getNumberOfTracesRecorded());
+	}
+
+	@Test
+	public void testMaxSpans() {
+		FlightRecorder flightRecorder = new FlightRecorder(true, 10, 2, 3);
+		int root = flightRecorder.beginMessage("adapter", "mid");
+		for (int i=0; i<5; i++) {
+			flightRecorder.endSpan(flightRecorder.beginSpan(SpanType.PIPE, "pipe"+i));
+		}
+		flightRecorder.endMessage(root, false);
+		MessageTrace trace = flightRecorder.getRecentTraces(1).get(0);
+		assertEquals(3, trace.getSpanCount());
+		assertEquals(3, trace.getDroppedSpans());
+		assertFalse(trace.isSuccessful());
+	}
+
+	@Test
+	public void testSlowestTracesSurviveRingBuffer() throws Exception {
+		FlightRecorder flightRecorder = new FlightRecorder(true, 3, 1, 100);
+		MessageTrace slow = processMessage(flightRecorder, "slow", 20);
+		for (int i=0; i<10; i++) {
+			processMessage(flightRecorder, "fast"+i, 0);
+		}
+		assertEquals(11, flightRecorder.getNumberOfTracesRecorded());
+		assertEquals(3, flightRecorder.getRecentTraces(10).size());
+
+		List<MessageTrace> slowest = flightRecorder.getSlowestTraces(2);
+		assertEquals(2, slowest.size());
+		assertSame(slow, slowest.get(0));
+
+		flightRecorder.clear();
+		assertTrue(flightRecorder.getSlowestTraces(2).isEmpty());
+	}
+
+	@Test
+	public void testZipkinExport() throws Exception {
+		FlightRecorder flightRecorder = new FlightRecorder(true, 10, 2, 100);
+		processMessage(flightRecorder, "adapter", 0);
+		String json = ZipkinTraceExporter.toJson(flightRecorder.getSlowestTraces(1));
+
+		assertTrue(json, json.startsWith("[{\"traceId\":\""));
+		assertTrue(json, json.contains("\"name\":\"jdbc sender1\""));
+		assertTrue(json, json.contains("\"serviceName\":\"adapter\""));
+		assertTrue(json, json.contains("\"messageId\":\"mid-adapter\""));
+		assertEquals(5, json.split("\"traceId\"").length-1);
+	}
+}
@@ -16,9 +16,17 @@
 package nl.nn.adapterframework.util;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
+import nl.nn.adapterframework.core.IAdapter;
 import nl.nn.adapterframework.core.Resource;
 import nl.nn.adapterframework.testutil.TestFileUtils;
 import nl.nn.adapterframework.util.flow.FlowDiagramManager;
@@ -78,6 +86,63 @@ public class FlowDiagramTest {
 		flow.afterPropertiesSet();
 	}
 
+	@Test
+	public void generatesFlowInBackgroundAndReusesUnchangedDiagram() throws Exception {
+		AtomicInteger generated = new AtomicInteger();
+		IFlowGenerator generator = new IFlowGenerator() {
+			@Override
+			public void afterPropertiesSet() {}
+			@Override
+			public void destroy() {}
+			@Override
+			public void setFileExtension(String extension) {}
+			@Override
+			public String getFileExtension() {
+				return "svg";
+			}
+			@Override
+			public void generateFlow(String name, String dot, OutputStream outputStream) throws IOException {
+				generated.incrementAndGet();
+				outputStream.write(("<svg>"+name+"</svg>").getBytes());
+			}
+		};
+
+		FlowDiagramManager flow = new FlowDiagramManager() {
+			@Override
+			protected IFlowGenerator createFlowGenerator() {
+				return generator;
+			}
+		};
+		flow.afterPropertiesSet();
+
+		IAdapter adapter = mock(IAdapter.class);
+		when(adapter.getName()).thenReturn("FlowDiagramTestAdapter");
+		when(adapter.getAdapterConfigurationAsString()).thenReturn("<adapter name=\"FlowDiagramTestAdapter\" description=\""+UUID.randomUUID()+"\"/>");
+		try {
+			flow.generate(adapter);
+			assertEquals("<svg>adapter[FlowDiagramTestAdapter]</svg>", waitForFlow(flow, adapter));
+			assertEquals(1, generated.get());
+
+			flow.generate(adapter);
+			assertEquals("<svg>adapter[FlowDiagramTestAdapter]</svg>", waitForFlow(flow, adapter));
+			assertEquals("unchanged adapter should reuse the generated diagram", 1, generated.get());
+		} finally {
+			flow.destroy();
+		}
+	}
+
+	private String waitForFlow(FlowDiagramManager flow, IAdapter adapter) throws Exception {
+		String result = null;
+		for (int i=0; i<100; i++) {
+			result = Misc.streamToString(flow.get(adapter));
+			if (result.startsWith("<svg>")) {
+				return result;
+			}
+			Thread.sleep(100);
+		}
+		return result;
+	}
+
 	@Test
 	public void testAdapter2DotXslWithoutFirstPipe() throws Exception {
 		TransformerPool.clearTransformerPools();
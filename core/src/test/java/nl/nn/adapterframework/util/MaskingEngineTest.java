@@ -0,0 +1,73 @@
+package nl.nn.adapterframework.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class MaskingEngineTest {
+
+	@Test
+	public void testRequiredLiteral() {
+		assertEquals("password=\"", MaskingEngine.getRequiredLiteral("(?<=password=\").+?(?=\")"));
+		assertEquals("iban:", MaskingEngine.getRequiredLiteral("iban:\\s*\\w+"));
+		assertEquals("a.b", MaskingEngine.getRequiredLiteral("a\\.b[0-9]+"));
+		assertEquals("ab", MaskingEngine.getRequiredLiteral("abc?d"));
+		assertEquals("ab", MaskingEngine.getRequiredLiteral("ab+c"));
+		assertEquals("", MaskingEngine.getRequiredLiteral("[0-9]{4}"));
+		assertEquals("", MaskingEngine.getRequiredLiteral("abc|def"));
+		assertEquals("", MaskingEngine.getRequiredLiteral("(?<=pass\\w+=).+"));
+	}
+
+	@Test
+	public void testHideAllWithMultipleExpressions() {
+		MaskingEngine engine = MaskingEngine.getInstance(Arrays.asList("(?<=password=\").+?(?=\")", "[0-9]{4}"));
+		assertEquals("user=\"me\" password=\"******\" pin=****", engine.hideAll("user=\"me\" password=\"secret\" pin=1234", 0));
+		assertEquals("nothing to hide", engine.hideAll("nothing to hide", 0));
+	}
+
+	@Test
+	public void testHideAllFirstHalf() {
+		MaskingEngine engine = MaskingEngine.getInstance(Arrays.asList("secret", "[0-9]{4}"));
+		assertEquals("my ***ret is **34", engine.hideAll("my secret is 1234", 1));
+	}
+
+	@Test
+	public void testPrefilterSkipsMessageWithoutLiterals() {
+		MaskingEngine engine = MaskingEngine.getInstance(Arrays.asList("iban:\\s*\\w+", "bsn=[0-9]+"));
+		String message = "no sensitive data here";
+		assertSame(message, engine.hideAll(message, 0));
+		assertEquals("******* **************", engine.hideAll("bsn=123 iban: NL01BANK", 0));
+	}
+
+	@Test
+	public void testBackReferencesAreNotCombined() {
+		MaskingEngine engine = MaskingEngine.getInstance(Arrays.asList("(['\"]).*?\\1", "[0-9]{4}"));
+		assertEquals("say ******* 1 time, ****", engine.hideAll("say 'hello' 1 time, 1234", 0));
+	}
+
+	@Test
+	public void testInstancesAreCached() {
+		assertSame(MaskingEngine.getInstance(Arrays.asList("a+", "b+")), MaskingEngine.getInstance(Arrays.asList("b+", "a+")));
+		assertSame(MaskingEngine.getInstance(null), MaskingEngine.getInstance(Collections.singleton("")));
+	}
+
+	@Test
+	public void testOverlappingMatchesAreHiddenCompletely() {
+		MaskingEngine engine = MaskingEngine.getInstance(Arrays.asList("abc", "cd"));
+		assertEquals("x****x", engine.hideAll("xabcdx", 0));
+		assertEquals("x***dx", engine.hideAll("xabcdx", 1));
+	}
+
+	@Test
+	public void testRecentlyUsedInstancesStayCached() {
+		MaskingEngine engine = MaskingEngine.getInstance(Collections.singleton("recently used"));
+		for (int i = 0; i < 200; i++) {
+			MaskingEngine.getInstance(Collections.singleton("other" + i));
+			assertSame(engine, MaskingEngine.getInstance(Collections.singleton("recently used")));
+		}
+	}
+}
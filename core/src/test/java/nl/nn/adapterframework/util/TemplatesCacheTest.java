@@ -0,0 +1,119 @@
+package nl.nn.adapterframework.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TemplatesCacheTest {
+
+	private ClassLoader classLoader1 = new ClassLoader() {};
+	private ClassLoader classLoader2 = new ClassLoader() {};
+	private AtomicInteger compilations = new AtomicInteger();
+	private TransformerFactory factory;
+	private Source source = new StreamSource();
+
+	@Before
+	public void setUp() throws Exception {
+		factory = mock(TransformerFactory.class);
+		when(factory.newTemplates(any(Source.class))).thenAnswer(invocation -> {
+			compilations.incrementAndGet();
+			return mock(Templates.class);
+		});
+	}
+
+	@Test
+	public void stylesheetIsCompiledOncePerClassLoader() throws Exception {
+		TemplatesCache cache = new TemplatesCache(true, 10);
+
+		Templates templates = cache.getTemplates(classLoader1, "hash1", "sysId", 2, factory, source);
+		assertSame(templates, cache.getTemplates(classLoader1, "hash1", "sysId", 2, factory, source));
+		assertNotSame(templates, cache.getTemplates(classLoader1, "hash1", "sysId", 1, factory, source));
+		assertNotSame(templates, cache.getTemplates(classLoader1, "hash1", "otherSysId", 2, factory, source));
+		assertNotSame(templates, cache.getTemplates(classLoader2, "hash1", "sysId", 2, factory, source));
+
+		assertEquals(4, compilations.get());
+		assertEquals(1, cache.getHits());
+		assertEquals(4, cache.getMisses());
+		assertEquals(20.0, cache.getHitRate(), 0.01);
+	}
+
+	@Test
+	public void leastRecentlyUsedStylesheetIsEvicted() throws Exception {
+		TemplatesCache cache = new TemplatesCache(true, 2);
+
+		cache.getTemplates(classLoader1, "hash1", null, 2, factory, source);
+		cache.getTemplates(classLoader1, "hash2", null, 2, factory, source);
+		cache.getTemplates(classLoader1, "hash1", null, 2, factory, source);
+		cache.getTemplates(classLoader1, "hash3", null, 2, factory, source);
+		assertEquals(2, cache.size());
+
+		cache.getTemplates(classLoader1, "hash1", null, 2, factory, source);
+		assertEquals(3, compilations.get());
+		cache.getTemplates(classLoader1, "hash2", null, 2, factory, source);
+		assertEquals(4, compilations.get());
+	}
+
+	@Test
+	public void stylesheetsAreRemovedWithTheirClassLoader() throws Exception {
+		TemplatesCache cache = new TemplatesCache(true, 10);
+		cache.getTemplates(classLoader1, "hash1", null, 2, factory, source);
+		cache.getTemplates(classLoader2, "hash1", null, 2, factory, source);
+		assertEquals(2, cache.size());
+
+		cache.remove(classLoader1);
+
+		assertEquals(1, cache.size());
+		cache.getTemplates(classLoader1, "hash1", null, 2, factory, source);
+		assertEquals(3, compilations.get());
+	}
+
+	@Test
+	public void failedCompilationIsNotCached() throws Exception {
+		TemplatesCache cache = new TemplatesCache(true, 10);
+		try {
+			TransformerFactory failingFactory = mock(TransformerFactory.class);
+			when(failingFactory.newTemplates(any(Source.class))).thenThrow(new TransformerConfigurationException("invalid stylesheet"));
+			cache.getTemplates(classLoader1, "hash1", null, 2, failingFactory, source);
+			fail("expected TransformerConfigurationException");
+		} catch (TransformerConfigurationException e) {
+			assertEquals("invalid stylesheet", e.getMessage());
+		}
+		assertEquals(0, cache.size());
+		cache.getTemplates(classLoader1, "hash1", null, 2, factory, source);
+		assertEquals(1, compilations.get());
+	}
+
+	@Test
+	public void stylesheetsAreNotCachedForClosedClassLoader() throws Exception {
+		TemplatesCache cache = new TemplatesCache(true, 10);
+		cache.getTemplates(classLoader1, "hash1", null, 2, factory, source);
+
+		cache.close(classLoader1);
+		assertEquals(0, cache.size());
+		cache.getTemplates(classLoader1, "hash1", null, 2, factory, source);
+		cache.getTemplates(classLoader1, "hash1", null, 2, factory, source);
+		assertEquals(0, cache.size());
+		assertEquals(3, compilations.get());
+
+		cache.open(classLoader1);
+		cache.getTemplates(classLoader1, "hash1", null, 2, factory, source);
+		cache.getTemplates(classLoader1, "hash1", null, 2, factory, source);
+		assertEquals(1, cache.size());
+		assertEquals(4, compilations.get());
+	}
+}
@@ -84,4 +84,23 @@ public class TransformerPoolTest {
 		assertEquals(3, TransformerPool.getTransformerPoolsKeys().size());
 	}
 
+	@Test
+	public void compiledStylesheetIsSharedBetweenPools() throws Exception {
+		TemplatesCache cache = TemplatesCache.getInstance();
+		cache.clear();
+		Resource resource = Resource.getResource(stylesheetURL);
+
+		// the first pool can compile other stylesheets as well, e.g. to detect the xslt version
+		TransformerPool transformerPool1 = TransformerPool.getInstance(resource, 0, false);
+		long hits = cache.getHits();
+		long misses = cache.getMisses();
+		TransformerPool transformerPool2 = TransformerPool.getInstance(resource, 0, false);
+
+		assertEquals(misses, cache.getMisses());
+		assertEquals(hits + 1, cache.getHits());
+		assertEquals(expectedStylesheetURL, transformerPool2.transform(xml, null).replaceAll("[\n\r]", ""));
+		transformerPool1.close();
+		transformerPool2.close();
+	}
+
 }
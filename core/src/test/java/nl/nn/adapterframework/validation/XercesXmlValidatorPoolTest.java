@@ -0,0 +1,85 @@
+package nl.nn.adapterframework.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import javax.xml.validation.ValidatorHandler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.XMLReader;
+
+import nl.nn.adapterframework.core.PipeLineSession;
+import nl.nn.adapterframework.testutil.TestFileUtils;
+
+public class XercesXmlValidatorPoolTest {
+
+	private static final String XSD = ValidatorTestBase.BASE_DIR_VALIDATION + "/Basic/xsd/A_correct.xsd";
+	private static final String INPUT_OK = ValidatorTestBase.BASE_DIR_VALIDATION + "/Basic/in/ok.xml";
+	private static final String INPUT_ERR = ValidatorTestBase.BASE_DIR_VALIDATION + "/Basic/in/with_errors.xml";
+
+	private XercesXmlValidator validator;
+
+	@Before
+	public void setUp() throws Exception {
+		validator = new XercesXmlValidator();
+		validator.setSchemasProvider(new SchemasProviderImpl("http://www.ing.com/testxmlns", XSD));
+		validator.configure("init");
+		validator.start();
+	}
+
+	@After
+	public void tearDown() {
+		validator.stop();
+	}
+
+	@Test
+	public void testValidatorHandlerIsReused() throws Exception {
+		String ok = TestFileUtils.getTestFile(INPUT_OK);
+		String err = TestFileUtils.getTestFile(INPUT_ERR);
+
+		assertEquals(AbstractXmlValidator.XML_VALIDATOR_VALID_MONITOR_EVENT, validator.validate(ok, new PipeLineSession(), "test", null, null));
+		assertEquals(AbstractXmlValidator.XML_VALIDATOR_NOT_VALID_MONITOR_EVENT, validator.validate(err, new PipeLineSession(), "test", null, null));
+		assertEquals(AbstractXmlValidator.XML_VALIDATOR_VALID_MONITOR_EVENT, validator.validate(ok, new PipeLineSession(), "test", null, null));
+
+		assertEquals(1, validator.getValidatorHandlerPool().getCreatedCount());
+		assertEquals(3, validator.getValidatorHandlerPool().getBorrowedCount());
+		assertEquals(3, validator.getValidatorHandlerPool().getReturnedCount());
+		assertEquals(0, validator.getValidatorHandlerPool().getNumActive());
+	}
+
+	@Test
+	public void testValidatorHandlerIsReset() throws Exception {
+		PipeLineSession session = new PipeLineSession();
+		ValidationContext context = validator.createValidationContext(session, null, null);
+		ValidatorHandler first = validator.getValidatorHandler(session, context);
+		validator.releaseValidatorHandler(context, first);
+
+		assertNull(first.getContentHandler());
+
+		ValidationContext context2 = validator.createValidationContext(session, null, null);
+		ValidatorHandler second = validator.getValidatorHandler(session, context2);
+		assertSame(first, second);
+		assertSame(context2.getErrorHandler(), second.getErrorHandler());
+	}
+
+	@Test
+	public void testValidatingParserIsReused() throws Exception {
+		PipeLineSession session = new PipeLineSession();
+		ValidationContext context = validator.createValidationContext(session, null, null);
+		XMLReader first = validator.createValidatingParser(session, context);
+		XMLReader concurrent = validator.createValidatingParser(session, context);
+		validator.releaseValidatingParser(context, first);
+		validator.releaseValidatingParser(context, concurrent);
+
+		XMLReader reused = validator.createValidatingParser(session, context);
+		assertSame(context.getErrorHandler(), reused.getErrorHandler());
+		validator.releaseValidatingParser(context, reused);
+
+		assertEquals(2, validator.getParserPool().getCreatedCount());
+		assertEquals(3, validator.getParserPool().getBorrowedCount());
+		assertEquals(2, validator.getParserPool().getNumIdle());
+	}
+}
@@ -30,6 +30,16 @@ function f4(x,y) {
 	return a == c && b == d;
 }
 
+//Used to test the reuse of runtimes, the global variable is retained as long as the runtime is reused.
+var calls = 0;
+function countCalls(x){
+	calls++;
+	if (x == "fail") {
+		throw "failure requested";
+	}
+	return ""+calls;
+}
+
 //Used to test the performance.
 function performance(x){
 	var data = [];
@@ -18,7 +18,7 @@ LABEL VARCHAR(100),
 CONSTRAINT PK_IBISSTORE PRIMARY KEY (MESSAGEKEY)
 );
 
-CREATE INDEX IX_IBISSTORE ON IBISSTORE (TYPE, SLOTID, MESSAGEDATE);
+CREATE INDEX IX_IBISSTORE ON IBISSTORE (TYPE, SLOTID, MESSAGEDATE, MESSAGEKEY);
 CREATE INDEX IX_IBISSTORE_02 ON IBISSTORE (EXPIRYDATE);
 
 